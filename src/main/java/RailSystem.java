@@ -1,17 +1,35 @@
+import userInterface.BatchPlanner;
 import userInterface.UserControl;
 import dto.RailLine;
 import dto.RailStation;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 import util.DocumentParser;
+import util.NetworkSnapshot;
+import util.StationNameMatcher;
+import util.graph.CostWeights;
 import util.graph.GraphGenerator;
 import util.graph.GraphObjectGenerator;
+import util.graph.Landmarks;
+import util.graph.Timetable;
+import util.graph.TimetableGenerator;
 import util.FileParser;
 
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /*Code references for whole project:
 * https://graphstream-project.org/doc/
@@ -36,6 +54,7 @@ import java.util.ArrayList;
 */
 
 public class RailSystem {
+    private static final String SNAPSHOT_FILE = "rail-network.snapshot";
 
     public static void main(String[] args) throws IOException, ParserConfigurationException, SAXException {
         try{
@@ -48,18 +67,53 @@ public class RailSystem {
                 return;
             }
 
-            //parse the KML files
-            FileParser parser = new FileParser();
-            parser.traverse(parseDoc(railLinesPath));
-            parser.traverse(parseDoc(railStationsPath));
+            List<String> options = Arrays.asList(args).subList(2, args.length);
+            int landmarkCount = landmarkCount(options);
+            long startupStart = System.nanoTime();
+
+            //load the prebuilt network when the snapshot matches the source files
+            File snapshotFile = new File(railLinesPath.getAbsoluteFile().getParentFile(), SNAPSHOT_FILE);
+            GraphObjectGenerator graphObjectGenerator = null;
+            if (!options.contains("--no-snapshot")) {
+                graphObjectGenerator = NetworkSnapshot.load(snapshotFile, railLinesPath, railStationsPath);
+            }
+            boolean fromSnapshot = graphObjectGenerator != null;
+            boolean changed = !fromSnapshot;
+            if (!fromSnapshot) {
+                graphObjectGenerator = buildNetwork(railLinesPath, railStationsPath, landmarkCount, options);
+            } else if (graphObjectGenerator.getLandmarkCount() != landmarkCount) {
+                //only the landmarks depend on the option, so the rest of the snapshot is still valid
+                graphObjectGenerator.setLandmarkCount(landmarkCount);
+                graphObjectGenerator.setLandmarks(Landmarks.build(graphObjectGenerator.getRoutingGraph(), landmarkCount));
+                changed = true;
+            }
+            if (changed && !options.contains("--no-snapshot")) {
+                try {
+                    NetworkSnapshot.write(snapshotFile, graphObjectGenerator, railLinesPath, railStationsPath);
+                } catch (IOException e) {
+                    System.err.println("Could not write snapshot: " + e.getMessage());
+                }
+            }
 
-            //set the rail lines for each station
-            setRailLines(parser.getRailLines(), parser.getRailStations());
-            GraphObjectGenerator graphObjectGenerator = new GraphObjectGenerator(parser.getRailLines(), parser.getRailStations());
-            graphObjectGenerator.controller();
-            //generate the graph
-            GraphGenerator graphGenerator = new GraphGenerator(graphObjectGenerator);
+            //generate the graph, a headless start leaves the display graph until a map is first shown
+            String batchFile = optionValue(options, "--batch=");
+            boolean headless = options.contains("--headless") || batchFile != null;
+            GraphGenerator graphGenerator = new GraphGenerator(graphObjectGenerator, headless);
             graphGenerator.generateGraph(graphObjectGenerator.getStations());
+            System.out.println("Startup completed in " + (System.nanoTime() - startupStart) / 1_000_000 + " ms (" + (fromSnapshot ? "loaded from snapshot" : "built from KML files") + (headless ? ", headless" : "") + ")");
+            loadTimetable(graphGenerator, graphObjectGenerator, options);
+            CostWeights costWeights = costWeights(options);
+            if (costWeights != null) {
+                graphGenerator.setCostWeights(costWeights);
+            }
+            //forcing a collection to measure the heap stalls startup, so it only happens when asked for
+            if (options.contains("--report-heap")) {
+                System.out.printf("Heap in use after startup: %.1f MB%n", usedHeapMegabytes());
+            }
+            if (batchFile != null) {
+                runBatch(graphGenerator, batchFile, options);
+                return;
+            }
             //pass to user control
             UserControl userControl = new UserControl(graphGenerator);
             userControl.start();
@@ -68,22 +122,170 @@ public class RailSystem {
         }
     }
 
+    private static String optionValue(List<String> options, String prefix) {
+        for (String option : options) {
+            if (option.startsWith(prefix)) {
+                return option.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    private static void runBatch(GraphGenerator graphGenerator, String batchFile, List<String> options) throws IOException, InterruptedException {
+        //plan every request in the file instead of starting the menu, the file extension picks CSV or NDJSON
+        String outputFile = optionValue(options, "--batch-output=");
+        String order = optionValue(options, "--batch-order=");
+        int threads = Runtime.getRuntime().availableProcessors();
+        String threadOption = optionValue(options, "--threads=");
+        if (threadOption != null) {
+            try {
+                threads = Integer.parseInt(threadOption);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid thread count: " + threadOption);
+            }
+        }
+        BatchPlanner batchPlanner = new BatchPlanner(graphGenerator.createRouter(), threads, !"completion".equals(order), graphGenerator.getCostWeights());
+        //results go to standard output without an output file, so the summary then goes to standard error
+        try (BufferedReader input = Files.newBufferedReader(new File(batchFile).toPath(), StandardCharsets.UTF_8);
+             Writer output = outputFile == null ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) : Files.newBufferedWriter(new File(outputFile).toPath(), StandardCharsets.UTF_8)) {
+            BatchPlanner.BatchSummary summary = batchPlanner.run(input, isNdjson(batchFile), output, outputFile == null ? isNdjson(batchFile) : isNdjson(outputFile));
+            (outputFile == null ? System.err : System.out).println(summary.describe());
+        }
+    }
+
+    private static void loadTimetable(GraphGenerator graphGenerator, GraphObjectGenerator graphObjectGenerator, List<String> options) throws IOException {
+        //a GTFS style stop_times file, or trains every N seconds on every line, otherwise one is generated when first needed
+        String timetableFile = optionValue(options, "--timetable=");
+        String headway = optionValue(options, "--headway=");
+        if (timetableFile == null && headway == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        Timetable timetable;
+        if (timetableFile != null) {
+            try (BufferedReader input = Files.newBufferedReader(new File(timetableFile).toPath(), StandardCharsets.UTF_8)) {
+                timetable = Timetable.read(input, graphGenerator.getStationIndex());
+            }
+        } else {
+            TimetableGenerator timetableGenerator = new TimetableGenerator();
+            try {
+                timetableGenerator.setDefaultHeadway(Integer.parseInt(headway));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid headway: " + headway);
+            }
+            timetable = timetableGenerator.generate(graphGenerator.getRoutingGraph(), graphObjectGenerator.getLineToStationsMap());
+        }
+        graphGenerator.setTimetable(timetable);
+        System.out.printf("Timetable %s in %.1f ms (%d connections, %d trips)%n", timetableFile != null ? "loaded" : "generated", (System.nanoTime() - start) / 1_000_000.0, timetable.getConnectionCount(), timetable.getTripCount());
+    }
+
+    private static CostWeights costWeights(List<String> options) {
+        //per kilometre, per stop and per line change, for the balanced routes of the menu and of batch files
+        String weights = optionValue(options, "--cost-weights=");
+        if (weights == null) {
+            return null;
+        }
+        String[] parts = weights.split(",");
+        try {
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("expected three numbers");
+            }
+            return new CostWeights(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim()));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid cost weights '" + weights + "', expected <per km>,<per stop>,<per change>: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isNdjson(String file) {
+        String name = file.toLowerCase();
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json");
+    }
+
+    private static int landmarkCount(List<String> options) {
+        for (String option : options) {
+            if (option.startsWith("--landmarks=")) {
+                try {
+                    return Math.max(0, Integer.parseInt(option.substring("--landmarks=".length())));
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid landmark count: " + option);
+                }
+            }
+        }
+        return Landmarks.DEFAULT_COUNT;
+    }
+
+    private static GraphObjectGenerator buildNetwork(File railLinesPath, File railStationsPath, int landmarkCount, List<String> options) throws IOException, ParserConfigurationException, SAXException, XMLStreamException {
+        //parse the KML files, streaming by default with the DOM parser as a fallback
+        FileParser parser = new FileParser();
+        if (options.contains("--dom")) {
+            parser.traverse(parseDoc(railLinesPath));
+            parser.traverse(parseDoc(railStationsPath));
+        } else {
+            parser.parse(railLinesPath);
+            parser.parse(railStationsPath);
+        }
+
+        //set the rail lines for each station
+        setRailLines(parser.getRailLines(), parser.getRailStations());
+        GraphObjectGenerator graphObjectGenerator = new GraphObjectGenerator(parser.getRailLines(), parser.getRailStations());
+        graphObjectGenerator.setLandmarkCount(landmarkCount);
+        graphObjectGenerator.controller();
+        return graphObjectGenerator;
+    }
+
+    private static double usedHeapMegabytes() {
+        //collect first so the figure reflects what the network keeps alive
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0);
+    }
+
     private static Document parseDoc(File fileKML) throws ParserConfigurationException, IOException, SAXException {
         return DocumentParser.parseDocument(fileKML);
     }
 
     public static void setRailLines(ArrayList<RailLine> railLines, ArrayList<RailStation> railStations) {
+        //give each distinct station name a pattern id so that shared names are matched once
+        Map<String, Integer> patternIds = new HashMap<>();
+        List<String> patterns = new ArrayList<>();
         for (RailStation station : railStations) {
-            ArrayList<RailLine> lines = new ArrayList<>();
-            String stationName = station.getName();
+            if (station != null && station.getName() != null && !patternIds.containsKey(station.getName())) {
+                patternIds.put(station.getName(), patterns.size());
+                patterns.add(station.getName());
+            }
+        }
 
-            for (RailLine line : railLines) {
-                //check if the name of the line contains the name of the station
-                if (line.getName() != null && line.getName().contains(stationName)) {
-                    lines.add(line);
+        List<ArrayList<RailLine>> linesForPattern = new ArrayList<>(patterns.size());
+        for (int p = 0; p < patterns.size(); p++) {
+            linesForPattern.add(new ArrayList<>());
+        }
+
+        //scan every line name once, collecting the stations whose names it contains
+        StationNameMatcher matcher = new StationNameMatcher(patterns);
+        int[] lastLineForPattern = new int[patterns.size()];
+        Arrays.fill(lastLineForPattern, -1);
+        for (int l = 0; l < railLines.size(); l++) {
+            RailLine line = railLines.get(l);
+            if (line == null || line.getName() == null) {
+                continue;
+            }
+            int lineIndex = l;
+            matcher.findAll(line.getName(), p -> {
+                //a name can occur more than once in a line name, but the line is only added once
+                if (lastLineForPattern[p] != lineIndex) {
+                    lastLineForPattern[p] = lineIndex;
+                    linesForPattern.get(p).add(line);
                 }
+            });
+        }
+
+        for (RailStation station : railStations) {
+            if (station == null) {
+                continue;
             }
-            station.setRailLines(lines);
+            Integer patternId = station.getName() == null ? null : patternIds.get(station.getName());
+            station.setRailLines(patternId == null ? new ArrayList<>() : new ArrayList<>(linesForPattern.get(patternId)));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,362 @@
+package userInterface;
+
+import util.StationIndex;
+import util.graph.CostWeights;
+import util.graph.RouteResult;
+import util.graph.RouteType;
+import util.graph.Router;
+import util.graph.RoutingGraph;
+import util.graph.SearchAlgorithm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/*Batch route planning code references:
+* https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/util/concurrent/ExecutorService.html
+* https://datatracker.ietf.org/doc/html/rfc4180
+* https://github.com/ndjson/ndjson-spec
+*/
+
+//plans every (start, end, mode) request in a CSV or NDJSON file on a pool of threads sharing one read only network,
+//results are streamed out as they finish or in the order of the input, followed by a throughput and latency summary
+public class BatchPlanner {
+    //one router for every thread, each query keeps its own search state and only reads the network
+    private final Router router;
+    private final RoutingGraph routingGraph;
+    //station names matched ignoring case and punctuation, built once for every request
+    private final StationIndex stationIndex;
+    private final int threadCount;
+    private final boolean inputOrder;
+    //what distance, stops and changes cost in the balanced mode
+    private final CostWeights costWeights;
+
+    public BatchPlanner(Router router, int threadCount, boolean inputOrder) {
+        this(router, threadCount, inputOrder, CostWeights.DEFAULT);
+    }
+
+    public BatchPlanner(Router router, int threadCount, boolean inputOrder, CostWeights costWeights) {
+        if (costWeights == null) {
+            throw new IllegalArgumentException("Cost weights cannot be null");
+        }
+        this.router = router;
+        this.costWeights = costWeights;
+        this.routingGraph = router.getSnapshot().getRoutingGraph();
+        this.threadCount = Math.max(1, threadCount);
+        this.inputOrder = inputOrder;
+        this.stationIndex = new StationIndex(routingGraph.getStationNames());
+    }
+
+    public BatchSummary run(BufferedReader input, boolean ndjsonInput, Writer output, boolean ndjsonOutput) throws IOException, InterruptedException {
+        List<BatchRequest> requests = readRequests(input, ndjsonInput);
+        long start = System.nanoTime();
+        LinkedBlockingQueue<BatchResult> finished = new LinkedBlockingQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (BatchRequest request : requests) {
+                executor.execute(() -> finished.add(plan(request)));
+            }
+
+            if (!ndjsonOutput) {
+                output.write("index,start,end,mode,status,distance_km,stops,changes,latency_us,route\n");
+            }
+            //results that finish early wait here until every earlier one has been written
+            BatchResult[] waiting = new BatchResult[requests.size()];
+            int nextIndex = 0;
+            long[] latencies = new long[requests.size()];
+            int failed = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                BatchResult result = finished.take();
+                latencies[i] = result.latencyNanos;
+                if (!result.status.equals("ok")) {
+                    failed++;
+                }
+                if (!inputOrder) {
+                    write(output, result, ndjsonOutput);
+                    continue;
+                }
+                waiting[result.request.index] = result;
+                while (nextIndex < waiting.length && waiting[nextIndex] != null) {
+                    write(output, waiting[nextIndex], ndjsonOutput);
+                    waiting[nextIndex++] = null;
+                }
+            }
+            output.flush();
+            return new BatchSummary(requests.size(), failed, System.nanoTime() - start, latencies);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<BatchRequest> readRequests(BufferedReader input, boolean ndjson) throws IOException {
+        List<BatchRequest> requests = new ArrayList<>();
+        String line;
+        while ((line = input.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields;
+            try {
+                fields = ndjson ? jsonFields(line) : csvFields(line);
+            } catch (IllegalArgumentException e) {
+                //a malformed line fails on its own and the rest of the batch still runs
+                requests.add(new BatchRequest(requests.size(), "", "", "", e.getMessage()));
+                continue;
+            }
+            //a CSV header names the columns rather than asking for a route
+            if (!ndjson && requests.isEmpty() && fields[0].equalsIgnoreCase("start") && fields[1].equalsIgnoreCase("end")) {
+                continue;
+            }
+            requests.add(new BatchRequest(requests.size(), fields[0], fields[1], fields[2].isEmpty() ? "shortest" : fields[2].toLowerCase(), null));
+        }
+        return requests;
+    }
+
+    private BatchResult plan(BatchRequest request) {
+        long start = System.nanoTime();
+        if (request.error != null) {
+            return new BatchResult(request, "error: " + request.error, null, System.nanoTime() - start);
+        }
+        int source = stationIndex.find(request.start);
+        int destination = stationIndex.find(request.end);
+        if (source == -1 || destination == -1) {
+            return new BatchResult(request, (source == -1 ? "unknown start" : "unknown end"), null, System.nanoTime() - start);
+        }
+
+        RouteType routeType;
+        SearchAlgorithm algorithm = SearchAlgorithm.STANDARD;
+        switch (request.mode) {
+            case "shortest":
+                routeType = RouteType.SHORTEST;
+                if (router.getSnapshot().getContractionHierarchy() != null) {
+                    algorithm = SearchAlgorithm.CONTRACTION_HIERARCHY;
+                }
+                break;
+            case "least":
+            case "stops":
+                routeType = RouteType.LEAST_STOPS;
+                break;
+            case "changes":
+                routeType = RouteType.LEAST_CHANGES;
+                break;
+            case "balanced":
+            case "cost":
+                routeType = RouteType.GENERALISED_COST;
+                break;
+            default:
+                return new BatchResult(request, "unknown mode", null, System.nanoTime() - start);
+        }
+
+        try {
+            RouteResult result = routeType == RouteType.GENERALISED_COST ? router.route(source, destination, costWeights) : router.route(source, destination, routeType, algorithm);
+            return new BatchResult(request, result.isFound() ? "ok" : "no route", result.isFound() ? result : null, System.nanoTime() - start);
+        } catch (Exception e) {
+            return new BatchResult(request, "error: " + e.getMessage(), null, System.nanoTime() - start);
+        }
+    }
+
+    private void write(Writer output, BatchResult result, boolean ndjson) throws IOException {
+        BatchRequest request = result.request;
+        RouteResult path = result.route;
+        StringBuilder route = new StringBuilder();
+        for (int i = 0; path != null && i < path.getStations().length; i++) {
+            route.append(i == 0 ? "" : " > ").append(routingGraph.getStationName(path.getStations()[i]));
+        }
+        String distance = path == null ? "" : String.format(Locale.ROOT, "%.3f", path.getDistance());
+        String stops = path == null ? "" : String.valueOf(path.getStops());
+        String changes = path == null ? "" : String.valueOf(path.getChanges());
+        long latency = result.latencyNanos / 1_000;
+
+        if (ndjson) {
+            output.write("{\"index\":" + request.index + ",\"start\":" + jsonString(request.start) + ",\"end\":" + jsonString(request.end)
+                    + ",\"mode\":" + jsonString(request.mode) + ",\"status\":" + jsonString(result.status)
+                    + ",\"distance_km\":" + (path == null ? "null" : distance) + ",\"stops\":" + (path == null ? "null" : stops)
+                    + ",\"changes\":" + (path == null ? "null" : changes) + ",\"latency_us\":" + latency
+                    + ",\"route\":" + (path == null ? "null" : jsonString(route.toString())) + "}\n");
+        } else {
+            output.write(request.index + "," + csvField(request.start) + "," + csvField(request.end) + "," + csvField(request.mode) + "," + csvField(result.status)
+                    + "," + distance + "," + stops + "," + changes + "," + latency + "," + csvField(route.toString()) + "\n");
+        }
+    }
+
+    static String[] csvFields(String line) {
+        //quoted fields may hold commas and doubled quotes
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return requestFields(fields.toArray(new String[0]));
+    }
+
+    static String[] jsonFields(String line) {
+        //a flat object of string values is all a request needs, so only that much JSON is read
+        Map<String, String> values = new HashMap<>();
+        int i = line.indexOf('{') + 1;
+        while (i > 0 && i < line.length()) {
+            int keyStart = line.indexOf('"', i);
+            if (keyStart == -1) {
+                break;
+            }
+            StringBuilder key = new StringBuilder();
+            i = readJsonString(line, keyStart, key);
+            i = line.indexOf(':', i) + 1;
+            while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            StringBuilder value = new StringBuilder();
+            if (i < line.length() && line.charAt(i) == '"') {
+                i = readJsonString(line, i, value);
+            } else {
+                while (i < line.length() && line.charAt(i) != ',' && line.charAt(i) != '}') {
+                    value.append(line.charAt(i++));
+                }
+            }
+            values.put(key.toString(), value.toString().trim());
+            i = line.indexOf(',', i) + 1;
+        }
+        return requestFields(new String[]{values.getOrDefault("start", ""), values.getOrDefault("end", ""), values.getOrDefault("mode", "")});
+    }
+
+    private static int readJsonString(String line, int quote, StringBuilder out) {
+        int i = quote + 1;
+        while (i < line.length() && line.charAt(i) != '"') {
+            char c = line.charAt(i++);
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (i == line.length()) {
+                break;
+            }
+            char escaped = line.charAt(i++);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    out.append(escaped);
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'u':
+                    //exactly four hex digits, a sign or a short escape is malformed
+                    int code = 0;
+                    for (int end = i + 4; i < end; i++) {
+                        int digit = i < line.length() ? Character.digit(line.charAt(i), 16) : -1;
+                        if (digit == -1) {
+                            throw new IllegalArgumentException("malformed unicode escape in JSON string");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    out.append((char) code);
+                    break;
+                default:
+                    throw new IllegalArgumentException("invalid escape \\" + escaped + " in JSON string");
+            }
+        }
+        if (i >= line.length()) {
+            throw new IllegalArgumentException("unterminated JSON string");
+        }
+        return i + 1;
+    }
+
+    private static String[] requestFields(String[] fields) {
+        //start, end and mode, with missing fields left empty
+        String[] padded = Arrays.copyOf(fields, Math.max(3, fields.length));
+        for (int i = 0; i < padded.length; i++) {
+            if (padded[i] == null) {
+                padded[i] = "";
+            }
+        }
+        return padded;
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder escaped = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.append('"').toString();
+    }
+
+    //error is set when the line could not be read and the request fails without being planned
+    private record BatchRequest(int index, String start, String end, String mode, String error) {}
+
+    private record BatchResult(BatchRequest request, String status, RouteResult route, long latencyNanos) {}
+
+    public record BatchSummary(int requestCount, int failedCount, long wallNanos, long[] latencyNanos) {
+        public double throughput() {
+            return requestCount / (wallNanos / 1_000_000_000.0);
+        }
+
+        public double percentileMicros(double percentile) {
+            if (latencyNanos.length == 0) {
+                return 0.0;
+            }
+            long[] sorted = latencyNanos.clone();
+            Arrays.sort(sorted);
+            //nearest rank, so p99 of 100 requests is the 99th slowest rather than an interpolation
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1_000.0;
+        }
+
+        public String describe() {
+            return String.format(Locale.ROOT, "Planned %d routes (%d failed) in %.1f ms: %.0f routes/s, p50 %.1f us, p99 %.1f us",
+                    requestCount, failedCount, wallNanos / 1_000_000.0, throughput(), percentileMicros(50), percentileMicros(99));
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package userInterface;
 
+import util.StationIndex;
 import util.graph.GraphGenerator;
+import util.graph.RouteType;
+import util.graph.SearchAlgorithm;
+import util.graph.Timetable;
 
+import java.util.List;
 import java.util.Scanner;
 public class UserControl {
     private Scanner scanner = new Scanner(System.in);
@@ -24,13 +29,14 @@ public class UserControl {
         System.out.println("2. Plan a route");
         System.out.println("3. Plan a route with the A* algorithm");
         System.out.println("4. Plan a route with the least amount of line changes");
-        System.out.println("5. Exit");
+        System.out.println("5. Plan a route by earliest arrival time");
+        System.out.println("6. Exit");
 
         String input = scanner.nextLine();
 
-        if (input == null || input.isEmpty() || (!input.equals("1") && !input.equals("2") && !input.equals("3") && !input.equals("4")  && !input.equals("5"))) {
+        if (input == null || input.isEmpty() || (!input.equals("1") && !input.equals("2") && !input.equals("3") && !input.equals("4")  && !input.equals("5") && !input.equals("6"))) {
             //error handling for invalid input
-            System.out.println("Please enter a valid option (1-5)");
+            System.out.println("Please enter a valid option (1-6)");
             return;
         }
 
@@ -53,11 +59,14 @@ public class UserControl {
                     break;
 
                 case "5":
+                    planEarliestArrival();
+                    break;
+                case "6":
                     System.out.println("Thank you for using the London Transport System!");
                     System.exit(0);
                     break;
                 default:
-                    System.out.println("Please enter a valid option (1-5).");
+                    System.out.println("Please enter a valid option (1-6).");
             }
         } catch (Exception e) {
             System.out.println("An error occurred: " + e.getMessage());
@@ -76,6 +85,10 @@ public class UserControl {
                 System.out.println("Starting station cannot be empty.");
                 return;
             }
+            start = resolveStation(start);
+            if (start == null) {
+                return;
+            }
 
             System.out.println("Please enter the name of the destination station: ");
             String end = scanner.nextLine();
@@ -83,21 +96,34 @@ public class UserControl {
                 System.out.println("Destination station cannot be empty.");
                 return;
             }
+            end = resolveStation(end);
+            if (end == null) {
+                return;
+            }
 
             if (start.equalsIgnoreCase(end)) {
                 System.out.println("Start and destination stations cannot be the same.");
                 return;
             }
 
-            System.out.println("Would you like to view the shortest route or route with the least amount of stops? (shortest/least) ");
+            System.out.println("Would you like to view the shortest route, the route with the least amount of stops, the best balance of distance, stops and line changes or every trade-off between them? (shortest/least/balanced/all) ");
             String decision = scanner.nextLine();
-            if (decision == null || (!decision.equalsIgnoreCase("shortest") && !decision.equalsIgnoreCase("least"))) {
-                System.out.println("Please enter either 'shortest' or 'least'.");
+            if (decision == null || (!decision.equalsIgnoreCase("shortest") && !decision.equalsIgnoreCase("least") && !decision.equalsIgnoreCase("balanced") && !decision.equalsIgnoreCase("all"))) {
+                System.out.println("Please enter either 'shortest', 'least', 'balanced' or 'all'.");
                 return;
             }
 
-            boolean isShortestRoute = decision.equalsIgnoreCase("shortest");
-            boolean success = graphGenerator.planRoute(start, end, isShortestRoute, aStar, false);
+            boolean success;
+            if (decision.equalsIgnoreCase("all")) {
+                //all three criteria come from a single search
+                success = graphGenerator.planRoute(start, end, RouteType.ALL_TRADE_OFFS, SearchAlgorithm.STANDARD);
+            } else if (decision.equalsIgnoreCase("balanced")) {
+                //one cost made of all three criteria
+                success = graphGenerator.planRoute(start, end, RouteType.GENERALISED_COST, SearchAlgorithm.STANDARD);
+            } else {
+                boolean isShortestRoute = decision.equalsIgnoreCase("shortest");
+                success = graphGenerator.planRoute(start, end, isShortestRoute, aStar, false);
+            }
             //if the route planning was successful, ask if the user wants to view the map
             if (success) {
                 viewMapOfRoute();
@@ -115,6 +141,10 @@ public class UserControl {
                 System.out.println("Starting station cannot be empty.");
                 return false;
             }
+            start = resolveStation(start);
+            if (start == null) {
+                return false;
+            }
 
             System.out.println("Please enter the name of the destination station: ");
             String end = scanner.nextLine();
@@ -122,6 +152,10 @@ public class UserControl {
                 System.out.println("Destination station cannot be empty.");
                 return false;
             }
+            end = resolveStation(end);
+            if (end == null) {
+                return false;
+            }
 
             if (start.equalsIgnoreCase(end)) {
                 System.out.println("Start and destination stations cannot be the same.");
@@ -137,6 +171,74 @@ public class UserControl {
         return false;
     }
 
+    private void planEarliestArrival() {
+        try {
+            System.out.println("Please enter the name of the starting station: ");
+            String start = scanner.nextLine();
+            if (start == null || start.trim().isEmpty()) {
+                System.out.println("Starting station cannot be empty.");
+                return;
+            }
+            start = resolveStation(start);
+            if (start == null) {
+                return;
+            }
+
+            System.out.println("Please enter the name of the destination station: ");
+            String end = scanner.nextLine();
+            if (end == null || end.trim().isEmpty()) {
+                System.out.println("Destination station cannot be empty.");
+                return;
+            }
+            end = resolveStation(end);
+            if (end == null) {
+                return;
+            }
+
+            System.out.println("Please enter the departure time (HH:MM): ");
+            String time = scanner.nextLine();
+            int departureTime;
+            try {
+                //seconds are optional when typing a time
+                departureTime = Timetable.parseTime(time.trim().split(":").length == 2 ? time.trim() + ":00" : time);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Please enter a time such as 08:30.");
+                return;
+            }
+            graphGenerator.planEarliestArrival(start, end, departureTime);
+        } catch (Exception e) {
+            System.out.println("Error planning route: " + e.getMessage());
+        }
+    }
+
+    private String resolveStation(String name) {
+        StationIndex stationIndex = graphGenerator.getStationIndex();
+        if (stationIndex == null || stationIndex.find(name) != -1) {
+            return name;
+        }
+        //offer the stations the name starts or is a few typing mistakes away from
+        List<String> suggestions = stationIndex.suggest(name, 5);
+        if (suggestions.isEmpty()) {
+            System.out.println("Station '" + name + "' not found.");
+            return null;
+        }
+        System.out.println("Station '" + name + "' not found. Did you mean:");
+        for (int i = 0; i < suggestions.size(); i++) {
+            System.out.println((i + 1) + ". " + suggestions.get(i));
+        }
+        System.out.println("Enter a number to pick a station or press enter to cancel: ");
+        String input = scanner.nextLine();
+        try {
+            int choice = Integer.parseInt(input.trim());
+            if (choice >= 1 && choice <= suggestions.size()) {
+                return suggestions.get(choice - 1);
+            }
+        } catch (NumberFormatException e) {
+            //anything other than one of the numbers cancels
+        }
+        return null;
+    }
+
     private void viewMapOfRoute() {
         System.out.println("Would you like to view the map of the route? (y/n) ");
         String input = scanner.nextLine();
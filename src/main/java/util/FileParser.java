@@ -5,6 +5,15 @@ import dto.RailStation;
 import lombok.Getter;
 import org.w3c.dom.*;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -12,17 +21,192 @@ import java.util.Map;
 /*For file parsing code was taken from:
 * https://www.tutorialspoint.com/java_xml/java_dom_parse_document.htm
 * https://www.geeksforgeeks.org/java-program-to-extract-content-from-a-xml-document/
+* https://docs.oracle.com/javase/tutorial/jaxp/stax/using.html
 */
 @Getter
 public class FileParser {
+    private static final String LINES_DOCUMENT = "London Train Lines";
+    private static final String STATIONS_DOCUMENT = "London stations";
+
     private ArrayList<RailLine> railLines;
     private ArrayList<RailStation> railStations;
+    //throughput of the last streaming parse
+    private int placemarkCount;
+    private long bytesParsed;
+    private long parseTimeNanos;
 
     public FileParser() {
         this.railLines = new ArrayList<>();
         this.railStations = new ArrayList<>();
     }
 
+    public void parse(File fileKML) throws IOException, XMLStreamException {
+        long start = System.nanoTime();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(fileKML))) {
+            placemarkCount = streamDocument(in);
+        }
+        parseTimeNanos = System.nanoTime() - start;
+        bytesParsed = fileKML.length();
+        printThroughput(fileKML.getName());
+    }
+
+    private int streamDocument(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        //KML files never need a DTD, so keep the reader from resolving one
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+
+        Map<String, String> styleColourMap = new HashMap<>();
+        //style of each line, resolved once every style has been read so a repeated style id keeps its last colour
+        Map<RailLine, String> lineStyleIds = new HashMap<>();
+        boolean seenKml = false;
+        boolean seenDocument = false;
+        String docName = null;
+        int depth = 0;
+        int documentDepth = -1;
+        int placemarks = 0;
+
+        //state of the element currently being read, only one placemark or style is open at a time
+        String styleId = null;
+        boolean inLineStyle = false;
+        //like the DOM parser, only the first colour of the first line style in a style counts
+        boolean lineStyleSeen = false;
+        boolean colourRead = false;
+        boolean inPlacemark = false;
+        boolean hasLineString = false;
+        String placemarkName = null;
+        String placemarkStyle = null;
+        String placemarkCoordinates = null;
+
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String tag = reader.getLocalName();
+                    switch (tag) {
+                        case "kml":
+                            seenKml = true;
+                            break;
+                        case "Document":
+                            if (documentDepth == -1) {
+                                seenDocument = true;
+                                documentDepth = depth;
+                            }
+                            break;
+                        case "Style":
+                            //a style without an id is stored under an empty id, as the DOM parser does
+                            String id = reader.getAttributeValue(null, "id");
+                            styleId = id == null ? "" : id;
+                            lineStyleSeen = false;
+                            colourRead = false;
+                            break;
+                        case "LineStyle":
+                            inLineStyle = styleId != null && !lineStyleSeen;
+                            lineStyleSeen = styleId != null;
+                            break;
+                        case "color":
+                            if (inLineStyle && !colourRead) {
+                                //extract the color value and convert it to hex
+                                styleColourMap.put(styleId, convertKmlColourToHex(reader.getElementText()));
+                                colourRead = true;
+                                depth--;
+                            }
+                            break;
+                        case "Placemark":
+                            inPlacemark = true;
+                            hasLineString = false;
+                            placemarkName = null;
+                            placemarkStyle = null;
+                            placemarkCoordinates = null;
+                            break;
+                        case "LineString":
+                            hasLineString = inPlacemark;
+                            break;
+                        case "name":
+                            if (inPlacemark) {
+                                if (placemarkName == null) {
+                                    placemarkName = reader.getElementText();
+                                    depth--;
+                                }
+                            } else if (docName == null && depth == documentDepth + 1) {
+                                docName = reader.getElementText();
+                                depth--;
+                            }
+                            break;
+                        case "styleUrl":
+                            if (inPlacemark && placemarkStyle == null) {
+                                placemarkStyle = reader.getElementText();
+                                depth--;
+                            }
+                            break;
+                        case "coordinates":
+                            if (inPlacemark && placemarkCoordinates == null) {
+                                placemarkCoordinates = reader.getElementText();
+                                depth--;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                    String tag = reader.getLocalName();
+                    if ("Style".equals(tag)) {
+                        styleId = null;
+                        inLineStyle = false;
+                    } else if ("LineStyle".equals(tag)) {
+                        inLineStyle = false;
+                    } else if ("Placemark".equals(tag)) {
+                        inPlacemark = false;
+                        placemarks++;
+                        //emit the object as soon as its placemark closes
+                        if (LINES_DOCUMENT.equals(docName) && hasLineString) {
+                            RailLine railLine = new RailLine();
+                            railLine.setName(placemarkName);
+                            if (placemarkStyle != null) {
+                                lineStyleIds.put(railLine, placemarkStyle.substring(1));
+                            }
+                            railLines.add(railLine);
+                        } else if (STATIONS_DOCUMENT.equals(docName) && placemarkName != null && placemarkCoordinates != null) {
+                            RailStation railStation = new RailStation();
+                            railStation.setName(placemarkName);
+                            railStation.setCoordinates(parseCoordinates(placemarkCoordinates.trim()));
+                            railStations.add(railStation);
+                        }
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (!seenKml || !seenDocument || docName == null) {
+            System.out.println("Document is invalid or does not contain expected elements.");
+            return placemarks;
+        }
+        if (!LINES_DOCUMENT.equals(docName) && !STATIONS_DOCUMENT.equals(docName)) {
+            System.out.println("Unknown document name: " + docName);
+            return placemarks;
+        }
+
+        //styles may be declared after the placemarks that use them or declared again later
+        lineStyleIds.forEach((railLine, lineStyleId) -> {
+            String colour = styleColourMap.get(lineStyleId);
+            if (colour != null) {
+                railLine.setColour(colour);
+            }
+        });
+        return placemarks;
+    }
+
+    private void printThroughput(String fileName) {
+        double seconds = parseTimeNanos / 1_000_000_000.0;
+        double megabytes = bytesParsed / (1024.0 * 1024.0);
+        System.out.printf("Parsed %d placemarks from %s in %d ms (%.0f placemarks/s, %.2f MB/s)%n", placemarkCount, fileName, parseTimeNanos / 1_000_000, seconds > 0 ? placemarkCount / seconds : 0.0, seconds > 0 ? megabytes / seconds : 0.0);
+    }
+
     public void traverse(Document doc) {
         if(doc == null || doc.getDocumentElement() == null || doc.getElementsByTagName("kml").getLength() == 0 || doc.getElementsByTagName("Document").getLength() == 0 || doc.getElementsByTagName("name").getLength() == 0) {
             System.out.println("Document is invalid or does not contain expected elements.");
@@ -31,10 +215,10 @@ public class FileParser {
         Element kmlElement = (Element) doc.getElementsByTagName("kml").item(0);
         Element documentElement = (Element) kmlElement.getElementsByTagName("Document").item(0);
         String docName = documentElement.getElementsByTagName("name").item(0).getTextContent();
-        if ("London Train Lines".equals(docName)) {
+        if (LINES_DOCUMENT.equals(docName)) {
             //parse the document for rail lines
             railLineParser(doc);
-        } else if ("London stations".equals(docName)) {
+        } else if (STATIONS_DOCUMENT.equals(docName)) {
             //parse the document for rail stations
             railStationParser(doc);
         } else {
@@ -102,22 +286,26 @@ public class FileParser {
                 Element tElement = (Element) node;
                 railStation.setName(tElement.getElementsByTagName("name").item(0).getTextContent());
                 String coordinates = tElement.getElementsByTagName("coordinates").item(0).getTextContent().trim();
-                String[] coordinatesStringArray = coordinates.split(",");
-                Double[] coordinatesArray = new Double[2];
-                //ensure the coordinates array is initialised
-                for(int j = 0; j < coordinatesArray.length; j++) {
-                    if(coordinatesStringArray[j].length() > 1){
-                        if(coordinatesArray[j] == null){
-                            coordinatesArray[j] = Double.parseDouble(coordinatesStringArray[j]);
-                        }
-                    }
-                }
-                railStation.setCoordinates(coordinatesArray);
+                railStation.setCoordinates(parseCoordinates(coordinates));
                 railStations.add(railStation);
             }
         }
     }
 
+    private static Double[] parseCoordinates(String coordinates) {
+        String[] coordinatesStringArray = coordinates.split(",");
+        Double[] coordinatesArray = new Double[2];
+        //ensure the coordinates array is initialised
+        for(int j = 0; j < coordinatesArray.length && j < coordinatesStringArray.length; j++) {
+            if(coordinatesStringArray[j].length() > 1){
+                if(coordinatesArray[j] == null){
+                    coordinatesArray[j] = Double.parseDouble(coordinatesStringArray[j]);
+                }
+            }
+        }
+        return coordinatesArray;
+    }
+
     public static String convertKmlColourToHex(String kmlColour) {
         if (kmlColour == null || kmlColour.length() != 8) {
             return "#000000";
@@ -0,0 +1,440 @@
+package util;
+
+import dto.RailLine;
+import dto.RailStation;
+import dto.Route;
+import dto.Station;
+import util.graph.GraphObjectGenerator;
+import util.graph.ContractionHierarchy;
+import util.graph.Landmarks;
+import util.graph.RoutingGraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/*Binary snapshot of the built network, code references:
+* https://docs.oracle.com/javase/8/docs/api/java/nio/channels/FileChannel.html#map-java.nio.channels.FileChannel.MapMode-long-long-
+* https://docs.oracle.com/javase/9/docs/api/java/util/zip/CRC32C.html
+*/
+public class NetworkSnapshot {
+    private static final int MAGIC = 0x524E534E; //"RNSN"
+    private static final int VERSION = 7;
+    //magic, version, source checksum, payload checksum, payload length
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+
+    private NetworkSnapshot() {}
+
+    public static void write(File snapshotFile, GraphObjectGenerator network, File... sources) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        //index every object so that references can be written as ints
+        Map<RailLine, Integer> lineIds = new IdentityHashMap<>();
+        Map<RailStation, Integer> stationIds = new IdentityHashMap<>();
+        List<RailLine> railLines = network.getRailLines();
+        List<RailStation> railStations = network.getRailStations();
+
+        out.writeInt(railLines.size());
+        for (RailLine line : railLines) {
+            lineIds.put(line, lineIds.size());
+            writeString(out, line == null ? null : line.getName());
+            writeString(out, line == null ? null : line.getColour());
+        }
+
+        out.writeInt(railStations.size());
+        for (RailStation station : railStations) {
+            stationIds.put(station, stationIds.size());
+        }
+        for (RailStation station : railStations) {
+            if (station == null) {
+                out.writeBoolean(false);
+                continue;
+            }
+            out.writeBoolean(true);
+            writeString(out, station.getName());
+            writeCoordinates(out, station.getCoordinates());
+            List<RailLine> stationLines = station.getRailLines();
+            out.writeInt(stationLines == null ? -1 : stationLines.size());
+            if (stationLines != null) {
+                for (RailLine line : stationLines) {
+                    out.writeInt(lineIds.getOrDefault(line, -1));
+                }
+            }
+        }
+
+        //stations and their routes form the adjacency of the network
+        out.writeInt(network.getStations().size());
+        for (Station station : network.getStations()) {
+            out.writeInt(stationIds.getOrDefault(station.getRailStation(), -1));
+            out.writeInt(station.getRoutes().size());
+            for (Route route : station.getRoutes()) {
+                out.writeInt(lineIds.getOrDefault(route.getRailLine(), -1));
+                out.writeInt(stationIds.getOrDefault(route.getDestination(), -1));
+                out.writeDouble(route.getWeight());
+            }
+        }
+
+        Map<String, Map<String, Double>> distances = network.getStationDistances();
+        out.writeInt(distances.size());
+        for (Map.Entry<String, Map<String, Double>> entry : distances.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Map.Entry<String, Double> distance : entry.getValue().entrySet()) {
+                writeString(out, distance.getKey());
+                out.writeDouble(distance.getValue());
+            }
+        }
+
+        Map<String, List<RailStation>> lineToStationsMap = network.getLineToStationsMap();
+        out.writeInt(lineToStationsMap == null ? 0 : lineToStationsMap.size());
+        if (lineToStationsMap != null) {
+            for (Map.Entry<String, List<RailStation>> entry : lineToStationsMap.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (RailStation station : entry.getValue()) {
+                    out.writeInt(stationIds.getOrDefault(station, -1));
+                }
+            }
+        }
+
+        //the routing graph is stored as its CSR arrays so that loading it needs no rebuilding
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        out.writeBoolean(routingGraph != null);
+        if (routingGraph != null) {
+            out.writeInt(routingGraph.getStationCount());
+            for (String name : routingGraph.getStationNames()) {
+                writeString(out, name);
+            }
+            writeDoubles(out, routingGraph.getLatitudes());
+            writeDoubles(out, routingGraph.getLongitudes());
+            writeInts(out, routingGraph.getOffsets());
+            writeInts(out, routingGraph.getTargets());
+            writeDoubles(out, routingGraph.getWeights());
+            writeInts(out, routingGraph.getArcEdges());
+            out.writeInt(routingGraph.getColours().length);
+            for (String colour : routingGraph.getColours()) {
+                writeString(out, colour);
+            }
+            writeInts(out, routingGraph.getEdgeColours());
+            out.writeInt(routingGraph.getLineCount());
+            for (String lineName : routingGraph.getLineNames()) {
+                writeString(out, lineName);
+            }
+            writeInts(out, routingGraph.getLineOffsets());
+            writeInts(out, routingGraph.getStationLines());
+        }
+
+        //the contraction hierarchy is stored as its upward arcs, so preprocessing only runs when the sources change
+        ContractionHierarchy contractionHierarchy = network.getContractionHierarchy();
+        out.writeBoolean(contractionHierarchy != null);
+        if (contractionHierarchy != null) {
+            writeInts(out, contractionHierarchy.getRanks());
+            writeInts(out, contractionHierarchy.getOffsets());
+            writeInts(out, contractionHierarchy.getTargets());
+            writeDoubles(out, contractionHierarchy.getWeights());
+            writeInts(out, contractionHierarchy.getMiddles());
+        }
+
+        Landmarks landmarks = network.getLandmarks();
+        out.writeBoolean(landmarks != null);
+        if (landmarks != null) {
+            out.writeInt(network.getLandmarkCount());
+            writeInts(out, landmarks.getLandmarks());
+            writeDoubles(out, landmarks.getDistances());
+            writeInts(out, landmarks.getStops());
+        }
+        out.flush();
+
+        byte[] payload = bytes.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(sourceChecksum(sources)).putLong(crc.getValue()).putInt(payload.length);
+
+        //write to a temporary file first so a crash never leaves half a snapshot behind
+        File tempFile = new File(snapshotFile.getAbsolutePath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+            fileOut.write(header.array());
+            fileOut.write(payload);
+        }
+        Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static GraphObjectGenerator load(File snapshotFile, File... sources) {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                System.out.println("Snapshot " + snapshotFile.getName() + " is truncated, rebuilding network");
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            //check the header before touching the payload
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                System.out.println("Snapshot " + snapshotFile.getName() + " has an unsupported format, rebuilding network");
+                return null;
+            }
+            if (buffer.getLong() != sourceChecksum(sources)) {
+                System.out.println("Source files changed since the snapshot was written, rebuilding network");
+                return null;
+            }
+            long payloadChecksum = buffer.getLong();
+            int payloadLength = buffer.getInt();
+            if (payloadLength != channel.size() - HEADER_SIZE) {
+                System.out.println("Snapshot " + snapshotFile.getName() + " is truncated, rebuilding network");
+                return null;
+            }
+
+            ByteBuffer payload = buffer.slice();
+            CRC32C crc = new CRC32C();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != payloadChecksum) {
+                System.out.println("Snapshot " + snapshotFile.getName() + " failed its checksum, rebuilding network");
+                return null;
+            }
+
+            return readNetwork(payload);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not read snapshot " + snapshotFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static GraphObjectGenerator readNetwork(ByteBuffer in) {
+        ArrayList<RailLine> railLines = new ArrayList<>();
+        int lineCount = in.getInt();
+        for (int i = 0; i < lineCount; i++) {
+            RailLine line = new RailLine();
+            line.setName(readString(in));
+            line.setColour(readString(in));
+            railLines.add(line);
+        }
+
+        ArrayList<RailStation> railStations = new ArrayList<>();
+        int stationCount = in.getInt();
+        for (int i = 0; i < stationCount; i++) {
+            if (in.get() == 0) {
+                railStations.add(null);
+                continue;
+            }
+            RailStation station = new RailStation();
+            station.setName(readString(in));
+            station.setCoordinates(readCoordinates(in));
+            int stationLineCount = in.getInt();
+            if (stationLineCount >= 0) {
+                ArrayList<RailLine> stationLines = new ArrayList<>(stationLineCount);
+                for (int j = 0; j < stationLineCount; j++) {
+                    stationLines.add(lineAt(railLines, in.getInt()));
+                }
+                station.setRailLines(stationLines);
+            }
+            railStations.add(station);
+        }
+
+        List<Station> stations = new ArrayList<>();
+        int networkStationCount = in.getInt();
+        for (int i = 0; i < networkStationCount; i++) {
+            RailStation railStation = stationAt(railStations, in.getInt());
+            int routeCount = in.getInt();
+            ArrayList<Route> routes = new ArrayList<>(routeCount);
+            for (int j = 0; j < routeCount; j++) {
+                Route route = new Route(lineAt(railLines, in.getInt()));
+                route.setDestination(stationAt(railStations, in.getInt()));
+                route.setWeight(in.getDouble());
+                routes.add(route);
+            }
+            stations.add(new Station(railStation, routes));
+        }
+
+        Map<String, Map<String, Double>> stationDistances = new HashMap<>();
+        int distanceCount = in.getInt();
+        for (int i = 0; i < distanceCount; i++) {
+            String source = readString(in);
+            int destinationCount = in.getInt();
+            Map<String, Double> distances = new HashMap<>();
+            for (int j = 0; j < destinationCount; j++) {
+                distances.put(readString(in), in.getDouble());
+            }
+            stationDistances.put(source, distances);
+        }
+
+        Map<String, List<RailStation>> lineToStationsMap = new HashMap<>();
+        int mappedLineCount = in.getInt();
+        for (int i = 0; i < mappedLineCount; i++) {
+            String lineName = readString(in);
+            int stationsOnLine = in.getInt();
+            List<RailStation> lineStations = new ArrayList<>(stationsOnLine);
+            for (int j = 0; j < stationsOnLine; j++) {
+                lineStations.add(stationAt(railStations, in.getInt()));
+            }
+            lineToStationsMap.put(lineName, lineStations);
+        }
+
+        GraphObjectGenerator network = new GraphObjectGenerator(railLines, railStations);
+        network.setStations(stations);
+        network.setStationDistances(stationDistances);
+        network.setLineToStationsMap(lineToStationsMap);
+
+        if (in.get() != 0) {
+            String[] stationNames = new String[in.getInt()];
+            for (int i = 0; i < stationNames.length; i++) {
+                stationNames[i] = readString(in);
+            }
+            double[] latitudes = readDoubles(in);
+            double[] longitudes = readDoubles(in);
+            int[] offsets = readInts(in);
+            int[] targets = readInts(in);
+            double[] weights = readDoubles(in);
+            int[] arcEdges = readInts(in);
+            String[] colours = new String[in.getInt()];
+            for (int i = 0; i < colours.length; i++) {
+                colours[i] = readString(in);
+            }
+            int[] edgeColours = readInts(in);
+            String[] lineNames = new String[in.getInt()];
+            for (int i = 0; i < lineNames.length; i++) {
+                lineNames[i] = readString(in);
+            }
+            int[] lineOffsets = readInts(in);
+            int[] stationLines = readInts(in);
+            network.setRoutingGraph(new RoutingGraph(stationNames, latitudes, longitudes, offsets, targets, weights, arcEdges, colours, edgeColours, lineNames, lineOffsets, stationLines));
+        }
+
+        if (in.get() != 0) {
+            int[] ranks = readInts(in);
+            int[] offsets = readInts(in);
+            int[] targets = readInts(in);
+            double[] weights = readDoubles(in);
+            int[] middles = readInts(in);
+            network.setContractionHierarchy(new ContractionHierarchy(ranks, offsets, targets, weights, middles));
+        }
+
+        if (in.get() != 0) {
+            //the configured count is kept, as a small network may have fewer stations than landmarks asked for
+            network.setLandmarkCount(in.getInt());
+            int[] landmarks = readInts(in);
+            double[] distances = readDoubles(in);
+            int[] stops = readInts(in);
+            network.setLandmarks(new Landmarks(landmarks, distances, stops));
+        }
+        return network;
+    }
+
+    private static long sourceChecksum(File... sources) throws IOException {
+        //checksum the contents so that any edit to a source file invalidates the snapshot
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+        for (File source : sources) {
+            try (InputStream in = Files.newInputStream(source.toPath())) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+            crc.update(ByteBuffer.allocate(8).putLong(source.length()).array());
+        }
+        return crc.getValue();
+    }
+
+    private static RailLine lineAt(List<RailLine> railLines, int index) {
+        return index < 0 ? null : railLines.get(index);
+    }
+
+    private static RailStation stationAt(List<RailStation> railStations, int index) {
+        return index < 0 ? null : railStations.get(index);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] encoded = new byte[length];
+        in.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        //bulk copy straight out of the mapped buffer
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static double[] readDoubles(ByteBuffer in) {
+        double[] values = new double[in.getInt()];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + values.length * Double.BYTES);
+        return values;
+    }
+
+    private static void writeCoordinates(DataOutputStream out, Double[] coordinates) throws IOException {
+        out.writeInt(coordinates == null ? -1 : coordinates.length);
+        if (coordinates != null) {
+            for (Double coordinate : coordinates) {
+                out.writeBoolean(coordinate != null);
+                out.writeDouble(coordinate == null ? 0.0 : coordinate);
+            }
+        }
+    }
+
+    private static Double[] readCoordinates(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        Double[] coordinates = new Double[length];
+        for (int i = 0; i < length; i++) {
+            boolean present = in.get() != 0;
+            double coordinate = in.getDouble();
+            coordinates[i] = present ? coordinate : null;
+        }
+        return coordinates;
+    }
+}
@@ -0,0 +1,210 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*Station name lookup, autocomplete and fuzzy matching code references:
+* https://en.wikipedia.org/wiki/BK-tree
+* https://en.wikipedia.org/wiki/Levenshtein_distance#Iterative_with_two_matrix_rows
+* https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/text/Normalizer.html
+*/
+
+//every station name indexed once, ids are the positions of the names it was built from, a name is found by hashing its
+//normalised form, names starting with a prefix come from one binary search over the sorted normalised names and names within
+//a few edits of a mistyped one come from a BK-tree, which only visits the branches the edit distance bound allows
+public class StationIndex {
+    private static final int NO_CHILD = -1;
+
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    //normalised names in sorted order and the id of each
+    private final String[] sortedKeys;
+    private final int[] sortedIds;
+    //BK-tree over the distinct normalised names, node i holds sortedIds[i], children are chained through nextSibling and
+    //each child is at edgeDistance edits from its parent
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] edgeDistance;
+    private final int root;
+
+    public StationIndex(String[] names) {
+        if (names == null) {
+            throw new IllegalArgumentException("Station names cannot be null");
+        }
+        this.names = names;
+        this.ids = new HashMap<>(names.length * 2);
+        for (int id = 0; id < names.length; id++) {
+            if (names[id] != null) {
+                //the first station keeps a name that normalises the same as another
+                ids.putIfAbsent(normalize(names[id]), id);
+            }
+        }
+
+        sortedKeys = ids.keySet().toArray(new String[0]);
+        Arrays.sort(sortedKeys);
+        sortedIds = new int[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            sortedIds[i] = ids.get(sortedKeys[i]);
+        }
+
+        firstChild = new int[sortedKeys.length];
+        nextSibling = new int[sortedKeys.length];
+        edgeDistance = new int[sortedKeys.length];
+        Arrays.fill(firstChild, NO_CHILD);
+        Arrays.fill(nextSibling, NO_CHILD);
+        //inserting from the middle of the sorted names keeps the tree from starting at one end of the alphabet
+        root = sortedKeys.length == 0 ? NO_CHILD : sortedKeys.length / 2;
+        for (int i = 0; i < sortedKeys.length; i++) {
+            if (i != root) {
+                insert(i);
+            }
+        }
+    }
+
+    public static String normalize(String name) {
+        //case, accents, apostrophes, punctuation and repeated spaces never tell two stations apart
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean space = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else if (c == '\'' || c == '’' || Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public int find(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer id = ids.get(normalize(name));
+        return id == null ? -1 : id;
+    }
+
+    public List<String> complete(String prefix, int limit) {
+        List<String> completions = new ArrayList<>();
+        if (prefix == null) {
+            return completions;
+        }
+        String key = normalize(prefix);
+        //the names starting with the prefix are one run of the sorted array, starting where the prefix itself would go
+        int low = 0;
+        int high = sortedKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedKeys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < sortedKeys.length && completions.size() < limit && sortedKeys[i].startsWith(key); i++) {
+            completions.add(names[sortedIds[i]]);
+        }
+        return completions;
+    }
+
+    public List<String> suggest(String name, int limit) {
+        List<String> suggestions = new ArrayList<>();
+        if (name == null || root == NO_CHILD) {
+            return suggestions;
+        }
+        String key = normalize(name);
+        //a longer name can take more typing mistakes before a suggestion stops being useful
+        int maxDistance = Math.max(1, Math.min(3, key.length() / 4));
+
+        //names that continue what was typed come first, then the closest misspellings
+        for (String completion : complete(name, limit)) {
+            suggestions.add(completion);
+        }
+        List<int[]> matches = new ArrayList<>();
+        int[] stack = new int[sortedKeys.length];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            int distance = levenshtein(key, sortedKeys[node]);
+            if (distance <= maxDistance) {
+                matches.add(new int[]{distance, node});
+            }
+            //by the triangle inequality only children within maxDistance of this node's distance can hold a match
+            for (int child = firstChild[node]; child != NO_CHILD; child = nextSibling[child]) {
+                if (Math.abs(edgeDistance[child] - distance) <= maxDistance) {
+                    stack[top++] = child;
+                }
+            }
+        }
+        matches.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : sortedKeys[a[1]].compareTo(sortedKeys[b[1]]));
+        for (int[] match : matches) {
+            String suggestion = names[sortedIds[match[1]]];
+            if (suggestions.size() >= limit) {
+                break;
+            }
+            //a name can be both a completion and a close match
+            if (!suggestions.contains(suggestion)) {
+                suggestions.add(suggestion);
+            }
+        }
+        return suggestions;
+    }
+
+    private void insert(int node) {
+        int current = root;
+        while (true) {
+            int distance = levenshtein(sortedKeys[node], sortedKeys[current]);
+            int child = firstChild[current];
+            while (child != NO_CHILD && edgeDistance[child] != distance) {
+                child = nextSibling[child];
+            }
+            if (child == NO_CHILD) {
+                edgeDistance[node] = distance;
+                nextSibling[node] = firstChild[current];
+                firstChild[current] = node;
+                return;
+            }
+            current = child;
+        }
+    }
+
+    static int levenshtein(String a, String b) {
+        //two rows of the edit distance table are enough, the exact distance is needed to prune the tree
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
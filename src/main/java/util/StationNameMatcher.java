@@ -0,0 +1,181 @@
+package util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/*Aho-Corasick multi-pattern matching, code references:
+* https://cp-algorithms.com/string/aho_corasick.html
+* https://www.geeksforgeeks.org/aho-corasick-algorithm-pattern-searching/
+*/
+public class StationNameMatcher {
+    private static final int ROOT = 0;
+
+    //trie transitions stored in an open addressing table keyed by (state, char)
+    private final long[] transitionKeys;
+    private final int[] transitionTargets;
+    private int transitionCount;
+
+    private final int[] fail;
+    //first pattern ending at each state, and the next state on the suffix chain that ends a pattern
+    private final int[] patternAtState;
+    private final int[] outputLink;
+    //patterns that share an end state are chained through this array
+    private final int[] nextPatternAtState;
+    private int stateCount;
+    private final int[] emptyPatterns;
+
+    public StationNameMatcher(List<String> patterns) {
+        int totalLength = 0;
+        int emptyCount = 0;
+        for (String pattern : patterns) {
+            totalLength += pattern.length();
+            if (pattern.isEmpty()) {
+                emptyCount++;
+            }
+        }
+
+        int maxStates = totalLength + 1;
+        fail = new int[maxStates];
+        patternAtState = new int[maxStates];
+        outputLink = new int[maxStates];
+        Arrays.fill(patternAtState, -1);
+        Arrays.fill(outputLink, -1);
+        nextPatternAtState = new int[patterns.size()];
+        Arrays.fill(nextPatternAtState, -1);
+        int capacity = Integer.highestOneBit(Math.max(16, maxStates * 2)) << 1;
+        transitionKeys = new long[capacity];
+        transitionTargets = new int[capacity];
+        Arrays.fill(transitionKeys, -1L);
+        stateCount = 1;
+
+        //empty names match every text, so they are reported without walking the automaton
+        emptyPatterns = new int[emptyCount];
+        int emptyIndex = 0;
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            if (pattern.isEmpty()) {
+                emptyPatterns[emptyIndex++] = p;
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                int next = transition(state, pattern.charAt(i));
+                if (next == -1) {
+                    next = stateCount++;
+                    putTransition(state, pattern.charAt(i), next);
+                }
+                state = next;
+            }
+            nextPatternAtState[p] = patternAtState[state];
+            patternAtState[state] = p;
+        }
+
+        buildFailureLinks();
+    }
+
+    private void buildFailureLinks() {
+        //group the occupied table slots by their source state
+        int[] childOffsets = new int[stateCount + 1];
+        for (int slot = 0; slot < transitionKeys.length; slot++) {
+            if (transitionKeys[slot] != -1L) {
+                childOffsets[(int) (transitionKeys[slot] >>> 16) + 1]++;
+            }
+        }
+        for (int s = 0; s < stateCount; s++) {
+            childOffsets[s + 1] += childOffsets[s];
+        }
+        int[] children = new int[transitionCount];
+        int[] cursor = Arrays.copyOf(childOffsets, stateCount);
+        for (int slot = 0; slot < transitionKeys.length; slot++) {
+            if (transitionKeys[slot] != -1L) {
+                children[cursor[(int) (transitionKeys[slot] >>> 16)]++] = slot;
+            }
+        }
+
+        //breadth first over the trie so that every failure target is finished before it is used
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+
+        while (head < tail) {
+            int state = queue[head++];
+            for (int c = childOffsets[state]; c < childOffsets[state + 1]; c++) {
+                int slot = children[c];
+                char symbol = (char) (transitionKeys[slot] & 0xFFFF);
+                int child = transitionTargets[slot];
+
+                if (state == ROOT) {
+                    fail[child] = ROOT;
+                } else {
+                    int fallback = fail[state];
+                    int target = transition(fallback, symbol);
+                    while (target == -1 && fallback != ROOT) {
+                        fallback = fail[fallback];
+                        target = transition(fallback, symbol);
+                    }
+                    fail[child] = target == -1 ? ROOT : target;
+                }
+                outputLink[child] = patternAtState[fail[child]] != -1 ? fail[child] : outputLink[fail[child]];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    public void findAll(String text, IntConsumer patternConsumer) {
+        for (int p : emptyPatterns) {
+            patternConsumer.accept(p);
+        }
+
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char symbol = text.charAt(i);
+            int next = transition(state, symbol);
+            while (next == -1 && state != ROOT) {
+                state = fail[state];
+                next = transition(state, symbol);
+            }
+            state = next == -1 ? ROOT : next;
+
+            //report every pattern that ends here, including those that are suffixes of the current match
+            int output = patternAtState[state] != -1 ? state : outputLink[state];
+            while (output != -1) {
+                for (int p = patternAtState[output]; p != -1; p = nextPatternAtState[p]) {
+                    patternConsumer.accept(p);
+                }
+                output = outputLink[output];
+            }
+        }
+    }
+
+    private int transition(int state, char symbol) {
+        long key = ((long) state << 16) | symbol;
+        int mask = transitionKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (transitionKeys[slot] != -1L) {
+            if (transitionKeys[slot] == key) {
+                return transitionTargets[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void putTransition(int state, char symbol, int target) {
+        long key = ((long) state << 16) | symbol;
+        int mask = transitionKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (transitionKeys[slot] != -1L) {
+            slot = (slot + 1) & mask;
+        }
+        transitionKeys[slot] = key;
+        transitionTargets[slot] = target;
+        transitionCount++;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
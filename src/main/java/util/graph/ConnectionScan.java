@@ -0,0 +1,219 @@
+package util.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*Connection Scan Algorithm code references:
+* https://arxiv.org/abs/1703.05997
+* https://i11www.iti.kit.edu/extra/publications/dpsw-isftr-13.pdf
+*/
+
+//earliest arrival and profile queries over a timetable, both a single pass over the departure sorted connections,
+//the arrays for a query are kept between queries so a scanner must only be used by one thread at a time
+public class ConnectionScan {
+    public static final int DEFAULT_TRANSFER_SECONDS = 120;
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int NONE = -1;
+
+    private final Timetable timetable;
+    //time allowed to get from one train to another at the same station
+    private final int transferSeconds;
+    //earliest time a passenger can board a train at each station, and the connection that brought them there
+    private final int[] earliestBoarding;
+    private final int[] arrivalConnection;
+    //connection at which each trip was first boarded, NONE while it cannot be reached
+    private final int[] boardingConnection;
+    //earliest arrival at the destination when on each trip, for profile queries
+    private final int[] tripArrival;
+    //pairs of departure and earliest arrival at the destination from each station, appended in decreasing departure order
+    private final int[][] profileDepartures;
+    private final int[][] profileArrivals;
+    private final int[] profileSizes;
+
+    public ConnectionScan(Timetable timetable) {
+        this(timetable, DEFAULT_TRANSFER_SECONDS);
+    }
+
+    public ConnectionScan(Timetable timetable, int transferSeconds) {
+        if (timetable == null) {
+            throw new IllegalArgumentException("Timetable cannot be null");
+        }
+        if (transferSeconds < 0) {
+            throw new IllegalArgumentException("Transfer time cannot be negative");
+        }
+        this.timetable = timetable;
+        this.transferSeconds = transferSeconds;
+        int stationCount = timetable.getStationCount();
+        earliestBoarding = new int[stationCount];
+        arrivalConnection = new int[stationCount];
+        boardingConnection = new int[timetable.getTripCount()];
+        tripArrival = new int[timetable.getTripCount()];
+        profileDepartures = new int[stationCount][];
+        profileArrivals = new int[stationCount][];
+        profileSizes = new int[stationCount];
+    }
+
+    public List<Leg> earliestArrival(int source, int destination, int departureTime) {
+        checkStations(source, destination);
+        int bestConnection = scanEarliestArrival(source, destination, departureTime);
+        int[] departureStations = timetable.getDepartureStations();
+        int[] arrivalStations = timetable.getArrivalStations();
+        int[] departureTimes = timetable.getDepartureTimes();
+        int[] arrivalTimes = timetable.getArrivalTimes();
+        int[] trips = timetable.getTrips();
+
+        List<Leg> legs = new ArrayList<>();
+        if (bestConnection == NONE) {
+            return legs;
+        }
+        //each leg runs from where its trip was boarded to where it was left, which is where the leg before it ended
+        for (int c = bestConnection; ; ) {
+            int board = boardingConnection[trips[c]];
+            legs.add(new Leg(trips[c], departureStations[board], arrivalStations[c], departureTimes[board], arrivalTimes[c]));
+            if (departureStations[board] == source) {
+                break;
+            }
+            c = arrivalConnection[departureStations[board]];
+        }
+        Collections.reverse(legs);
+        return legs;
+    }
+
+    private int scanEarliestArrival(int source, int destination, int departureTime) {
+        int[] departureStations = timetable.getDepartureStations();
+        int[] arrivalStations = timetable.getArrivalStations();
+        int[] departureTimes = timetable.getDepartureTimes();
+        int[] arrivalTimes = timetable.getArrivalTimes();
+        int[] trips = timetable.getTrips();
+
+        Arrays.fill(earliestBoarding, INFINITY);
+        Arrays.fill(boardingConnection, NONE);
+        //the passenger is already at the source, so the first train needs no transfer time
+        earliestBoarding[source] = departureTime;
+        int bestArrival = INFINITY;
+        int bestConnection = NONE;
+        for (int c = timetable.firstDepartingAt(departureTime); c < trips.length; c++) {
+            //a train leaving after the best arrival cannot arrive before it
+            if (departureTimes[c] >= bestArrival) {
+                break;
+            }
+            int trip = trips[c];
+            if (boardingConnection[trip] == NONE) {
+                if (earliestBoarding[departureStations[c]] > departureTimes[c]) {
+                    continue;
+                }
+                boardingConnection[trip] = c;
+            }
+            int station = arrivalStations[c];
+            if (station == destination) {
+                if (arrivalTimes[c] < bestArrival) {
+                    bestArrival = arrivalTimes[c];
+                    bestConnection = c;
+                }
+            } else if (arrivalTimes[c] + transferSeconds < earliestBoarding[station]) {
+                earliestBoarding[station] = arrivalTimes[c] + transferSeconds;
+                arrivalConnection[station] = c;
+            }
+        }
+        return bestConnection;
+    }
+
+    public List<ProfileEntry> profile(int source, int destination, int earliestDeparture, int latestDeparture) {
+        checkStations(source, destination);
+        int[] departureStations = timetable.getDepartureStations();
+        int[] arrivalStations = timetable.getArrivalStations();
+        int[] departureTimes = timetable.getDepartureTimes();
+        int[] arrivalTimes = timetable.getArrivalTimes();
+        int[] trips = timetable.getTrips();
+
+        //a journey in the window only counts if it arrives before the one leaving at the end of the window does,
+        //so connections leaving after that arrival are never used and the backward scan starts there
+        int last = scanEarliestArrival(source, destination, latestDeparture);
+        int firstUnused = last == NONE ? trips.length : timetable.firstDepartingAt(arrivalTimes[last] + 1);
+
+        Arrays.fill(tripArrival, INFINITY);
+        Arrays.fill(profileSizes, 0);
+        //scanning backwards, every connection after this one already knows how soon it gets to the destination
+        for (int c = firstUnused - 1; c >= 0 && departureTimes[c] >= earliestDeparture; c--) {
+            int arrival;
+            if (arrivalStations[c] == destination) {
+                arrival = arrivalTimes[c];
+            } else {
+                arrival = profileArrival(arrivalStations[c], arrivalTimes[c] + transferSeconds);
+            }
+            //staying on the train may be better than getting off
+            arrival = Math.min(arrival, tripArrival[trips[c]]);
+            if (arrival == INFINITY) {
+                continue;
+            }
+            tripArrival[trips[c]] = arrival;
+            if (departureStations[c] != destination) {
+                addProfileEntry(departureStations[c], departureTimes[c], arrival);
+            }
+        }
+
+        //the source profile runs from the latest departure back, only the ones in the window are wanted
+        List<ProfileEntry> entries = new ArrayList<>();
+        for (int i = profileSizes[source] - 1; i >= 0; i--) {
+            if (profileDepartures[source][i] <= latestDeparture) {
+                entries.add(new ProfileEntry(profileDepartures[source][i], profileArrivals[source][i]));
+            }
+        }
+        return entries;
+    }
+
+    private int profileArrival(int station, int time) {
+        //entries are in decreasing departure and arrival order, so the last one leaving at or after the time is the best
+        int[] departures = profileDepartures[station];
+        int low = 0;
+        int high = profileSizes[station];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departures[mid] >= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == 0 ? INFINITY : profileArrivals[station][low - 1];
+    }
+
+    private void addProfileEntry(int station, int departure, int arrival) {
+        int size = profileSizes[station];
+        //an entry only counts when it arrives sooner than every later departure does
+        if (size > 0 && profileArrivals[station][size - 1] <= arrival) {
+            return;
+        }
+        if (size > 0 && profileDepartures[station][size - 1] == departure) {
+            profileArrivals[station][size - 1] = arrival;
+            return;
+        }
+        if (profileDepartures[station] == null) {
+            profileDepartures[station] = new int[8];
+            profileArrivals[station] = new int[8];
+        } else if (size == profileDepartures[station].length) {
+            profileDepartures[station] = Arrays.copyOf(profileDepartures[station], size * 2);
+            profileArrivals[station] = Arrays.copyOf(profileArrivals[station], size * 2);
+        }
+        profileDepartures[station][size] = departure;
+        profileArrivals[station][size] = arrival;
+        profileSizes[station] = size + 1;
+    }
+
+    private void checkStations(int source, int destination) {
+        if (source < 0 || source >= timetable.getStationCount() || destination < 0 || destination >= timetable.getStationCount()) {
+            throw new IllegalArgumentException("Unknown station id");
+        }
+        if (source == destination) {
+            throw new IllegalArgumentException("Start and end stations cannot be the same");
+        }
+    }
+
+    //a ride on one trip from boarding to alighting
+    public record Leg(int trip, int departureStation, int arrivalStation, int departureTime, int arrivalTime) {}
+
+    //leaving the source at the departure time reaches the destination at the arrival time, and nothing leaving later arrives as soon
+    public record ProfileEntry(int departure, int arrival) {}
+}
@@ -0,0 +1,460 @@
+package util.graph;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/*Contraction hierarchies code references:
+* https://en.wikipedia.org/wiki/Contraction_hierarchies
+* https://algo2.iti.kit.edu/schultes/hwy/contract.pdf
+* https://github.com/graphhopper/graphhopper/blob/master/core/src/main/java/com/graphhopper/routing/ch/NodeBasedNodeContractor.java
+* https://www.microsoft.com/en-us/research/publication/phast-hardware-accelerated-shortest-path-trees/
+*/
+
+//stations are contracted from least to most important, shortcuts keep the distances between the stations that remain,
+//so a query only ever has to search upwards in rank from both ends
+@Getter
+public class ContractionHierarchy {
+    //witness searches give up after settling this many stations, which can only add shortcuts that are not needed
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    //order in which each station was contracted
+    private final int[] ranks;
+    //upward arcs of station s are offsets[s] to offsets[s + 1] - 1, each one leads to a station of higher rank
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    //station a shortcut bypasses, -1 for an edge of the original graph
+    private final int[] middles;
+    private final int shortcutCount;
+    //stations from the highest rank down, the order the one to all sweep settles them in
+    private final int[] stationsByRank;
+    //forward and backward workspaces each thread reuses for the queries called directly on the hierarchy
+    @Getter(AccessLevel.NONE)
+    private final ThreadLocal<SearchWorkspace[]> workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace[]{new SearchWorkspace(getStationCount(), 0), new SearchWorkspace(getStationCount(), 0)});
+
+    public ContractionHierarchy(int[] ranks, int[] offsets, int[] targets, double[] weights, int[] middles) {
+        this.ranks = ranks;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.middles = middles;
+        int shortcuts = 0;
+        for (int middle : middles) {
+            if (middle != -1) {
+                shortcuts++;
+            }
+        }
+        this.shortcutCount = shortcuts;
+        this.stationsByRank = new int[ranks.length];
+        for (int s = 0; s < ranks.length; s++) {
+            stationsByRank[ranks.length - 1 - ranks[s]] = s;
+        }
+    }
+
+    public static ContractionHierarchy build(RoutingGraph routingGraph) {
+        long start = System.nanoTime();
+        ContractionHierarchy contractionHierarchy = new Contractor(routingGraph).contract();
+        System.out.printf("Contraction hierarchy built in %.1f ms (%d stations, %d shortcuts)%n", (System.nanoTime() - start) / 1_000_000.0, contractionHierarchy.getStationCount(), contractionHierarchy.getShortcutCount());
+        return contractionHierarchy;
+    }
+
+    public int getStationCount() {
+        return ranks.length;
+    }
+
+    public int[] findShortestPath(int source, int destination) {
+        SearchWorkspace[] owned = workspaces.get();
+        return search(source, destination, owned[0], owned[1]).path();
+    }
+
+    //the workspaces are reset here, a thread that queries again can pass the same two back in and allocate nothing but the route
+    SearchResult search(int source, int destination, SearchWorkspace forwardWorkspace, SearchWorkspace backwardWorkspace) {
+        int settledCount = 0;
+        if (source == destination) {
+            return new SearchResult(new int[]{source}, 0);
+        }
+
+        //side 0 searches upwards from the source, side 1 upwards from the destination, the predecessor kept for each
+        //station is the arc it was reached by rather than a station, so shortcuts can be unpacked afterwards
+        SearchWorkspace[] workspaces = {forwardWorkspace, backwardWorkspace};
+        forwardWorkspace.reset();
+        backwardWorkspace.reset();
+        IndexedMinHeap[] openSets = {forwardWorkspace.getOpenSet(), backwardWorkspace.getOpenSet()};
+        forwardWorkspace.reach(source, 0.0, -1);
+        backwardWorkspace.reach(destination, 0.0, -1);
+        openSets[0].push(source, 0.0);
+        openSets[1].push(destination, 0.0);
+
+        double best = Double.MAX_VALUE;
+        int meeting = -1;
+        while (true) {
+            //a side is finished once its closest open station is no closer than the best route found
+            boolean forwardOpen = !openSets[0].isEmpty() && openSets[0].peekKey() < best;
+            boolean backwardOpen = !openSets[1].isEmpty() && openSets[1].peekKey() < best;
+            if (!forwardOpen && !backwardOpen) {
+                break;
+            }
+            int side = forwardOpen && (!backwardOpen || openSets[0].peekKey() <= openSets[1].peekKey()) ? 0 : 1;
+            SearchWorkspace workspace = workspaces[side];
+            int current = openSets[side].poll();
+            double distance = workspace.getDistance(current);
+            settledCount++;
+
+            //the highest ranked station of the route is settled by both searches
+            double otherDistance = workspaces[1 - side].getDistance(current);
+            if (distance + otherDistance < best) {
+                best = distance + otherDistance;
+                meeting = current;
+            }
+
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                int neighbour = targets[arc];
+                double tentative = distance + weights[arc];
+                if (tentative < workspace.getDistance(neighbour)) {
+                    workspace.reach(neighbour, tentative, arc);
+                    openSets[side].push(neighbour, tentative);
+                }
+            }
+        }
+
+        if (meeting == -1) {
+            return new SearchResult(null, settledCount);
+        }
+
+        //walk both searches back from the meeting station, unpacking each shortcut into the stations it bypasses
+        StationList forward = new StationList();
+        for (int current = meeting; current != source; ) {
+            int arc = forwardWorkspace.getPredecessor(current);
+            int from = arcSource(arc);
+            unpack(current, from, arc, forward);
+            current = from;
+        }
+        forward.add(source);
+        forward.reverse();
+
+        for (int current = meeting; current != destination; ) {
+            int arc = backwardWorkspace.getPredecessor(current);
+            int from = arcSource(arc);
+            //unpacking runs from the far end back towards this station, so reverse it before adding it to the route
+            StationList segment = new StationList();
+            unpack(from, current, arc, segment);
+            segment.reverse();
+            for (int i = 0; i < segment.size; i++) {
+                forward.add(segment.stations[i]);
+            }
+            current = from;
+        }
+        return new SearchResult(forward.toArray(), settledCount);
+    }
+
+    //the caller's workspace lends its heap, so repeated sweeps allocate nothing
+    public void distancesFrom(int source, double[] distances, SearchWorkspace workspace) {
+        //search upwards from the source as a query would, unreached stations are infinite
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        workspace.reset();
+        IndexedMinHeap openSet = workspace.getOpenSet();
+        distances[source] = 0.0;
+        openSet.push(source, 0.0);
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                double tentative = distances[current] + weights[arc];
+                if (tentative < distances[targets[arc]]) {
+                    distances[targets[arc]] = tentative;
+                    openSet.push(targets[arc], tentative);
+                }
+            }
+        }
+
+        //then sweep down from the highest rank, every upward arc leads to a station whose distance is already final,
+        //so each station is settled by one pass over its own arcs without a queue
+        for (int station : stationsByRank) {
+            for (int arc = offsets[station]; arc < offsets[station + 1]; arc++) {
+                distances[station] = Math.min(distances[station], distances[targets[arc]] + weights[arc]);
+            }
+        }
+    }
+
+    private int arcSource(int arc) {
+        //arcs are grouped by their source, so find the group that holds this arc
+        int low = 0;
+        int high = ranks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= arc) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    //appends the stations from 'to' back to but not including 'from' for an upward arc between the two
+    private void unpack(int to, int from, int arc, StationList out) {
+        int middle = middles[arc];
+        if (middle == -1) {
+            out.add(to);
+            return;
+        }
+        //the bypassed station was contracted before both ends, so both halves are upward arcs out of it
+        unpack(to, middle, findArc(middle, to), out);
+        unpack(middle, from, findArc(middle, from), out);
+    }
+
+    private int findArc(int from, int to) {
+        for (int arc = offsets[from]; arc < offsets[from + 1]; arc++) {
+            if (targets[arc] == to) {
+                return arc;
+            }
+        }
+        throw new IllegalStateException("Missing arc from " + from + " to " + to);
+    }
+
+    private static class StationList {
+        private int[] stations = new int[16];
+        private int size;
+
+        private void add(int station) {
+            if (size == stations.length) {
+                stations = Arrays.copyOf(stations, size * 2);
+            }
+            stations[size++] = station;
+        }
+
+        private void reverse() {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int swap = stations[i];
+                stations[i] = stations[j];
+                stations[j] = swap;
+            }
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(stations, size);
+        }
+    }
+
+    private static class Contractor {
+        private final int stationCount;
+        //adjacency of the graph as it is being contracted, shortcuts are added in place
+        private final int[][] neighbours;
+        private final double[][] neighbourWeights;
+        private final int[][] neighbourMiddles;
+        private final int[] degrees;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours;
+        //upward arcs of each station, taken when it is contracted
+        private final int[][] upTargets;
+        private final double[][] upWeights;
+        private final int[][] upMiddles;
+        //witness search state, reset after each search by walking the touched stations
+        private final double[] witnessDistances;
+        private final int[] touched;
+        private int touchedCount;
+        private final IndexedMinHeap witnessQueue;
+
+        private Contractor(RoutingGraph routingGraph) {
+            stationCount = routingGraph.getStationCount();
+            neighbours = new int[stationCount][];
+            neighbourWeights = new double[stationCount][];
+            neighbourMiddles = new int[stationCount][];
+            degrees = new int[stationCount];
+            contracted = new boolean[stationCount];
+            contractedNeighbours = new int[stationCount];
+            upTargets = new int[stationCount][];
+            upWeights = new double[stationCount][];
+            upMiddles = new int[stationCount][];
+            witnessDistances = new double[stationCount];
+            touched = new int[stationCount];
+            witnessQueue = new IndexedMinHeap(stationCount);
+            Arrays.fill(witnessDistances, Double.MAX_VALUE);
+
+            int[] offsets = routingGraph.getOffsets();
+            for (int s = 0; s < stationCount; s++) {
+                int degree = offsets[s + 1] - offsets[s];
+                neighbours[s] = new int[Math.max(degree, 2)];
+                neighbourWeights[s] = new double[Math.max(degree, 2)];
+                neighbourMiddles[s] = new int[Math.max(degree, 2)];
+                for (int arc = offsets[s]; arc < offsets[s + 1]; arc++) {
+                    setArc(s, routingGraph.getTargets()[arc], routingGraph.getWeights()[arc], -1);
+                }
+            }
+        }
+
+        private ContractionHierarchy contract() {
+            //contract the station with the lowest priority first, priorities are only refreshed when a station is taken
+            IndexedMinHeap order = new IndexedMinHeap(stationCount);
+            for (int s = 0; s < stationCount; s++) {
+                order.push(s, priority(s));
+            }
+
+            int[] ranks = new int[stationCount];
+            int rank = 0;
+            while (!order.isEmpty()) {
+                int station = order.poll();
+                double priority = priority(station);
+                if (!order.isEmpty() && priority > order.peekKey()) {
+                    //its priority went up since it was queued, so put it back behind the cheaper stations
+                    order.push(station, priority);
+                    continue;
+                }
+                ranks[station] = rank++;
+                contractStation(station);
+            }
+
+            //lay the upward arcs out in the same compressed layout as the routing graph
+            int[] offsets = new int[stationCount + 1];
+            for (int s = 0; s < stationCount; s++) {
+                offsets[s + 1] = offsets[s] + upTargets[s].length;
+            }
+            int[] targets = new int[offsets[stationCount]];
+            double[] weights = new double[offsets[stationCount]];
+            int[] middles = new int[offsets[stationCount]];
+            for (int s = 0; s < stationCount; s++) {
+                System.arraycopy(upTargets[s], 0, targets, offsets[s], upTargets[s].length);
+                System.arraycopy(upWeights[s], 0, weights, offsets[s], upWeights[s].length);
+                System.arraycopy(upMiddles[s], 0, middles, offsets[s], upMiddles[s].length);
+            }
+            return new ContractionHierarchy(ranks, offsets, targets, weights, middles);
+        }
+
+        private double priority(int station) {
+            //edge difference plus the number of contracted neighbours, so contraction spreads evenly over the network
+            return processShortcuts(station, false) - remainingDegree(station) + contractedNeighbours[station];
+        }
+
+        private void contractStation(int station) {
+            processShortcuts(station, true);
+
+            int degree = remainingDegree(station);
+            upTargets[station] = new int[degree];
+            upWeights[station] = new double[degree];
+            upMiddles[station] = new int[degree];
+            int index = 0;
+            for (int i = 0; i < degrees[station]; i++) {
+                int neighbour = neighbours[station][i];
+                if (!contracted[neighbour]) {
+                    upTargets[station][index] = neighbour;
+                    upWeights[station][index] = neighbourWeights[station][i];
+                    upMiddles[station][index] = neighbourMiddles[station][i];
+                    index++;
+                    contractedNeighbours[neighbour]++;
+                }
+            }
+            contracted[station] = true;
+        }
+
+        //counts the shortcuts contracting the station needs, adding them when asked to
+        private int processShortcuts(int station, boolean add) {
+            int shortcuts = 0;
+            int degree = degrees[station];
+            for (int i = 0; i < degree; i++) {
+                int from = neighbours[station][i];
+                if (contracted[from]) {
+                    continue;
+                }
+                double toStation = neighbourWeights[station][i];
+
+                //search from this neighbour only as far as the longest route through the station
+                double limit = 0;
+                for (int j = i + 1; j < degree; j++) {
+                    if (!contracted[neighbours[station][j]]) {
+                        limit = Math.max(limit, toStation + neighbourWeights[station][j]);
+                    }
+                }
+                if (limit == 0) {
+                    continue;
+                }
+                witnessSearch(from, station, limit);
+
+                for (int j = i + 1; j < degree; j++) {
+                    int to = neighbours[station][j];
+                    if (contracted[to]) {
+                        continue;
+                    }
+                    double via = toStation + neighbourWeights[station][j];
+                    //a shortcut is only needed if no other route is as short as going through the station
+                    if (witnessDistances[to] > via) {
+                        shortcuts++;
+                        if (add) {
+                            setArc(from, to, via, station);
+                            setArc(to, from, via, station);
+                        }
+                    }
+                }
+                resetWitnessSearch();
+            }
+            return shortcuts;
+        }
+
+        private void witnessSearch(int source, int excluded, double limit) {
+            witnessDistances[source] = 0.0;
+            touched[touchedCount++] = source;
+            witnessQueue.push(source, 0.0);
+            int settled = 0;
+            while (!witnessQueue.isEmpty() && settled++ < WITNESS_SETTLE_LIMIT) {
+                int current = witnessQueue.poll();
+                if (witnessDistances[current] > limit) {
+                    break;
+                }
+                for (int i = 0; i < degrees[current]; i++) {
+                    int neighbour = neighbours[current][i];
+                    if (neighbour == excluded || contracted[neighbour]) {
+                        continue;
+                    }
+                    double tentative = witnessDistances[current] + neighbourWeights[current][i];
+                    if (tentative < witnessDistances[neighbour]) {
+                        if (witnessDistances[neighbour] == Double.MAX_VALUE) {
+                            touched[touchedCount++] = neighbour;
+                        }
+                        witnessDistances[neighbour] = tentative;
+                        witnessQueue.push(neighbour, tentative);
+                    }
+                }
+            }
+        }
+
+        private void resetWitnessSearch() {
+            for (int i = 0; i < touchedCount; i++) {
+                witnessDistances[touched[i]] = Double.MAX_VALUE;
+            }
+            touchedCount = 0;
+            witnessQueue.clear();
+        }
+
+        private int remainingDegree(int station) {
+            int degree = 0;
+            for (int i = 0; i < degrees[station]; i++) {
+                if (!contracted[neighbours[station][i]]) {
+                    degree++;
+                }
+            }
+            return degree;
+        }
+
+        //keeps one arc per pair of stations, replacing it only with a shorter one
+        private void setArc(int from, int to, double weight, int middle) {
+            for (int i = 0; i < degrees[from]; i++) {
+                if (neighbours[from][i] == to) {
+                    if (weight < neighbourWeights[from][i]) {
+                        neighbourWeights[from][i] = weight;
+                        neighbourMiddles[from][i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (degrees[from] == neighbours[from].length) {
+                neighbours[from] = Arrays.copyOf(neighbours[from], degrees[from] * 2);
+                neighbourWeights[from] = Arrays.copyOf(neighbourWeights[from], degrees[from] * 2);
+                neighbourMiddles[from] = Arrays.copyOf(neighbourMiddles[from], degrees[from] * 2);
+            }
+            neighbours[from][degrees[from]] = to;
+            neighbourWeights[from][degrees[from]] = weight;
+            neighbourMiddles[from][degrees[from]] = middle;
+            degrees[from]++;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package util.graph;
+
+/*Generalised cost code references:
+* https://en.wikipedia.org/wiki/Value_of_time
+* https://en.wikipedia.org/wiki/Transfer_(public_transit)
+*/
+
+//what a kilometre, a stop and a line change each add to a route's generalised cost, in minutes of the rider's time,
+//the search reads them per query so they can be changed without rebuilding anything
+public record CostWeights(double perKilometre, double perStop, double perChange) {
+    //about 35 km/h between stations, half a minute standing at each stop and five minutes to change lines
+    public static final CostWeights DEFAULT = new CostWeights(1.7, 0.5, 5.0);
+
+    public CostWeights {
+        if (!(perKilometre >= 0) || !(perStop >= 0) || !(perChange >= 0) || Double.isInfinite(perKilometre) || Double.isInfinite(perStop) || Double.isInfinite(perChange)) {
+            throw new IllegalArgumentException("Cost weights must be finite and not negative");
+        }
+        if (perKilometre == 0 && perStop == 0 && perChange == 0) {
+            throw new IllegalArgumentException("At least one cost weight must be positive");
+        }
+    }
+
+    public double cost(double distance, int stops, int changes) {
+        return distance * perKilometre + stops * perStop + changes * perChange;
+    }
+}
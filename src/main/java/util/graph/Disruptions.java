@@ -0,0 +1,104 @@
+package util.graph;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*Lock free bitmask code references:
+* https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/util/concurrent/atomic/AtomicLongArray.html
+* https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/util/concurrent/atomic/package-summary.html
+*/
+
+//stations and edges closed while the network is in use, one bit each, set and cleared with compare-and-set so a closure
+//takes a few atomic operations and searches running on other threads pick it up without locks or a copy of the graph,
+//a search reads each bit as it meets the arc, so one already running may see a change part way through
+public class Disruptions {
+    private final int stationCount;
+    private final int edgeCount;
+    private final AtomicLongArray closedStations;
+    private final AtomicLongArray closedEdges;
+    //number of closed stations and edges, so searches skip every check while nothing is closed
+    private final AtomicInteger closedCount = new AtomicInteger();
+    //bumped by every change that closes or reopens something
+    private final AtomicLong version = new AtomicLong();
+
+    public Disruptions(int stationCount, int edgeCount) {
+        this.stationCount = stationCount;
+        this.edgeCount = edgeCount;
+        this.closedStations = new AtomicLongArray((stationCount + 63) / 64);
+        this.closedEdges = new AtomicLongArray((edgeCount + 63) / 64);
+    }
+
+    public boolean isActive() {
+        return closedCount.get() != 0;
+    }
+
+    public int getClosedCount() {
+        return closedCount.get();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public boolean isStationClosed(int station) {
+        return (closedStations.get(station >>> 6) & (1L << station)) != 0;
+    }
+
+    public boolean isEdgeClosed(int edge) {
+        return (closedEdges.get(edge >>> 6) & (1L << edge)) != 0;
+    }
+
+    public boolean closeStation(int station) {
+        checkIndex(station, stationCount, "station");
+        return update(closedStations, station, true);
+    }
+
+    public boolean reopenStation(int station) {
+        checkIndex(station, stationCount, "station");
+        return update(closedStations, station, false);
+    }
+
+    public boolean closeEdge(int edge) {
+        checkIndex(edge, edgeCount, "edge");
+        return update(closedEdges, edge, true);
+    }
+
+    public boolean reopenEdge(int edge) {
+        checkIndex(edge, edgeCount, "edge");
+        return update(closedEdges, edge, false);
+    }
+
+    public void reopenAll() {
+        for (int station = 0; station < stationCount; station++) {
+            reopenStation(station);
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            reopenEdge(edge);
+        }
+    }
+
+    private boolean update(AtomicLongArray bits, int index, boolean closed) {
+        //retry until no other thread changed the word in between, false when the bit already had the wanted value
+        int word = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = bits.get(word);
+            long updated = closed ? current | mask : current & ~mask;
+            if (updated == current) {
+                return false;
+            }
+            if (bits.compareAndSet(word, current, updated)) {
+                closedCount.addAndGet(closed ? 1 : -1);
+                version.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    private static void checkIndex(int index, int count, String kind) {
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Unknown " + kind + " id " + index);
+        }
+    }
+}
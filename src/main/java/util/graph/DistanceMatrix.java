@@ -0,0 +1,219 @@
+package util.graph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/*Many to many shortest distances code references:
+* https://en.wikipedia.org/wiki/Contraction_hierarchies
+* https://github.com/Project-OSRM/osrm-backend/blob/master/src/engine/routing_algorithms/many_to_many_ch.cpp
+* https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/util/stream/package-summary.html#Parallelism
+*/
+
+//shortest distances from every origin to every destination, returned row major as one array, unreachable pairs are infinite,
+//nothing is printed so it can be called for thousands of pairs
+public class DistanceMatrix {
+    private final RoutingGraph routingGraph;
+    //optional, with it every station is searched once upwards and the searches are joined through buckets,
+    //without it each origin runs one Dijkstra that stops when its last destination is settled
+    private final ContractionHierarchy contractionHierarchy;
+    //each worker thread keeps its own search state, so the parallel rows never share arrays
+    private final ThreadLocal<SearchWorkspace> workspaces;
+
+    public DistanceMatrix(RoutingGraph routingGraph, ContractionHierarchy contractionHierarchy) {
+        this.routingGraph = routingGraph;
+        this.contractionHierarchy = contractionHierarchy;
+        this.workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(routingGraph));
+    }
+
+    public double[] compute(int[] origins, int[] destinations) {
+        int stationCount = routingGraph.getStationCount();
+        for (int station : origins) {
+            checkStation(station, stationCount);
+        }
+        for (int station : destinations) {
+            checkStation(station, stationCount);
+        }
+        double[] matrix = new double[origins.length * destinations.length];
+        Arrays.fill(matrix, Double.POSITIVE_INFINITY);
+        if (matrix.length == 0) {
+            return matrix;
+        }
+        //shortcuts may run over closed track, so while anything is closed every row is searched on the network itself
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (contractionHierarchy != null && !disrupted) {
+            computeWithBuckets(origins, destinations, matrix);
+        } else {
+            computeWithDijkstra(origins, destinations, matrix, disrupted);
+        }
+        return matrix;
+    }
+
+    private static void checkStation(int station, int stationCount) {
+        if (station < 0 || station >= stationCount) {
+            throw new IllegalArgumentException("Unknown station id " + station);
+        }
+    }
+
+    private void computeWithBuckets(int[] origins, int[] destinations, double[] matrix) {
+        int stationCount = routingGraph.getStationCount();
+        int columns = destinations.length;
+
+        //the graph is undirected, so one upward search serves a station as an origin and as a destination
+        int[] spaceOf = new int[stationCount];
+        Arrays.fill(spaceOf, -1);
+        int[] searched = new int[origins.length + destinations.length];
+        int spaceCount = 0;
+        for (int[] stations : new int[][]{origins, destinations}) {
+            for (int station : stations) {
+                if (spaceOf[station] == -1) {
+                    spaceOf[station] = spaceCount;
+                    searched[spaceCount++] = station;
+                }
+            }
+        }
+        SearchSpace[] spaces = new SearchSpace[spaceCount];
+        IntStream.range(0, spaceCount).parallel().forEach(i -> spaces[i] = searchUpwards(searched[i]));
+
+        //bucket of station v holds (column, distance) for every destination whose upward search reached v
+        int[] bucketOffsets = new int[stationCount + 1];
+        for (int destination : destinations) {
+            for (int station : spaces[spaceOf[destination]].stations) {
+                bucketOffsets[station + 1]++;
+            }
+        }
+        for (int station = 0; station < stationCount; station++) {
+            bucketOffsets[station + 1] += bucketOffsets[station];
+        }
+        int[] bucketColumns = new int[bucketOffsets[stationCount]];
+        double[] bucketDistances = new double[bucketOffsets[stationCount]];
+        int[] next = Arrays.copyOf(bucketOffsets, stationCount);
+        for (int column = 0; column < columns; column++) {
+            SearchSpace space = spaces[spaceOf[destinations[column]]];
+            for (int i = 0; i < space.stations.length; i++) {
+                int entry = next[space.stations[i]]++;
+                bucketColumns[entry] = column;
+                bucketDistances[entry] = space.distances[i];
+            }
+        }
+
+        //every shortest route climbs to its highest ranked station from both ends, so scanning the buckets on an
+        //origin's upward search meets every destination, and each row only writes its own part of the matrix
+        IntStream.range(0, origins.length).parallel().forEach(row -> {
+            SearchSpace space = spaces[spaceOf[origins[row]]];
+            int rowStart = row * columns;
+            for (int i = 0; i < space.stations.length; i++) {
+                int station = space.stations[i];
+                for (int entry = bucketOffsets[station]; entry < bucketOffsets[station + 1]; entry++) {
+                    double distance = space.distances[i] + bucketDistances[entry];
+                    if (distance < matrix[rowStart + bucketColumns[entry]]) {
+                        matrix[rowStart + bucketColumns[entry]] = distance;
+                    }
+                }
+            }
+        });
+    }
+
+    private SearchSpace searchUpwards(int source) {
+        int[] offsets = contractionHierarchy.getOffsets();
+        int[] targets = contractionHierarchy.getTargets();
+        double[] weights = contractionHierarchy.getWeights();
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+        IndexedMinHeap openSet = workspace.getOpenSet();
+
+        int[] stations = new int[16];
+        double[] distances = new double[16];
+        int size = 0;
+        workspace.reach(source, 0.0, -1);
+        openSet.push(source, 0.0);
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if (size == stations.length) {
+                stations = Arrays.copyOf(stations, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            stations[size] = current;
+            distances[size++] = workspace.getDistance(current);
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                double tentative = workspace.getDistance(current) + weights[arc];
+                if (tentative < workspace.getDistance(targets[arc])) {
+                    workspace.reach(targets[arc], tentative, current);
+                    openSet.push(targets[arc], tentative);
+                }
+            }
+        }
+        return new SearchSpace(Arrays.copyOf(stations, size), Arrays.copyOf(distances, size));
+    }
+
+    private void computeWithDijkstra(int[] origins, int[] destinations, double[] matrix, boolean disrupted) {
+        int stationCount = routingGraph.getStationCount();
+        int columns = destinations.length;
+        //with the same stations on both sides only the upper triangle is searched and then mirrored
+        boolean symmetric = Arrays.equals(origins, destinations);
+
+        //columns of each station, a station can be asked for more than once
+        int[] columnOffsets = new int[stationCount + 1];
+        for (int destination : destinations) {
+            columnOffsets[destination + 1]++;
+        }
+        for (int station = 0; station < stationCount; station++) {
+            columnOffsets[station + 1] += columnOffsets[station];
+        }
+        int[] stationColumns = new int[columns];
+        int[] next = Arrays.copyOf(columnOffsets, stationCount);
+        for (int column = 0; column < columns; column++) {
+            stationColumns[next[destinations[column]]++] = column;
+        }
+
+        IntStream.range(0, origins.length).parallel().forEach(row -> {
+            int firstColumn = symmetric ? row : 0;
+            searchRow(origins[row], row * columns, firstColumn, columns - firstColumn, columnOffsets, stationColumns, matrix, disrupted);
+        });
+
+        if (symmetric) {
+            for (int row = 1; row < origins.length; row++) {
+                for (int column = 0; column < row; column++) {
+                    matrix[row * columns + column] = matrix[column * columns + row];
+                }
+            }
+        }
+    }
+
+    private void searchRow(int source, int rowStart, int firstColumn, int remaining, int[] columnOffsets, int[] stationColumns, double[] matrix, boolean disrupted) {
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        double[] weights = routingGraph.getWeights();
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+        IndexedMinHeap openSet = workspace.getOpenSet();
+        //a closed origin reaches nothing, and its row stays infinite
+        if (disrupted && !routingGraph.isStationOpen(source)) {
+            return;
+        }
+
+        workspace.reach(source, 0.0, -1);
+        openSet.push(source, 0.0);
+        while (!openSet.isEmpty() && remaining > 0) {
+            int current = openSet.poll();
+            double distance = workspace.getDistance(current);
+            for (int i = columnOffsets[current]; i < columnOffsets[current + 1]; i++) {
+                if (stationColumns[i] >= firstColumn) {
+                    matrix[rowStart + stationColumns[i]] = distance;
+                    remaining--;
+                }
+            }
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (disrupted && !routingGraph.isArcOpen(arc)) {
+                    continue;
+                }
+                double tentative = distance + weights[arc];
+                if (tentative < workspace.getDistance(targets[arc])) {
+                    workspace.reach(targets[arc], tentative, current);
+                    openSet.push(targets[arc], tentative);
+                }
+            }
+        }
+    }
+
+    private record SearchSpace(int[] stations, double[] distances) {}
+}
@@ -5,18 +5,17 @@ import java.util.*;
 import java.util.List;
 import java.util.Timer;
 
-import dto.RailLine;
-import dto.RailStation;
 import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.layout.springbox.implementations.SpringBox;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.graphstream.graph.*;
 import org.graphstream.graph.implementations.SingleGraph;
 import org.graphstream.ui.view.View;
 import org.graphstream.ui.view.Viewer;
-import dto.Route;
 import dto.Station;
+import util.StationIndex;
 import org.graphstream.ui.view.camera.Camera;
 
 /*Code references for graph generation:
@@ -28,20 +27,46 @@ import org.graphstream.ui.view.camera.Camera;
 @Setter
 public class GraphGenerator {
     private Graph graph;
-    private Set<String> processedEdges;
     private GraphObjectGenerator graphObjectGenerator;
     private List<Station> stations;
     private RouteGenerator routeGenerator;
+    private RoutingGraph routingGraph;
+    //only kept when it was preprocessed for the same routing graph, otherwise built on the first query that needs it
+    private ContractionHierarchy contractionHierarchy;
+    private Landmarks landmarks;
+    //reused by every reachability query on the same routing graph
+    private Isochrone isochrone;
+    //station names matched ignoring case and punctuation, with completions and suggestions, and the station behind each id
+    private StationIndex stationIndex;
+    private Station[] stationsById;
+    //timetable for earliest arrival queries, generated from the line headways the first time one is asked for
+    private Timetable timetable;
+    private ConnectionScan connectionScan;
+    //bumped whenever the routing graph is replaced, cached routes from an older version are dropped
+    private long networkVersion;
+    private RouteCache routeCache = new RouteCache(RouteCache.DEFAULT_CAPACITY);
+    //what distance, stops and line changes cost in a generalised cost route, read by every search so changing them rebuilds nothing
+    private CostWeights costWeights = CostWeights.DEFAULT;
+    //one router for every query while the network is unchanged, so its per thread workspaces are allocated once
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Router router;
+    //in headless mode the display graph is only built when a map is first shown
+    private boolean headless;
 
     public GraphGenerator(GraphObjectGenerator graphObjectGenerator) {
+        this(graphObjectGenerator, false);
+    }
+
+    public GraphGenerator(GraphObjectGenerator graphObjectGenerator, boolean headless) {
         this.graphObjectGenerator = graphObjectGenerator;
-        setSystemProperties();
+        this.headless = headless;
+        if (!headless) {
+            setSystemProperties();
+        }
     }
 
     private void setSystemProperties() {
-        this.graph = new SingleGraph("Train Graph");
-        this.processedEdges = new HashSet<>();
-
         System.setProperty("org.graphstream.ui", "swing");
         System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
     }
@@ -52,115 +77,78 @@ public class GraphGenerator {
         if (stations == null) {
             throw new IllegalArgumentException("Stations list cannot be null");
         }
-        Graph graph = new SingleGraph("RailNetwork");
 
-        graph.setAttribute("ui.quality");
-        graph.setAttribute("ui.antialias");
-
-        for (Station station : stations) {
-            if (isValidStation(station)) {
-                RailStation railStation = station.getRailStation();
-                Node node = graph.addNode(railStation.getName());
-
-                //set node attributes
-                Double[] coords = railStation.getCoordinates();
-                if (coords != null && coords.length >= 2) {
-                    double scalingFactor = 1.5;
-                    node.setAttribute("x", coords[0] * scalingFactor);
-                    node.setAttribute("y", -coords[1] * scalingFactor);
-                    node.setAttribute("layout.frozen");
-                }
-
-                node.setAttribute("ui.label", railStation.getName());
-            }
+        //routing runs on the compact graph, the GraphStream graph is only used for display
+        RoutingGraph prebuilt = graphObjectGenerator.getRoutingGraph();
+        boolean usePrebuilt = prebuilt != null && stations == graphObjectGenerator.getStations();
+        routingGraph = usePrebuilt ? prebuilt : RoutingGraph.fromStations(stations, graphObjectGenerator.getStationDistances());
+        contractionHierarchy = usePrebuilt ? graphObjectGenerator.getContractionHierarchy() : null;
+        landmarks = usePrebuilt ? graphObjectGenerator.getLandmarks() : null;
+        isochrone = null;
+        routeCache.setNetworkVersion(++networkVersion);
+        indexStations(stations);
+        //station ids may have changed, so a timetable for the old graph no longer applies
+        timetable = null;
+        connectionScan = null;
+
+        if (!headless) {
+            buildDisplayGraph();
         }
-        try {
-            addNodes(stations);
-            addEdges(stations);
-        } catch (Exception e) {
-            System.err.println("Error generating graph: " + e.getMessage());
-        }
-
         return graph;
     }
 
-    private void addNodes(List<Station> stations) {
-        for (Station station : stations) {
-            if (isValidStation(station)) {
-                String nodeName = station.getRailStation().getName();
-                try {
-                    //check if node already exists
-                    Node node = graph.addNode(nodeName);
-                    node.setAttribute("ui.label", nodeName);
-                } catch (IdAlreadyInUseException e) {
-                    System.err.println("Node " + nodeName + " already exists");
-                }
-            }
+    private void ensureDisplayGraph() {
+        if (graph == null) {
+            setSystemProperties();
+            buildDisplayGraph();
         }
     }
 
-    private void addEdges(List<Station> stations) {
-        for (Station station : stations) {
-            if (!isValidStation(station)) continue;
+    private void buildDisplayGraph() {
+        long start = System.nanoTime();
+        graph = new SingleGraph("Train Graph");
 
-            String sourceStation = station.getRailStation().getName();
-
-            for (Route route : station.getRoutes()) {
-                try {
-                    //check if route is valid
-                    if (isValidRoute(route)) {
-                        //check if destination station is null
-                        String destStation = route.getDestination().getName();
-                        addEdge(sourceStation, destStation);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error processing route from " + sourceStation + ": " + e.getMessage());
-                }
-            }
+        //the routing graph already holds each station and edge exactly once, so copy them across in one pass
+        String[] names = routingGraph.getStationNames();
+        for (String name : names) {
+            Node node = graph.addNode(name);
+            node.setAttribute("ui.label", name);
         }
-    }
-
-    private boolean isValidStation(Station station) {
-        //check if station is null and has valid attributes
-        return station != null && station.getRailStation() != null && station.getRailStation().getName() != null && station.getRoutes() != null;
-    }
-
-    private boolean isValidRoute(Route route) {
-        //check if route is null and has valid attributes
-        return route != null && route.getRailLine() != null && route.getRailLine().getName() != null && route.getDestination() != null && route.getDestination().getName() != null;
-    }
 
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        double[] weights = routingGraph.getWeights();
+        int[] arcEdges = routingGraph.getArcEdges();
+        boolean[] added = new boolean[routingGraph.getEdgeCount()];
+        for (int source = 0; source < names.length; source++) {
+            for (int arc = offsets[source]; arc < offsets[source + 1]; arc++) {
+                int edgeIndex = arcEdges[arc];
+                //each edge has an arc in both directions, only add it from the first one
+                if (added[edgeIndex]) {
+                    continue;
+                }
+                added[edgeIndex] = true;
 
-    private void addEdge(String sourceStation, String destStation) {
-        String edgeId = sourceStation + "--" + destStation;
-        String reverseEdgeId = destStation + "--" + sourceStation;
+                String sourceStation = names[source];
+                String destStation = names[targets[arc]];
+                Edge edge = graph.addEdge(sourceStation + "--" + destStation, sourceStation, destStation, false);
+                edge.setAttribute("length", weights[arc]);
 
-        //check if the edge has already been processed
-        if (processedEdges.contains(edgeId) || processedEdges.contains(reverseEdgeId)) {
-            return;
-        }
-
-        try {
-            Edge edge = graph.addEdge(edgeId, sourceStation, destStation, false);
-            if (edge != null) {
-                //set edge attributes
-                Double weight = graphObjectGenerator.getStationDistances().getOrDefault(sourceStation, new HashMap<>()).getOrDefault(destStation, 1.0);
-                edge.setAttribute("length", weight);
-
-                String lineColour = getEdgeColour(sourceStation, destStation);
-                if (lineColour != null) {
-                    edge.setAttribute("ui.style", "fill-color: " + lineColour + ";");
-                    edge.setAttribute("original.color", lineColour);
+                String lineColour = routingGraph.getEdgeColour(edgeIndex);
+                if (lineColour == null) {
+                    lineColour = "#0000FF";
                 }
-
-                processedEdges.add(edgeId);
+                edge.setAttribute("ui.style", "fill-color: " + lineColour + ";");
+                edge.setAttribute("original.color", lineColour);
             }
-        } catch (Exception e) {
-            System.err.println("Warning: Could not create edge between " + sourceStation + " and " + destStation);
         }
+        System.out.printf("Display graph built in %.1f ms (%d nodes, %d edges)%n", (System.nanoTime() - start) / 1_000_000.0, graph.getNodeCount(), graph.getEdgeCount());
     }
 
     public void resetEdgeColours() {
+        if (graph == null) {
+            return;
+        }
         graph.edges().forEach(edge -> {
             //reset edge colour to its original value
             String originalColour = edge.getAttribute("original.color").toString();
@@ -171,28 +159,10 @@ public class GraphGenerator {
         });
     }
 
-    private String getEdgeColour(String sourceStation, String destStation) {
-        for (Station station : stations) {
-            //check if station is null
-            if (station.getRailStation().getName().equals(sourceStation)) {
-                for (Route route : station.getRoutes()) {
-                    //check if route is null
-                    if (route.getDestination().getName().equals(destStation)) {
-                        RailLine railLine = route.getRailLine();
-                        if (railLine != null && railLine.getColour() != null) {
-                            //return the colour of the rail line
-                            return railLine.getColour();
-                        }
-                    }
-                }
-            }
-        }
-        return "#0000FF";
-    }
-
     public void printEntireMap() {
         try {
             //generate the graph
+            ensureDisplayGraph();
             configureGraphStyles();
             Viewer viewer = graph.display();
             viewer.setCloseFramePolicy(Viewer.CloseFramePolicy.HIDE_ONLY);
@@ -308,64 +278,352 @@ public class GraphGenerator {
         });
     }
 
+    private void indexStations(List<Station> stations) {
+        stationIndex = new StationIndex(routingGraph.getStationNames());
+        stationsById = new Station[routingGraph.getStationCount()];
+        for (Station station : stations) {
+            if (station != null && station.getRailStation() != null && station.getRailStation().getName() != null) {
+                int id = routingGraph.getStationId(station.getRailStation().getName());
+                if (id != -1) {
+                    stationsById[id] = station;
+                }
+            }
+        }
+    }
+
+    public Router createRouter() {
+        //a fixed view of the current network, the router only reads it so queries on other threads can share it
+        if (routingGraph == null) {
+            throw new IllegalStateException("Graph has not been generated");
+        }
+        RoutingSnapshot snapshot = router == null ? null : router.getSnapshot();
+        if (snapshot == null || snapshot.getRoutingGraph() != routingGraph || snapshot.getContractionHierarchy() != contractionHierarchy || snapshot.getLandmarks() != landmarks) {
+            router = new Router(new RoutingSnapshot(routingGraph, contractionHierarchy, landmarks));
+        }
+        return router;
+    }
+
     public boolean planRoute(String start, String end, boolean shortestRoute, boolean aStar, boolean leastChanges) {
-        if (start == null || end == null) {
-            throw new IllegalArgumentException("Start and end station names cannot be null");
+        RouteType routeType = leastChanges ? RouteType.LEAST_CHANGES : shortestRoute ? RouteType.SHORTEST : RouteType.LEAST_STOPS;
+        return planRoute(start, end, routeType, aStar ? SearchAlgorithm.A_STAR : SearchAlgorithm.STANDARD);
+    }
+
+    public boolean planRoute(String start, String end, RouteType routeType, SearchAlgorithm algorithm) {
+        int[] ids = createRouteGenerator(start, end);
+        if (ids == null) {
+            return false;
         }
-        resetEdgeColours();
 
-        Station startStation = null;
-        Station endStation = null;
+        try {
+            //every trade-off is a list of journeys rather than one route, so only single routes are cached
+            if (routeType == RouteType.ALL_TRADE_OFFS) {
+                return routeGenerator.calculateParetoRoutes();
+            }
+            int startId = ids[0];
+            int endId = ids[1];
+            int[] cached = routeCache.get(startId, endId, routeType, algorithm);
+            if (cached != null) {
+                return routeGenerator.displayCachedRoute(cached);
+            }
+            boolean found = searchRoute(routeType, algorithm);
+            routeCache.put(startId, endId, routeType, algorithm, found ? routeGenerator.getRoute() : RouteCache.NO_ROUTE);
+            return found;
+        } catch (Exception e) {
+            System.err.println("Error calculating route: " + e.getMessage());
+            return false;
+        }
+    }
 
-        //iterate through the stations to find the start and end stations
-        for (Station station : getGraphObjectGenerator().getStations()) {
-            if (station.getRailStation() != null) {
-                String stationName = station.getRailStation().getName();
-                if (stationName != null) {
-                    if (stationName.equalsIgnoreCase(start)) {
-                        startStation = station;
-                    }
-                    if (stationName.equalsIgnoreCase(end)) {
-                        endStation = station;
-                    }
+    private boolean searchRoute(RouteType routeType, SearchAlgorithm algorithm) {
+        if (routeType == RouteType.LEAST_CHANGES) {
+            return routeGenerator.calculateLeastChanges();
+        }
+        if (routeType == RouteType.GENERALISED_COST) {
+            return routeGenerator.calculateLowestCost(costWeights);
+        }
+        boolean shortestRoute = routeType == RouteType.SHORTEST;
+        switch (algorithm) {
+            case A_STAR:
+                //use A* algorithm for route calculation
+                return shortestRoute ? routeGenerator.calculateShortestRouteAStar() : routeGenerator.calculateLeastStationStopsAStar();
+            case BIDIRECTIONAL:
+                //search from both ends at once
+                return shortestRoute ? routeGenerator.calculateShortestRouteBidirectional() : routeGenerator.calculateLeastStationStopsBidirectional();
+            case CONTRACTION_HIERARCHY:
+                if (shortestRoute) {
+                    boolean found = routeGenerator.calculateShortestRouteContracted();
+                    //keep a hierarchy built on demand for the next query
+                    contractionHierarchy = routeGenerator.getContractionHierarchy();
+                    return found;
                 }
-            }
+                //the hierarchy is preprocessed for distances, so the least stops come from BFS
+                return routeGenerator.calculateLeastStationStops();
+            default:
+                //use Dijkstra's or BFS algorithm for route calculation
+                return shortestRoute ? routeGenerator.calculateShortestRoute() : routeGenerator.calculateLeastStationStops();
+        }
+    }
+
+    private int[] createRouteGenerator(String start, String end) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Start and end station names cannot be null");
         }
+        if (stationIndex == null) {
+            throw new IllegalStateException("Graph has not been generated");
+        }
+
+        //look the names up in the index, ignoring case, punctuation and spacing, instead of comparing against every station
+        int startId = stationIndex.find(start);
+        int endId = stationIndex.find(end);
+        Station startStation = startId == -1 ? null : stationsById[startId];
+        Station endStation = endId == -1 ? null : stationsById[endId];
 
         if (startStation == null) {
             System.err.println("Start station '" + start + "' not found in the system");
-            return false;
+            return null;
         }
 
         if (endStation == null) {
             System.err.println("End station '" + end + "' not found in the system");
-            return false;
+            return null;
         }
 
-        if (startStation.equals(endStation)) {
+        if (startId == endId) {
             System.err.println("Start and end stations cannot be the same");
-            return false;
+            return null;
+        }
+
+        routeGenerator = new RouteGenerator(stations, startStation, endStation, graph, routingGraph);
+        routeGenerator.setContractionHierarchy(contractionHierarchy);
+        routeGenerator.setLandmarks(landmarks);
+        //the route generator is made for each query, the router and its workspaces are not
+        routeGenerator.setRouter(createRouter());
+        return new int[]{startId, endId};
+    }
+
+    public List<Path> planAlternativeRoutes(String start, String end, int k) {
+        List<Path> paths = new ArrayList<>();
+        if (createRouteGenerator(start, end) == null) {
+            return paths;
         }
 
         try {
-            routeGenerator = new RouteGenerator(stations, startStation, endStation, graph);
-            if(leastChanges){
-                return routeGenerator.calculateLeastChanges();
+            List<int[]> routes = routeGenerator.calculateAlternativeRoutes(k);
+            if (routes.isEmpty()) {
+                return paths;
             }
-            if (aStar) {
-                //use A* algorithm for route calculation
-                return shortestRoute ? routeGenerator.calculateShortestRouteAStar() : routeGenerator.calculateLeastStationStopsAStar();
-            }else{
-                //use Dijkstra's or BFS algorithm for route calculation
-                return shortestRoute ? routeGenerator.calculateShortestRoute() : routeGenerator.calculateLeastStationStops();
+            //the ranked routes are returned as display graph paths, so build it now if it was skipped
+            ensureDisplayGraph();
+            for (int[] route : routes) {
+                paths.add(toPath(route));
             }
         } catch (Exception e) {
-            System.err.println("Error calculating route: " + e.getMessage());
+            System.err.println("Error calculating routes: " + e.getMessage());
+        }
+        return paths;
+    }
+
+    public double[] distanceMatrix(List<String> origins, List<String> destinations) {
+        if (origins == null || destinations == null) {
+            throw new IllegalArgumentException("Origin and destination station lists cannot be null");
+        }
+        DistanceMatrix distanceMatrix = new DistanceMatrix(routingGraph, contractionHierarchy);
+        return distanceMatrix.compute(stationIds(origins), stationIds(destinations));
+    }
+
+    public Isochrone reachableStations(String start, RouteType budgetType, double budget) {
+        if (start == null || budgetType == null) {
+            throw new IllegalArgumentException("Start station name and budget type cannot be null");
+        }
+        if (!(budget >= 0)) {
+            throw new IllegalArgumentException("Budget must be a number that is not negative");
+        }
+        //the same name matching planRoute uses
+        int source = stationIndex.find(start);
+        if (source == -1) {
+            System.err.println("Start station '" + start + "' not found in the system");
+            return null;
+        }
+
+        if (isochrone == null) {
+            isochrone = new Isochrone(routingGraph);
+        }
+        switch (budgetType) {
+            case SHORTEST:
+                isochrone.reachWithinDistance(source, budget);
+                break;
+            case LEAST_STOPS:
+                isochrone.reachWithinStops(source, (int) budget);
+                break;
+            case LEAST_CHANGES:
+                isochrone.reachWithinChanges(source, (int) budget);
+                break;
+            default:
+                throw new IllegalArgumentException("Reachability needs a distance, stops or line changes budget");
+        }
+        return isochrone;
+    }
+
+    public boolean closeStation(String name) {
+        int station = stationId(name);
+        if (!routingGraph.getDisruptions().closeStation(station)) {
+            return false;
+        }
+        //closing only takes routes away, so a cached route that avoids the station is still the best one
+        routeCache.invalidate(route -> contains(route, station));
+        return true;
+    }
+
+    public boolean reopenStation(String name) {
+        int station = stationId(name);
+        if (!routingGraph.getDisruptions().reopenStation(station)) {
+            return false;
+        }
+        //reopening can shorten any route or join stations that had none, so nothing cached can be trusted
+        routeCache.setNetworkVersion(++networkVersion);
+        return true;
+    }
+
+    public boolean closeSegment(String from, String to) {
+        int a = stationId(from);
+        int b = stationId(to);
+        if (!routingGraph.getDisruptions().closeEdge(edgeId(a, b, from, to))) {
+            return false;
+        }
+        //a route uses the segment when it goes between its two stations in either direction
+        routeCache.invalidate(route -> {
+            for (int i = 0; i + 1 < route.length; i++) {
+                if (route[i] == a && route[i + 1] == b || route[i] == b && route[i + 1] == a) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        return true;
+    }
+
+    public boolean reopenSegment(String from, String to) {
+        if (!routingGraph.getDisruptions().reopenEdge(edgeId(stationId(from), stationId(to), from, to))) {
             return false;
         }
+        routeCache.setNetworkVersion(++networkVersion);
+        return true;
+    }
+
+    private int stationId(String name) {
+        if (stationIndex == null) {
+            throw new IllegalStateException("Graph has not been generated");
+        }
+        int station = stationIndex.find(name);
+        if (station == -1) {
+            throw new IllegalArgumentException("Station '" + name + "' not found in the system");
+        }
+        return station;
+    }
+
+    private int edgeId(int a, int b, String from, String to) {
+        int arc = routingGraph.findArc(a, b);
+        if (arc == -1) {
+            throw new IllegalArgumentException("Stations '" + from + "' and '" + to + "' are not next to each other");
+        }
+        return routingGraph.getArcEdges()[arc];
+    }
+
+    private static boolean contains(int[] route, int station) {
+        for (int stop : route) {
+            if (stop == station) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void setCostWeights(CostWeights costWeights) {
+        if (costWeights == null) {
+            throw new IllegalArgumentException("Cost weights cannot be null");
+        }
+        //only the cached lowest cost routes were planned with the old weights
+        if (!costWeights.equals(this.costWeights)) {
+            routeCache.invalidate(RouteType.GENERALISED_COST);
+        }
+        this.costWeights = costWeights;
+    }
+
+    public void setTimetable(Timetable timetable) {
+        if (timetable != null && timetable.getStationCount() != routingGraph.getStationCount()) {
+            throw new IllegalArgumentException("Timetable does not match the routing graph");
+        }
+        this.timetable = timetable;
+        connectionScan = null;
+    }
+
+    public List<ConnectionScan.Leg> planEarliestArrival(String start, String end, int departureTime) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Start and end station names cannot be null");
+        }
+        int source = stationIndex.find(start);
+        int destination = stationIndex.find(end);
+        if (source == -1) {
+            System.err.println("Start station '" + start + "' not found in the system");
+            return null;
+        }
+        if (destination == -1) {
+            System.err.println("End station '" + end + "' not found in the system");
+            return null;
+        }
+        if (source == destination) {
+            System.err.println("Start and end stations cannot be the same");
+            return null;
+        }
+
+        if (timetable == null) {
+            long generateStart = System.nanoTime();
+            timetable = new TimetableGenerator().generate(routingGraph, graphObjectGenerator.getLineToStationsMap());
+            System.out.printf("Timetable generated in %.1f ms (%d connections, %d trips)%n", (System.nanoTime() - generateStart) / 1_000_000.0, timetable.getConnectionCount(), timetable.getTripCount());
+        }
+        if (connectionScan == null) {
+            connectionScan = new ConnectionScan(timetable);
+        }
+        List<ConnectionScan.Leg> legs = connectionScan.earliestArrival(source, destination, departureTime);
+        if (legs.isEmpty()) {
+            System.out.println("No train reaches " + routingGraph.getStationName(destination) + " after " + Timetable.formatTime(departureTime));
+            return legs;
+        }
+        for (ConnectionScan.Leg leg : legs) {
+            System.out.println(Timetable.formatTime(leg.departureTime()) + " " + routingGraph.getStationName(leg.departureStation()) + " -> "
+                    + Timetable.formatTime(leg.arrivalTime()) + " " + routingGraph.getStationName(leg.arrivalStation()) + " (" + timetable.getTripNames()[leg.trip()] + ")");
+        }
+        System.out.println("Arrive at " + Timetable.formatTime(legs.get(legs.size() - 1).arrivalTime()) + " with " + (legs.size() - 1) + " change(s)");
+        return legs;
+    }
+
+    private int[] stationIds(List<String> names) {
+        int[] stations = new int[names.size()];
+        for (int i = 0; i < stations.length; i++) {
+            int id = stationIndex.find(names.get(i));
+            if (id == -1) {
+                throw new IllegalArgumentException("Station '" + names.get(i) + "' not found in the system");
+            }
+            stations[i] = id;
+        }
+        return stations;
+    }
+
+    private Path toPath(int[] route) {
+        Path path = new Path();
+        Node previous = graph.getNode(routingGraph.getStationName(route[0]));
+        path.setRoot(previous);
+        for (int i = 1; i < route.length; i++) {
+            Node next = graph.getNode(routingGraph.getStationName(route[i]));
+            path.add(previous, previous.getEdgeBetween(next));
+            previous = next;
+        }
+        return path;
     }
 
     public void printRoute() {
+        ensureDisplayGraph();
+        routeGenerator.setGraph(graph);
         routeGenerator.displayRoute();
     }
 }
\ No newline at end of file
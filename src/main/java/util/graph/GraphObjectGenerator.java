@@ -22,6 +22,10 @@ public class GraphObjectGenerator {
     private Map<String, List<RailStation>> lineToStationsMap;
     private ArrayList<RailLine> railLines;
     private ArrayList<RailStation> railStations;
+    private RoutingGraph routingGraph;
+    private ContractionHierarchy contractionHierarchy;
+    private Landmarks landmarks;
+    private int landmarkCount = Landmarks.DEFAULT_COUNT;
 
     public GraphObjectGenerator(ArrayList<RailLine> railLines, ArrayList<RailStation> railStations) {
         stations = new ArrayList<>();
@@ -35,6 +39,9 @@ public class GraphObjectGenerator {
             buildStationMaps();
             generateStationNetwork();
             getStationDistance();
+            routingGraph = RoutingGraph.fromStations(stations, stationDistances);
+            contractionHierarchy = ContractionHierarchy.build(routingGraph);
+            landmarks = Landmarks.build(routingGraph, landmarkCount);
         } catch (Exception e) {
             System.err.println("Error in controller: " + e.getMessage());
         }
@@ -0,0 +1,128 @@
+package util.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/*Indexed priority queue code references:
+* https://algs4.cs.princeton.edu/24pq/IndexMinPQ.java.html
+* https://en.wikipedia.org/wiki/Binary_heap#Decrease_or_increase_key
+*/
+
+//binary min-heap of station ids keyed by a double, the position of every id is tracked so its key can be lowered in place
+public class IndexedMinHeap {
+    private final int[] heap;
+    //index of each id in the heap array, -1 when the id is not queued
+    private final int[] positions;
+    private final double[] keys;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return positions[id] != -1;
+    }
+
+    public double getKey(int id) {
+        return keys[id];
+    }
+
+    //adds the id, or lowers its key if it is already queued, returns false when the queued key was already lower
+    public boolean push(int id, double key) {
+        int position = positions[id];
+        if (position == -1) {
+            keys[id] = key;
+            heap[size] = id;
+            positions[id] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key >= keys[id]) {
+            return false;
+        }
+        keys[id] = key;
+        siftUp(position);
+        return true;
+    }
+
+    public double peekKey() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return keys[heap[0]];
+    }
+
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        int top = heap[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            //move the last id to the root and let it sink back into place
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public void clear() {
+        //only the queued ids have positions to reset, so clearing costs the current size rather than the capacity
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int index) {
+        int id = heap[index];
+        double key = keys[id];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) {
+                break;
+            }
+            heap[index] = parentId;
+            positions[parentId] = index;
+            index = parent;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+
+    private void siftDown(int index) {
+        int id = heap[index];
+        double key = keys[id];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            if (keys[heap[child]] >= key) {
+                break;
+            }
+            heap[index] = heap[child];
+            positions[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+}
@@ -0,0 +1,219 @@
+package util.graph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/*Isochrone and reachability code references:
+* https://en.wikipedia.org/wiki/Isochrone_map
+* https://docs.graphhopper.com/#tag/Isochrone-API
+* https://datatracker.ietf.org/doc/html/rfc7946
+* https://datatracker.ietf.org/doc/html/rfc4180
+*/
+
+//every station reachable from one station within a budget of kilometres, stops or line changes, with the cost of reaching
+//it, each search stops as soon as the next station would be over budget and reuses the same arrays for every query
+public class Isochrone {
+    private final RoutingGraph routingGraph;
+    private final SearchWorkspace stationWorkspace;
+    //the line state graph and its workspace are only built for the first line changes query
+    private SearchWorkspace stateWorkspace;
+    private final int[] queue;
+    //stations reached by the last query, in the order of their cost
+    private final int[] reachedStations;
+    private final double[] reachedCosts;
+    private int reachedCount;
+
+    public Isochrone(RoutingGraph routingGraph) {
+        this.routingGraph = routingGraph;
+        int stationCount = routingGraph.getStationCount();
+        this.stationWorkspace = new SearchWorkspace(routingGraph);
+        this.queue = new int[stationCount];
+        this.reachedStations = new int[stationCount];
+        this.reachedCosts = new double[stationCount];
+    }
+
+    public int reachWithinDistance(int source, double maxDistance) {
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        double[] weights = routingGraph.getWeights();
+        start();
+        //a closed station reaches nothing, and closed stations and edges are skipped on the way
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && !routingGraph.isStationOpen(source)) {
+            return reachedCount;
+        }
+        IndexedMinHeap openSet = stationWorkspace.getOpenSet();
+        stationWorkspace.reach(source, 0.0, -1);
+        openSet.push(source, 0.0);
+        //stations are settled in order of distance, so the first one over budget ends the search
+        while (!openSet.isEmpty() && openSet.peekKey() <= maxDistance) {
+            int current = openSet.poll();
+            double distance = stationWorkspace.getDistance(current);
+            add(current, distance);
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (disrupted && !routingGraph.isArcOpen(arc)) {
+                    continue;
+                }
+                double tentative = distance + weights[arc];
+                if (tentative <= maxDistance && tentative < stationWorkspace.getDistance(targets[arc])) {
+                    stationWorkspace.reach(targets[arc], tentative, current);
+                    openSet.push(targets[arc], tentative);
+                }
+            }
+        }
+        return reachedCount;
+    }
+
+    public int reachWithinStops(int source, int maxStops) {
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        start();
+        //a negative budget reaches nothing, as it does for distance and changes
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (maxStops < 0 || disrupted && !routingGraph.isStationOpen(source)) {
+            return reachedCount;
+        }
+        int head = 0;
+        int tail = 0;
+        stationWorkspace.reach(source, 0.0, -1);
+        queue[tail++] = source;
+        while (head < tail) {
+            int current = queue[head++];
+            double stops = stationWorkspace.getDistance(current);
+            add(current, stops);
+            //the queue holds stations in order of stops, so nothing past the budget is ever queued
+            if (stops >= maxStops) {
+                continue;
+            }
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (disrupted && !routingGraph.isArcOpen(arc)) {
+                    continue;
+                }
+                if (stationWorkspace.getDistance(targets[arc]) == Double.POSITIVE_INFINITY) {
+                    stationWorkspace.reach(targets[arc], stops + 1, current);
+                    queue[tail++] = targets[arc];
+                }
+            }
+        }
+        return reachedCount;
+    }
+
+    public int reachWithinChanges(int source, int maxChanges) {
+        LineStateGraph lineStateGraph = routingGraph.getLineStateGraph();
+        int[] stateStations = lineStateGraph.getStateStations();
+        int[] offsets = lineStateGraph.getOffsets();
+        int[] targets = lineStateGraph.getTargets();
+        int[] changes = lineStateGraph.getChanges();
+        if (stateWorkspace == null) {
+            stateWorkspace = new SearchWorkspace(lineStateGraph.getStateCount(), 0);
+        }
+        start();
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && !routingGraph.isStationOpen(source)) {
+            return reachedCount;
+        }
+        stateWorkspace.reset();
+        IndexedMinHeap openSet = stateWorkspace.getOpenSet();
+        int entry = lineStateGraph.entry(source);
+        stateWorkspace.reach(entry, 0.0, -1);
+        openSet.push(entry, 0.0);
+        while (!openSet.isEmpty() && openSet.peekKey() <= maxChanges) {
+            int current = openSet.poll();
+            double cost = stateWorkspace.getDistance(current);
+            //a station counts once, at the fewest changes any of its states was reached with
+            int station = stateStations[current];
+            if (!stationWorkspace.isSettled(station)) {
+                stationWorkspace.settle(station);
+                add(station, cost);
+            }
+            for (int transition = offsets[current]; transition < offsets[current + 1]; transition++) {
+                if (disrupted && lineStateGraph.isClosed(transition)) {
+                    continue;
+                }
+                double tentative = cost + changes[transition];
+                if (tentative <= maxChanges && tentative < stateWorkspace.getDistance(targets[transition])) {
+                    stateWorkspace.reach(targets[transition], tentative, current);
+                    openSet.push(targets[transition], tentative);
+                }
+            }
+        }
+        return reachedCount;
+    }
+
+    private void start() {
+        stationWorkspace.reset();
+        reachedCount = 0;
+    }
+
+    private void add(int station, double cost) {
+        reachedStations[reachedCount] = station;
+        reachedCosts[reachedCount++] = cost;
+    }
+
+    public int getReachedCount() {
+        return reachedCount;
+    }
+
+    public int getReachedStation(int index) {
+        return reachedStations[index];
+    }
+
+    public double getReachedCost(int index) {
+        return reachedCosts[index];
+    }
+
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("station,latitude,longitude,cost\n");
+        double[] latitudes = routingGraph.getLatitudes();
+        double[] longitudes = routingGraph.getLongitudes();
+        for (int i = 0; i < reachedCount; i++) {
+            int station = reachedStations[i];
+            String name = routingGraph.getStationName(station);
+            //quote names holding a comma, quote or line break, doubling any quotes inside them
+            if (name.contains(",") || name.contains("\"") || name.contains("\n")) {
+                name = "\"" + name.replace("\"", "\"\"") + "\"";
+            }
+            writer.write(name + "," + coordinate(latitudes[station]) + "," + coordinate(longitudes[station]) + "," + number(reachedCosts[i]) + "\n");
+        }
+        writer.flush();
+    }
+
+    public void writeGeoJson(Writer writer) throws IOException {
+        double[] latitudes = routingGraph.getLatitudes();
+        double[] longitudes = routingGraph.getLongitudes();
+        writer.write("{\"type\":\"FeatureCollection\",\"features\":[");
+        for (int i = 0; i < reachedCount; i++) {
+            int station = reachedStations[i];
+            writer.write(i == 0 ? "\n" : ",\n");
+            //GeoJSON positions are longitude first, stations without coordinates have no geometry
+            String geometry = Double.isNaN(latitudes[station]) || Double.isNaN(longitudes[station]) ? "null"
+                    : "{\"type\":\"Point\",\"coordinates\":[" + coordinate(longitudes[station]) + "," + coordinate(latitudes[station]) + "]}";
+            writer.write("{\"type\":\"Feature\",\"geometry\":" + geometry + ",\"properties\":{\"name\":\"" + jsonEscape(routingGraph.getStationName(station)) + "\",\"cost\":" + number(reachedCosts[i]) + "}}");
+        }
+        writer.write("\n]}\n");
+        writer.flush();
+    }
+
+    private static String coordinate(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static String number(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String jsonEscape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package util.graph;
+
+import lombok.Getter;
+
+//one route between two stations with its distance, number of stops and number of line changes
+@Getter
+public class Journey {
+    private final int[] stations;
+    private final double distance;
+    private final int stops;
+    private final int changes;
+
+    public Journey(int[] stations, double distance, int stops, int changes) {
+        this.stations = stations;
+        this.distance = distance;
+        this.stops = stops;
+        this.changes = changes;
+    }
+
+    //true when this journey is no worse than the other on every criterion
+    public boolean dominates(Journey other) {
+        return distance <= other.distance && stops <= other.stops && changes <= other.changes;
+    }
+
+    //line changes as the pareto rounds count them, where every hop between stations with no common line is a change,
+    //the first hop included
+    public static int countChanges(RoutingGraph routingGraph, int[] stations) {
+        int changes = 0;
+        long[] currentLines = routingGraph.lineSet(stations[0]);
+        for (int i = 1; i < stations.length; i++) {
+            if (!routingGraph.retainLines(currentLines, stations[i])) {
+                changes++;
+                routingGraph.copyLines(stations[i], currentLines);
+            }
+        }
+        return changes;
+    }
+}
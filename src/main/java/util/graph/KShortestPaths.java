@@ -0,0 +1,283 @@
+package util.graph;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*K shortest loopless paths code references:
+* https://en.wikipedia.org/wiki/Yen%27s_algorithm
+* https://doi.org/10.1287/mnsc.17.11.712
+*/
+
+//ranks the k shortest routes that never visit a station twice (Yen's algorithm), each new route leaves an earlier one
+//at a spur station and takes the best way on from there that avoids the stations before the spur and the next hop of
+//every earlier route sharing the same start
+public class KShortestPaths {
+    private static final Comparator<Candidate> CANDIDATE_ORDER = (first, second) -> first.length != second.length ? Double.compare(first.length, second.length) : Integer.compare(first.stations.length, second.stations.length);
+
+    private final RoutingGraph routingGraph;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final SearchWorkspace workspace;
+    //optional, its downward sweep finds the distances to the destination far faster than a full Dijkstra
+    private final ContractionHierarchy contractionHierarchy;
+    //shortest distance to the destination and the next station on that route, from one search out of the destination,
+    //they are exact A* bounds for every spur search and the spur route itself whenever nothing on it is banned
+    private final double[] distancesToDestination;
+    private final int[] nextTowardsDestination;
+    //whether anything was closed when the current query started, read once so its searches agree
+    private boolean disrupted;
+    //spur searches that could not use the route to the destination directly, and the stations they settled
+    @Getter
+    private int spurSearchCount;
+    @Getter
+    private int settledCount;
+
+    public KShortestPaths(RoutingGraph routingGraph, ContractionHierarchy contractionHierarchy) {
+        this(routingGraph, contractionHierarchy, new SearchWorkspace(routingGraph));
+    }
+
+    public KShortestPaths(RoutingGraph routingGraph, ContractionHierarchy contractionHierarchy, SearchWorkspace workspace) {
+        this.routingGraph = routingGraph;
+        this.contractionHierarchy = contractionHierarchy;
+        this.offsets = routingGraph.getOffsets();
+        this.targets = routingGraph.getTargets();
+        this.weights = routingGraph.getWeights();
+        this.workspace = workspace;
+        this.distancesToDestination = new double[routingGraph.getStationCount()];
+        this.nextTowardsDestination = new int[routingGraph.getStationCount()];
+    }
+
+    public List<int[]> findShortestPaths(int source, int destination, int k) {
+        spurSearchCount = 0;
+        settledCount = 0;
+        List<int[]> paths = new ArrayList<>();
+        if (k <= 0) {
+            return paths;
+        }
+        disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && (!routingGraph.isStationOpen(source) || !routingGraph.isStationOpen(destination))) {
+            return paths;
+        }
+        if (source == destination) {
+            paths.add(new int[]{source});
+            return paths;
+        }
+        searchFromDestination(destination);
+        if (distancesToDestination[source] == Double.POSITIVE_INFINITY) {
+            return paths;
+        }
+
+        List<Candidate> accepted = new ArrayList<>();
+        accepted.add(new Candidate(treePath(source, 0, new int[0]), distancesToDestination[source], 0));
+        //shortest first, only as many as could still be accepted are kept, so the last one bounds every spur search
+        List<Candidate> candidates = new ArrayList<>();
+        Set<PathKey> seen = new HashSet<>();
+        seen.add(new PathKey(accepted.get(0).stations));
+
+        while (accepted.size() < k) {
+            Candidate previous = accepted.get(accepted.size() - 1);
+            int[] stations = previous.stations;
+            int remaining = k - accepted.size();
+            double rootLength = 0.0;
+            for (int i = 0; i < previous.deviation; i++) {
+                rootLength += weights[routingGraph.findArc(stations[i], stations[i + 1])];
+            }
+
+            //spurs before the station this route left its parent at were already tried when the parent was accepted
+            for (int spur = previous.deviation; spur < stations.length - 1; spur++) {
+                double limit = candidates.size() < remaining ? Double.POSITIVE_INFINITY : candidates.get(remaining - 1).length;
+                if (rootLength + distancesToDestination[stations[spur]] <= limit) {
+                    workspace.reset();
+                    for (int i = 0; i < spur; i++) {
+                        workspace.banStation(stations[i]);
+                    }
+                    for (Candidate other : accepted) {
+                        if (other.stations.length > spur + 1 && Arrays.equals(other.stations, 0, spur + 1, stations, 0, spur + 1)) {
+                            workspace.banArc(routingGraph.findArc(other.stations[spur], other.stations[spur + 1]));
+                        }
+                    }
+
+                    Candidate candidate = spurRoute(stations, spur, rootLength, destination, limit);
+                    if (candidate != null && seen.add(new PathKey(candidate.stations))) {
+                        insert(candidates, candidate, remaining);
+                    }
+                }
+                rootLength += weights[routingGraph.findArc(stations[spur], stations[spur + 1])];
+            }
+
+            if (candidates.isEmpty()) {
+                break;
+            }
+            accepted.add(candidates.remove(0));
+        }
+
+        for (Candidate candidate : accepted) {
+            paths.add(candidate.stations);
+        }
+        return paths;
+    }
+
+    private static void insert(List<Candidate> candidates, Candidate candidate, int capacity) {
+        int index = Collections.binarySearch(candidates, candidate, CANDIDATE_ORDER);
+        candidates.add(index < 0 ? -index - 1 : index, candidate);
+        if (candidates.size() > capacity) {
+            candidates.remove(candidates.size() - 1);
+        }
+    }
+
+    private Candidate spurRoute(int[] stations, int spur, double rootLength, int destination, double limit) {
+        int[] root = Arrays.copyOf(stations, spur);
+        int spurStation = stations[spur];
+        if (!workspace.isArcBanned(routingGraph.findArc(spurStation, nextTowardsDestination[spurStation])) && treeClean(spurStation)) {
+            return new Candidate(treePath(spurStation, spur, root), rootLength + distancesToDestination[spurStation], spur);
+        }
+
+        //A* with the distances to the destination, which only grow when stations and arcs are banned
+        spurSearchCount++;
+        IndexedMinHeap openSet = workspace.getOpenSet();
+        workspace.reach(spurStation, 0.0, -1);
+        openSet.push(spurStation, distancesToDestination[spurStation]);
+        workspace.settle(spurStation);
+        //a spur route longer than the limit could never be accepted
+        while (!openSet.isEmpty() && rootLength + openSet.peekKey() <= limit) {
+            int current = openSet.poll();
+            workspace.settle(current);
+            settledCount++;
+            //no open station can do better than the popped one, so once its unbanned route to the destination is
+            //still open the rest of the spur is that route
+            if (current != spurStation && treeClean(current)) {
+                return new Candidate(joinPath(root, current), rootLength + workspace.getDistance(current) + distancesToDestination[current], spur);
+            }
+
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                int neighbour = targets[arc];
+                if (workspace.isArcBanned(arc) || workspace.isStationBanned(neighbour) || workspace.isSettled(neighbour) || (disrupted && !routingGraph.isArcOpen(arc))) {
+                    continue;
+                }
+                double tentative = workspace.getDistance(current) + weights[arc];
+                if (tentative < workspace.getDistance(neighbour)) {
+                    workspace.reach(neighbour, tentative, current);
+                    openSet.push(neighbour, tentative + distancesToDestination[neighbour]);
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean treeClean(int from) {
+        //the route on from a station is usable when it avoids the root and every station this spur search has settled,
+        //banned arcs all leave the spur station, which is settled first, so they are never on it
+        for (int current = nextTowardsDestination[from]; current != -1; current = nextTowardsDestination[current]) {
+            if (workspace.isStationBanned(current) || workspace.isSettled(current)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] treePath(int from, int rootLength, int[] root) {
+        int length = rootLength;
+        for (int current = from; current != -1; current = nextTowardsDestination[current]) {
+            length++;
+        }
+        int[] path = Arrays.copyOf(root, length);
+        int i = rootLength;
+        for (int current = from; current != -1; current = nextTowardsDestination[current]) {
+            path[i++] = current;
+        }
+        return path;
+    }
+
+    private int[] joinPath(int[] root, int meeting) {
+        //root, then the spur search's route to the meeting station, then the route on from there to the destination
+        int length = root.length;
+        for (int current = meeting; current != -1; current = workspace.getPredecessor(current)) {
+            length++;
+        }
+        int[] path = treePath(nextTowardsDestination[meeting], length, Arrays.copyOf(root, length));
+        int i = length - 1;
+        for (int current = meeting; current != -1; current = workspace.getPredecessor(current)) {
+            path[i--] = current;
+        }
+        return path;
+    }
+
+    private void searchFromDestination(int destination) {
+        //the network is undirected, so the tree out of the destination holds the shortest route to it from everywhere,
+        //the hierarchy's shortcuts may cross closed track, so it is only used while nothing is closed
+        if (contractionHierarchy != null && !disrupted) {
+            contractionHierarchy.distancesFrom(destination, distancesToDestination, workspace);
+            settledCount += distancesToDestination.length;
+            //the next station is the neighbour the distance came through, every arc is positive so it is always closer
+            for (int station = 0; station < distancesToDestination.length; station++) {
+                nextTowardsDestination[station] = -1;
+                double best = Double.POSITIVE_INFINITY;
+                if (station == destination || distancesToDestination[station] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int arc = offsets[station]; arc < offsets[station + 1]; arc++) {
+                    if (weights[arc] + distancesToDestination[targets[arc]] < best) {
+                        best = weights[arc] + distancesToDestination[targets[arc]];
+                        nextTowardsDestination[station] = targets[arc];
+                    }
+                }
+            }
+            return;
+        }
+
+        Arrays.fill(distancesToDestination, Double.POSITIVE_INFINITY);
+        Arrays.fill(nextTowardsDestination, -1);
+        workspace.reset();
+        IndexedMinHeap openSet = workspace.getOpenSet();
+        distancesToDestination[destination] = 0.0;
+        openSet.push(destination, 0.0);
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            settledCount++;
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (disrupted && !routingGraph.isArcOpen(arc)) {
+                    continue;
+                }
+                double tentative = distancesToDestination[current] + weights[arc];
+                if (tentative < distancesToDestination[targets[arc]]) {
+                    distancesToDestination[targets[arc]] = tentative;
+                    nextTowardsDestination[targets[arc]] = current;
+                    openSet.push(targets[arc], tentative);
+                }
+            }
+        }
+    }
+
+    private static class Candidate {
+        private final int[] stations;
+        private final double length;
+        //index of the spur station where this route left the one it was found from
+        private final int deviation;
+
+        private Candidate(int[] stations, double length, int deviation) {
+            this.stations = stations;
+            this.length = length;
+            this.deviation = deviation;
+        }
+    }
+
+    private record PathKey(int[] stations) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PathKey key && Arrays.equals(stations, key.stations);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(stations);
+        }
+    }
+}
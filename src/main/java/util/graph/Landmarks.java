@@ -0,0 +1,152 @@
+package util.graph;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/*A*, landmarks and the triangle inequality (ALT) code references:
+* https://www.microsoft.com/en-us/research/publication/computing-the-shortest-path-a-search-meets-graph-theory/
+* https://github.com/graphhopper/graphhopper/blob/master/core/src/main/java/com/graphhopper/routing/lm/LandmarkStorage.java
+*/
+
+//distances from a few far apart landmark stations to every station, by the triangle inequality the difference between
+//two stations' distances to a landmark never exceeds the distance between them, which makes it an A* lower bound
+@Getter
+public class Landmarks {
+    public static final int DEFAULT_COUNT = 8;
+
+    private final int[] landmarks;
+    //distance and number of stops from landmark l to station s are stored at s * landmarkCount + l,
+    //so the bounds for one station are read together, unreachable stations are infinite and -1 stops
+    private final double[] distances;
+    private final int[] stops;
+
+    public Landmarks(int[] landmarks, double[] distances, int[] stops) {
+        this.landmarks = landmarks;
+        this.distances = distances;
+        this.stops = stops;
+    }
+
+    public static Landmarks build(RoutingGraph routingGraph, int count) {
+        long start = System.nanoTime();
+        int stationCount = routingGraph.getStationCount();
+        count = Math.min(count, stationCount);
+
+        //farthest selection, each new landmark is the station furthest from every landmark picked so far
+        int[] landmarks = new int[count];
+        double[] distances = new double[stationCount * count];
+        int[] stops = new int[stationCount * count];
+        double[] nearestLandmark = new double[stationCount];
+        Arrays.fill(nearestLandmark, Double.POSITIVE_INFINITY);
+        double[] distance = new double[stationCount];
+        int[] stopCount = new int[stationCount];
+        SearchWorkspace workspace = new SearchWorkspace(stationCount, 0);
+
+        int next = count == 0 ? -1 : farthestFrom(routingGraph, 0, distance, workspace);
+        for (int l = 0; l < count; l++) {
+            landmarks[l] = next;
+            shortestDistances(routingGraph, next, distance, workspace);
+            fewestStops(routingGraph, next, stopCount, workspace);
+            for (int s = 0; s < stationCount; s++) {
+                distances[s * count + l] = distance[s];
+                stops[s * count + l] = stopCount[s];
+                nearestLandmark[s] = Math.min(nearestLandmark[s], distance[s]);
+            }
+
+            //stations no landmark reaches yet come first, so every part of a disconnected network gets one
+            next = 0;
+            for (int s = 1; s < stationCount; s++) {
+                if (nearestLandmark[s] > nearestLandmark[next]) {
+                    next = s;
+                }
+            }
+        }
+
+        Landmarks result = new Landmarks(landmarks, distances, stops);
+        System.out.printf("Landmarks selected in %.1f ms (%d landmarks)%n", (System.nanoTime() - start) / 1_000_000.0, count);
+        return result;
+    }
+
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    public double distanceLowerBound(int from, int to) {
+        int count = landmarks.length;
+        double bound = 0.0;
+        for (int l = 0; l < count; l++) {
+            double fromDistance = distances[from * count + l];
+            double toDistance = distances[to * count + l];
+            //a landmark that cannot reach both stations says nothing about the distance between them
+            if (fromDistance != Double.POSITIVE_INFINITY && toDistance != Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, Math.abs(toDistance - fromDistance));
+            }
+        }
+        return bound;
+    }
+
+    public int stopsLowerBound(int from, int to) {
+        int count = landmarks.length;
+        int bound = 0;
+        for (int l = 0; l < count; l++) {
+            int fromStops = stops[from * count + l];
+            int toStops = stops[to * count + l];
+            if (fromStops != -1 && toStops != -1) {
+                bound = Math.max(bound, Math.abs(toStops - fromStops));
+            }
+        }
+        return bound;
+    }
+
+    private static int farthestFrom(RoutingGraph routingGraph, int station, double[] distance, SearchWorkspace workspace) {
+        shortestDistances(routingGraph, station, distance, workspace);
+        int farthest = station;
+        for (int s = 0; s < distance.length; s++) {
+            if (distance[s] != Double.POSITIVE_INFINITY && distance[s] > distance[farthest]) {
+                farthest = s;
+            }
+        }
+        return farthest;
+    }
+
+    static void shortestDistances(RoutingGraph routingGraph, int source, double[] distance, SearchWorkspace workspace) {
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        double[] weights = routingGraph.getWeights();
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        workspace.reset();
+        IndexedMinHeap openSet = workspace.getOpenSet();
+        distance[source] = 0.0;
+        openSet.push(source, 0.0);
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                double tentative = distance[current] + weights[arc];
+                if (tentative < distance[targets[arc]]) {
+                    distance[targets[arc]] = tentative;
+                    openSet.push(targets[arc], tentative);
+                }
+            }
+        }
+    }
+
+    static void fewestStops(RoutingGraph routingGraph, int source, int[] stopCount, SearchWorkspace workspace) {
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        Arrays.fill(stopCount, -1);
+        int[] queue = workspace.getQueue();
+        int head = 0;
+        int tail = 0;
+        stopCount[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (stopCount[targets[arc]] == -1) {
+                    stopCount[targets[arc]] = stopCount[current] + 1;
+                    queue[tail++] = targets[arc];
+                }
+            }
+        }
+    }
+}
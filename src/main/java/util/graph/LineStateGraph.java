@@ -0,0 +1,226 @@
+package util.graph;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/*Line expanded (station x line) graph code references:
+* https://stackoverflow.com/questions/3137548/how-to-find-minimum-number-of-transfers-for-a-metro-or-railway-network
+* https://en.wikipedia.org/wiki/Dijkstra%27s_algorithm
+* https://codeforces.com/blog/entry/22276
+*/
+
+//every station is split into an entry state, an exit state and one state per line calling at it, riding a line between two
+//of its stations is free and only leaving a station without a shared line costs a change, so a single best-first search over
+//the states finds the fewest changes instead of marking whole stations as visited, the same search weighing the distance,
+//stops and changes of each transition together finds the route with the lowest generalised cost
+@Getter
+public class LineStateGraph {
+    private final int stationCount;
+    //station and line of each state, the line is -1 for the entry and exit states
+    private final int[] stateStations;
+    private final int[] stateLines;
+    //transitions out of state s are offsets[s] to offsets[s + 1] - 1
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] changes;
+    private final int[] stops;
+    private final double[] distances;
+    //routing graph arc each transition rides along, -1 for boarding, alighting and leaving a station, so closures can be skipped
+    private final int[] transitionArcs;
+    private final RoutingGraph routingGraph;
+    //workspace each thread reuses for the searches called directly on the graph
+    @Getter(AccessLevel.NONE)
+    private final ThreadLocal<SearchWorkspace> workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(getStateCount(), 0));
+
+    public LineStateGraph(RoutingGraph routingGraph) {
+        stationCount = routingGraph.getStationCount();
+        this.routingGraph = routingGraph;
+        int[] lineOffsets = routingGraph.getLineOffsets();
+        int[] stationLines = routingGraph.getStationLines();
+        int[] arcOffsets = routingGraph.getOffsets();
+        int[] arcTargets = routingGraph.getTargets();
+        double[] arcWeights = routingGraph.getWeights();
+
+        //states 0 to S - 1 are entries, S to 2S - 1 are exits and the line states of station s start at 2S + lineOffsets[s]
+        int stateCount = 2 * stationCount + stationLines.length;
+        stateStations = new int[stateCount];
+        stateLines = new int[stateCount];
+        for (int s = 0; s < stationCount; s++) {
+            stateStations[s] = s;
+            stateStations[stationCount + s] = s;
+            stateLines[s] = -1;
+            stateLines[stationCount + s] = -1;
+            for (int i = lineOffsets[s]; i < lineOffsets[s + 1]; i++) {
+                stateStations[2 * stationCount + i] = s;
+                stateLines[2 * stationCount + i] = stationLines[i];
+            }
+        }
+
+        //count the transitions first so they can be written straight into their final arrays
+        offsets = new int[stateCount + 1];
+        for (int s = 0; s < stationCount; s++) {
+            offsets[entry(s) + 1] = lineOffsets[s + 1] - lineOffsets[s] + 1;
+            offsets[exit(s) + 1] = arcOffsets[s + 1] - arcOffsets[s];
+            for (int i = lineOffsets[s]; i < lineOffsets[s + 1]; i++) {
+                int rides = 0;
+                for (int arc = arcOffsets[s]; arc < arcOffsets[s + 1]; arc++) {
+                    if (routingGraph.hasLine(arcTargets[arc], stationLines[i])) {
+                        rides++;
+                    }
+                }
+                //getting off only helps when some neighbour cannot be reached by staying on the line
+                offsets[2 * stationCount + i + 1] = rides < arcOffsets[s + 1] - arcOffsets[s] ? rides + 1 : rides;
+            }
+        }
+        for (int state = 0; state < stateCount; state++) {
+            offsets[state + 1] += offsets[state];
+        }
+
+        targets = new int[offsets[stateCount]];
+        changes = new int[offsets[stateCount]];
+        stops = new int[offsets[stateCount]];
+        distances = new double[offsets[stateCount]];
+        transitionArcs = new int[offsets[stateCount]];
+        Arrays.fill(transitionArcs, -1);
+        for (int s = 0; s < stationCount; s++) {
+            //board any line calling at the station, or walk straight to the exit
+            int next = offsets[entry(s)];
+            for (int i = lineOffsets[s]; i < lineOffsets[s + 1]; i++) {
+                targets[next++] = 2 * stationCount + i;
+            }
+            targets[next] = exit(s);
+
+            //leaving the station without staying on a line counts as a change at the next station
+            next = offsets[exit(s)];
+            for (int arc = arcOffsets[s]; arc < arcOffsets[s + 1]; arc++) {
+                targets[next] = entry(arcTargets[arc]);
+                transitionArcs[next] = arc;
+                changes[next] = 1;
+                distances[next] = arcWeights[arc];
+                stops[next++] = 1;
+            }
+
+            //stay on the line to any neighbour it also calls at, or get off
+            for (int i = lineOffsets[s]; i < lineOffsets[s + 1]; i++) {
+                next = offsets[2 * stationCount + i];
+                for (int arc = arcOffsets[s]; arc < arcOffsets[s + 1]; arc++) {
+                    int index = lineIndex(lineOffsets, stationLines, arcTargets[arc], stationLines[i]);
+                    if (index != -1) {
+                        targets[next] = 2 * stationCount + index;
+                        transitionArcs[next] = arc;
+                        distances[next] = arcWeights[arc];
+                        stops[next++] = 1;
+                    }
+                }
+                if (next < offsets[2 * stationCount + i + 1]) {
+                    targets[next] = exit(s);
+                }
+            }
+        }
+    }
+
+    public int getStateCount() {
+        return stateStations.length;
+    }
+
+    public int entry(int station) {
+        return station;
+    }
+
+    public int exit(int station) {
+        return stationCount + station;
+    }
+
+    public int[] findLeastChangesPath(int source, int destination) {
+        return search(source, destination, workspaces.get()).path();
+    }
+
+    public int[] findLowestCostPath(int source, int destination, CostWeights costWeights) {
+        return search(source, destination, workspaces.get(), costWeights).path();
+    }
+
+    SearchResult search(int source, int destination, SearchWorkspace workspace) {
+        //changes dominate, stops only break ties, a simple path never has more than stationCount stops
+        return search(source, destination, workspace, 0.0, 1.0, stationCount + 1.0);
+    }
+
+    SearchResult search(int source, int destination, SearchWorkspace workspace, CostWeights costWeights) {
+        return search(source, destination, workspace, costWeights.perKilometre(), costWeights.perStop(), costWeights.perChange());
+    }
+
+    //the workspace must be sized for the states and is reset here, so a thread can reuse one for every query
+    private SearchResult search(int source, int destination, SearchWorkspace workspace, double perKilometre, double perStop, double perChange) {
+        int settledCount = 0;
+        workspace.reset();
+        IndexedMinHeap openSet = workspace.getOpenSet();
+        //closed stations and edges are only checked for while something is closed
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && (!routingGraph.isStationOpen(source) || !routingGraph.isStationOpen(destination))) {
+            return new SearchResult(null, settledCount);
+        }
+
+        workspace.reach(entry(source), 0.0, -1);
+        openSet.push(entry(source), 0.0);
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            workspace.settle(current);
+            settledCount++;
+
+            //the first state of the destination settled, on a line or not, has the lowest cost
+            if (stateStations[current] == destination) {
+                return new SearchResult(stationPath(workspace, current), settledCount);
+            }
+
+            double cost = workspace.getDistance(current);
+            for (int transition = offsets[current]; transition < offsets[current + 1]; transition++) {
+                int next = targets[transition];
+                if (workspace.isSettled(next) || disrupted && isClosed(transition)) {
+                    continue;
+                }
+                double tentative = cost + distances[transition] * perKilometre + stops[transition] * perStop + changes[transition] * perChange;
+                if (tentative < workspace.getDistance(next)) {
+                    workspace.reach(next, tentative, current);
+                    openSet.push(next, tentative);
+                }
+            }
+        }
+
+        return new SearchResult(null, settledCount);
+    }
+
+    public boolean isClosed(int transition) {
+        int arc = transitionArcs[transition];
+        return arc != -1 && !routingGraph.isArcOpen(arc);
+    }
+
+    private int[] stationPath(SearchWorkspace workspace, int state) {
+        //walk the parent pointers back, keeping a station once however many of its states were passed through
+        int length = 0;
+        int previous = -1;
+        for (int current = state; current != -1; current = workspace.getPredecessor(current)) {
+            if (stateStations[current] != previous) {
+                previous = stateStations[current];
+                length++;
+            }
+        }
+
+        int[] path = new int[length];
+        previous = -1;
+        for (int current = state; current != -1; current = workspace.getPredecessor(current)) {
+            if (stateStations[current] != previous) {
+                previous = stateStations[current];
+                path[--length] = previous;
+            }
+        }
+        return path;
+    }
+
+    private static int lineIndex(int[] lineOffsets, int[] stationLines, int station, int line) {
+        //index of the line among the station's sorted lines, -1 when the line does not call there
+        int index = Arrays.binarySearch(stationLines, lineOffsets[station], lineOffsets[station + 1], line);
+        return index >= 0 ? index : -1;
+    }
+}
@@ -0,0 +1,345 @@
+package util.graph;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*Round based multi-criteria routing code references:
+* https://www.microsoft.com/en-us/research/publication/round-based-public-transit-routing/
+* https://en.wikipedia.org/wiki/Pareto_efficiency
+* https://en.wikipedia.org/wiki/Multi-objective_optimization
+*/
+
+//finds every journey that no other journey beats on distance, stops and line changes together, round k only
+//rides lines from the stations reached with k - 1 changes, so each round is one pass per allowed change like RAPTOR
+public class ParetoRoutePlanner {
+    private final RoutingGraph routingGraph;
+    private final LineStateGraph lineStateGraph;
+    //gives the distances to the destination in one sweep when it has been built, otherwise a full search is run
+    private final ContractionHierarchy contractionHierarchy;
+    //number of labels settled and rounds run by the last search, for comparing search strategies
+    @Getter
+    private int settledCount;
+    @Getter
+    private int roundCount;
+
+    private final int[] stateStations;
+    private final int[] stateLines;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] changes;
+    private final int[] stops;
+    private final double[] distances;
+
+    //the current search, round k labels journeys with k changes
+    private int destination;
+    private int round;
+    private int[] arrivals = new int[16];
+    private int arrivalCount;
+    //labels of the current search, each one is a partial journey ending at a line state
+    private int labelCount;
+    private int[] labelStates = new int[256];
+    private double[] labelDistances = new double[256];
+    private int[] labelStops = new int[256];
+    private int[] labelChanges = new int[256];
+    private int[] labelParents = new int[256];
+    //station the journey was at before reaching the label's station, going straight back there never helps
+    private int[] labelPrevious = new int[256];
+    private boolean[] labelDominated = new boolean[256];
+    //labels at each state are linked through labelNext, starting from bagHeads
+    private int[] labelNext = new int[256];
+    private final int[] bagHeads;
+    //labels at each station, linked through labelStationNext, for comparing against earlier rounds
+    private int[] labelStationNext = new int[256];
+    private final int[] stationHeads;
+    //exact distance and stops from each station to the destination, so labels that cannot beat a journey already found
+    //are dropped as early as possible, -1 stops when the destination cannot be reached
+    private final double[] distanceBounds;
+    private final int[] stopsBounds;
+    //heap and queue for the searches out of the destination that fill the bounds
+    private final SearchWorkspace workspace;
+    //labels waiting to be settled, bucketed by stops plus the stops left to the destination and linked through
+    //labelQueueNext, stop counts are small whole numbers so this replaces a heap
+    private int[] bucketHeads = new int[64];
+    private int[] labelQueueNext = new int[256];
+    private int lowestBucket;
+    private int queuedCount;
+    //journeys that made a change during this round, labelled when the next round starts
+    private int[] pendingParents = new int[256];
+    private int[] pendingStates = new int[256];
+    private double[] pendingDistances = new double[256];
+    private int[] pendingStops = new int[256];
+    private int pendingCount;
+
+    public ParetoRoutePlanner(RoutingGraph routingGraph, ContractionHierarchy contractionHierarchy) {
+        this.routingGraph = routingGraph;
+        this.contractionHierarchy = contractionHierarchy;
+        this.lineStateGraph = routingGraph.getLineStateGraph();
+        this.stateStations = lineStateGraph.getStateStations();
+        this.stateLines = lineStateGraph.getStateLines();
+        this.offsets = lineStateGraph.getOffsets();
+        this.targets = lineStateGraph.getTargets();
+        this.changes = lineStateGraph.getChanges();
+        this.stops = lineStateGraph.getStops();
+        this.distances = lineStateGraph.getDistances();
+        this.bagHeads = new int[lineStateGraph.getStateCount()];
+        this.stationHeads = new int[routingGraph.getStationCount()];
+        this.distanceBounds = new double[routingGraph.getStationCount()];
+        this.stopsBounds = new int[routingGraph.getStationCount()];
+        this.workspace = new SearchWorkspace(routingGraph.getStationCount(), 0);
+    }
+
+    public List<Journey> findParetoRoutes(int source, int destination) {
+        settledCount = 0;
+        roundCount = 0;
+        labelCount = 0;
+        queuedCount = 0;
+        Arrays.fill(bagHeads, -1);
+        Arrays.fill(bucketHeads, -1);
+        lowestBucket = 0;
+        Arrays.fill(stationHeads, -1);
+        List<Journey> journeys = new ArrayList<>();
+        if (source == destination) {
+            journeys.add(new Journey(new int[]{source}, 0.0, 0, 0));
+            return journeys;
+        }
+
+        //closures only make routes longer, so bounds from the whole network still hold while the search skips closed track
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && (!routingGraph.isStationOpen(source) || !routingGraph.isStationOpen(destination))) {
+            return journeys;
+        }
+
+        //the network is undirected, so searching out from the destination gives the distances to it
+        Landmarks.fewestStops(routingGraph, destination, stopsBounds, workspace);
+        if (stopsBounds[source] == -1) {
+            return journeys;
+        }
+        if (contractionHierarchy != null) {
+            contractionHierarchy.distancesFrom(destination, distanceBounds, workspace);
+        } else {
+            Landmarks.shortestDistances(routingGraph, destination, distanceBounds, workspace);
+        }
+        this.destination = destination;
+        arrivalCount = 0;
+        pendingCount = 0;
+
+        round = 0;
+        relax(-1, lineStateGraph.entry(source), 0.0, 0, 0);
+        while (queuedCount > 0) {
+            roundCount++;
+            while (queuedCount > 0) {
+                int label = dequeue();
+                if (labelDominated[label]) {
+                    continue;
+                }
+                settledCount++;
+                int state = labelStates[label];
+                if (stateStations[state] == destination) {
+                    if (arrivalCount == arrivals.length) {
+                        arrivals = Arrays.copyOf(arrivals, arrivalCount * 2);
+                    }
+                    arrivals[arrivalCount++] = label;
+                    continue;
+                }
+                //never step straight back, and never change to a neighbour the line just ridden also calls at
+                int ridden = labelParents[label] == -1 ? -1 : stateLines[labelStates[labelParents[label]]];
+                for (int transition = offsets[state]; transition < offsets[state + 1]; transition++) {
+                    int next = stateStations[targets[transition]];
+                    if (next == labelPrevious[label] || (changes[transition] == 1 && ridden != -1 && routingGraph.hasLine(next, ridden)) || (disrupted && lineStateGraph.isClosed(transition))) {
+                        continue;
+                    }
+                    relax(label, targets[transition], labelDistances[label] + distances[transition], labelStops[label] + stops[transition], labelChanges[label] + changes[transition]);
+                }
+            }
+
+            //start the next round from every change made in this one, boarding a line never makes another change
+            round++;
+            int count = pendingCount;
+            pendingCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (pendingParents[i] == -1 || !labelDominated[pendingParents[i]]) {
+                    relax(pendingParents[i], pendingStates[i], pendingDistances[i], pendingStops[i], round);
+                }
+            }
+        }
+
+        //labels at different states of the destination can still beat each other, equal ones are kept once
+        for (int i = 0; i < arrivalCount; i++) {
+            int label = arrivals[i];
+            boolean dominated = labelDominated[label];
+            for (int j = 0; j < arrivalCount && !dominated; j++) {
+                int other = arrivals[j];
+                dominated = j != i && !labelDominated[other] && dominates(other, label) && (!dominates(label, other) || j < i);
+            }
+            if (!dominated) {
+                journeys.add(new Journey(stationPath(label), labelDistances[label], labelStops[label], labelChanges[label]));
+            }
+        }
+        journeys.sort(Comparator.comparingInt(Journey::getChanges).thenComparingDouble(Journey::getDistance));
+        return journeys;
+    }
+
+    private void relax(int parent, int state, double distance, int stopCount, int changeCount) {
+        if (changeCount > round) {
+            //changes are only labelled in the next round
+            if (pendingCount == pendingStates.length) {
+                growPending();
+            }
+            pendingParents[pendingCount] = parent;
+            pendingStates[pendingCount] = state;
+            pendingDistances[pendingCount] = distance;
+            pendingStops[pendingCount++] = stopCount;
+            return;
+        }
+
+        addLabel(state, distance, stopCount, changeCount, parent);
+    }
+
+    private void addLabel(int state, double distance, int stopCount, int changeCount, int parent) {
+        int station = stateStations[state];
+        if (stopsBounds[station] == -1) {
+            return;
+        }
+        //a journey already at the destination with no more changes that is as good even after the rest of the trip
+        double distanceBound = distance + distanceBounds[station];
+        int stopsBound = stopCount + stopsBounds[station];
+        for (int i = 0; i < arrivalCount; i++) {
+            if (labelDistances[arrivals[i]] <= distanceBound && labelStops[arrivals[i]] <= stopsBound) {
+                return;
+            }
+        }
+
+        //a journey that was already at the station with fewer changes can make one more change to the next station and
+        //board whatever this one could ride on, so it is at least as good from here on
+        if (changeCount > 0 && reachedWithFewerChanges(station, distance, stopCount, changeCount)) {
+            return;
+        }
+
+        //labels from earlier rounds have fewer changes, so they only need to match the distance and stops, labels
+        //from this round that the new one beats are unlinked, anything they beat was already dropped on the way in
+        int previous = -1;
+        for (int label = bagHeads[state]; label != -1; label = labelNext[label]) {
+            if (labelDistances[label] <= distance && labelStops[label] <= stopCount) {
+                return;
+            }
+            if (labelChanges[label] == changeCount && distance <= labelDistances[label] && stopCount <= labelStops[label]) {
+                labelDominated[label] = true;
+                if (previous == -1) {
+                    bagHeads[state] = labelNext[label];
+                } else {
+                    labelNext[previous] = labelNext[label];
+                }
+            } else {
+                previous = label;
+            }
+        }
+
+        if (labelCount == labelStates.length) {
+            growLabels();
+        }
+        int label = labelCount++;
+        labelStates[label] = state;
+        labelDistances[label] = distance;
+        labelStops[label] = stopCount;
+        labelChanges[label] = changeCount;
+        labelParents[label] = parent;
+        if (parent == -1) {
+            labelPrevious[label] = -1;
+        } else {
+            labelPrevious[label] = stateStations[labelStates[parent]] == station ? labelPrevious[parent] : stateStations[labelStates[parent]];
+        }
+        labelDominated[label] = false;
+        labelNext[label] = bagHeads[state];
+        bagHeads[state] = label;
+        if (parent == -1 || stateStations[labelStates[parent]] != station) {
+            //moving between the states of one station keeps the same distance, stops and changes, so only the
+            //first label at the station is needed to compare against
+            labelStationNext[label] = stationHeads[station];
+            stationHeads[station] = label;
+        }
+        queue(label, stopsBound);
+    }
+
+    private boolean reachedWithFewerChanges(int station, double distance, int stopCount, int changeCount) {
+        for (int label = stationHeads[station]; label != -1; label = labelStationNext[label]) {
+            if (labelChanges[label] < changeCount && labelDistances[label] <= distance && labelStops[label] <= stopCount) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean dominates(int label, int other) {
+        return labelDistances[label] <= labelDistances[other] && labelStops[label] <= labelStops[other] && labelChanges[label] <= labelChanges[other];
+    }
+
+    private int[] stationPath(int label) {
+        //follow the parent labels back, keeping a station once however many of its states were passed through
+        int length = 0;
+        int previous = -1;
+        for (int current = label; current != -1; current = labelParents[current]) {
+            if (stateStations[labelStates[current]] != previous) {
+                previous = stateStations[labelStates[current]];
+                length++;
+            }
+        }
+
+        int[] path = new int[length];
+        previous = -1;
+        for (int current = label; current != -1; current = labelParents[current]) {
+            if (stateStations[labelStates[current]] != previous) {
+                previous = stateStations[labelStates[current]];
+                path[--length] = previous;
+            }
+        }
+        return path;
+    }
+
+    private void growPending() {
+        int capacity = pendingStates.length * 2;
+        pendingParents = Arrays.copyOf(pendingParents, capacity);
+        pendingStates = Arrays.copyOf(pendingStates, capacity);
+        pendingDistances = Arrays.copyOf(pendingDistances, capacity);
+        pendingStops = Arrays.copyOf(pendingStops, capacity);
+    }
+
+    private void growLabels() {
+        int capacity = labelStates.length * 2;
+        labelStates = Arrays.copyOf(labelStates, capacity);
+        labelDistances = Arrays.copyOf(labelDistances, capacity);
+        labelStops = Arrays.copyOf(labelStops, capacity);
+        labelChanges = Arrays.copyOf(labelChanges, capacity);
+        labelParents = Arrays.copyOf(labelParents, capacity);
+        labelPrevious = Arrays.copyOf(labelPrevious, capacity);
+        labelDominated = Arrays.copyOf(labelDominated, capacity);
+        labelNext = Arrays.copyOf(labelNext, capacity);
+        labelStationNext = Arrays.copyOf(labelStationNext, capacity);
+        labelQueueNext = Arrays.copyOf(labelQueueNext, capacity);
+    }
+
+    private void queue(int label, int stopsBound) {
+        if (stopsBound >= bucketHeads.length) {
+            int capacity = bucketHeads.length;
+            bucketHeads = Arrays.copyOf(bucketHeads, Math.max(stopsBound + 1, capacity * 2));
+            Arrays.fill(bucketHeads, capacity, bucketHeads.length, -1);
+        }
+        labelQueueNext[label] = bucketHeads[stopsBound];
+        bucketHeads[stopsBound] = label;
+        lowestBucket = Math.min(lowestBucket, stopsBound);
+        queuedCount++;
+    }
+
+    private int dequeue() {
+        while (bucketHeads[lowestBucket] == -1) {
+            lowestBucket++;
+        }
+        int label = bucketHeads[lowestBucket];
+        bucketHeads[lowestBucket] = labelQueueNext[label];
+        queuedCount--;
+        return label;
+    }
+}
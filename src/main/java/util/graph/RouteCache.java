@@ -0,0 +1,109 @@
+package util.graph;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/*Least recently used cache code references:
+* https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/util/LinkedHashMap.html#removeEldestEntry(java.util.Map.Entry)
+* https://en.wikipedia.org/wiki/Cache_replacement_policies#Least_recently_used_(LRU)
+*/
+
+//routes already found, keyed by start, end, route type and algorithm, the least recently used route is evicted once the
+//cache is full and every route is dropped when the network version changes, routes are kept as station id arrays and a
+//search that found nothing is kept as an empty array
+@Getter
+public class RouteCache {
+    public static final int DEFAULT_CAPACITY = 100_000;
+    public static final int[] NO_ROUTE = new int[0];
+
+    private final int capacity;
+    //only read and written through the synchronized methods, in access order even a lookup reorders the map
+    @Getter(AccessLevel.NONE)
+    private final LinkedHashMap<Long, int[]> routes;
+    private long networkVersion;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public RouteCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        //access order moves every route read to the end, so the eldest entry is the least recently used
+        this.routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                if (size() > RouteCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static long key(int start, int end, RouteType routeType, SearchAlgorithm algorithm) {
+        //start and end take 32 and 26 bits, the route type and algorithm 3 bits each
+        return ((long) start << 32) | ((long) end << 6) | ((long) routeType.ordinal() << 3) | algorithm.ordinal();
+    }
+
+    public synchronized int[] get(int start, int end, RouteType routeType, SearchAlgorithm algorithm) {
+        int[] route = routes.get(key(start, end, routeType, algorithm));
+        if (route == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return route;
+    }
+
+    public synchronized void put(int start, int end, RouteType routeType, SearchAlgorithm algorithm, int[] route) {
+        routes.put(key(start, end, routeType, algorithm), route == null || route.length == 0 ? NO_ROUTE : route);
+    }
+
+    public synchronized void setNetworkVersion(long networkVersion) {
+        //routes found on another version of the network may no longer exist or be the best
+        if (networkVersion != this.networkVersion) {
+            invalidations += routes.size();
+            routes.clear();
+            this.networkVersion = networkVersion;
+        }
+    }
+
+    public synchronized int invalidate(Predicate<int[]> affected) {
+        //drops only the routes a change touches, for changes that can make other routes no better than they were
+        int removed = 0;
+        for (Iterator<int[]> iterator = routes.values().iterator(); iterator.hasNext(); ) {
+            if (affected.test(iterator.next())) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        invalidations += removed;
+        return removed;
+    }
+
+    public synchronized int invalidate(RouteType routeType) {
+        //the route type sits in bits 3 to 5 of the key
+        int removed = 0;
+        for (Iterator<Long> iterator = routes.keySet().iterator(); iterator.hasNext(); ) {
+            if ((iterator.next() >>> 3 & 7) == routeType.ordinal()) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        invalidations += removed;
+        return removed;
+    }
+
+    public synchronized int size() {
+        return routes.size();
+    }
+}
@@ -1,17 +1,19 @@
 
 package util.graph;
 
+import com.sun.management.ThreadMXBean;
 import dto.Station;
 
 import java.awt.*;
+import java.lang.management.ManagementFactory;
 import java.sql.Timestamp;
 import java.util.*;
 import java.util.List;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.graphstream.graph.*;
-import org.graphstream.algorithm.Dijkstra;
 import org.graphstream.ui.geom.Point3;
 import org.graphstream.ui.layout.springbox.implementations.SpringBox;
 import org.graphstream.ui.view.View;
@@ -40,6 +42,9 @@ import org.graphstream.ui.view.camera.Camera;
  * https://stackoverflow.com/questions/3137548/how-to-find-minimum-number-of-transfers-for-a-metro-or-railway-network
  * https://github.com/wlxiong/k_shortest_bus_routes
  * https://www.geeksforgeeks.org/dijkstras-shortest-path-algorithm-in-java-using-priorityqueue
+ *
+ * Per query allocation code references:
+ * https://docs.oracle.com/en/java/javase/17/docs/api/jdk.management/com/sun/management/ThreadMXBean.html
  */
 
 @Setter
@@ -49,24 +54,39 @@ public class RouteGenerator{
     private Station startStation;
     private Station endStation;
     private Graph graph;
+    private RoutingGraph routingGraph;
+    private ContractionHierarchy contractionHierarchy;
+    //landmark bounds tighten both A* searches when they have been precomputed
+    private Landmarks landmarks;
+    //station ids of the last route found, only mapped back onto the display graph when it is shown
+    private int[] route;
+    //number of stations settled by the last search, for comparing search strategies
+    private int settledCount;
+    //runs the searches, usually the generator's long lived one so its workspaces are reused, and only rebuilt here when the
+    //routing graph, hierarchy or landmarks no longer match it
+    @Getter(AccessLevel.NONE)
+    private Router router;
 
     public RouteGenerator(List<Station> stations, Station startStation, Station endStation, Graph graph) {
+        this(stations, startStation, endStation, graph, RoutingGraph.fromGraph(graph, stations));
+    }
+
+    public RouteGenerator(List<Station> stations, Station startStation, Station endStation, Graph graph, RoutingGraph routingGraph) {
         this.stations = stations;
         this.startStation = startStation;
         this.endStation = endStation;
         this.graph = graph;
-        System.setProperty("org.graphstream.ui", "swing");
-        System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
+        this.routingGraph = routingGraph;
     }
 
     private NodesResult getAndValidateNodes() {
         //check if start and end stations are set
         String startNodeName = startStation.getRailStation().getName();
-        Node startNode = graph.getNode(startNodeName);
+        int startNode = routingGraph.getStationId(startNodeName);
         String endNodeName = endStation.getRailStation().getName();
-        Node endNode = graph.getNode(endNodeName);
+        int endNode = routingGraph.getStationId(endNodeName);
 
-        if (startNode == null || endNode == null) {
+        if (startNode == -1 || endNode == -1) {
             System.err.println("No nodes found");
             return null;
         }
@@ -74,24 +94,22 @@ public class RouteGenerator{
         return new NodesResult(startNode, endNode, startNodeName, endNodeName);
     }
 
-    private void printRouteResults(Timestamp start, String routeType, Path path, List<Node> pathNodes, Double distance) {
+    private void printRouteResults(Timestamp start, String routeType, int[] path, Double distance) {
         Timestamp end = new Timestamp(System.currentTimeMillis());
         //print the details of the calculation
         System.out.println("Calculation completed in " + (end.getTime() - start.getTime()) + " ms");
+        System.out.println("Stations settled: " + settledCount);
         System.out.println("\n" + routeType + " found:");
 
         if (distance != null) {
             System.out.printf("Total distance: %.2f km%n", distance);
-        }
-        if (pathNodes != null && pathNodes.size() > 1) {
-            System.out.println("Number of stops: " + (pathNodes.size() - 1));
+        } else if (path.length > 1) {
+            System.out.println("Number of stops: " + (path.length - 1));
         }
 
         System.out.println("Route: ");
-        if (path != null) {
-            path.nodes().forEach(node -> System.out.println("  -> " + node.getId()));
-        } else if (pathNodes != null) {
-            pathNodes.forEach(node -> System.out.println("  -> " + node.getId()));
+        for (int station : path) {
+            System.out.println("  -> " + routingGraph.getStationName(station));
         }
     }
 
@@ -99,38 +117,26 @@ public class RouteGenerator{
         System.out.println("No path found between " + startNodeName + " and " + endNodeName);
     }
 
-    private Path createPathFromNodes(List<Node> nodeList) {
-        if (nodeList == null || nodeList.isEmpty()) {
-            return null;
-        }
+    public boolean calculateShortestRoute() {
+        return calculateShortestRoute(SearchAlgorithm.STANDARD);
+    }
 
-        Path path = new Path();
-        //initialise path with start node
-        path.setRoot(nodeList.get(0));
-        //add edges to the path
-        for (int i = 0; i < nodeList.size() - 1; i++) {
-            Node current = nodeList.get(i);
-            Node next = nodeList.get(i + 1);
-
-            //find edge connecting the two nodes
-            Edge connectingEdge = null;
-            for (Edge edge : current.edges().toList()) {
-                if (edge.getOpposite(current).equals(next)) {
-                    connectingEdge = edge;
-                    break;
-                }
-            }
+    public boolean calculateShortestRouteAStar() {
+        return calculateShortestRoute(SearchAlgorithm.A_STAR);
+    }
 
-            if (connectingEdge != null) {
-                path.add(connectingEdge);
-            }
-        }
+    public boolean calculateShortestRouteBidirectional() {
+        return calculateShortestRoute(SearchAlgorithm.BIDIRECTIONAL);
+    }
 
-        return path;
+    public boolean calculateShortestRouteContracted() {
+        if (contractionHierarchy == null) {
+            contractionHierarchy = ContractionHierarchy.build(routingGraph);
+        }
+        return calculateShortestRoute(SearchAlgorithm.CONTRACTION_HIERARCHY);
     }
 
-    public boolean calculateShortestRoute() {
-        Dijkstra dijkstra = new Dijkstra(Dijkstra.Element.EDGE, null, "length");
+    private boolean calculateShortestRoute(SearchAlgorithm algorithm) {
         Timestamp start = new Timestamp(System.currentTimeMillis());
 
         //get and validate start and end nodes
@@ -139,300 +145,98 @@ public class RouteGenerator{
             return false;
         }
 
-        dijkstra.init(graph);
-        dijkstra.setSource(nodesResult.startNode);
-        //calculate the shortest path
-        dijkstra.compute();
-
-        Path path = dijkstra.getPath(nodesResult.endNode);
-        if (path != null) {
-            setNodeStyle(nodesResult.startNode, nodesResult.endNode, path);
-            printRouteResults(start, "Shortest path", path, null, dijkstra.getPathLength(nodesResult.endNode));
+        RouteResult result = router().route(nodesResult.startNode, nodesResult.endNode, RouteType.SHORTEST, algorithm);
+        settledCount = result.getSettledCount();
+        if (result.isFound()) {
+            route = result.getStations();
+            printRouteResults(start, "Shortest path", route, result.getDistance());
             return true;
-        } else {
-            displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
         }
+        displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
         return false;
     }
 
-    public boolean calculateLeastStationStops(){
-        Timestamp start = new Timestamp(System.currentTimeMillis());
-
-        NodesResult nodesResult = getAndValidateNodes();
-        if (nodesResult == null) {
-            return false;
-        }
-        //BFS to find the shortest path with the least number of stops
-        List<Node> shortestPath = explore(nodesResult.startNode, nodesResult.endNode);
-
-        if (shortestPath != null && shortestPath.size() > 0) {
-            Path path = createPathFromNodes(shortestPath);
-            setNodeStyle(nodesResult.startNode, nodesResult.endNode, path);
-            printRouteResults(start, "Route with least amount of stops", null, shortestPath, null);
-            return true;
-        } else {
-            displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
-            return false;
+    private Router router() {
+        RoutingSnapshot snapshot = router == null ? null : router.getSnapshot();
+        if (snapshot == null || snapshot.getRoutingGraph() != routingGraph || snapshot.getContractionHierarchy() != contractionHierarchy || snapshot.getLandmarks() != landmarks) {
+            router = new Router(new RoutingSnapshot(routingGraph, contractionHierarchy, landmarks));
         }
+        return router;
     }
 
-    private List<Node> explore(Node source, Node destination) {
-        Queue<Node> queue = new LinkedList<>();
-        Set<Node> visited = new HashSet<>();
-        Map<Node, Node> predecessors = new HashMap<>();
-
-        //start BFS from the source node
-        queue.add(source);
-        visited.add(source);
+    private int[] searched(SearchResult result) {
+        settledCount = result.settledCount();
+        return result.path();
+    }
 
-        while (!queue.isEmpty()) {
-            Node current = queue.poll();
+    public int[] findShortestPath(int source, int destination, boolean aStar) {
+        return searched(router().dijkstra(source, destination, aStar));
+    }
 
-            //check if destination has been reached
-            if (current.equals(destination)) {
-                return reconstructPath(predecessors, source, destination);
-            }
+    public int[] findShortestPathBidirectional(int source, int destination) {
+        return searched(router().bidirectionalDijkstra(source, destination));
+    }
 
-            //explore all neighbours of the current node
-            for (Edge edge : current) {
-                Node neighbour = edge.getOpposite(current);
-                if (!visited.contains(neighbour)) {
-                    visited.add(neighbour);
-                    queue.add(neighbour);
-                    predecessors.put(neighbour, current);
-                }
-            }
+    public int[] findShortestPathContracted(int source, int destination) {
+        if (contractionHierarchy == null) {
+            contractionHierarchy = ContractionHierarchy.build(routingGraph);
         }
-
-        return null;
+        return searched(router().shortestPath(source, destination, SearchAlgorithm.CONTRACTION_HIERARCHY));
     }
 
-    private List<Node> reconstructPath(Map<Node, Node> predecessors, Node source, Node destination) {
-        List<Node> path = new ArrayList<>();
-        Node current = destination;
-
-        //build the path from end to start to ensure the order is correct
-        while (current != null && !current.equals(source)) {
-            path.add(0, current);
-            current = predecessors.get(current);
-        }
+    public boolean calculateLeastStationStops(){
+        return calculateLeastStationStops(SearchAlgorithm.STANDARD);
+    }
 
-        if (current != null) {
-            path.add(0, source);
-        }
+    public boolean calculateLeastStationStopsBidirectional() {
+        return calculateLeastStationStops(SearchAlgorithm.BIDIRECTIONAL);
+    }
 
-        return path;
+    public boolean calculateLeastStationStopsAStar() {
+        return calculateLeastStationStops(SearchAlgorithm.A_STAR);
     }
 
-    public boolean calculateShortestRouteAStar() {
+    private boolean calculateLeastStationStops(SearchAlgorithm algorithm) {
         Timestamp start = new Timestamp(System.currentTimeMillis());
 
         NodesResult nodesResult = getAndValidateNodes();
         if (nodesResult == null) {
             return false;
         }
+        //BFS or A* over the stops to find the path with the least number of stops
+        RouteResult result = router().route(nodesResult.startNode, nodesResult.endNode, RouteType.LEAST_STOPS, algorithm);
+        settledCount = result.getSettledCount();
 
-        //g and f scores for A* algorithm
-        Map<Node, Double> gScore = new HashMap<>();
-        Map<Node, Double> fScore = new HashMap<>();
-        Map<Node, Node> cameFrom = new HashMap<>();
-        Set<Node> closedSet = new HashSet<>();
-        //priority queue for an open set (nodes to be evaluated)
-        PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingDouble(node -> fScore.getOrDefault(node, Double.MAX_VALUE)));
-
-        //initialise scores for all nodes
-        for (Node node : graph) {
-            gScore.put(node, Double.MAX_VALUE);
-            fScore.put(node, Double.MAX_VALUE);
-        }
-        gScore.put(nodesResult.startNode, 0.0);
-        fScore.put(nodesResult.startNode, heuristicCost(nodesResult.startNode, nodesResult.endNode));
-        openSet.add(nodesResult.startNode);
-
-        while (!openSet.isEmpty()) {
-            //get the node with the lowest fScore from the open set
-            Node current = openSet.poll();
-
-            if (current.equals(nodesResult.endNode)) {
-                //if the end node is reached, reconstruct the path
-                Path path = reconstructPathAStar(cameFrom, nodesResult.startNode, nodesResult.endNode);
-                setNodeStyle(nodesResult.startNode, nodesResult.endNode, path);
-                printRouteResults(start, "Shortest path", path, null, gScore.get(nodesResult.endNode));
-                return true;
-            }
-
-            closedSet.add(current);
-
-            for (Edge edge : current.edges().toList()) {
-                Node neighbour = edge.getOpposite(current);
-
-                if (closedSet.contains(neighbour)) {
-                    //skip already evaluated nodes
-                    continue;
-                }
-
-                //if the neighbour is not in the open set, add it
-                double edgeWeight = edge.getAttribute("length", Double.class);
-                double tentativeGScore = gScore.get(current) + edgeWeight;
-
-                //if the neighbour is not in the open set or the tentative gScore is better than the current gScore
-                if (tentativeGScore < gScore.get(neighbour)) {
-                    //update the scores and the path
-                    cameFrom.put(neighbour, current);
-                    gScore.put(neighbour, tentativeGScore);
-                    fScore.put(neighbour, tentativeGScore + heuristicCost(neighbour, nodesResult.endNode));
-
-                    if (!openSet.contains(neighbour)) {
-                        openSet.add(neighbour);
-                    } else {
-                        openSet.remove(neighbour);
-                        openSet.add(neighbour);
-                    }
-                }
-            }
+        if (result.isFound()) {
+            route = result.getStations();
+            printRouteResults(start, "Route with least amount of stops", route, null);
+            return true;
+        } else {
+            displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
+            return false;
         }
-
-        displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
-        return false;
     }
 
-    private double heuristicCost(Node from, Node to) {
-        Station startStation = null;
-        Station endStation = null;
-
-        //find the start and end stations in the list of stations
-        for(Station station : stations){
-            //check if the station matches the start or end node
-            if(station.getRailStation().getName().equals(from.getId())) {
-                startStation = station;
-            }
-            if(station.getRailStation().getName().equals(to.getId())) {
-                endStation = station;
-            }
-
-            //early exit if both stations are found
-            if(startStation != null && endStation != null) {
-                break;
-            }
-        }
-
-        //calculate Euclidean distance
-        if(startStation != null && endStation != null && startStation.getRailStation().getCoordinates() != null && endStation.getRailStation().getCoordinates() != null) {
-            Double[] startCoords = startStation.getRailStation().getCoordinates();
-            Double[] endCoords = endStation.getRailStation().getCoordinates();
-
-            if (startCoords != null && startCoords.length >= 2 && endCoords != null && endCoords.length >= 2 && startCoords[0] != null && startCoords[1] != null && endCoords[0] != null && endCoords[1] != null) {
-                double x1 = startCoords[0];
-                double y1 = startCoords[1];
-                double x2 = endCoords[0];
-                double y2 = endCoords[1];
-                return Math.sqrt(Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2));
-            }
-        }
-        if((from.getId().equals(startStation != null ? startStation.getRailStation().getName() : "") || to.getId().equals(endStation != null ? endStation.getRailStation().getName() : "")) && (startStation == null || endStation == null)) {
-            System.err.println("Station " + from.getId() + " or station " + to.getId() + " not found in the list of stations.");
-        }
-        return 0.0;
+    public int[] explore(int source, int destination) {
+        return searched(router().bfs(source, destination));
     }
 
-    private Path reconstructPathAStar(Map<Node, Node> cameFrom, Node start, Node end) {
-        Path path = new Path();
-        Node current = end;
-
-        //reconstruct the path from end to start using the cameFrom map
-        List<Edge> edges = new ArrayList<>();
-        while (current != start) {
-            Node prev = cameFrom.get(current);
-            Edge edge = prev.getEdgeBetween(current);
-            edges.add(0, edge);
-            current = prev;
-        }
-
-        if (!edges.isEmpty()) {
-            path.setRoot(start);
-            for (Edge edge : edges) {
-                path.add(edge);
-            }
-        }
-
-        return path;
+    public int[] exploreBidirectional(int source, int destination) {
+        return searched(router().bidirectionalBfs(source, destination));
     }
 
-    public boolean calculateLeastStationStopsAStar() {
-        Timestamp start = new Timestamp(System.currentTimeMillis());
-
-        NodesResult nodesResult = getAndValidateNodes();
-        if (nodesResult == null) {
-            return false;
-        }
-
-        //A* starting setup for fewest stops
-        Map<Node, Integer> gScore = new HashMap<>();
-        Map<Node, Node> cameFrom = new HashMap<>();
-        Set<Node> closedSet = new HashSet<>();
-
-        //priority queue for an open set (nodes to be evaluated)
-        PriorityQueue<Node> openSet = new PriorityQueue<>(
-                Comparator.comparingInt(node -> gScore.getOrDefault(node, Integer.MAX_VALUE))
-        );
-
-
-        gScore.put(nodesResult.startNode, 0);
-        openSet.add(nodesResult.startNode);
-
-        while (!openSet.isEmpty()) {
-            Node current = openSet.poll();
-
-            //if the current node is the end node, reconstruct the path
-            if (current.equals(nodesResult.endNode)) {
-                List<Node> pathNodes = new ArrayList<>();
-                Node node = current;
-
-                while (node != null) {
-                    pathNodes.add(0, node);
-                    node = cameFrom.get(node);
-                }
-
-                Path path = createPathFromNodes(pathNodes);
-
-                setNodeStyle(nodesResult.startNode, nodesResult.endNode, path);
-                printRouteResults(start, "Route with least amount of stops", null, pathNodes, null);
-                return true;
-            }
-
-            closedSet.add(current);
-
-            //explore neighbours
-            for (Edge edge : current.edges().toList()) {
-                Node neighbour = edge.getOpposite(current);
-
-                if (closedSet.contains(neighbour)) {
-                    continue;
-                }
-
-                int tentativeGScore = gScore.get(current) + 1;
-
-                if (!gScore.containsKey(neighbour) || tentativeGScore < gScore.get(neighbour)) {
-                    //update the gScore and cameFrom map
-                    cameFrom.put(neighbour, current);
-                    gScore.put(neighbour, tentativeGScore);
-
-                    //if the neighbour is not in the open set, add it
-                    if (!openSet.contains(neighbour)) {
-                        openSet.add(neighbour);
-                    } else {
-                        openSet.remove(neighbour);
-                        openSet.add(neighbour);
-                    }
-                }
-            }
-        }
-        displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
-        return false;
+    public int[] findLeastStopsPath(int source, int destination) {
+        return searched(router().leastStopsAStar(source, destination));
     }
 
     public void displayRoute() {
+        System.setProperty("org.graphstream.ui", "swing");
+        System.setProperty("org.graphstream.ui.renderer", "org.graphstream.ui.j2dviewer.J2DGraphRenderer");
         try {
+            //the route is only mapped onto the display graph once it is about to be shown
+            if (route != null) {
+                setNodeStyle(route);
+            }
             //generate the graph
             configureGraphStyles();
             Viewer viewer = graph.display();
@@ -562,8 +366,13 @@ public class RouteGenerator{
         });
     }
 
-    private void setNodeStyle(Node startNode, Node endNode, Path path) {
+    private void setNodeStyle(int[] route) {
         resetGraphEdges();
+        Node startNode = graph.getNode(routingGraph.getStationName(route[0]));
+        Node endNode = graph.getNode(routingGraph.getStationName(route[route.length - 1]));
+        if (startNode == null || endNode == null) {
+            return;
+        }
 
         //style start and end nodes
         startNode.setAttribute("ui.style",
@@ -581,8 +390,11 @@ public class RouteGenerator{
         List<String> routeStations = new ArrayList<>();
 
         //style nodes in the path
-        List<Node> pathNodes = path.getNodePath();
-        for (Node node : pathNodes) {
+        for (int station : route) {
+            Node node = graph.getNode(routingGraph.getStationName(station));
+            if (node == null) {
+                continue;
+            }
             if (!node.equals(startNode) && !node.equals(endNode)) {
                 node.setAttribute("ui.style",
                         "fill-color: orange; size: 12px; " +
@@ -614,6 +426,30 @@ public class RouteGenerator{
         }
     }
 
+    public boolean displayCachedRoute(int[] path) {
+        NodesResult nodesResult = getAndValidateNodes();
+        if (nodesResult == null) {
+            return false;
+        }
+        //an empty route records a search that found nothing
+        if (path.length == 0) {
+            displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
+            return false;
+        }
+
+        route = path;
+        settledCount = 0;
+        System.out.println("Route taken from the cache, no search was needed");
+        System.out.printf("Total distance: %.2f km%n", routingGraph.pathLength(path));
+        System.out.println("Number of stops: " + (path.length - 1));
+        System.out.println("Number of line changes: " + routingGraph.lineChanges(path));
+        System.out.println("Route: ");
+        for (int station : path) {
+            System.out.println("  -> " + routingGraph.getStationName(station));
+        }
+        return true;
+    }
+
     public boolean calculateLeastChanges() {
         Timestamp start = new Timestamp(System.currentTimeMillis());
 
@@ -622,24 +458,30 @@ public class RouteGenerator{
             return false;
         }
 
-        //find path with least line changes
-        List<Node> pathWithLeastChanges = findPathWithLeastLineChanges(nodesResult.startNode, nodesResult.endNode);
-
-        //if a path is found, create a Path object and display it
-        if (pathWithLeastChanges != null && pathWithLeastChanges.size() > 0) {
-            Path path = createPathFromNodes(pathWithLeastChanges);
+        //find path with least line changes, measuring only the search itself
+        long searchStart = System.nanoTime();
+        long allocationStart = allocatedBytes();
+        int[] pathWithLeastChanges = findPathWithLeastLineChanges(nodesResult.startNode, nodesResult.endNode);
+        long searchTime = System.nanoTime() - searchStart;
+        long allocated = allocationStart == -1 ? -1 : allocatedBytes() - allocationStart;
 
-            setNodeStyle(nodesResult.startNode, nodesResult.endNode, path);
+        //if a path is found, keep it for display
+        if (pathWithLeastChanges != null && pathWithLeastChanges.length > 0) {
+            route = pathWithLeastChanges;
 
-            int lineChanges = calculateLineChanges(pathWithLeastChanges);
+            int lineChanges = routingGraph.lineChanges(pathWithLeastChanges);
 
             Timestamp end = new Timestamp(System.currentTimeMillis());
             System.out.println("Calculation completed in " + (end.getTime() - start.getTime()) + " ms");
+            System.out.println("Line states settled: " + settledCount);
+            System.out.printf("Search took %.1f us and allocated %s%n", searchTime / 1_000.0, allocated == -1 ? "an unknown number of bytes" : allocated + " bytes");
             System.out.println("\nRoute with least line changes found:");
             System.out.println("Number of line changes: " + lineChanges);
-            System.out.println("Number of stops: " + (pathWithLeastChanges.size() - 1));
+            System.out.println("Number of stops: " + (pathWithLeastChanges.length - 1));
             System.out.println("Route: ");
-            pathWithLeastChanges.forEach(node -> System.out.println("  -> " + node.getId()));
+            for (int station : pathWithLeastChanges) {
+                System.out.println("  -> " + routingGraph.getStationName(station));
+            }
 
             displayLineChanges(pathWithLeastChanges);
             return true;
@@ -649,156 +491,144 @@ public class RouteGenerator{
         }
     }
 
-    private List<Node> findPathWithLeastLineChanges(Node start, Node end) {
-        //use a priority queue to explore paths with the least line changes first
-        PriorityQueue<PathWithChanges> queue = new PriorityQueue<>(Comparator.comparingInt((PathWithChanges p) -> p.lineChanges).thenComparingInt(p -> p.path.size()));
-
-        Set<Node> visited = new HashSet<>();
-        PathWithChanges initialPath = new PathWithChanges();
-        initialPath.path.add(start);
-        initialPath.lineChanges = 0;
-        initialPath.currentLines = getLinesForStation(start.getId());
-
-        //add the initial path to the queue
-        queue.offer(initialPath);
-
-        while (!queue.isEmpty()) {
-            //get the path with the least line changes
-            PathWithChanges current = queue.poll();
-            Node currentNode = current.path.get(current.path.size() - 1);
+    public boolean calculateLowestCost(CostWeights costWeights) {
+        Timestamp start = new Timestamp(System.currentTimeMillis());
 
-            //check if the end node is reached
-            if (currentNode.equals(end)) {
-                return current.path;
-            }
+        NodesResult nodesResult = getAndValidateNodes();
+        if (nodesResult == null) {
+            return false;
+        }
 
-            //if the current node has already been visited, skip it
-            if (visited.contains(currentNode)) {
-                continue;
-            }
-            visited.add(currentNode);
-
-            for (Edge edge : currentNode.edges().toList()) {
-                Node neighbour = edge.getOpposite(currentNode);
-
-                if (!visited.contains(neighbour)) {
-                    //create a new path with the current node and the neighbour
-                    PathWithChanges newPath = new PathWithChanges();
-                    newPath.path.addAll(current.path);
-                    newPath.path.add(neighbour);
-
-                    Set<String> neighbourLines = getLinesForStation(neighbour.getId());
-                    Set<String> commonLines = new HashSet<>(current.currentLines);
-                    commonLines.retainAll(neighbourLines);
-
-                    //if there are no common lines, a line change is needed
-                    if (commonLines.isEmpty() && current.path.size() > 1) {
-                        newPath.lineChanges = current.lineChanges + 1;
-                        newPath.currentLines = neighbourLines;
-                    } else {
-                        newPath.lineChanges = current.lineChanges;
-                        newPath.currentLines = commonLines.isEmpty() ? neighbourLines : commonLines;
-                    }
+        //one search over the line states weighing distance, stops and changes together
+        RouteResult result = router().route(nodesResult.startNode, nodesResult.endNode, costWeights);
+        settledCount = result.getSettledCount();
+        if (!result.isFound()) {
+            displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
+            return false;
+        }
 
-                    queue.offer(newPath);
-                }
-            }
+        route = result.getStations();
+        Timestamp end = new Timestamp(System.currentTimeMillis());
+        System.out.println("Calculation completed in " + (end.getTime() - start.getTime()) + " ms");
+        System.out.println("Line states settled: " + settledCount);
+        System.out.printf("%nRoute with the lowest cost found (%.1f per km, %.1f per stop, %.1f per line change):%n", costWeights.perKilometre(), costWeights.perStop(), costWeights.perChange());
+        System.out.printf("Total cost: %.1f%n", costWeights.cost(result.getDistance(), result.getStops(), result.getChanges()));
+        System.out.printf("Total distance: %.2f km%n", result.getDistance());
+        System.out.println("Number of stops: " + result.getStops());
+        System.out.println("Number of line changes: " + result.getChanges());
+        System.out.println("Route: ");
+        for (int station : route) {
+            System.out.println("  -> " + routingGraph.getStationName(station));
         }
 
-        return null;
+        displayLineChanges(route);
+        return true;
     }
 
-    private Set<String> getLinesForStation(String stationName) {
-        Set<String> lines = new HashSet<>();
+    public boolean calculateParetoRoutes() {
+        Timestamp start = new Timestamp(System.currentTimeMillis());
 
-        //find the station by name
-        for (Station station : stations) {
-            if (station.getRailStation().getName().equals(stationName)) {
-                //if the station has rail lines, get the names of the lines
-                if (station.getRailStation().getRailLines() != null) {
-                    station.getRailStation().getRailLines().forEach(line -> {
-                        if (line.getName() != null) {
-                            String lineName = getLineName(line.getName());
-                            if (lineName != null) {
-                                lines.add(lineName);
-                            }
-                        }
-                    });
-                }
-                break;
-            }
+        NodesResult nodesResult = getAndValidateNodes();
+        if (nodesResult == null) {
+            return false;
         }
 
-        return lines;
-    }
+        //one round based search finds the shortest, fewest stops and fewest changes routes and everything in between
+        ParetoRoutePlanner planner = new ParetoRoutePlanner(routingGraph, contractionHierarchy);
+        List<Journey> journeys = planner.findParetoRoutes(nodesResult.startNode, nodesResult.endNode);
+        settledCount = planner.getSettledCount();
+        if (journeys.isEmpty()) {
+            displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
+            return false;
+        }
 
-    private String getLineName(String fullLineName) {
-        if (fullLineName.contains(" - ")) {
-            return fullLineName.split(" - ")[0];
+        Timestamp end = new Timestamp(System.currentTimeMillis());
+        System.out.println("Calculation completed in " + (end.getTime() - start.getTime()) + " ms");
+        System.out.println("Labels settled: " + settledCount + " in " + planner.getRoundCount() + " rounds");
+        System.out.println("\n" + journeys.size() + " routes found, none of them beaten on distance, stops and line changes at once:");
+        for (int i = 0; i < journeys.size(); i++) {
+            Journey journey = journeys.get(i);
+            System.out.printf("%nOption %d: %.2f km, %d stops, %d line changes%n", i + 1, journey.getDistance(), journey.getStops(), journey.getChanges());
+            for (int station : journey.getStations()) {
+                System.out.println("  -> " + routingGraph.getStationName(station));
+            }
         }
-        return fullLineName;
+
+        //the map shows the option with the fewest changes
+        route = journeys.get(0).getStations();
+        return true;
     }
 
-    private int calculateLineChanges(List<Node> path) {
-        if (path.size() <= 2) return 0;
+    public List<int[]> calculateAlternativeRoutes(int k) {
+        Timestamp start = new Timestamp(System.currentTimeMillis());
 
-        //calculate the number of line changes in the path
-        int changes = 0;
-        Set<String> currentLines = getLinesForStation(path.get(0).getId());
+        NodesResult nodesResult = getAndValidateNodes();
+        if (nodesResult == null) {
+            return new ArrayList<>();
+        }
 
-        for (int i = 1; i < path.size(); i++) {
-            //get lines for the next station
-            Set<String> nextLines = getLinesForStation(path.get(i).getId());
-            Set<String> commonLines = new HashSet<>(currentLines);
-            commonLines.retainAll(nextLines);
+        //the shortest route first, then the next best routes that never pass through a station twice
+        KShortestPaths kShortestPaths = new KShortestPaths(routingGraph, contractionHierarchy);
+        List<int[]> routes = kShortestPaths.findShortestPaths(nodesResult.startNode, nodesResult.endNode, k);
+        settledCount = kShortestPaths.getSettledCount();
+        if (routes.isEmpty()) {
+            displayNoRouteFound(nodesResult.startNodeName, nodesResult.endNodeName);
+            return routes;
+        }
 
-            if (commonLines.isEmpty()) {
-                changes++;
-                currentLines = nextLines;
-            } else {
-                currentLines = commonLines;
+        Timestamp end = new Timestamp(System.currentTimeMillis());
+        System.out.println("Calculation completed in " + (end.getTime() - start.getTime()) + " ms");
+        System.out.println("Stations settled: " + settledCount + " in " + kShortestPaths.getSpurSearchCount() + " spur searches");
+        System.out.println("\n" + routes.size() + " shortest routes found:");
+        for (int i = 0; i < routes.size(); i++) {
+            int[] path = routes.get(i);
+            System.out.printf("%nRoute %d: %.2f km, %d stops%n", i + 1, routingGraph.pathLength(path), path.length - 1);
+            for (int station : path) {
+                System.out.println("  -> " + routingGraph.getStationName(station));
             }
         }
 
-        return changes;
+        //the map shows the shortest of them
+        route = routes.get(0);
+        return routes;
     }
 
-    private void displayLineChanges(List<Node> path) {
-        if (path.size() <= 1) return;
+    private int[] findPathWithLeastLineChanges(int start, int end) {
+        //search the station x line states so a station reached on one line can still be reached again on another
+        return searched(router().leastChangesPath(start, end));
+    }
+
+    private static long allocatedBytes() {
+        //bytes allocated by this thread so far, -1 when the JVM cannot measure it
+        if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threadBean && threadBean.isThreadAllocatedMemoryEnabled()) {
+            return threadBean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private void displayLineChanges(int[] path) {
+        if (path.length <= 1) return;
 
         //display detailed route with line information
         System.out.println("\nDetailed route with line change information:");
-        Set<String> currentLines = getLinesForStation(path.get(0).getId());
+        long[] currentLines = routingGraph.lineSet(path[0]);
 
-        System.out.println("Start at: " + path.get(0).getId());
-        System.out.println("Available lines: " + currentLines);
+        System.out.println("Start at: " + routingGraph.getStationName(path[0]));
+        System.out.println("Available lines: " + routingGraph.describeLines(currentLines));
 
         //iterate through the path and display line changes
-        for (int i = 1; i < path.size(); i++) {
-            Set<String> nextLines = getLinesForStation(path.get(i).getId());
-            Set<String> commonLines = new HashSet<>(currentLines);
-            commonLines.retainAll(nextLines);
-
-            if (commonLines.isEmpty() && i > 1) {
-                System.out.println("\nLine Change at: " + path.get(i-1).getId());
-                System.out.println("From lines: " + currentLines);
-                System.out.println("To lines: " + nextLines);
-                currentLines = nextLines;
-            } else if (!commonLines.isEmpty()) {
-                currentLines = commonLines;
+        for (int i = 1; i < path.length; i++) {
+            if (!routingGraph.retainLines(currentLines, path[i]) && i > 1) {
+                System.out.println("\nLine Change at: " + routingGraph.getStationName(path[i-1]));
+                System.out.println("From lines: " + routingGraph.describeLines(currentLines));
+                routingGraph.copyLines(path[i], currentLines);
+                System.out.println("To lines: " + routingGraph.describeLines(currentLines));
             }
 
             //display the current station and available lines
-            System.out.println("-> " + path.get(i).getId() + " (Lines: " + currentLines + ")");
+            System.out.println("-> " + routingGraph.getStationName(path[i]) + " (Lines: " + routingGraph.describeLines(currentLines) + ")");
         }
     }
 
-    private record NodesResult(Node startNode, Node endNode, String startNodeName, String endNodeName) {}
-
-    private static class PathWithChanges {
-        //stores the path and the number of line changes
-        List<Node> path = new ArrayList<>();
-        int lineChanges = 0;
-        Set<String> currentLines = new HashSet<>();
-    }
+    private record NodesResult(int startNode, int endNode, String startNodeName, String endNodeName) {}
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package util.graph;
+
+import lombok.Getter;
+
+//the answer to one routing query, the stations are empty when there is no route between the two stations
+@Getter
+public class RouteResult {
+    private static final int[] NO_STATIONS = new int[0];
+
+    private final int[] stations;
+    private final double distance;
+    private final int stops;
+    private final int changes;
+    //number of stations or line states the search settled, for comparing search strategies
+    private final int settledCount;
+
+    public RouteResult(int[] stations, double distance, int stops, int changes, int settledCount) {
+        this.stations = stations;
+        this.distance = distance;
+        this.stops = stops;
+        this.changes = changes;
+        this.settledCount = settledCount;
+    }
+
+    static RouteResult of(RoutingGraph routingGraph, SearchResult result) {
+        int[] path = result.path();
+        if (path == null) {
+            return new RouteResult(NO_STATIONS, Double.POSITIVE_INFINITY, -1, -1, result.settledCount());
+        }
+        return new RouteResult(path, routingGraph.pathLength(path), path.length - 1, routingGraph.lineChanges(path), result.settledCount());
+    }
+
+    public boolean isFound() {
+        return stations.length > 0;
+    }
+}
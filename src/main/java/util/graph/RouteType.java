@@ -0,0 +1,12 @@
+package util.graph;
+
+//what a planned route should minimise
+public enum RouteType {
+    SHORTEST,
+    LEAST_STOPS,
+    LEAST_CHANGES,
+    //every route that no other route beats on distance, stops and line changes together
+    ALL_TRADE_OFFS,
+    //distance, stops and line changes weighed together into one cost by CostWeights
+    GENERALISED_COST
+}
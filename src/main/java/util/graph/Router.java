@@ -0,0 +1,482 @@
+package util.graph;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/*For shortest path calculations, code taken from:
+ * https://graphstream-project.org/doc/Algorithms/Shortest-path/Dijkstra/
+ * https://www.geeksforgeeks.org/java/java-program-for-dijkstras-shortest-path-algorithm-greedy-algo-7/
+ *
+ * For BFS algorithm, code taken from:
+ * https://favtutor.com/blogs/breadth-first-search-java
+ * https://www.geeksforgeeks.org/breadth-first-search-or-bfs-for-a-graph/
+ *
+ * For A* algorithm, code taken from:
+ * https://www.geeksforgeeks.org/a-search-algorithm/
+ * https://www.baeldung.com/java-a-star-pathfinding
+ * https://codegym.cc/groups/posts/a-search-algorithm-in-java
+ *
+ * Thread confinement code references:
+ * https://docs.oracle.com/javase/specs/jls/se17/html/jls-17.html#jls-17.5
+ * https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/lang/ThreadLocal.html
+ */
+
+//answers routing queries against one snapshot of the network, every query only reads the snapshot and keeps its search
+//state in workspaces owned by the calling thread, so one router can serve any number of threads at once and, once a thread
+//has its workspaces, a query allocates little more than the route it returns, nothing is printed or styled here
+@Getter
+public class Router {
+    private static final int FORWARD = 0;
+    private static final int BACKWARD = 1;
+    private static final int STATES = 2;
+
+    private final RoutingSnapshot snapshot;
+    //forward and backward station workspaces and a line state workspace per thread, each built the first time it is needed
+    @Getter(AccessLevel.NONE)
+    private final ThreadLocal<SearchWorkspace[]> workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace[3]);
+
+    public Router(RoutingSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Snapshot cannot be null");
+        }
+        this.snapshot = snapshot;
+    }
+
+    private SearchWorkspace workspace(int slot) {
+        SearchWorkspace[] owned = workspaces.get();
+        if (owned[slot] == null) {
+            RoutingGraph routingGraph = snapshot.getRoutingGraph();
+            owned[slot] = slot == STATES ? new SearchWorkspace(snapshot.getLineStateGraph().getStateCount(), 0) : new SearchWorkspace(routingGraph.getStationCount(), 0);
+        }
+        return owned[slot];
+    }
+
+    public RouteResult route(int source, int destination, RouteType routeType, SearchAlgorithm algorithm) {
+        RoutingGraph routingGraph = snapshot.getRoutingGraph();
+        checkStation(source, routingGraph.getStationCount());
+        checkStation(destination, routingGraph.getStationCount());
+
+        SearchResult result;
+        switch (routeType) {
+            case SHORTEST:
+                result = shortestPath(source, destination, algorithm);
+                break;
+            case LEAST_STOPS:
+                result = leastStopsPath(source, destination, algorithm);
+                break;
+            case LEAST_CHANGES:
+                result = leastChangesPath(source, destination);
+                break;
+            case GENERALISED_COST:
+                result = lowestCostPath(source, destination, CostWeights.DEFAULT);
+                break;
+            default:
+                //every trade-off is a list of journeys, which the Pareto planner finds
+                throw new IllegalArgumentException("Route type " + routeType + " does not give a single route");
+        }
+        return RouteResult.of(routingGraph, result);
+    }
+
+    public RouteResult route(int source, int destination, CostWeights costWeights) {
+        if (costWeights == null) {
+            throw new IllegalArgumentException("Cost weights cannot be null");
+        }
+        RoutingGraph routingGraph = snapshot.getRoutingGraph();
+        checkStation(source, routingGraph.getStationCount());
+        checkStation(destination, routingGraph.getStationCount());
+        return RouteResult.of(routingGraph, lowestCostPath(source, destination, costWeights));
+    }
+
+    private static void checkStation(int station, int stationCount) {
+        if (station < 0 || station >= stationCount) {
+            throw new IllegalArgumentException("Unknown station id " + station);
+        }
+    }
+
+    SearchResult shortestPath(int source, int destination, SearchAlgorithm algorithm) {
+        switch (algorithm) {
+            case A_STAR:
+                return dijkstra(source, destination, true);
+            case BIDIRECTIONAL:
+                return bidirectionalDijkstra(source, destination);
+            case CONTRACTION_HIERARCHY:
+                if (snapshot.getContractionHierarchy() == null) {
+                    throw new IllegalStateException("No contraction hierarchy in this snapshot");
+                }
+                //shortcuts may run over closed track, so while anything is closed the plain graph is searched instead
+                if (snapshot.getRoutingGraph().getDisruptions().isActive()) {
+                    return bidirectionalDijkstra(source, destination);
+                }
+                return snapshot.getContractionHierarchy().search(source, destination, workspace(FORWARD), workspace(BACKWARD));
+            default:
+                //Dijkstra is A* without a heuristic
+                return dijkstra(source, destination, false);
+        }
+    }
+
+    SearchResult leastStopsPath(int source, int destination, SearchAlgorithm algorithm) {
+        switch (algorithm) {
+            case A_STAR:
+                return leastStopsAStar(source, destination);
+            case BIDIRECTIONAL:
+                return bidirectionalBfs(source, destination);
+            default:
+                //the hierarchy is preprocessed for distances, so the least stops come from BFS
+                return bfs(source, destination);
+        }
+    }
+
+    SearchResult leastChangesPath(int source, int destination) {
+        return snapshot.getLineStateGraph().search(source, destination, workspace(STATES));
+    }
+
+    SearchResult lowestCostPath(int source, int destination, CostWeights costWeights) {
+        return snapshot.getLineStateGraph().search(source, destination, workspace(STATES), costWeights);
+    }
+
+    SearchResult dijkstra(int source, int destination, boolean aStar) {
+        RoutingGraph routingGraph = snapshot.getRoutingGraph();
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        double[] weights = routingGraph.getWeights();
+        //closed stations and edges are only checked for while something is closed
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && closedEnd(routingGraph, source, destination)) {
+            return new SearchResult(null, 0);
+        }
+
+        //g scores are the workspace distances, f scores are kept as the keys of the open set, nothing needs filling first
+        SearchWorkspace workspace = workspace(FORWARD);
+        workspace.reset();
+        //indexed heap for an open set (nodes to be evaluated), so a queued node has its key lowered in place
+        IndexedMinHeap openSet = workspace.getOpenSet();
+
+        int settledCount = 0;
+        workspace.reach(source, 0.0, -1);
+        openSet.push(source, aStar ? distanceHeuristic(source, destination) : 0.0);
+
+        while (!openSet.isEmpty()) {
+            //get the node with the lowest fScore from the open set
+            int current = openSet.poll();
+            settledCount++;
+
+            if (current == destination) {
+                return new SearchResult(reconstructPath(workspace, source, destination), settledCount);
+            }
+
+            workspace.settle(current);
+            double gScore = workspace.getDistance(current);
+
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (disrupted && !routingGraph.isArcOpen(arc)) {
+                    continue;
+                }
+                int neighbour = targets[arc];
+
+                if (workspace.isSettled(neighbour)) {
+                    //skip already evaluated nodes
+                    continue;
+                }
+
+                double tentativeGScore = gScore + weights[arc];
+
+                //if the neighbour is not in the open set or the tentative gScore is better than the current gScore
+                if (tentativeGScore < workspace.getDistance(neighbour)) {
+                    //update the scores and the path, adding the neighbour or lowering its key
+                    workspace.reach(neighbour, tentativeGScore, current);
+                    openSet.push(neighbour, tentativeGScore + (aStar ? distanceHeuristic(neighbour, destination) : 0.0));
+                }
+            }
+        }
+
+        return new SearchResult(null, settledCount);
+    }
+
+    private static boolean closedEnd(RoutingGraph routingGraph, int source, int destination) {
+        //nothing can start or finish at a closed station
+        return !routingGraph.isStationOpen(source) || !routingGraph.isStationOpen(destination);
+    }
+
+    private double distanceHeuristic(int from, int to) {
+        //the larger of two consistent lower bounds is still a consistent lower bound
+        double bound = snapshot.getRoutingGraph().lowerBound(from, to);
+        Landmarks landmarks = snapshot.getLandmarks();
+        return landmarks == null ? bound : Math.max(bound, landmarks.distanceLowerBound(from, to));
+    }
+
+    SearchResult bidirectionalDijkstra(int source, int destination) {
+        RoutingGraph routingGraph = snapshot.getRoutingGraph();
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        double[] weights = routingGraph.getWeights();
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && closedEnd(routingGraph, source, destination)) {
+            return new SearchResult(null, 0);
+        }
+
+        int settledCount = 0;
+        if (source == destination) {
+            return new SearchResult(new int[]{source}, settledCount);
+        }
+
+        //side 0 searches forward from the source, side 1 backward from the destination
+        SearchWorkspace[] sides = {workspace(FORWARD), workspace(BACKWARD)};
+        sides[0].reset();
+        sides[1].reset();
+        IndexedMinHeap[] openSets = {sides[0].getOpenSet(), sides[1].getOpenSet()};
+        sides[0].reach(source, 0.0, -1);
+        sides[1].reach(destination, 0.0, -1);
+        openSets[0].push(source, 0.0);
+        openSets[1].push(destination, 0.0);
+
+        //length of the best route through an arc joining the two searches, and the ends of that arc
+        double best = Double.MAX_VALUE;
+        int forwardMeeting = -1;
+        int backwardMeeting = -1;
+
+        while (!openSets[0].isEmpty() && !openSets[1].isEmpty()) {
+            //once the two closest open nodes add up to the best route, neither search can improve on it
+            if (openSets[0].peekKey() + openSets[1].peekKey() >= best) {
+                break;
+            }
+
+            //advance whichever search has the closer open node
+            int side = openSets[0].peekKey() <= openSets[1].peekKey() ? 0 : 1;
+            SearchWorkspace workspace = sides[side];
+            SearchWorkspace other = sides[1 - side];
+            int current = openSets[side].poll();
+            workspace.settle(current);
+            settledCount++;
+            double distance = workspace.getDistance(current);
+
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (disrupted && !routingGraph.isArcOpen(arc)) {
+                    continue;
+                }
+                int neighbour = targets[arc];
+                double tentative = distance + weights[arc];
+
+                //every arc into a node the other search has reached gives a complete route
+                if (other.isReached(neighbour) && tentative + other.getDistance(neighbour) < best) {
+                    best = tentative + other.getDistance(neighbour);
+                    forwardMeeting = side == 0 ? current : neighbour;
+                    backwardMeeting = side == 0 ? neighbour : current;
+                }
+
+                if (!workspace.isSettled(neighbour) && tentative < workspace.getDistance(neighbour)) {
+                    workspace.reach(neighbour, tentative, current);
+                    openSets[side].push(neighbour, tentative);
+                }
+            }
+        }
+
+        return new SearchResult(forwardMeeting == -1 ? null : joinPaths(sides[0], sides[1], source, forwardMeeting, backwardMeeting), settledCount);
+    }
+
+    private static int[] joinPaths(SearchWorkspace forward, SearchWorkspace backward, int source, int forwardMeeting, int backwardMeeting) {
+        //the forward half runs from the source to its meeting node, the backward half follows its predecessors to the destination
+        int[] forwardPath = reconstructPath(forward, source, forwardMeeting);
+        int backwardLength = 1;
+        for (int current = backwardMeeting; backward.getPredecessor(current) != -1; current = backward.getPredecessor(current)) {
+            backwardLength++;
+        }
+
+        int[] path = Arrays.copyOf(forwardPath, forwardPath.length + backwardLength);
+        int current = backwardMeeting;
+        for (int i = forwardPath.length; i < path.length; i++) {
+            path[i] = current;
+            current = backward.getPredecessor(current);
+        }
+        return path;
+    }
+
+    SearchResult bfs(int source, int destination) {
+        RoutingGraph routingGraph = snapshot.getRoutingGraph();
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && closedEnd(routingGraph, source, destination)) {
+            return new SearchResult(null, 0);
+        }
+
+        //a station is visited once the workspace has reached it, its distance is its number of stops
+        SearchWorkspace workspace = workspace(FORWARD);
+        workspace.reset();
+        int[] queue = workspace.getQueue();
+        int head = 0;
+        int tail = 0;
+
+        //start BFS from the source node
+        int settledCount = 0;
+        queue[tail++] = source;
+        workspace.reach(source, 0.0, -1);
+
+        while (head < tail) {
+            int current = queue[head++];
+            settledCount++;
+
+            //check if destination has been reached
+            if (current == destination) {
+                return new SearchResult(reconstructPath(workspace, source, destination), settledCount);
+            }
+
+            //explore all neighbours of the current node
+            double stops = workspace.getDistance(current) + 1;
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (disrupted && !routingGraph.isArcOpen(arc)) {
+                    continue;
+                }
+                int neighbour = targets[arc];
+                if (!workspace.isReached(neighbour)) {
+                    workspace.reach(neighbour, stops, current);
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+
+        return new SearchResult(null, settledCount);
+    }
+
+    SearchResult bidirectionalBfs(int source, int destination) {
+        RoutingGraph routingGraph = snapshot.getRoutingGraph();
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && closedEnd(routingGraph, source, destination)) {
+            return new SearchResult(null, 0);
+        }
+
+        int settledCount = 0;
+        if (source == destination) {
+            return new SearchResult(new int[]{source}, settledCount);
+        }
+
+        //side 0 searches forward from the source, side 1 backward from the destination, depths are the workspace distances
+        SearchWorkspace[] sides = {workspace(FORWARD), workspace(BACKWARD)};
+        sides[0].reset();
+        sides[1].reset();
+        int[][] queues = {sides[0].getQueue(), sides[1].getQueue()};
+        int[] heads = new int[2];
+        int[] tails = new int[2];
+        sides[0].reach(source, 0.0, -1);
+        sides[1].reach(destination, 0.0, -1);
+        queues[0][tails[0]++] = source;
+        queues[1][tails[1]++] = destination;
+
+        double best = Double.MAX_VALUE;
+        int forwardMeeting = -1;
+        int backwardMeeting = -1;
+
+        while (heads[0] < tails[0] && heads[1] < tails[1]) {
+            //expand one whole level of the smaller frontier, so every meeting at this depth is seen before stopping
+            int side = tails[0] - heads[0] <= tails[1] - heads[1] ? 0 : 1;
+            SearchWorkspace workspace = sides[side];
+            SearchWorkspace other = sides[1 - side];
+            int levelEnd = tails[side];
+
+            while (heads[side] < levelEnd) {
+                int current = queues[side][heads[side]++];
+                settledCount++;
+                double depth = workspace.getDistance(current) + 1;
+
+                for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                    if (disrupted && !routingGraph.isArcOpen(arc)) {
+                        continue;
+                    }
+                    int neighbour = targets[arc];
+                    if (other.isReached(neighbour) && depth + other.getDistance(neighbour) < best) {
+                        best = depth + other.getDistance(neighbour);
+                        forwardMeeting = side == 0 ? current : neighbour;
+                        backwardMeeting = side == 0 ? neighbour : current;
+                    }
+                    if (!workspace.isReached(neighbour)) {
+                        workspace.reach(neighbour, depth, current);
+                        queues[side][tails[side]++] = neighbour;
+                    }
+                }
+            }
+
+            if (forwardMeeting != -1) {
+                return new SearchResult(joinPaths(sides[0], sides[1], source, forwardMeeting, backwardMeeting), settledCount);
+            }
+        }
+
+        return new SearchResult(null, settledCount);
+    }
+
+    private static int[] reconstructPath(SearchWorkspace workspace, int source, int destination) {
+        //count the stations first so the path can be filled from end to start
+        int length = 1;
+        for (int current = destination; current != source; current = workspace.getPredecessor(current)) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        int current = destination;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = current;
+            current = i > 0 ? workspace.getPredecessor(current) : current;
+        }
+        return path;
+    }
+
+    SearchResult leastStopsAStar(int source, int destination) {
+        RoutingGraph routingGraph = snapshot.getRoutingGraph();
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        boolean disrupted = routingGraph.getDisruptions().isActive();
+        if (disrupted && closedEnd(routingGraph, source, destination)) {
+            return new SearchResult(null, 0);
+        }
+
+        //A* starting setup for fewest stops, the g scores are the workspace distances
+        SearchWorkspace workspace = workspace(FORWARD);
+        workspace.reset();
+        //indexed heap for an open set (nodes to be evaluated)
+        IndexedMinHeap openSet = workspace.getOpenSet();
+
+        int settledCount = 0;
+        workspace.reach(source, 0.0, -1);
+        openSet.push(source, stopsHeuristic(source, destination));
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            settledCount++;
+
+            //if the current node is the end node, reconstruct the path
+            if (current == destination) {
+                return new SearchResult(reconstructPath(workspace, source, current), settledCount);
+            }
+
+            workspace.settle(current);
+            double tentativeGScore = workspace.getDistance(current) + 1;
+
+            //explore neighbours
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (disrupted && !routingGraph.isArcOpen(arc)) {
+                    continue;
+                }
+                int neighbour = targets[arc];
+
+                if (workspace.isSettled(neighbour)) {
+                    continue;
+                }
+
+                if (tentativeGScore < workspace.getDistance(neighbour)) {
+                    //update the gScore and cameFrom, then add the neighbour or lower its key
+                    workspace.reach(neighbour, tentativeGScore, current);
+                    openSet.push(neighbour, tentativeGScore + stopsHeuristic(neighbour, destination));
+                }
+            }
+        }
+        return new SearchResult(null, settledCount);
+    }
+
+    private int stopsHeuristic(int from, int to) {
+        //without landmarks there is no useful bound on the stops, and the search behaves like BFS
+        Landmarks landmarks = snapshot.getLandmarks();
+        return landmarks == null ? 0 : landmarks.stopsLowerBound(from, to);
+    }
+}
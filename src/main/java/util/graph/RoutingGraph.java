@@ -0,0 +1,482 @@
+package util.graph;
+
+import dto.RailLine;
+import dto.Route;
+import dto.Station;
+import lombok.Getter;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/*Compressed sparse row layout, code references:
+* https://en.wikipedia.org/wiki/Sparse_matrix#Compressed_sparse_row_(CSR,_CRS_or_Yale_format)
+*
+* A* lower bound code references:
+* https://www.movable-type.co.uk/scripts/latlong.html
+* https://en.wikipedia.org/wiki/Consistent_heuristic
+*/
+
+//undirected rail network with int station ids, every edge is stored as an arc in each direction
+@Getter
+public class RoutingGraph {
+    //radius of Earth in kilometers, as used for the edge weights
+    private static final int EARTH_RADIUS = 6371;
+    private final String[] stationNames;
+    private final Map<String, Integer> stationIds;
+    //latitude and longitude of each station in degrees, NaN when a station has none
+    private final double[] latitudes;
+    private final double[] longitudes;
+    //arcs leaving station s are offsets[s] to offsets[s + 1] - 1
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    //undirected edge that each arc belongs to
+    private final int[] arcEdges;
+    private final int edgeCount;
+    //distinct line colours, and the index of each edge's colour or -1 when its line has none
+    private final String[] colours;
+    private final int[] edgeColours;
+    //coordinates in radians and the cosine of each latitude, precomputed for the A* heuristic
+    private final double[] latitudeRadians;
+    private final double[] longitudeRadians;
+    private final double[] latitudeCosines;
+    //largest factor that keeps the scaled great-circle distance within every edge weight, 0 when a station has no coordinates
+    private final double heuristicScale;
+    //line names with the section after " - " removed, interned to small ids, the lines of station s are
+    //stationLines[lineOffsets[s]] to stationLines[lineOffsets[s + 1] - 1] in ascending order
+    private final String[] lineNames;
+    private final int[] lineOffsets;
+    private final int[] stationLines;
+    //the same memberships as bitsets, bit l of station s is bit l % 64 of lineMasks[s * lineWords + l / 64],
+    //so checking two stations for a common line is a bitwise and of a few words
+    private final int lineWords;
+    private final long[] lineMasks;
+    //built the first time a least changes route is searched for
+    private LineStateGraph lineStateGraph;
+    //stations and edges closed at runtime, which every search skips, the arrays above never change
+    private final Disruptions disruptions;
+
+    public RoutingGraph(String[] stationNames, double[] latitudes, double[] longitudes, int[] offsets, int[] targets, double[] weights, int[] arcEdges, String[] colours, int[] edgeColours, String[] lineNames, int[] lineOffsets, int[] stationLines) {
+        this.stationNames = stationNames;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.arcEdges = arcEdges;
+        this.edgeCount = targets.length / 2;
+        this.colours = colours;
+        this.edgeColours = edgeColours;
+        this.lineNames = lineNames;
+        this.lineOffsets = lineOffsets;
+        this.stationLines = stationLines;
+        this.lineWords = (lineNames.length + 63) / 64;
+        this.lineMasks = new long[stationNames.length * lineWords];
+        for (int s = 0; s < stationNames.length; s++) {
+            for (int i = lineOffsets[s]; i < lineOffsets[s + 1]; i++) {
+                lineMasks[s * lineWords + (stationLines[i] >>> 6)] |= 1L << stationLines[i];
+            }
+        }
+        this.stationIds = new HashMap<>(stationNames.length * 2);
+        for (int s = 0; s < stationNames.length; s++) {
+            stationIds.putIfAbsent(stationNames[s], s);
+        }
+
+        this.latitudeRadians = new double[stationNames.length];
+        this.longitudeRadians = new double[stationNames.length];
+        this.latitudeCosines = new double[stationNames.length];
+        for (int s = 0; s < stationNames.length; s++) {
+            latitudeRadians[s] = Math.toRadians(latitudes[s]);
+            longitudeRadians[s] = Math.toRadians(longitudes[s]);
+            latitudeCosines[s] = Math.cos(latitudeRadians[s]);
+        }
+        this.heuristicScale = computeHeuristicScale();
+        this.disruptions = new Disruptions(stationNames.length, edgeCount);
+    }
+
+    private double computeHeuristicScale() {
+        for (int s = 0; s < stationNames.length; s++) {
+            if (Double.isNaN(latitudes[s]) || Double.isNaN(longitudes[s])) {
+                return 0.0;
+            }
+        }
+        //weights are rounded and may not come from the coordinates at all, so scale the distance down until
+        //it never exceeds an edge weight, which keeps the heuristic admissible and consistent
+        double scale = 1.0;
+        for (int s = 0; s < stationNames.length; s++) {
+            for (int arc = offsets[s]; arc < offsets[s + 1]; arc++) {
+                double distance = greatCircleDistance(s, targets[arc]);
+                if (distance > 0) {
+                    scale = Math.min(scale, weights[arc] / distance);
+                }
+            }
+        }
+        //leave room for floating point error in the comparisons
+        return Math.max(0.0, scale * (1 - 1e-9));
+    }
+
+    public static RoutingGraph fromStations(List<Station> stations, Map<String, Map<String, Double>> stationDistances) {
+        Builder builder = new Builder();
+        for (Station station : stations) {
+            if (isValidStation(station)) {
+                builder.addStation(station.getRailStation().getName(), station.getRailStation().getCoordinates());
+                addStationLines(builder, station);
+            }
+        }
+
+        for (Station station : stations) {
+            if (!isValidStation(station)) {
+                continue;
+            }
+            String source = station.getRailStation().getName();
+            //an edge takes the colour of the first route from this station to its destination that has one
+            Map<String, String> destinationColours = new HashMap<>();
+            for (Route route : station.getRoutes()) {
+                if (isValidRoute(route) && route.getRailLine().getColour() != null) {
+                    destinationColours.putIfAbsent(route.getDestination().getName(), route.getRailLine().getColour());
+                }
+            }
+            for (Route route : station.getRoutes()) {
+                if (isValidRoute(route)) {
+                    String destination = route.getDestination().getName();
+                    //weights come from the same distance table the display graph uses
+                    double weight = stationDistances == null ? 1.0 : stationDistances.getOrDefault(source, Map.of()).getOrDefault(destination, 1.0);
+                    builder.addEdge(source, destination, weight, destinationColours.get(destination));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public static RoutingGraph fromGraph(Graph graph, List<Station> stations) {
+        //coordinates are not stored on the display graph, so take them from the stations
+        Map<String, Double[]> coordinates = new HashMap<>();
+        if (stations != null) {
+            for (Station station : stations) {
+                if (station != null && station.getRailStation() != null && station.getRailStation().getName() != null) {
+                    coordinates.putIfAbsent(station.getRailStation().getName(), station.getRailStation().getCoordinates());
+                }
+            }
+        }
+
+        Map<String, Station> stationsByName = new HashMap<>();
+        if (stations != null) {
+            for (Station station : stations) {
+                if (station != null && station.getRailStation() != null && station.getRailStation().getName() != null) {
+                    stationsByName.putIfAbsent(station.getRailStation().getName(), station);
+                }
+            }
+        }
+
+        Builder builder = new Builder();
+        for (Node node : graph) {
+            builder.addStation(node.getId(), coordinates.get(node.getId()));
+            if (stationsByName.containsKey(node.getId())) {
+                addStationLines(builder, stationsByName.get(node.getId()));
+            }
+        }
+        //read every weight attribute once here so that searches never touch the display graph
+        graph.edges().forEach(edge -> builder.addEdge(edge.getNode0().getId(), edge.getNode1().getId(), edgeLength(edge), edgeColour(edge)));
+        return builder.build();
+    }
+
+    private static void addStationLines(Builder builder, Station station) {
+        List<RailLine> railLines = station.getRailStation().getRailLines();
+        if (railLines == null) {
+            return;
+        }
+        for (RailLine line : railLines) {
+            if (line != null && line.getName() != null) {
+                builder.addStationLine(station.getRailStation().getName(), canonicalLineName(line.getName()));
+            }
+        }
+    }
+
+    public static String canonicalLineName(String fullLineName) {
+        //"Central - Ealing Broadway to West Ruislip" and "Central - Epping to Ealing Broadway" are the same line
+        if (fullLineName.contains(" - ")) {
+            return fullLineName.split(" - ")[0];
+        }
+        return fullLineName;
+    }
+
+    private static double edgeLength(Edge edge) {
+        Object length = edge.getAttribute("length");
+        return length instanceof Number ? ((Number) length).doubleValue() : 1.0;
+    }
+
+    private static String edgeColour(Edge edge) {
+        Object colour = edge.getAttribute("original.color");
+        return colour == null ? null : colour.toString();
+    }
+
+    private static boolean isValidStation(Station station) {
+        return station != null && station.getRailStation() != null && station.getRailStation().getName() != null && station.getRoutes() != null;
+    }
+
+    private static boolean isValidRoute(Route route) {
+        return route != null && route.getRailLine() != null && route.getRailLine().getName() != null && route.getDestination() != null && route.getDestination().getName() != null;
+    }
+
+    //built on first use, and only once however many threads ask for it at the same time
+    public synchronized LineStateGraph getLineStateGraph() {
+        if (lineStateGraph == null) {
+            lineStateGraph = new LineStateGraph(this);
+        }
+        return lineStateGraph;
+    }
+
+    public int getLineCount() {
+        return lineNames.length;
+    }
+
+    public boolean hasLine(int station, int line) {
+        return (lineMasks[station * lineWords + (line >>> 6)] & (1L << line)) != 0;
+    }
+
+    public long[] lineSet(int station) {
+        return Arrays.copyOfRange(lineMasks, station * lineWords, (station + 1) * lineWords);
+    }
+
+    public void copyLines(int station, long[] lines) {
+        System.arraycopy(lineMasks, station * lineWords, lines, 0, lineWords);
+    }
+
+    //keeps only the lines that also call at the station, leaving the set untouched and returning false when none do
+    public boolean retainLines(long[] lines, int station) {
+        boolean common = false;
+        for (int w = 0; w < lineWords && !common; w++) {
+            common = (lines[w] & lineMasks[station * lineWords + w]) != 0;
+        }
+        if (common) {
+            for (int w = 0; w < lineWords; w++) {
+                lines[w] &= lineMasks[station * lineWords + w];
+            }
+        }
+        return common;
+    }
+
+    public int lineChanges(int[] path) {
+        if (path.length <= 2) {
+            return 0;
+        }
+        //stay on the lines shared by every station since the last change, changing when none carry on to the next station
+        int changes = 0;
+        long[] currentLines = lineSet(path[0]);
+        for (int i = 1; i < path.length; i++) {
+            if (!retainLines(currentLines, path[i])) {
+                changes++;
+                copyLines(path[i], currentLines);
+            }
+        }
+        return changes;
+    }
+
+    public String describeLines(long[] lines) {
+        StringJoiner names = new StringJoiner(", ", "[", "]");
+        for (int w = 0; w < lines.length; w++) {
+            for (long word = lines[w]; word != 0; word &= word - 1) {
+                names.add(lineNames[w * 64 + Long.numberOfTrailingZeros(word)]);
+            }
+        }
+        return names.toString();
+    }
+
+    public int getStationCount() {
+        return stationNames.length;
+    }
+
+    public int getArcCount() {
+        return targets.length;
+    }
+
+    public int getStationId(String stationName) {
+        Integer id = stationName == null ? null : stationIds.get(stationName);
+        return id == null ? -1 : id;
+    }
+
+    public String getStationName(int station) {
+        return stationNames[station];
+    }
+
+    public String getEdgeColour(int edge) {
+        int colour = edgeColours[edge];
+        return colour == -1 ? null : colours[colour];
+    }
+
+    public double lowerBound(int from, int to) {
+        return heuristicScale == 0.0 ? 0.0 : heuristicScale * greatCircleDistance(from, to);
+    }
+
+    private double greatCircleDistance(int from, int to) {
+        //haversine formula on the precomputed radians, taking the coordinates in the order they are stored
+        double sinLatitude = Math.sin((latitudeRadians[to] - latitudeRadians[from]) / 2);
+        double sinLongitude = Math.sin((longitudeRadians[to] - longitudeRadians[from]) / 2);
+        double a = sinLatitude * sinLatitude + latitudeCosines[from] * latitudeCosines[to] * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1.0, a)));
+    }
+
+    public boolean isStationOpen(int station) {
+        return !disruptions.isStationClosed(station);
+    }
+
+    //an arc can be used when neither its edge nor the station it leads to is closed
+    public boolean isArcOpen(int arc) {
+        return !disruptions.isEdgeClosed(arcEdges[arc]) && !disruptions.isStationClosed(targets[arc]);
+    }
+
+    public int findArc(int from, int to) {
+        for (int arc = offsets[from]; arc < offsets[from + 1]; arc++) {
+            if (targets[arc] == to) {
+                return arc;
+            }
+        }
+        return -1;
+    }
+
+    public double pathLength(int[] path) {
+        double length = 0;
+        for (int i = 0; i < path.length - 1; i++) {
+            int arc = findArc(path[i], path[i + 1]);
+            length += arc == -1 ? Double.POSITIVE_INFINITY : weights[arc];
+        }
+        return length;
+    }
+
+    public static class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private double[] latitudes = new double[16];
+        private double[] longitudes = new double[16];
+        private int[] edgeSources = new int[16];
+        private int[] edgeTargets = new int[16];
+        private double[] edgeWeights = new double[16];
+        private int[] edgeColours = new int[16];
+        private int edgeCount;
+        private final Set<Long> edgeKeys = new HashSet<>();
+        private final List<String> colours = new ArrayList<>();
+        private final Map<String, Integer> colourIds = new HashMap<>();
+        private final List<Set<Integer>> linesOfStations = new ArrayList<>();
+        private final List<String> lineNames = new ArrayList<>();
+        private final Map<String, Integer> lineIds = new HashMap<>();
+
+        public int addStation(String name, Double[] coordinates) {
+            Integer existing = ids.get(name);
+            if (existing != null) {
+                return existing;
+            }
+            int id = names.size();
+            if (id == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, id * 2);
+                longitudes = Arrays.copyOf(longitudes, id * 2);
+            }
+            boolean hasCoordinates = coordinates != null && coordinates.length >= 2 && coordinates[0] != null && coordinates[1] != null;
+            //the rail stations keep their coordinates in KML order, longitude first
+            latitudes[id] = hasCoordinates ? coordinates[1] : Double.NaN;
+            longitudes[id] = hasCoordinates ? coordinates[0] : Double.NaN;
+            names.add(name);
+            ids.put(name, id);
+            linesOfStations.add(new TreeSet<>());
+            return id;
+        }
+
+        public boolean addStationLine(String station, String lineName) {
+            Integer id = ids.get(station);
+            if (id == null || lineName == null) {
+                return false;
+            }
+            int line = lineIds.computeIfAbsent(lineName, name -> {
+                lineNames.add(name);
+                return lineNames.size() - 1;
+            });
+            return linesOfStations.get(id).add(line);
+        }
+
+        public boolean addEdge(String source, String destination, double weight) {
+            return addEdge(source, destination, weight, null);
+        }
+
+        public boolean addEdge(String source, String destination, double weight, String colour) {
+            Integer from = ids.get(source);
+            Integer to = ids.get(destination);
+            //edges to unknown stations and loops are not routable
+            if (from == null || to == null || from.equals(to)) {
+                return false;
+            }
+            //only the first edge between a pair of stations is kept, whichever direction it was added in
+            long key = ((long) Math.min(from, to) << 32) | Math.max(from, to);
+            if (!edgeKeys.add(key)) {
+                return false;
+            }
+            if (edgeCount == edgeSources.length) {
+                edgeSources = Arrays.copyOf(edgeSources, edgeCount * 2);
+                edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+                edgeWeights = Arrays.copyOf(edgeWeights, edgeCount * 2);
+                edgeColours = Arrays.copyOf(edgeColours, edgeCount * 2);
+            }
+            edgeSources[edgeCount] = from;
+            edgeTargets[edgeCount] = to;
+            edgeWeights[edgeCount] = weight;
+            edgeColours[edgeCount] = colour == null ? -1 : colourIds.computeIfAbsent(colour, c -> {
+                colours.add(c);
+                return colours.size() - 1;
+            });
+            edgeCount++;
+            return true;
+        }
+
+        public RoutingGraph build() {
+            int stationCount = names.size();
+            int[] offsets = new int[stationCount + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                offsets[edgeSources[e] + 1]++;
+                offsets[edgeTargets[e] + 1]++;
+            }
+            for (int s = 0; s < stationCount; s++) {
+                offsets[s + 1] += offsets[s];
+            }
+
+            //place both directions of each edge, keeping edges in the order they were added
+            int[] cursor = Arrays.copyOf(offsets, stationCount);
+            int[] targets = new int[edgeCount * 2];
+            double[] weights = new double[edgeCount * 2];
+            int[] arcEdges = new int[edgeCount * 2];
+            for (int e = 0; e < edgeCount; e++) {
+                int forward = cursor[edgeSources[e]]++;
+                targets[forward] = edgeTargets[e];
+                weights[forward] = edgeWeights[e];
+                arcEdges[forward] = e;
+
+                int backward = cursor[edgeTargets[e]]++;
+                targets[backward] = edgeSources[e];
+                weights[backward] = edgeWeights[e];
+                arcEdges[backward] = e;
+            }
+
+            int[] lineOffsets = new int[stationCount + 1];
+            for (int s = 0; s < stationCount; s++) {
+                lineOffsets[s + 1] = lineOffsets[s] + linesOfStations.get(s).size();
+            }
+            int[] stationLines = new int[lineOffsets[stationCount]];
+            for (int s = 0; s < stationCount; s++) {
+                int index = lineOffsets[s];
+                for (int line : linesOfStations.get(s)) {
+                    stationLines[index++] = line;
+                }
+            }
+
+            return new RoutingGraph(names.toArray(new String[0]), Arrays.copyOf(latitudes, stationCount), Arrays.copyOf(longitudes, stationCount), offsets, targets, weights, arcEdges,
+                    colours.toArray(new String[0]), Arrays.copyOf(edgeColours, edgeCount), lineNames.toArray(new String[0]), lineOffsets, stationLines);
+        }
+    }
+}
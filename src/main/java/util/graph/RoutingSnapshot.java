@@ -0,0 +1,24 @@
+package util.graph;
+
+import lombok.Getter;
+
+//everything a query reads, fixed once built so any number of routers on any number of threads can share it, the hierarchy
+//and landmarks are optional and a network with a different hierarchy or landmarks is a different snapshot
+@Getter
+public class RoutingSnapshot {
+    private final RoutingGraph routingGraph;
+    private final ContractionHierarchy contractionHierarchy;
+    private final Landmarks landmarks;
+    private final LineStateGraph lineStateGraph;
+
+    public RoutingSnapshot(RoutingGraph routingGraph, ContractionHierarchy contractionHierarchy, Landmarks landmarks) {
+        if (routingGraph == null) {
+            throw new IllegalArgumentException("Routing graph cannot be null");
+        }
+        this.routingGraph = routingGraph;
+        this.contractionHierarchy = contractionHierarchy;
+        this.landmarks = landmarks;
+        //built now rather than by the first least changes query, so queries only ever read the snapshot
+        this.lineStateGraph = routingGraph.getLineStateGraph();
+    }
+}
@@ -0,0 +1,12 @@
+package util.graph;
+
+//how the route is searched for, every algorithm returns a route of the same cost
+public enum SearchAlgorithm {
+    //Dijkstra for the shortest route, BFS for the least stops
+    STANDARD,
+    A_STAR,
+    //searches from both ends at once and stops when the two searches can no longer improve on their best meeting point
+    BIDIRECTIONAL,
+    //queries the preprocessed contraction hierarchy, only the shortest route is served this way
+    CONTRACTION_HIERARCHY
+}
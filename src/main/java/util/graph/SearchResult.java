@@ -0,0 +1,5 @@
+package util.graph;
+
+//stations of the route a search found, null when there is none, and how many stations or states it settled on the way,
+//returned together so a search shared between threads never has to keep either in a field
+record SearchResult(int[] path, int settledCount) {}
@@ -0,0 +1,107 @@
+package util.graph;
+
+import java.util.Arrays;
+
+/*Generation stamped search state code references:
+* https://research.swtch.com/sparse
+*/
+
+//arrays for one search at a time over a network, an entry only counts when its stamp matches the current generation,
+//so starting a new search bumps the generation instead of refilling every array
+public class SearchWorkspace {
+    private final double[] distances;
+    private final int[] predecessors;
+    private final int[] reached;
+    private final int[] settled;
+    //stations and arcs a search may not use, cleared with everything else on reset
+    private final int[] bannedStations;
+    private final int[] bannedArcs;
+    private final IndexedMinHeap openSet;
+    //first in first out order for breadth first searches, which need no heap
+    private final int[] queue;
+    private int generation;
+
+    public SearchWorkspace(RoutingGraph routingGraph) {
+        this(routingGraph.getStationCount(), routingGraph.getArcCount());
+    }
+
+    //for searches over other graphs, such as the states of the line state graph
+    public SearchWorkspace(int stationCount, int arcCount) {
+        distances = new double[stationCount];
+        predecessors = new int[stationCount];
+        reached = new int[stationCount];
+        settled = new int[stationCount];
+        bannedStations = new int[stationCount];
+        bannedArcs = new int[arcCount];
+        openSet = new IndexedMinHeap(stationCount);
+        queue = new int[stationCount];
+        generation = 1;
+    }
+
+    public void reset() {
+        openSet.clear();
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            //stamps from two billion searches ago would match again, so clear them once and start over
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            Arrays.fill(bannedStations, 0);
+            Arrays.fill(bannedArcs, 0);
+            generation = 1;
+        }
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public IndexedMinHeap getOpenSet() {
+        return openSet;
+    }
+
+    public int[] getQueue() {
+        return queue;
+    }
+
+    public boolean isReached(int station) {
+        return reached[station] == generation;
+    }
+
+    public double getDistance(int station) {
+        return reached[station] == generation ? distances[station] : Double.POSITIVE_INFINITY;
+    }
+
+    public int getPredecessor(int station) {
+        return reached[station] == generation ? predecessors[station] : -1;
+    }
+
+    public void reach(int station, double distance, int predecessor) {
+        reached[station] = generation;
+        distances[station] = distance;
+        predecessors[station] = predecessor;
+    }
+
+    public boolean isSettled(int station) {
+        return settled[station] == generation;
+    }
+
+    public void settle(int station) {
+        settled[station] = generation;
+    }
+
+    public void banStation(int station) {
+        bannedStations[station] = generation;
+    }
+
+    public boolean isStationBanned(int station) {
+        return bannedStations[station] == generation;
+    }
+
+    public void banArc(int arc) {
+        bannedArcs[arc] = generation;
+    }
+
+    public boolean isArcBanned(int arc) {
+        return bannedArcs[arc] == generation;
+    }
+}
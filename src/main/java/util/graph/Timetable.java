@@ -0,0 +1,285 @@
+package util.graph;
+
+import lombok.Getter;
+import util.StationIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*Timetable and connection array code references:
+* https://gtfs.org/documentation/schedule/reference/#stop_timestxt
+* https://arxiv.org/abs/1703.05997
+*/
+
+//every connection of a day's service, a train leaving one station and calling next at another, held in primitive arrays
+//sorted by departure time so a scan visits the connections in the order they happen, times are seconds after midnight
+//and may run past 24:00:00 for trains that finish after midnight, station ids are those of the routing graph
+@Getter
+public class Timetable {
+    private final int stationCount;
+    private final String[] tripNames;
+    private final int[] departureStations;
+    private final int[] arrivalStations;
+    private final int[] departureTimes;
+    private final int[] arrivalTimes;
+    private final int[] trips;
+
+    private Timetable(int stationCount, String[] tripNames, int[] departureStations, int[] arrivalStations, int[] departureTimes, int[] arrivalTimes, int[] trips) {
+        this.stationCount = stationCount;
+        this.tripNames = tripNames;
+        this.departureStations = departureStations;
+        this.arrivalStations = arrivalStations;
+        this.departureTimes = departureTimes;
+        this.arrivalTimes = arrivalTimes;
+        this.trips = trips;
+    }
+
+    public int getConnectionCount() {
+        return trips.length;
+    }
+
+    public int getTripCount() {
+        return tripNames.length;
+    }
+
+    public int firstDepartingAt(int time) {
+        int low = 0;
+        int high = departureTimes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departureTimes[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static Timetable read(BufferedReader input, StationIndex stationIndex) throws IOException {
+        //a GTFS stop_times file with station names as stop ids, the header says which column is which
+        String header = input.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("Timetable file is empty");
+        }
+        List<String> columns = Arrays.asList(csvFields(header.replace("\uFEFF", "")));
+        int tripColumn = columns.indexOf("trip_id");
+        int arrivalColumn = columns.indexOf("arrival_time");
+        int departureColumn = columns.indexOf("departure_time");
+        int stopColumn = columns.indexOf("stop_id");
+        int sequenceColumn = columns.indexOf("stop_sequence");
+        if (tripColumn == -1 || arrivalColumn == -1 || departureColumn == -1 || stopColumn == -1 || sequenceColumn == -1) {
+            throw new IllegalArgumentException("Timetable needs trip_id, arrival_time, departure_time, stop_id and stop_sequence columns");
+        }
+
+        //rows of a trip need not be together or in order, so the stops are collected first and sorted by sequence
+        Map<String, List<int[]>> tripStops = new HashMap<>();
+        List<String> tripOrder = new ArrayList<>();
+        int skipped = 0;
+        String line;
+        while ((line = input.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = csvFields(line);
+            if (fields.length < columns.size()) {
+                throw new IllegalArgumentException("Timetable row has too few columns: " + line);
+            }
+            int station = stationIndex.find(fields[stopColumn]);
+            if (station == -1) {
+                skipped++;
+            }
+            List<int[]> stops = tripStops.get(fields[tripColumn]);
+            if (stops == null) {
+                stops = new ArrayList<>();
+                tripStops.put(fields[tripColumn], stops);
+                tripOrder.add(fields[tripColumn]);
+            }
+            stops.add(new int[]{Integer.parseInt(fields[sequenceColumn]), station, parseTime(fields[arrivalColumn]), parseTime(fields[departureColumn])});
+        }
+        if (skipped > 0) {
+            System.err.println("Skipped " + skipped + " timetable stops not found in the system");
+        }
+
+        Builder builder = new Builder(stationIndex.size());
+        for (String tripName : tripOrder) {
+            List<int[]> stops = tripStops.get(tripName);
+            stops.sort((a, b) -> Integer.compare(a[0], b[0]));
+            int trip = builder.addTrip(tripName);
+            for (int i = 1; i < stops.size(); i++) {
+                int[] from = stops.get(i - 1);
+                int[] to = stops.get(i);
+                //a stop outside the network breaks the trip rather than joining the stations either side of it
+                if (from[1] != -1 && to[1] != -1) {
+                    builder.addConnection(trip, from[1], to[1], from[3], to[2]);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public void write(Writer output, String[] stationNames) throws IOException {
+        output.write("trip_id,arrival_time,departure_time,stop_id,stop_sequence\n");
+        //connections are already in departure order, so sorting on the trip alone keeps each trip's stops in order
+        long[] order = new long[trips.length];
+        for (int c = 0; c < trips.length; c++) {
+            order[c] = (long) trips[c] << 32 | c;
+        }
+        Arrays.sort(order);
+        int sequence = 0;
+        int previous = -1;
+        String tripName = null;
+        for (long key : order) {
+            int c = (int) key;
+            if (previous == -1 || trips[c] != trips[previous] || departureStations[c] != arrivalStations[previous]) {
+                if (previous != -1) {
+                    writeStop(output, tripName, arrivalTimes[previous], arrivalTimes[previous], stationNames[arrivalStations[previous]], sequence);
+                }
+                //a trip that does not carry on from where it stopped is written as a trip of its own
+                tripName = previous != -1 && trips[c] == trips[previous] ? tripName + "#" + c : tripNames[trips[c]];
+                sequence = 0;
+                writeStop(output, tripName, departureTimes[c], departureTimes[c], stationNames[departureStations[c]], sequence++);
+            } else {
+                writeStop(output, tripName, arrivalTimes[previous], departureTimes[c], stationNames[departureStations[c]], sequence++);
+            }
+            previous = c;
+        }
+        if (previous != -1) {
+            writeStop(output, tripName, arrivalTimes[previous], arrivalTimes[previous], stationNames[arrivalStations[previous]], sequence);
+        }
+        output.flush();
+    }
+
+    private static void writeStop(Writer output, String trip, int arrival, int departure, String station, int sequence) throws IOException {
+        output.write(csvField(trip) + "," + formatTime(arrival) + "," + formatTime(departure) + "," + csvField(station) + "," + sequence + "\n");
+    }
+
+    public static int parseTime(String time) {
+        //H:MM:SS with hours past 24 allowed, as GTFS writes the times of trains running after midnight
+        String[] parts = time.trim().split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid time '" + time + "', expected HH:MM:SS");
+        }
+        try {
+            int hours = Integer.parseInt(parts[0]);
+            int minutes = Integer.parseInt(parts[1]);
+            int seconds = Integer.parseInt(parts[2]);
+            if (hours < 0 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+                throw new IllegalArgumentException("Invalid time '" + time + "', expected HH:MM:SS");
+            }
+            return hours * 3600 + minutes * 60 + seconds;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time '" + time + "', expected HH:MM:SS");
+        }
+    }
+
+    public static String formatTime(int time) {
+        return String.format("%02d:%02d:%02d", time / 3600, time / 60 % 60, time % 60);
+    }
+
+    private static String[] csvFields(String line) {
+        //quoted fields may hold commas and doubled quotes
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"' && quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    public static class Builder {
+        private final int stationCount;
+        private final List<String> tripNames = new ArrayList<>();
+        private int[] departureStations = new int[1024];
+        private int[] arrivalStations = new int[1024];
+        private int[] departureTimes = new int[1024];
+        private int[] arrivalTimes = new int[1024];
+        private int[] trips = new int[1024];
+        private int connectionCount;
+
+        public Builder(int stationCount) {
+            this.stationCount = stationCount;
+        }
+
+        public int addTrip(String name) {
+            tripNames.add(name);
+            return tripNames.size() - 1;
+        }
+
+        public void addConnection(int trip, int departureStation, int arrivalStation, int departureTime, int arrivalTime) {
+            if (trip < 0 || trip >= tripNames.size()) {
+                throw new IllegalArgumentException("Unknown trip id: " + trip);
+            }
+            if (departureStation < 0 || departureStation >= stationCount || arrivalStation < 0 || arrivalStation >= stationCount) {
+                throw new IllegalArgumentException("Unknown station id");
+            }
+            if (departureTime < 0 || arrivalTime < departureTime) {
+                throw new IllegalArgumentException("Trip " + tripNames.get(trip) + " arrives at " + formatTime(Math.max(0, arrivalTime)) + " before it leaves at " + formatTime(Math.max(0, departureTime)));
+            }
+            if (connectionCount == trips.length) {
+                int capacity = connectionCount * 2;
+                departureStations = Arrays.copyOf(departureStations, capacity);
+                arrivalStations = Arrays.copyOf(arrivalStations, capacity);
+                departureTimes = Arrays.copyOf(departureTimes, capacity);
+                arrivalTimes = Arrays.copyOf(arrivalTimes, capacity);
+                trips = Arrays.copyOf(trips, capacity);
+            }
+            departureStations[connectionCount] = departureStation;
+            arrivalStations[connectionCount] = arrivalStation;
+            departureTimes[connectionCount] = departureTime;
+            arrivalTimes[connectionCount] = arrivalTime;
+            trips[connectionCount] = trip;
+            connectionCount++;
+        }
+
+        public Timetable build() {
+            //sorting packed departure time and insertion index keys avoids boxing a million connections, and
+            //connections of one trip leaving at the same second keep the order they were added in
+            long[] order = new long[connectionCount];
+            for (int c = 0; c < connectionCount; c++) {
+                order[c] = (long) departureTimes[c] << 32 | c;
+            }
+            Arrays.sort(order);
+            int[] sortedDepartureStations = new int[connectionCount];
+            int[] sortedArrivalStations = new int[connectionCount];
+            int[] sortedDepartureTimes = new int[connectionCount];
+            int[] sortedArrivalTimes = new int[connectionCount];
+            int[] sortedTrips = new int[connectionCount];
+            for (int i = 0; i < connectionCount; i++) {
+                int c = (int) order[i];
+                sortedDepartureStations[i] = departureStations[c];
+                sortedArrivalStations[i] = arrivalStations[c];
+                sortedDepartureTimes[i] = departureTimes[c];
+                sortedArrivalTimes[i] = arrivalTimes[c];
+                sortedTrips[i] = trips[c];
+            }
+            return new Timetable(stationCount, tripNames.toArray(new String[0]), sortedDepartureStations, sortedArrivalStations, sortedDepartureTimes, sortedArrivalTimes, sortedTrips);
+        }
+    }
+}
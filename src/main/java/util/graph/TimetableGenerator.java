@@ -0,0 +1,145 @@
+package util.graph;
+
+import dto.RailStation;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*Synthetic timetable code references:
+* https://en.wikipedia.org/wiki/Headway
+* https://en.wikipedia.org/wiki/Eulerian_path
+*/
+
+//builds a timetable with trains running both ways along every line at a fixed headway, the line segments come from
+//lineToStationsMap and are chained into runs of consecutive stations, the time between stations comes from the edge
+//length at a constant speed plus a dwell at each stop, so timetable routing can be tried and measured without real data
+@Getter
+@Setter
+public class TimetableGenerator {
+    public static final int DEFAULT_HEADWAY_SECONDS = 600;
+
+    private int serviceStart = 5 * 3600;
+    private int serviceEnd = 24 * 3600;
+    private int defaultHeadway = DEFAULT_HEADWAY_SECONDS;
+    //seconds between trains on particular lines, by line name without its section
+    private Map<String, Integer> headways = new HashMap<>();
+    private double speedKmh = 35.0;
+    private int dwellSeconds = 30;
+
+    public Timetable generate(RoutingGraph routingGraph, Map<String, List<RailStation>> lineToStationsMap) {
+        if (routingGraph == null) {
+            throw new IllegalArgumentException("Routing graph cannot be null");
+        }
+        if (defaultHeadway <= 0 || speedKmh <= 0 || serviceEnd < serviceStart) {
+            throw new IllegalArgumentException("Headway and speed must be positive and the service must end after it starts");
+        }
+
+        //each line's segments name the stations at either end, a pair the routing graph joins is a stretch of track on that line,
+        //lines are visited in name order so the same network always gives the same timetable
+        Map<String, List<int[]>> lineArcs = new TreeMap<>();
+        Map<String, Set<Integer>> lineEdges = new HashMap<>();
+        Map<String, List<RailStation>> segments = lineToStationsMap == null ? Map.of() : new TreeMap<>(lineToStationsMap);
+        for (Map.Entry<String, List<RailStation>> segment : segments.entrySet()) {
+            String line = RoutingGraph.canonicalLineName(segment.getKey());
+            List<int[]> arcs = lineArcs.computeIfAbsent(line, l -> new ArrayList<>());
+            Set<Integer> edges = lineEdges.computeIfAbsent(line, l -> new HashSet<>());
+            List<RailStation> stations = segment.getValue();
+            for (int i = 0; i < stations.size(); i++) {
+                for (int j = i + 1; j < stations.size(); j++) {
+                    int from = routingGraph.getStationId(stations.get(i).getName());
+                    int to = routingGraph.getStationId(stations.get(j).getName());
+                    int arc = from == -1 || to == -1 ? -1 : routingGraph.findArc(from, to);
+                    if (arc != -1 && edges.add(routingGraph.getArcEdges()[arc])) {
+                        arcs.add(new int[]{from, to, arc});
+                    }
+                }
+            }
+        }
+
+        Timetable.Builder builder = new Timetable.Builder(routingGraph.getStationCount());
+        int runIndex = 0;
+        for (Map.Entry<String, List<int[]>> line : lineArcs.entrySet()) {
+            int headway = headways.getOrDefault(line.getKey(), defaultHeadway);
+            if (headway <= 0) {
+                throw new IllegalArgumentException("Headway for " + line.getKey() + " must be positive");
+            }
+            for (int[] run : runs(line.getValue())) {
+                //runs on the same headway would all leave together, so each starts a little later than the last
+                int offset = (runIndex * 61) % headway;
+                addTrips(builder, routingGraph, line.getKey() + " " + runIndex + "a", run, headway, offset, false);
+                addTrips(builder, routingGraph, line.getKey() + " " + runIndex + "b", run, headway, offset, true);
+                runIndex++;
+            }
+        }
+        return builder.build();
+    }
+
+    private List<int[]> runs(List<int[]> arcs) {
+        //split the line's track into runs that use every stretch once, starting at the ends of the line where there are any
+        Map<Integer, List<int[]>> adjacent = new TreeMap<>();
+        for (int[] arc : arcs) {
+            adjacent.computeIfAbsent(arc[0], s -> new ArrayList<>()).add(arc);
+            adjacent.computeIfAbsent(arc[1], s -> new ArrayList<>()).add(arc);
+        }
+        List<Integer> starts = new ArrayList<>();
+        for (Map.Entry<Integer, List<int[]>> station : adjacent.entrySet()) {
+            if (station.getValue().size() % 2 == 1) {
+                starts.add(station.getKey());
+            }
+        }
+        starts.addAll(adjacent.keySet());
+
+        Set<int[]> used = new HashSet<>();
+        List<int[]> runs = new ArrayList<>();
+        for (int start : starts) {
+            List<Integer> run = new ArrayList<>();
+            run.add(start);
+            int current = start;
+            boolean extended = true;
+            while (extended) {
+                extended = false;
+                for (int[] arc : adjacent.get(current)) {
+                    if (used.add(arc)) {
+                        current = arc[0] == current ? arc[1] : arc[0];
+                        run.add(current);
+                        extended = true;
+                        break;
+                    }
+                }
+            }
+            if (run.size() > 1) {
+                runs.add(run.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        return runs;
+    }
+
+    private void addTrips(Timetable.Builder builder, RoutingGraph routingGraph, String service, int[] run, int headway, int offset, boolean reverse) {
+        int[] hops = new int[run.length - 1];
+        for (int i = 0; i < hops.length; i++) {
+            int from = reverse ? run[run.length - 1 - i] : run[i];
+            int to = reverse ? run[run.length - 2 - i] : run[i + 1];
+            double kilometres = routingGraph.getWeights()[routingGraph.findArc(from, to)];
+            //at least half a minute between stations, however close they are
+            hops[i] = Math.max(30, (int) Math.round(kilometres / speedKmh * 3600));
+        }
+        for (int departure = serviceStart + offset; departure <= serviceEnd; departure += headway) {
+            //named by line, run, direction and departure so that a written timetable reads back into the same trips
+            int trip = builder.addTrip(service + " " + Timetable.formatTime(departure));
+            int time = departure;
+            for (int i = 0; i < hops.length; i++) {
+                int from = reverse ? run[run.length - 1 - i] : run[i];
+                int to = reverse ? run[run.length - 2 - i] : run[i + 1];
+                builder.addConnection(trip, from, to, time, time + hops[i]);
+                time += hops[i] + dwellSeconds;
+            }
+        }
+    }
+}
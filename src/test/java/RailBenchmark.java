@@ -0,0 +1,1258 @@
+import com.sun.management.ThreadMXBean;
+import dto.RailLine;
+import dto.RailStation;
+import dto.Route;
+import dto.Station;
+import org.graphstream.graph.Graph;
+import util.FileParser;
+import util.graph.GraphGenerator;
+import util.graph.ContractionHierarchy;
+import util.graph.ConnectionScan;
+import util.graph.CostWeights;
+import util.graph.Disruptions;
+import util.graph.DistanceMatrix;
+import util.graph.GraphObjectGenerator;
+import util.graph.Isochrone;
+import util.graph.Journey;
+import util.graph.KShortestPaths;
+import util.graph.Landmarks;
+import util.graph.LineStateGraph;
+import util.graph.ParetoRoutePlanner;
+import util.graph.RouteCache;
+import util.graph.RouteGenerator;
+import util.graph.RouteResult;
+import util.graph.RouteType;
+import util.graph.Router;
+import util.graph.RoutingSnapshot;
+import util.graph.Timetable;
+import util.graph.TimetableGenerator;
+import util.graph.SearchAlgorithm;
+import util.graph.RoutingGraph;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.Supplier;
+
+/*Benchmarks for the startup and routing code, run with the two KML files and the scenarios to run:
+* java RailBenchmark <rail lines KML> <rail stations KML> [scenario...]
+* Each measurement is warmed up first and the median of the timed runs is reported.
+*/
+public class RailBenchmark {
+    private static final int WARMUP_RUNS = 5;
+    private static final int TIMED_RUNS = 9;
+    private static final int QUERY_PAIRS = 500;
+    private static FileParser parser;
+    private static GraphObjectGenerator network;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: RailBenchmark <rail lines KML> <rail stations KML> [scenario...]");
+            return;
+        }
+        parser = new FileParser();
+        parser.parse(new File(args[0]));
+        parser.parse(new File(args[1]));
+
+        List<String> scenarios = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of("lines");
+        for (String scenario : scenarios) {
+            switch (scenario) {
+                case "lines":
+                    benchmarkSetRailLines(parser.getRailLines(), parser.getRailStations());
+                    break;
+                case "graph":
+                    benchmarkGraphBuild(network());
+                    break;
+                case "astar":
+                    benchmarkAStar(network());
+                    break;
+                case "heap":
+                    benchmarkHeap(network());
+                    break;
+                case "bidirectional":
+                    benchmarkBidirectional(network());
+                    break;
+                case "ch":
+                    benchmarkContractionHierarchy(network());
+                    break;
+                case "landmarks":
+                    benchmarkLandmarks(network());
+                    break;
+                case "changes":
+                    benchmarkLeastChanges(network());
+                    break;
+                case "linesets":
+                    benchmarkLineChanges(network());
+                    break;
+                case "pareto":
+                    benchmarkPareto(network());
+                    break;
+                case "kshortest":
+                    benchmarkKShortestPaths(network());
+                    break;
+                case "matrix":
+                    benchmarkDistanceMatrix(network());
+                    break;
+                case "isochrone":
+                    benchmarkIsochrone(network());
+                    break;
+                case "cache":
+                    benchmarkRouteCache(network());
+                    break;
+                case "workspaces":
+                    benchmarkWorkspaces(network());
+                    break;
+                case "timetable":
+                    benchmarkTimetable(network());
+                    break;
+                case "disruptions":
+                    benchmarkDisruptions(network());
+                    break;
+                case "cost":
+                    benchmarkGeneralisedCost(network());
+                    break;
+                default:
+                    System.err.println("Unknown scenario: " + scenario);
+            }
+        }
+    }
+
+    private static void benchmarkSetRailLines(ArrayList<RailLine> railLines, ArrayList<RailStation> railStations) {
+        System.out.println("\nStation to line association (substring scan vs multi-pattern matcher):");
+        System.out.printf("%8s %10s %10s %14s %14s %8s%n", "scale", "stations", "lines", "substring ms", "matcher ms", "equal");
+        for (int scale = 1; scale <= 16; scale *= 2) {
+            ArrayList<RailLine> scaledLines = new ArrayList<>();
+            ArrayList<RailStation> scaledStations = new ArrayList<>();
+            replicateNetwork(railLines, railStations, scale, scaledLines, scaledStations);
+
+            double substringMs = medianMillis(() -> setRailLinesBySubstring(scaledLines, scaledStations), scale > 4 ? 1 : TIMED_RUNS);
+            List<List<RailLine>> expected = snapshotLines(scaledStations);
+            double matcherMs = medianMillis(() -> RailSystem.setRailLines(scaledLines, scaledStations), TIMED_RUNS);
+            boolean equal = expected.equals(snapshotLines(scaledStations));
+
+            System.out.printf("%8d %10d %10d %14.2f %14.2f %8s%n", scale, scaledStations.size(), scaledLines.size(), substringMs, matcherMs, equal);
+        }
+    }
+
+    //the network is only built for the scenarios that need it, from copies so the parsed lists stay untouched
+    private static GraphObjectGenerator network() {
+        if (network == null) {
+            ArrayList<RailLine> railLines = new ArrayList<>();
+            ArrayList<RailStation> railStations = new ArrayList<>();
+            replicateNetwork(parser.getRailLines(), parser.getRailStations(), 1, railLines, railStations);
+            RailSystem.setRailLines(railLines, railStations);
+            network = new GraphObjectGenerator(railLines, railStations);
+            network.controller();
+        }
+        return network;
+    }
+
+    private static void benchmarkGraphBuild(GraphObjectGenerator network) {
+        System.out.println("\nGraph construction (routing graph and display graph):");
+        System.out.printf("%8s %10s %10s %10s %14s %16s%n", "scale", "stations", "nodes", "edges", "build ms", "us per element");
+        for (int scale = 1; scale <= 16; scale *= 2) {
+            GraphObjectGenerator scaled = replicateStations(network, scale);
+            Graph[] built = new Graph[1];
+            double buildMs = medianMillis(() -> built[0] = quietly(() -> new GraphGenerator(scaled).generateGraph(scaled.getStations())), TIMED_RUNS);
+
+            int elements = built[0].getNodeCount() + built[0].getEdgeCount();
+            System.out.printf("%8d %10d %10d %10d %14.2f %16.3f%n", scale, scaled.getStations().size(), built[0].getNodeCount(), built[0].getEdgeCount(), buildMs, buildMs * 1000 / elements);
+        }
+    }
+
+    private static void benchmarkAStar(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        RouteGenerator routeGenerator = new RouteGenerator(network.getStations(), null, null, null, routingGraph);
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        System.out.printf("%nShortest route heuristics over %d random station pairs (heuristic scale %.4f):%n", pairs.length, routingGraph.getHeuristicScale());
+        System.out.printf("%-28s %14s %14s %12s%n", "search", "avg settled", "us per query", "same cost");
+
+        double[] expected = new double[pairs.length];
+        long settled = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            int[] path = routeGenerator.findShortestPath(pairs[i][0], pairs[i][1], false);
+            expected[i] = path == null ? Double.POSITIVE_INFINITY : routingGraph.pathLength(path);
+            settled += routeGenerator.getSettledCount();
+        }
+        double dijkstraMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                routeGenerator.findShortestPath(pair[0], pair[1], false);
+            }
+        }, TIMED_RUNS);
+        System.out.printf("%-28s %14.1f %14.2f %12s%n", "Dijkstra", (double) settled / pairs.length, dijkstraMs * 1000 / pairs.length, true);
+
+        long[] degreeSettled = new long[1];
+        boolean degreeSame = true;
+        for (int i = 0; i < pairs.length; i++) {
+            int[] path = shortestPathWithPriorityQueue(routingGraph, pairs[i][0], pairs[i][1], degreeHeuristic(network.getStations(), routingGraph, pairs[i][1]), degreeSettled);
+            degreeSame &= sameCost(expected[i], path == null ? Double.POSITIVE_INFINITY : routingGraph.pathLength(path));
+        }
+        double degreeMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                shortestPathWithPriorityQueue(routingGraph, pair[0], pair[1], degreeHeuristic(network.getStations(), routingGraph, pair[1]), new long[1]);
+            }
+        }, 3);
+        System.out.printf("%-28s %14.1f %14.2f %12s%n", "A* (Euclidean degrees, scan)", (double) degreeSettled[0] / pairs.length, degreeMs * 1000 / pairs.length, degreeSame);
+
+        settled = 0;
+        boolean same = true;
+        for (int i = 0; i < pairs.length; i++) {
+            int[] path = routeGenerator.findShortestPath(pairs[i][0], pairs[i][1], true);
+            same &= sameCost(expected[i], path == null ? Double.POSITIVE_INFINITY : routingGraph.pathLength(path));
+            settled += routeGenerator.getSettledCount();
+        }
+        double aStarMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                routeGenerator.findShortestPath(pair[0], pair[1], true);
+            }
+        }, TIMED_RUNS);
+        System.out.printf("%-28s %14.1f %14.2f %12s%n", "A* (haversine, arrays)", (double) settled / pairs.length, aStarMs * 1000 / pairs.length, same);
+    }
+
+    private static void benchmarkBidirectional(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        RouteGenerator routeGenerator = new RouteGenerator(network.getStations(), null, null, null, routingGraph);
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        System.out.printf("%nUnidirectional and bidirectional searches over %d random station pairs:%n", pairs.length);
+        System.out.printf("%-32s %14s %14s %12s%n", "search", "avg settled", "us per query", "same cost");
+
+        ToDoubleFunction<int[]> distance = path -> path == null ? Double.POSITIVE_INFINITY : routingGraph.pathLength(path);
+        ToDoubleFunction<int[]> stops = path -> path == null ? Double.POSITIVE_INFINITY : path.length - 1;
+        double[] shortest = benchmarkSearch("Dijkstra", routeGenerator::getSettledCount, pairs, (source, destination) -> routeGenerator.findShortestPath(source, destination, false), distance, null);
+        benchmarkSearch("A*", routeGenerator::getSettledCount, pairs, (source, destination) -> routeGenerator.findShortestPath(source, destination, true), distance, shortest);
+        benchmarkSearch("Bidirectional Dijkstra", routeGenerator::getSettledCount, pairs, routeGenerator::findShortestPathBidirectional, distance, shortest);
+        double[] fewest = benchmarkSearch("BFS", routeGenerator::getSettledCount, pairs, routeGenerator::explore, stops, null);
+        benchmarkSearch("Bidirectional BFS", routeGenerator::getSettledCount, pairs, routeGenerator::exploreBidirectional, stops, fewest);
+    }
+
+    private static void benchmarkContractionHierarchy(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        RouteGenerator routeGenerator = new RouteGenerator(network.getStations(), null, null, null, routingGraph);
+        ContractionHierarchy[] built = new ContractionHierarchy[1];
+        double preprocessingMs = medianMillis(() -> built[0] = quietly(() -> ContractionHierarchy.build(routingGraph)), TIMED_RUNS);
+        ContractionHierarchy contractionHierarchy = built[0];
+        System.out.printf("%nContraction hierarchy: preprocessing %.2f ms, %d shortcuts for %d edges%n", preprocessingMs, contractionHierarchy.getShortcutCount(), routingGraph.getEdgeCount());
+
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        System.out.printf("%-32s %14s %14s %12s%n", "search", "avg settled", "us per query", "same cost");
+        ToDoubleFunction<int[]> distance = path -> path == null ? Double.POSITIVE_INFINITY : routingGraph.pathLength(path);
+        double[] shortest = benchmarkSearch("Dijkstra", routeGenerator::getSettledCount, pairs, (source, destination) -> routeGenerator.findShortestPath(source, destination, false), distance, null);
+        benchmarkSearch("Bidirectional Dijkstra", routeGenerator::getSettledCount, pairs, routeGenerator::findShortestPathBidirectional, distance, shortest);
+        routeGenerator.setContractionHierarchy(contractionHierarchy);
+        benchmarkSearch("Contraction hierarchy", routeGenerator::getSettledCount, pairs, routeGenerator::findShortestPathContracted, distance, shortest);
+    }
+
+    private static void benchmarkLandmarks(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        RouteGenerator routeGenerator = new RouteGenerator(network.getStations(), null, null, null, routingGraph);
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        System.out.printf("%nA* with landmark bounds over %d random station pairs:%n", pairs.length);
+        System.out.printf("%-32s %14s %14s %12s%n", "search", "avg settled", "us per query", "same cost");
+
+        ToDoubleFunction<int[]> distance = path -> path == null ? Double.POSITIVE_INFINITY : routingGraph.pathLength(path);
+        ToDoubleFunction<int[]> stops = path -> path == null ? Double.POSITIVE_INFINITY : path.length - 1;
+        double[] shortest = benchmarkSearch("Dijkstra", routeGenerator::getSettledCount, pairs, (source, destination) -> routeGenerator.findShortestPath(source, destination, false), distance, null);
+        double[] fewest = benchmarkSearch("BFS", routeGenerator::getSettledCount, pairs, routeGenerator::explore, stops, null);
+        for (int count : new int[]{0, 4, 8, 16}) {
+            routeGenerator.setLandmarks(count == 0 ? null : quietly(() -> Landmarks.build(routingGraph, count)));
+            String suffix = count == 0 ? " (no landmarks)" : " (" + count + " landmarks)";
+            benchmarkSearch("A* distance" + suffix, routeGenerator::getSettledCount, pairs, (source, destination) -> routeGenerator.findShortestPath(source, destination, true), distance, shortest);
+            benchmarkSearch("A* stops" + suffix, routeGenerator::getSettledCount, pairs, routeGenerator::findLeastStopsPath, stops, fewest);
+        }
+    }
+
+    private static int lineChanges(RoutingGraph routingGraph, int[] path) {
+        return path == null ? 0 : routingGraph.lineChanges(path);
+    }
+
+    private static void benchmarkLeastChanges(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        List<Station> stations = network.getStations();
+        LineStateGraph[] built = new LineStateGraph[1];
+        double buildMs = medianMillis(() -> built[0] = new LineStateGraph(routingGraph), TIMED_RUNS);
+        LineStateGraph lineStateGraph = built[0];
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        System.out.printf("%nLeast changes over %d random station pairs (line state graph: %d states, built in %.2f ms):%n", pairs.length, lineStateGraph.getStateCount(), buildMs);
+        System.out.printf("%-28s %14s %14s %14s %12s%n", "search", "us per query", "KB per query", "avg changes", "fewer/more");
+
+        int[] copiedChanges = new int[pairs.length];
+        long copiedTotal = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            copiedChanges[i] = lineChanges(routingGraph, leastChangesWithCopiedPaths(stations, routingGraph, pairs[i][0], pairs[i][1]));
+            copiedTotal += copiedChanges[i];
+        }
+        double copiedMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                leastChangesWithCopiedPaths(stations, routingGraph, pair[0], pair[1]);
+            }
+        }, 3);
+        double copiedKb = allocatedKilobytes(() -> {
+            for (int[] pair : pairs) {
+                leastChangesWithCopiedPaths(stations, routingGraph, pair[0], pair[1]);
+            }
+        }) / pairs.length;
+        System.out.printf("%-28s %14.2f %14.1f %14.3f %12s%n", "Copied paths, station visits", copiedMs * 1000 / pairs.length, copiedKb, (double) copiedTotal / pairs.length, "-");
+
+        long stateTotal = 0;
+        int fewer = 0;
+        int more = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            int changes = lineChanges(routingGraph, lineStateGraph.findLeastChangesPath(pairs[i][0], pairs[i][1]));
+            stateTotal += changes;
+            fewer += changes < copiedChanges[i] ? 1 : 0;
+            more += changes > copiedChanges[i] ? 1 : 0;
+        }
+        double stateMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                lineStateGraph.findLeastChangesPath(pair[0], pair[1]);
+            }
+        }, TIMED_RUNS);
+        double stateKb = allocatedKilobytes(() -> {
+            for (int[] pair : pairs) {
+                lineStateGraph.findLeastChangesPath(pair[0], pair[1]);
+            }
+        }) / pairs.length;
+        System.out.printf("%-28s %14.2f %14.1f %14.3f %12s%n", "Line state graph", stateMs * 1000 / pairs.length, stateKb, (double) stateTotal / pairs.length, fewer + "/" + more);
+    }
+
+    //least changes search as it was originally written, copying the path and line sets into every queued entry
+    private static int[] leastChangesWithCopiedPaths(List<Station> stations, RoutingGraph routingGraph, int start, int end) {
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        PriorityQueue<CopiedPath> queue = new PriorityQueue<>(Comparator.comparingInt((CopiedPath p) -> p.lineChanges).thenComparingInt(p -> p.path.size()));
+        boolean[] visited = new boolean[routingGraph.getStationCount()];
+        CopiedPath initialPath = new CopiedPath();
+        initialPath.path.add(start);
+        initialPath.currentLines = linesByScan(stations, routingGraph.getStationName(start));
+        queue.offer(initialPath);
+
+        while (!queue.isEmpty()) {
+            CopiedPath current = queue.poll();
+            int currentNode = current.path.get(current.path.size() - 1);
+            if (currentNode == end) {
+                return current.path.stream().mapToInt(Integer::intValue).toArray();
+            }
+            if (visited[currentNode]) {
+                continue;
+            }
+            visited[currentNode] = true;
+
+            for (int arc = offsets[currentNode]; arc < offsets[currentNode + 1]; arc++) {
+                int neighbour = targets[arc];
+                if (!visited[neighbour]) {
+                    CopiedPath newPath = new CopiedPath();
+                    newPath.path.addAll(current.path);
+                    newPath.path.add(neighbour);
+                    Set<String> neighbourLines = linesByScan(stations, routingGraph.getStationName(neighbour));
+                    Set<String> commonLines = new HashSet<>(current.currentLines);
+                    commonLines.retainAll(neighbourLines);
+                    if (commonLines.isEmpty() && current.path.size() > 1) {
+                        newPath.lineChanges = current.lineChanges + 1;
+                        newPath.currentLines = neighbourLines;
+                    } else {
+                        newPath.lineChanges = current.lineChanges;
+                        newPath.currentLines = commonLines.isEmpty() ? neighbourLines : commonLines;
+                    }
+                    queue.offer(newPath);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> linesByScan(List<Station> stations, String stationName) {
+        Set<String> lines = new HashSet<>();
+        for (Station station : stations) {
+            if (station.getRailStation().getName().equals(stationName)) {
+                if (station.getRailStation().getRailLines() != null) {
+                    station.getRailStation().getRailLines().forEach(line -> {
+                        if (line.getName() != null) {
+                            lines.add(RoutingGraph.canonicalLineName(line.getName()));
+                        }
+                    });
+                }
+                break;
+            }
+        }
+        return lines;
+    }
+
+    private static void benchmarkPareto(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        RouteGenerator routeGenerator = new RouteGenerator(network.getStations(), null, null, null, routingGraph);
+        LineStateGraph lineStateGraph = routingGraph.getLineStateGraph();
+        ParetoRoutePlanner planner = new ParetoRoutePlanner(routingGraph, network.getContractionHierarchy());
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        System.out.printf("%nDistance, stops and line changes over %d random station pairs:%n", pairs.length);
+        System.out.printf("%-36s %14s %14s %14s%n", "search", "us per query", "avg routes", "same extremes");
+
+        double threeMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                routeGenerator.findShortestPath(pair[0], pair[1], false);
+                routeGenerator.explore(pair[0], pair[1]);
+                lineStateGraph.findLeastChangesPath(pair[0], pair[1]);
+            }
+        }, TIMED_RUNS);
+        System.out.printf("%-36s %14.2f %14s %14s%n", "Dijkstra + BFS + least changes", threeMs * 1000 / pairs.length, "3", "-");
+
+        long routes = 0;
+        long settled = 0;
+        boolean same = true;
+        for (int[] pair : pairs) {
+            List<Journey> journeys = planner.findParetoRoutes(pair[0], pair[1]);
+            routes += journeys.size();
+            settled += planner.getSettledCount();
+            int[] shortest = routeGenerator.findShortestPath(pair[0], pair[1], false);
+            int[] fewestStops = routeGenerator.explore(pair[0], pair[1]);
+            int[] fewestChanges = lineStateGraph.findLeastChangesPath(pair[0], pair[1]);
+            if (shortest == null) {
+                same &= journeys.isEmpty();
+                continue;
+            }
+            same &= sameCost(routingGraph.pathLength(shortest), journeys.stream().mapToDouble(Journey::getDistance).min().orElse(-1));
+            same &= fewestStops.length - 1 == journeys.stream().mapToInt(Journey::getStops).min().orElse(-1);
+            same &= Journey.countChanges(routingGraph, fewestChanges) == journeys.stream().mapToInt(Journey::getChanges).min().orElse(-1);
+        }
+        double paretoMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                planner.findParetoRoutes(pair[0], pair[1]);
+            }
+        }, TIMED_RUNS);
+        System.out.printf("%-36s %14.2f %14.2f %14s   %.0f labels settled%n", "Pareto rounds", paretoMs * 1000 / pairs.length, (double) routes / pairs.length, same, (double) settled / pairs.length);
+    }
+
+    private static void benchmarkLineChanges(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        List<Station> stations = network.getStations();
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        List<int[]> paths = new ArrayList<>();
+        for (int[] pair : pairs) {
+            int[] path = routingGraph.getLineStateGraph().findLeastChangesPath(pair[0], pair[1]);
+            if (path != null) {
+                paths.add(path);
+            }
+        }
+        System.out.printf("%nCounting line changes along %d least changes routes (%d lines):%n", paths.size(), routingGraph.getLineCount());
+        System.out.printf("%-28s %14s %14s %12s%n", "count", "us per route", "KB per route", "same");
+
+        boolean same = true;
+        for (int[] path : paths) {
+            same &= lineChangesWithSets(stations, routingGraph, path) == routingGraph.lineChanges(path);
+        }
+        double setsMs = medianMillis(() -> paths.forEach(path -> lineChangesWithSets(stations, routingGraph, path)), TIMED_RUNS);
+        double setsKb = allocatedKilobytes(() -> paths.forEach(path -> lineChangesWithSets(stations, routingGraph, path))) / paths.size();
+        System.out.printf("%-28s %14.2f %14.2f %12s%n", "Station scan, HashSet", setsMs * 1000 / paths.size(), setsKb, "-");
+        double bitsMs = medianMillis(() -> paths.forEach(routingGraph::lineChanges), TIMED_RUNS);
+        double bitsKb = allocatedKilobytes(() -> paths.forEach(routingGraph::lineChanges)) / paths.size();
+        System.out.printf("%-28s %14.2f %14.2f %12s%n", "Line bitsets", bitsMs * 1000 / paths.size(), bitsKb, same);
+    }
+
+    //line changes along a path as they were originally counted, scanning the stations and intersecting name sets
+    private static int lineChangesWithSets(List<Station> stations, RoutingGraph routingGraph, int[] path) {
+        if (path.length <= 2) {
+            return 0;
+        }
+        int changes = 0;
+        Set<String> currentLines = linesByScan(stations, routingGraph.getStationName(path[0]));
+        for (int i = 1; i < path.length; i++) {
+            Set<String> nextLines = linesByScan(stations, routingGraph.getStationName(path[i]));
+            Set<String> commonLines = new HashSet<>(currentLines);
+            commonLines.retainAll(nextLines);
+            if (commonLines.isEmpty()) {
+                changes++;
+                currentLines = nextLines;
+            } else {
+                currentLines = commonLines;
+            }
+        }
+        return changes;
+    }
+
+    private static void benchmarkKShortestPaths(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        RouteGenerator routeGenerator = new RouteGenerator(network.getStations(), null, null, null, routingGraph);
+        KShortestPaths dijkstraTree = new KShortestPaths(routingGraph, null);
+        KShortestPaths kShortestPaths = new KShortestPaths(routingGraph, network.getContractionHierarchy());
+        int k = 10;
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        //textbook Yen runs a full Dijkstra for every spur, so it only gets a slice of the pairs
+        int[][] textbookPairs = Arrays.copyOf(pairs, 50);
+        System.out.printf("%n%d shortest loopless routes over %d random station pairs (%d for textbook Yen):%n", k, pairs.length, textbookPairs.length);
+        System.out.printf("%-38s %14s %14s %14s%n", "search", "us per query", "avg routes", "same lengths");
+
+        double dijkstraMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                for (int i = 0; i < k; i++) {
+                    routeGenerator.findShortestPath(pair[0], pair[1], false);
+                }
+            }
+        }, TIMED_RUNS);
+        System.out.printf("%-38s %14.2f %14s %14s%n", k + " independent Dijkstra runs", dijkstraMs * 1000 / pairs.length, "-", "-");
+
+        double textbookMs = medianMillis(() -> {
+            for (int[] pair : textbookPairs) {
+                yenWithFreshSearches(routingGraph, pair[0], pair[1], k);
+            }
+        }, 3);
+        System.out.printf("%-38s %14.2f %14s %14s%n", "Yen, fresh Dijkstra per spur", textbookMs * 1000 / textbookPairs.length, "-", "-");
+
+        long routes = 0;
+        long spurSearches = 0;
+        boolean same = true;
+        for (int i = 0; i < pairs.length; i++) {
+            List<int[]> paths = kShortestPaths.findShortestPaths(pairs[i][0], pairs[i][1], k);
+            routes += paths.size();
+            spurSearches += kShortestPaths.getSpurSearchCount();
+            if (i < textbookPairs.length) {
+                List<int[]> expected = yenWithFreshSearches(routingGraph, pairs[i][0], pairs[i][1], k);
+                List<int[]> treePaths = dijkstraTree.findShortestPaths(pairs[i][0], pairs[i][1], k);
+                same &= paths.size() == expected.size() && treePaths.size() == expected.size();
+                for (int j = 0; j < Math.min(paths.size(), expected.size()); j++) {
+                    same &= sameCost(routingGraph.pathLength(expected.get(j)), routingGraph.pathLength(paths.get(j)));
+                    same &= j >= treePaths.size() || sameCost(routingGraph.pathLength(expected.get(j)), routingGraph.pathLength(treePaths.get(j)));
+                }
+            }
+        }
+        double sharedMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                kShortestPaths.findShortestPaths(pair[0], pair[1], k);
+            }
+        }, TIMED_RUNS);
+        double treeMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                dijkstraTree.findShortestPaths(pair[0], pair[1], k);
+            }
+        }, TIMED_RUNS);
+        System.out.printf("%-38s %14.2f %14.2f %14s%n", "Yen, shared workspace (Dijkstra tree)", treeMs * 1000 / pairs.length, (double) routes / pairs.length, "-");
+        System.out.printf("%-38s %14.2f %14.2f %14s   %.1f spur searches%n", "Yen, shared workspace (CH tree)", sharedMs * 1000 / pairs.length, (double) routes / pairs.length, same, (double) spurSearches / pairs.length);
+    }
+
+    private static List<int[]> yenWithFreshSearches(RoutingGraph routingGraph, int source, int destination, int k) {
+        //Yen's algorithm as usually written, every spur of every accepted route allocates and runs its own Dijkstra
+        List<int[]> accepted = new ArrayList<>();
+        if (source == destination) {
+            accepted.add(new int[]{source});
+            return accepted;
+        }
+        int[] first = dijkstraAvoiding(routingGraph, source, destination, new boolean[routingGraph.getStationCount()], new boolean[routingGraph.getArcCount()]);
+        if (first == null) {
+            return accepted;
+        }
+        accepted.add(first);
+        PriorityQueue<int[]> candidates = new PriorityQueue<>(Comparator.comparingDouble(routingGraph::pathLength).thenComparingInt(path -> path.length));
+        while (accepted.size() < k) {
+            int[] previous = accepted.get(accepted.size() - 1);
+            for (int spur = 0; spur < previous.length - 1; spur++) {
+                boolean[] bannedStations = new boolean[routingGraph.getStationCount()];
+                boolean[] bannedArcs = new boolean[routingGraph.getArcCount()];
+                for (int i = 0; i < spur; i++) {
+                    bannedStations[previous[i]] = true;
+                }
+                for (int[] other : accepted) {
+                    if (other.length > spur + 1 && Arrays.equals(other, 0, spur + 1, previous, 0, spur + 1)) {
+                        bannedArcs[routingGraph.findArc(other[spur], other[spur + 1])] = true;
+                    }
+                }
+                int[] spurPath = dijkstraAvoiding(routingGraph, previous[spur], destination, bannedStations, bannedArcs);
+                if (spurPath == null) {
+                    continue;
+                }
+                int[] candidate = new int[spur + spurPath.length];
+                System.arraycopy(previous, 0, candidate, 0, spur);
+                System.arraycopy(spurPath, 0, candidate, spur, spurPath.length);
+                if (candidates.stream().noneMatch(path -> Arrays.equals(path, candidate)) && accepted.stream().noneMatch(path -> Arrays.equals(path, candidate))) {
+                    candidates.add(candidate);
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            accepted.add(candidates.poll());
+        }
+        return accepted;
+    }
+
+    private static int[] dijkstraAvoiding(RoutingGraph routingGraph, int source, int destination, boolean[] bannedStations, boolean[] bannedArcs) {
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        double[] weights = routingGraph.getWeights();
+        double[] distances = new double[routingGraph.getStationCount()];
+        int[] predecessors = new int[routingGraph.getStationCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> openSet = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        distances[source] = 0.0;
+        predecessors[source] = -1;
+        openSet.add(new double[]{0.0, source});
+        while (!openSet.isEmpty()) {
+            double[] entry = openSet.poll();
+            int current = (int) entry[1];
+            if (entry[0] > distances[current]) {
+                continue;
+            }
+            if (current == destination) {
+                int length = 0;
+                for (int station = destination; station != -1; station = predecessors[station]) {
+                    length++;
+                }
+                int[] path = new int[length];
+                for (int station = destination; station != -1; station = predecessors[station]) {
+                    path[--length] = station;
+                }
+                return path;
+            }
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                if (bannedArcs[arc] || bannedStations[targets[arc]]) {
+                    continue;
+                }
+                double tentative = distances[current] + weights[arc];
+                if (tentative < distances[targets[arc]]) {
+                    distances[targets[arc]] = tentative;
+                    predecessors[targets[arc]] = current;
+                    openSet.add(new double[]{tentative, targets[arc]});
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void benchmarkDistanceMatrix(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        RouteGenerator routeGenerator = new RouteGenerator(network.getStations(), null, null, null, routingGraph);
+        DistanceMatrix dijkstraMatrix = new DistanceMatrix(routingGraph, null);
+        DistanceMatrix bucketMatrix = new DistanceMatrix(routingGraph, network.getContractionHierarchy());
+        int size = 100;
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        int[] origins = new int[size];
+        int[] destinations = new int[size];
+        for (int i = 0; i < size; i++) {
+            origins[i] = pairs[i][0];
+            destinations[i] = pairs[i][1];
+        }
+        System.out.printf("%n%d x %d distance matrix (%d cores):%n", size, size, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-38s %14s %14s%n", "search", "ms per matrix", "same costs");
+
+        double[] expected = new double[size * size];
+        double pairwiseMs = medianMillis(() -> {
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    int[] path = routeGenerator.findShortestPath(origins[i], destinations[j], false);
+                    expected[i * size + j] = path == null ? Double.POSITIVE_INFINITY : routingGraph.pathLength(path);
+                }
+            }
+        }, 3);
+        System.out.printf("%-38s %14.2f %14s%n", "Dijkstra per pair", pairwiseMs, "-");
+
+        benchmarkMatrix("One Dijkstra per origin", () -> dijkstraMatrix.compute(origins, destinations), expected);
+        benchmarkMatrix("CH buckets", () -> bucketMatrix.compute(origins, destinations), expected);
+
+        //the same stations on both sides, as for a fare table
+        double[] square = dijkstraMatrix.compute(origins, origins);
+        benchmarkMatrix("One Dijkstra per origin, symmetric", () -> dijkstraMatrix.compute(origins, origins), square);
+        benchmarkMatrix("CH buckets, symmetric", () -> bucketMatrix.compute(origins, origins), square);
+    }
+
+    private static void benchmarkMatrix(String name, Supplier<double[]> compute, double[] expected) {
+        double[] matrix = compute.get();
+        boolean same = matrix.length == expected.length;
+        for (int i = 0; same && i < matrix.length; i++) {
+            same = sameCost(expected[i], matrix[i]);
+        }
+        double ms = medianMillis(compute::get, TIMED_RUNS);
+        System.out.printf("%-38s %14.2f %14s%n", name, ms, same);
+    }
+
+    private static void benchmarkIsochrone(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        Isochrone isochrone = new Isochrone(routingGraph);
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        double[] distances = new double[routingGraph.getStationCount()];
+        System.out.printf("%nStations reachable from %d random stations:%n", pairs.length);
+        System.out.printf("%-38s %14s %14s %14s %12s%n", "search", "us per query", "avg reached", "KB per query", "same count");
+
+        //a full Dijkstra from the station, then keeping what is within budget
+        long expectedReached = 0;
+        for (int[] pair : pairs) {
+            expectedReached += reachedByFullSearch(routingGraph, pair[0], 10.0, distances);
+        }
+        double fullMs = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                reachedByFullSearch(routingGraph, pair[0], 10.0, new double[routingGraph.getStationCount()]);
+            }
+        }, TIMED_RUNS);
+        double fullKb = allocatedKilobytes(() -> reachedByFullSearch(routingGraph, pairs[0][0], 10.0, new double[routingGraph.getStationCount()]));
+        System.out.printf("%-38s %14.2f %14.2f %14.2f %12s%n", "Full Dijkstra then filter, 10 km", fullMs * 1000 / pairs.length, (double) expectedReached / pairs.length, fullKb, "-");
+
+        benchmarkBudget("Bounded Dijkstra, 10 km", pairs, source -> isochrone.reachWithinDistance(source, 10.0), expectedReached);
+        benchmarkBudget("Bounded BFS, 5 stops", pairs, source -> isochrone.reachWithinStops(source, 5), -1);
+        benchmarkBudget("Bounded state search, 1 change", pairs, source -> isochrone.reachWithinChanges(source, 1), -1);
+    }
+
+    private static void benchmarkBudget(String name, int[][] pairs, IntUnaryOperator query, long expectedReached) {
+        long reached = 0;
+        for (int[] pair : pairs) {
+            reached += query.applyAsInt(pair[0]);
+        }
+        double ms = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                query.applyAsInt(pair[0]);
+            }
+        }, TIMED_RUNS);
+        double kb = allocatedKilobytes(() -> query.applyAsInt(pairs[0][0]));
+        System.out.printf("%-38s %14.2f %14.2f %14.2f %12s%n", name, ms * 1000 / pairs.length, (double) reached / pairs.length, kb, expectedReached == -1 ? "-" : String.valueOf(reached == expectedReached));
+    }
+
+    private static int reachedByFullSearch(RoutingGraph routingGraph, int source, double maxDistance, double[] distances) {
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        double[] weights = routingGraph.getWeights();
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> openSet = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        distances[source] = 0.0;
+        openSet.add(new double[]{0.0, source});
+        while (!openSet.isEmpty()) {
+            double[] entry = openSet.poll();
+            int current = (int) entry[1];
+            if (entry[0] > distances[current]) {
+                continue;
+            }
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                double tentative = distances[current] + weights[arc];
+                if (tentative < distances[targets[arc]]) {
+                    distances[targets[arc]] = tentative;
+                    openSet.add(new double[]{tentative, targets[arc]});
+                }
+            }
+        }
+        int reached = 0;
+        for (double distance : distances) {
+            if (distance <= maxDistance) {
+                reached++;
+            }
+        }
+        return reached;
+    }
+
+    private static void benchmarkRouteCache(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        GraphGenerator graphGenerator = new GraphGenerator(network, true);
+        quietly(() -> graphGenerator.generateGraph(network.getStations()));
+
+        //a few hundred popular pairs asked for over and over, the most popular ones far more often than the rest
+        int[][] popular = Arrays.copyOf(randomPairs(routingGraph.getStationCount()), 300);
+        Random random = new Random(7);
+        int[][] queries = new int[20_000][];
+        for (int i = 0; i < queries.length; i++) {
+            double skew = random.nextDouble();
+            queries[i] = popular[(int) (popular.length * skew * skew * skew)];
+        }
+        System.out.printf("%n%d planRoute calls over %d popular station pairs:%n", queries.length, popular.length);
+        System.out.printf("%-38s %14s %14s %14s%n", "cache", "us per query", "hit rate", "evictions");
+
+        for (int capacity : new int[]{1, 100, RouteCache.DEFAULT_CAPACITY}) {
+            RouteCache routeCache = new RouteCache(capacity);
+            graphGenerator.setRouteCache(routeCache);
+            double ms = medianMillis(() -> quietly(() -> {
+                for (int[] query : queries) {
+                    graphGenerator.planRoute(routingGraph.getStationName(query[0]), routingGraph.getStationName(query[1]), RouteType.SHORTEST, SearchAlgorithm.STANDARD);
+                }
+                return null;
+            }), 3);
+            double hitRate = (double) routeCache.getHits() / (routeCache.getHits() + routeCache.getMisses());
+            System.out.printf("%-38s %14.2f %13.1f%% %14d%n", "capacity " + capacity, ms * 1000 / queries.length, hitRate * 100, routeCache.getEvictions());
+        }
+
+        //heap taken by a full cache of real routes
+        RouteGenerator routeGenerator = new RouteGenerator(network.getStations(), null, null, null, routingGraph);
+        RouteCache full = new RouteCache(RouteCache.DEFAULT_CAPACITY);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        int stationCount = routingGraph.getStationCount();
+        for (int i = 0; full.size() < RouteCache.DEFAULT_CAPACITY; i++) {
+            int start = i % stationCount;
+            int end = i / stationCount;
+            full.put(start, end, RouteType.SHORTEST, SearchAlgorithm.STANDARD, routeGenerator.findShortestPath(start, end, false));
+        }
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("%d cached routes take about %.1f MB of heap%n", full.size(), (after - before) / (1024.0 * 1024.0));
+    }
+
+    private static void benchmarkWorkspaces(GraphObjectGenerator network) {
+        RoutingSnapshot snapshot = new RoutingSnapshot(network.getRoutingGraph(), network.getContractionHierarchy(), network.getLandmarks());
+        Router pooled = new Router(snapshot);
+        int[][] pairs = randomPairs(snapshot.getRoutingGraph().getStationCount());
+        System.out.printf("%nSearch workspaces over %d random pairs (fresh per query vs pooled per thread):%n", pairs.length);
+        System.out.printf("%-34s %12s %12s %16s %16s%n", "search", "fresh us", "pooled us", "fresh B/query", "pooled B/query");
+
+        Object[][] searches = {
+                {"Dijkstra", RouteType.SHORTEST, SearchAlgorithm.STANDARD},
+                {"A*", RouteType.SHORTEST, SearchAlgorithm.A_STAR},
+                {"Bidirectional Dijkstra", RouteType.SHORTEST, SearchAlgorithm.BIDIRECTIONAL},
+                {"Contraction hierarchy", RouteType.SHORTEST, SearchAlgorithm.CONTRACTION_HIERARCHY},
+                {"BFS", RouteType.LEAST_STOPS, SearchAlgorithm.STANDARD},
+                {"Bidirectional BFS", RouteType.LEAST_STOPS, SearchAlgorithm.BIDIRECTIONAL},
+                {"A* stops", RouteType.LEAST_STOPS, SearchAlgorithm.A_STAR},
+                {"Line states", RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD}
+        };
+        for (Object[] search : searches) {
+            RouteType routeType = (RouteType) search[1];
+            SearchAlgorithm algorithm = (SearchAlgorithm) search[2];
+            //a new router has no workspaces yet, so every query allocates them as the searches used to
+            Runnable fresh = () -> {
+                for (int[] pair : pairs) {
+                    new Router(snapshot).route(pair[0], pair[1], routeType, algorithm);
+                }
+            };
+            Runnable reused = () -> {
+                for (int[] pair : pairs) {
+                    pooled.route(pair[0], pair[1], routeType, algorithm);
+                }
+            };
+            double freshMs = medianMillis(fresh, TIMED_RUNS);
+            double pooledMs = medianMillis(reused, TIMED_RUNS);
+            double freshBytes = allocatedKilobytes(fresh) * 1024 / pairs.length;
+            double pooledBytes = allocatedKilobytes(reused) * 1024 / pairs.length;
+            System.out.printf("%-34s %12.2f %12.2f %16.0f %16.0f%n", search[0], freshMs * 1000 / pairs.length, pooledMs * 1000 / pairs.length, freshBytes, pooledBytes);
+        }
+    }
+
+    private static void benchmarkTimetable(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        //departures spread over the day with a fixed seed, like the station pairs
+        Random random = new Random(7);
+        int[] departures = new int[pairs.length];
+        for (int i = 0; i < departures.length; i++) {
+            departures[i] = 6 * 3600 + random.nextInt(14 * 3600);
+        }
+        System.out.printf("%nConnection scan over generated timetables (%d earliest arrival queries, profiles for the first 50 pairs from 07:00 to 10:00):%n", pairs.length);
+        System.out.printf("%10s %12s %10s %12s %14s %14s %16s%n", "headway s", "connections", "trips", "generate ms", "arrival avg ms", "arrival p99 ms", "profile avg ms");
+        for (int headway : new int[]{600, 180, 60}) {
+            TimetableGenerator timetableGenerator = new TimetableGenerator();
+            timetableGenerator.setDefaultHeadway(headway);
+            Timetable[] built = new Timetable[1];
+            double generateMs = medianMillis(() -> built[0] = timetableGenerator.generate(routingGraph, network.getLineToStationsMap()), 3);
+            Timetable timetable = built[0];
+            ConnectionScan connectionScan = new ConnectionScan(timetable);
+
+            long[] latencies = new long[pairs.length];
+            for (int round = 0; round < 2; round++) {
+                for (int i = 0; i < pairs.length; i++) {
+                    if (pairs[i][0] != pairs[i][1]) {
+                        long start = System.nanoTime();
+                        connectionScan.earliestArrival(pairs[i][0], pairs[i][1], departures[i]);
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                }
+            }
+            long total = 0;
+            for (long latency : latencies) {
+                total += latency;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            double profileMs = medianMillis(() -> {
+                for (int i = 0; i < 50; i++) {
+                    if (pairs[i][0] != pairs[i][1]) {
+                        connectionScan.profile(pairs[i][0], pairs[i][1], 7 * 3600, 10 * 3600);
+                    }
+                }
+            }, 3) / 50;
+            System.out.printf("%10d %12d %10d %12.1f %14.3f %14.3f %16.3f%n", headway, timetable.getConnectionCount(), timetable.getTripCount(), generateMs,
+                    total / 1_000_000.0 / pairs.length, sorted[(int) Math.ceil(0.99 * sorted.length) - 1] / 1_000_000.0, profileMs);
+        }
+    }
+
+    private static void benchmarkDisruptions(GraphObjectGenerator network) {
+        GraphGenerator graphGenerator = new GraphGenerator(network, true);
+        quietly(() -> graphGenerator.generateGraph(network.getStations()));
+        RoutingGraph routingGraph = graphGenerator.getRoutingGraph();
+        Disruptions disruptions = routingGraph.getDisruptions();
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        //a fixed set of segments to close, one in every fifty
+        int[] arcEdges = routingGraph.getArcEdges();
+        List<int[]> segments = new ArrayList<>();
+        for (int station = 0; station < routingGraph.getStationCount(); station++) {
+            for (int arc = routingGraph.getOffsets()[station]; arc < routingGraph.getOffsets()[station + 1]; arc++) {
+                if (station < routingGraph.getTargets()[arc] && arcEdges[arc] % 50 == 0) {
+                    segments.add(new int[]{station, routingGraph.getTargets()[arc]});
+                }
+            }
+        }
+        System.out.printf("%nDisruptions on %d stations and %d segments (%d segments closed, %d random pairs):%n", routingGraph.getStationCount(), routingGraph.getEdgeCount(), segments.size(), pairs.length);
+
+        //flipping the bits alone, then through the API with a full route cache to search for affected routes
+        int[] closedEdges = segments.stream().mapToInt(segment -> arcEdges[routingGraph.findArc(segment[0], segment[1])]).toArray();
+        double bitMs = medianMillis(() -> {
+            for (int round = 0; round < 1000; round++) {
+                for (int edge : closedEdges) {
+                    disruptions.closeEdge(edge);
+                    disruptions.reopenEdge(edge);
+                }
+            }
+        }, TIMED_RUNS);
+        System.out.printf("%-40s %10.3f us%n", "close and reopen one segment's bit", bitMs * 1000 / 1000 / closedEdges.length);
+        double rebuildMs = medianMillis(() -> quietly(() -> graphGenerator.generateGraph(network.getStations())), 3);
+        System.out.printf("%-40s %10.3f us%n", "rebuild the network instead", rebuildMs * 1000);
+
+        //the rebuild replaced the routing graph, the same network gives the same ids
+        RouteCache routeCache = graphGenerator.getRouteCache();
+        RoutingGraph planned = graphGenerator.getRoutingGraph();
+        int[] plannedEdges = planned.getArcEdges();
+        //closing and reopening a few times first so the timed closures are not the first calls
+        for (int round = 0; round < WARMUP_RUNS; round++) {
+            for (int[] segment : segments) {
+                graphGenerator.closeSegment(planned.getStationName(segment[0]), planned.getStationName(segment[1]));
+                graphGenerator.reopenSegment(planned.getStationName(segment[0]), planned.getStationName(segment[1]));
+            }
+        }
+        for (int[] pair : pairs) {
+            if (pair[0] != pair[1]) {
+                quietly(() -> graphGenerator.planRoute(planned.getStationName(pair[0]), planned.getStationName(pair[1]), RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+            }
+        }
+        int cached = routeCache.size();
+        long start = System.nanoTime();
+        for (int[] segment : segments) {
+            graphGenerator.closeSegment(planned.getStationName(segment[0]), planned.getStationName(segment[1]));
+        }
+        System.out.printf("%-40s %10.3f us (%d of %d cached routes dropped)%n", "close one segment with a cached network", (System.nanoTime() - start) / 1000.0 / segments.size(),
+                cached - routeCache.size(), cached);
+
+        //searches check the bits only while something is closed
+        Router router = new Router(new RoutingSnapshot(planned, null, null));
+        planned.getDisruptions().reopenAll();
+        System.out.printf("%-40s %12s %12s%n", "search", "open us", "disrupted us");
+        Object[][] searches = {
+                {"Dijkstra", RouteType.SHORTEST, SearchAlgorithm.STANDARD},
+                {"Bidirectional Dijkstra", RouteType.SHORTEST, SearchAlgorithm.BIDIRECTIONAL},
+                {"BFS", RouteType.LEAST_STOPS, SearchAlgorithm.STANDARD},
+                {"Line states", RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD}
+        };
+        for (Object[] search : searches) {
+            RouteType routeType = (RouteType) search[1];
+            SearchAlgorithm algorithm = (SearchAlgorithm) search[2];
+            Runnable queries = () -> {
+                for (int[] pair : pairs) {
+                    router.route(pair[0], pair[1], routeType, algorithm);
+                }
+            };
+            double openMs = medianMillis(queries, TIMED_RUNS);
+            for (int[] segment : segments) {
+                planned.getDisruptions().closeEdge(plannedEdges[planned.findArc(segment[0], segment[1])]);
+            }
+            double disruptedMs = medianMillis(queries, TIMED_RUNS);
+            planned.getDisruptions().reopenAll();
+            System.out.printf("%-40s %12.2f %12.2f%n", search[0], openMs * 1000 / pairs.length, disruptedMs * 1000 / pairs.length);
+        }
+    }
+
+    private static void benchmarkGeneralisedCost(GraphObjectGenerator network) {
+        Router router = new Router(new RoutingSnapshot(network.getRoutingGraph(), null, null));
+        int[][] pairs = randomPairs(network.getRoutingGraph().getStationCount());
+        System.out.printf("%nGeneralised cost over %d random pairs (one line state graph, weights changed per query):%n", pairs.length);
+        System.out.printf("%-36s %12s %10s %10s %12s%n", "route", "avg km", "avg stops", "avg changes", "us per query");
+
+        Object[][] routes = {
+                {"Shortest", (Function<int[], RouteResult>) pair -> router.route(pair[0], pair[1], RouteType.SHORTEST, SearchAlgorithm.STANDARD)},
+                {"Least changes", (Function<int[], RouteResult>) pair -> router.route(pair[0], pair[1], RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD)},
+                {"Cost, default weights", (Function<int[], RouteResult>) pair -> router.route(pair[0], pair[1], CostWeights.DEFAULT)},
+                {"Cost, 2 minute changes", (Function<int[], RouteResult>) pair -> router.route(pair[0], pair[1], new CostWeights(1.7, 0.5, 2.0))},
+                {"Cost, 15 minute changes", (Function<int[], RouteResult>) pair -> router.route(pair[0], pair[1], new CostWeights(1.7, 0.5, 15.0))}
+        };
+        for (Object[] route : routes) {
+            @SuppressWarnings("unchecked")
+            Function<int[], RouteResult> query = (Function<int[], RouteResult>) route[1];
+            double distance = 0;
+            long stops = 0;
+            long changes = 0;
+            int found = 0;
+            for (int[] pair : pairs) {
+                RouteResult result = query.apply(pair);
+                if (result.isFound() && pair[0] != pair[1]) {
+                    distance += result.getDistance();
+                    stops += result.getStops();
+                    changes += result.getChanges();
+                    found++;
+                }
+            }
+            double ms = medianMillis(() -> {
+                for (int[] pair : pairs) {
+                    query.apply(pair);
+                }
+            }, TIMED_RUNS);
+            System.out.printf("%-36s %12.2f %10.2f %10.2f %12.2f%n", route[0], distance / found, (double) stops / found, (double) changes / found, ms * 1000 / pairs.length);
+        }
+    }
+
+    private static double allocatedKilobytes(Runnable task) {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        task.run();
+        long start = threadBean.getCurrentThreadAllocatedBytes();
+        task.run();
+        return (threadBean.getCurrentThreadAllocatedBytes() - start) / 1024.0;
+    }
+
+    private static class CopiedPath {
+        List<Integer> path = new ArrayList<>();
+        int lineChanges = 0;
+        Set<String> currentLines = new HashSet<>();
+    }
+
+    //runs one search over every pair, printing its settled stations, latency and whether its costs match the expected ones
+    private static double[] benchmarkSearch(String name, IntSupplier settledCount, int[][] pairs, BiFunction<Integer, Integer, int[]> search, ToDoubleFunction<int[]> cost, double[] expected) {
+        double[] costs = new double[pairs.length];
+        long settled = 0;
+        boolean same = true;
+        for (int i = 0; i < pairs.length; i++) {
+            costs[i] = cost.applyAsDouble(search.apply(pairs[i][0], pairs[i][1]));
+            settled += settledCount.getAsInt();
+            same &= expected == null || sameCost(expected[i], costs[i]);
+        }
+        double ms = medianMillis(() -> {
+            for (int[] pair : pairs) {
+                search.apply(pair[0], pair[1]);
+            }
+        }, TIMED_RUNS);
+        System.out.printf("%-32s %14.1f %14.2f %12s%n", name, (double) settled / pairs.length, ms * 1000 / pairs.length, same);
+        return costs;
+    }
+
+    private static int[][] randomPairs(int stationCount) {
+        //fixed seed so every run and every search uses the same queries
+        Random random = new Random(42);
+        int[][] pairs = new int[QUERY_PAIRS][];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new int[]{random.nextInt(stationCount), random.nextInt(stationCount)};
+        }
+        return pairs;
+    }
+
+    private static boolean sameCost(double expected, double actual) {
+        return expected == actual || Math.abs(expected - actual) < 1e-9;
+    }
+
+    private static void benchmarkHeap(GraphObjectGenerator network) {
+        RoutingGraph routingGraph = network.getRoutingGraph();
+        RouteGenerator routeGenerator = new RouteGenerator(network.getStations(), null, null, null, routingGraph);
+        int[][] pairs = randomPairs(routingGraph.getStationCount());
+        System.out.printf("%nOpen set for %d random station pairs (PriorityQueue with contains/remove vs indexed heap):%n", pairs.length);
+        System.out.printf("%-10s %22s %22s %10s%n", "search", "PriorityQueue us/query", "indexed heap us/query", "speedup");
+
+        for (boolean aStar : new boolean[]{false, true}) {
+            double queueMs = medianMillis(() -> {
+                for (int[] pair : pairs) {
+                    shortestPathWithPriorityQueue(routingGraph, pair[0], pair[1], aStar ? node -> routingGraph.lowerBound(node, pair[1]) : node -> 0.0, new long[1]);
+                }
+            }, TIMED_RUNS);
+            double heapMs = medianMillis(() -> {
+                for (int[] pair : pairs) {
+                    routeGenerator.findShortestPath(pair[0], pair[1], aStar);
+                }
+            }, TIMED_RUNS);
+            System.out.printf("%-10s %22.2f %22.2f %9.2fx%n", aStar ? "A*" : "Dijkstra", queueMs * 1000 / pairs.length, heapMs * 1000 / pairs.length, queueMs / heapMs);
+        }
+    }
+
+    //A* as it was originally written with a java.util.PriorityQueue open set, kept as the baseline
+    private static int[] shortestPathWithPriorityQueue(RoutingGraph routingGraph, int source, int destination, IntToDoubleFunction heuristic, long[] settled) {
+        int[] offsets = routingGraph.getOffsets();
+        int[] targets = routingGraph.getTargets();
+        double[] weights = routingGraph.getWeights();
+        int stationCount = routingGraph.getStationCount();
+
+        double[] gScore = new double[stationCount];
+        double[] fScore = new double[stationCount];
+        int[] cameFrom = new int[stationCount];
+        boolean[] closedSet = new boolean[stationCount];
+        Arrays.fill(gScore, Double.MAX_VALUE);
+        Arrays.fill(fScore, Double.MAX_VALUE);
+        Arrays.fill(cameFrom, -1);
+        PriorityQueue<Integer> openSet = new PriorityQueue<>(Comparator.comparingDouble(node -> fScore[node]));
+
+        gScore[source] = 0.0;
+        fScore[source] = heuristic.applyAsDouble(source);
+        openSet.add(source);
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            settled[0]++;
+            if (current == destination) {
+                int length = 1;
+                for (int node = destination; node != source; node = cameFrom[node]) {
+                    length++;
+                }
+                int[] path = new int[length];
+                int node = destination;
+                for (int i = length - 1; i >= 0; i--) {
+                    path[i] = node;
+                    node = cameFrom[node];
+                }
+                return path;
+            }
+            closedSet[current] = true;
+
+            for (int arc = offsets[current]; arc < offsets[current + 1]; arc++) {
+                int neighbour = targets[arc];
+                if (closedSet[neighbour]) {
+                    continue;
+                }
+                double tentativeGScore = gScore[current] + weights[arc];
+                if (tentativeGScore < gScore[neighbour]) {
+                    cameFrom[neighbour] = current;
+                    gScore[neighbour] = tentativeGScore;
+                    fScore[neighbour] = tentativeGScore + heuristic.applyAsDouble(neighbour);
+                    if (!openSet.contains(neighbour)) {
+                        openSet.add(neighbour);
+                    } else {
+                        openSet.remove(neighbour);
+                        openSet.add(neighbour);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    //the original A* heuristic, a Euclidean distance in degrees found by scanning the stations
+    private static IntToDoubleFunction degreeHeuristic(List<Station> stations, RoutingGraph routingGraph, int to) {
+        return from -> {
+            Double[] startCoords = null;
+            Double[] endCoords = null;
+            for (Station station : stations) {
+                if (station.getRailStation().getName().equals(routingGraph.getStationName(from))) {
+                    startCoords = station.getRailStation().getCoordinates();
+                }
+                if (station.getRailStation().getName().equals(routingGraph.getStationName(to))) {
+                    endCoords = station.getRailStation().getCoordinates();
+                }
+                if (startCoords != null && endCoords != null) {
+                    return Math.sqrt(Math.pow(endCoords[0] - startCoords[0], 2) + Math.pow(endCoords[1] - startCoords[1], 2));
+                }
+            }
+            return 0.0;
+        };
+    }
+
+    private static GraphObjectGenerator replicateStations(GraphObjectGenerator network, int scale) {
+        List<Station> stations = new ArrayList<>();
+        Map<String, Map<String, Double>> distances = new HashMap<>();
+        for (int copy = 0; copy < scale; copy++) {
+            String tag = scale == 1 ? "" : "[" + copy + "]";
+            Map<RailStation, RailStation> copies = new IdentityHashMap<>();
+            for (Station station : network.getStations()) {
+                ArrayList<Route> routes = new ArrayList<>();
+                for (Route route : station.getRoutes()) {
+                    Route scaled = new Route(route.getRailLine());
+                    scaled.setDestination(copies.computeIfAbsent(route.getDestination(), original -> copyStation(original, tag)));
+                    scaled.setWeight(route.getWeight());
+                    routes.add(scaled);
+                }
+                stations.add(new Station(copies.computeIfAbsent(station.getRailStation(), original -> copyStation(original, tag)), routes));
+            }
+            network.getStationDistances().forEach((source, destinations) -> {
+                Map<String, Double> scaled = distances.computeIfAbsent(tag + source, name -> new HashMap<>());
+                destinations.forEach((destination, distance) -> scaled.put(tag + destination, distance));
+            });
+        }
+
+        GraphObjectGenerator scaled = new GraphObjectGenerator(network.getRailLines(), new ArrayList<>());
+        scaled.setStations(stations);
+        scaled.setStationDistances(distances);
+        return scaled;
+    }
+
+    private static RailStation copyStation(RailStation original, String tag) {
+        RailStation copy = new RailStation();
+        copy.setName(original.getName() == null ? null : tag + original.getName());
+        copy.setCoordinates(original.getCoordinates());
+        copy.setRailLines(original.getRailLines());
+        return copy;
+    }
+
+    private static void replicateNetwork(List<RailLine> railLines, List<RailStation> railStations, int scale, List<RailLine> scaledLines, List<RailStation> scaledStations) {
+        //copies are tagged with a bracketed prefix so no copy's name is a substring of another copy's name
+        for (int copy = 0; copy < scale; copy++) {
+            String tag = scale == 1 ? "" : "[" + copy + "]";
+            for (RailStation station : railStations) {
+                RailStation scaled = new RailStation();
+                scaled.setName(tag + station.getName());
+                scaled.setCoordinates(station.getCoordinates());
+                scaledStations.add(scaled);
+            }
+            for (RailLine line : railLines) {
+                RailLine scaled = new RailLine();
+                scaled.setName(line.getName() == null ? null : tag + line.getName().replace(" - ", " - " + tag).replace(" to ", " to " + tag));
+                scaled.setColour(line.getColour());
+                scaledLines.add(scaled);
+            }
+        }
+    }
+
+    private static List<List<RailLine>> snapshotLines(List<RailStation> railStations) {
+        List<List<RailLine>> lines = new ArrayList<>();
+        for (RailStation station : railStations) {
+            lines.add(new ArrayList<>(station.getRailLines()));
+        }
+        return lines;
+    }
+
+    //the association as it was originally computed, kept as the baseline for comparison
+    private static void setRailLinesBySubstring(ArrayList<RailLine> railLines, ArrayList<RailStation> railStations) {
+        for (RailStation station : railStations) {
+            ArrayList<RailLine> lines = new ArrayList<>();
+            String stationName = station.getName();
+
+            for (RailLine line : railLines) {
+                if (line.getName() != null && line.getName().contains(stationName)) {
+                    lines.add(line);
+                }
+            }
+            station.setRailLines(lines);
+        }
+    }
+
+    //keeps progress messages printed by the code under test out of the results
+    private static <T> T quietly(Supplier<T> task) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return task.get();
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static double medianMillis(Runnable task, int timedRuns) {
+        for (int i = 0; i < Math.min(WARMUP_RUNS, timedRuns); i++) {
+            task.run();
+        }
+        double[] times = new double[timedRuns];
+        for (int i = 0; i < timedRuns; i++) {
+            long start = System.nanoTime();
+            task.run();
+            times[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(times);
+        return times[timedRuns / 2];
+    }
+}
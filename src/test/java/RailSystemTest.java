@@ -5,11 +5,13 @@ import org.junit.Before;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 import util.DocumentParser;
+import util.FileParser;
 
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -80,6 +82,55 @@ public class RailSystemTest {
         assertEquals("Weaver - Stoke Newington to Stamford Hill", station.getRailLines().get(0).getName());
     }
 
+    @Test
+    public void setRailLinesOverlappingNamesTest() {
+        ArrayList<RailLine> railLines = new ArrayList<>();
+        ArrayList<RailStation> railStations = new ArrayList<>();
+
+        RailLine line = new RailLine();
+        line.setName("DLR - Bank to Shadwell");
+        railLines.add(line);
+        RailLine otherLine = new RailLine();
+        otherLine.setName("Northern - Bank to Moorgate");
+        railLines.add(otherLine);
+
+        //names that are substrings of each other should each pick up every line that contains them
+        RailStation bank = new RailStation();
+        bank.setName("Bank");
+        railStations.add(bank);
+        RailStation shadwell = new RailStation();
+        shadwell.setName("Shadwell");
+        railStations.add(shadwell);
+        RailStation well = new RailStation();
+        well.setName("well");
+        railStations.add(well);
+
+        RailSystem.setRailLines(railLines, railStations);
+
+        assertEquals(List.of(line, otherLine), bank.getRailLines());
+        assertEquals(List.of(line), shadwell.getRailLines());
+        assertEquals(List.of(line), well.getRailLines());
+    }
+
+    @Test
+    public void setRailLinesMatchesSubstringScanTest() throws Exception {
+        FileParser parser = new FileParser();
+        parser.parse(validLinesFile);
+        parser.parse(validStationsFile);
+        RailSystem.setRailLines(parser.getRailLines(), parser.getRailStations());
+
+        //every station should get exactly the lines whose names contain it, in file order
+        for (RailStation station : parser.getRailStations()) {
+            List<RailLine> expected = new ArrayList<>();
+            for (RailLine line : parser.getRailLines()) {
+                if (line.getName() != null && line.getName().contains(station.getName())) {
+                    expected.add(line);
+                }
+            }
+            assertEquals("Lines for " + station.getName(), expected, station.getRailLines());
+        }
+    }
+
     @Test
     public void setRailLinesWithNoLinesTest() {
         ArrayList<RailLine> railLines = new ArrayList<>();
@@ -0,0 +1,131 @@
+package userInterface;
+
+import org.junit.Test;
+import util.graph.ContractionHierarchy;
+import util.graph.CostWeights;
+import util.graph.Router;
+import util.graph.RoutingGraph;
+import util.graph.RoutingSnapshot;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+import static util.graph.TestNetworks.lineAndBranch;
+import static util.graph.TestNetworks.station;
+
+public class BatchPlannerTest {
+
+    @Test
+    public void csvInputOrderTest() throws Exception {
+        RoutingGraph routingGraph = lineAndBranch();
+        BatchPlanner batchPlanner = new BatchPlanner(new Router(new RoutingSnapshot(routingGraph, ContractionHierarchy.build(routingGraph), null)), 4, true);
+        String requests = "start,end,mode\n"
+                + "a,C,shortest\n"
+                + "\"D, East\",A,changes\n"
+                + "A,E,least\n"
+                + "A,Nowhere,shortest\n"
+                + "C,A,\n";
+        StringWriter output = new StringWriter();
+
+        BatchPlanner.BatchSummary summary = batchPlanner.run(new BufferedReader(new StringReader(requests)), false, output, false);
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(6, lines.length);
+        assertTrue(lines[0].startsWith("index,start,end,mode,status"));
+        assertTrue(lines[1].startsWith("0,a,C,shortest,ok,5.000,2,0,"));
+        assertTrue(lines[1].endsWith(",A > B > C"));
+        assertTrue(lines[2].startsWith("1,\"D, East\",A,changes,ok,3.500,2,1,"));
+        assertTrue(lines[3].startsWith("2,A,E,least,no route,,,,"));
+        assertTrue(lines[4].startsWith("3,A,Nowhere,shortest,unknown end,,,,"));
+        //a missing mode plans the shortest route
+        assertTrue(lines[5].startsWith("4,C,A,shortest,ok,5.000"));
+        assertEquals(5, summary.requestCount());
+        assertEquals(2, summary.failedCount());
+        assertTrue(summary.percentileMicros(99) >= summary.percentileMicros(50));
+    }
+
+    @Test
+    public void ndjsonCompletionOrderTest() throws Exception {
+        BatchPlanner batchPlanner = new BatchPlanner(new Router(new RoutingSnapshot(lineAndBranch(), null, null)), 2, false);
+        StringBuilder requests = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            requests.append("{\"start\": \"A\", \"end\": \"D, East\", \"mode\": \"").append(i % 2 == 0 ? "shortest" : "stops").append("\"}\n");
+        }
+        StringWriter output = new StringWriter();
+
+        BatchPlanner.BatchSummary summary = batchPlanner.run(new BufferedReader(new StringReader(requests.toString())), true, output, true);
+
+        //every request is written once, whatever order the threads finish in
+        String[] lines = output.toString().split("\n");
+        assertEquals(50, lines.length);
+        boolean[] seen = new boolean[50];
+        for (String line : lines) {
+            assertTrue(line.contains("\"status\":\"ok\""));
+            assertTrue(line.contains("\"route\":\"A > B > D, East\""));
+            int index = Integer.parseInt(line.substring("{\"index\":".length(), line.indexOf(',')));
+            assertFalse(seen[index]);
+            seen[index] = true;
+        }
+        assertEquals(0, summary.failedCount());
+    }
+
+    @Test
+    public void fieldParsingTest() {
+        assertArrayEquals(new String[]{"A, North", "B \"Central\"", "changes"}, BatchPlanner.csvFields("\"A, North\", \"B \"\"Central\"\"\" ,changes"));
+        assertArrayEquals(new String[]{"A", "B", ""}, BatchPlanner.csvFields("A,B"));
+        assertArrayEquals(new String[]{"St \"Pancras\"", "B", "least"}, BatchPlanner.jsonFields("{\"mode\":\"least\",\"start\":\"St \\\"Pancras\\\"\",\"end\":\"B\"}"));
+        assertArrayEquals(new String[]{"", "", ""}, BatchPlanner.jsonFields("{}"));
+        assertArrayEquals(new String[]{"A/\b\f\r\n\tB", "\u00e9", "least"}, BatchPlanner.jsonFields("{\"start\":\"A\\/\\b\\f\\r\\n\\tB\",\"end\":\"\\u00E9\",\"mode\":\"least\"}"));
+        assertThrows(IllegalArgumentException.class, () -> BatchPlanner.jsonFields("{\"start\":\"A\\u00\"}"));
+        assertThrows(IllegalArgumentException.class, () -> BatchPlanner.jsonFields("{\"start\":\"A\\u+12a\"}"));
+        assertThrows(IllegalArgumentException.class, () -> BatchPlanner.jsonFields("{\"start\":\"A\\x\"}"));
+        assertThrows(IllegalArgumentException.class, () -> BatchPlanner.jsonFields("{\"start\":\"A"));
+    }
+
+    @Test
+    public void malformedLineTest() throws Exception {
+        BatchPlanner batchPlanner = new BatchPlanner(new Router(new RoutingSnapshot(lineAndBranch(), null, null)), 2, true);
+        String requests = "{\"start\":\"A\",\"end\":\"C\"}\n{\"start\":\"A\\u00\n{\"start\":\"C\",\"end\":\"A\"}\n";
+        StringWriter output = new StringWriter();
+
+        BatchPlanner.BatchSummary summary = batchPlanner.run(new BufferedReader(new StringReader(requests)), true, output, true);
+
+        //the malformed request fails on its own row and the requests around it are still planned
+        String[] lines = output.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"status\":\"ok\""));
+        assertTrue(lines[1].contains("\"status\":\"error: malformed unicode escape in JSON string\""));
+        assertTrue(lines[2].contains("\"status\":\"ok\""));
+        assertEquals(1, summary.failedCount());
+    }
+
+    @Test
+    public void balancedModeWeightsTest() throws Exception {
+        //S - A - M - T is a kilometre shorter than S - B - C - M - T but changes from the red line to the green one at M
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        station(builder, "S", "Red", "Green");
+        station(builder, "A", "Red");
+        station(builder, "B", "Green");
+        station(builder, "C", "Green");
+        station(builder, "M", "Red", "Green");
+        station(builder, "T", "Green");
+        builder.addEdge("S", "A", 1.0);
+        builder.addEdge("A", "M", 1.0);
+        builder.addEdge("S", "B", 1.0);
+        builder.addEdge("B", "C", 1.0);
+        builder.addEdge("C", "M", 1.0);
+        builder.addEdge("M", "T", 1.0);
+        Router router = new Router(new RoutingSnapshot(builder.build(), null, null));
+        String requests = "S,T,balanced\n";
+
+        StringWriter cheapChanges = new StringWriter();
+        new BatchPlanner(router, 1, true, new CostWeights(1.0, 0.0, 0.5)).run(new BufferedReader(new StringReader(requests)), false, cheapChanges, false);
+        StringWriter costlyChanges = new StringWriter();
+        new BatchPlanner(router, 1, true, new CostWeights(1.0, 0.0, 5.0)).run(new BufferedReader(new StringReader(requests)), false, costlyChanges, false);
+
+        assertTrue(cheapChanges.toString().split("\n")[1].endsWith(",S > A > M > T"));
+        assertTrue(costlyChanges.toString().split("\n")[1].endsWith(",S > B > C > M > T"));
+    }
+}
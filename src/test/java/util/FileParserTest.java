@@ -1,5 +1,7 @@
 package util;
 
+import dto.RailLine;
+import dto.RailStation;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -9,9 +11,15 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.gen5.api.Assertions.assertEquals;
 
 public class FileParserTest {
@@ -45,6 +53,79 @@ public class FileParserTest {
         assertEquals(0, fileParserMock.getRailStations().size());
     }
 
+    @Test
+    public void streamLineFileTest() throws IOException, XMLStreamException {
+        fileParserMock.parse(new File("src/test/resources/testLinesFile.kml"));
+        assertEquals(1416, fileParserMock.getRailLines().size());
+        assertEquals(1416, fileParserMock.getPlacemarkCount());
+        assertTrue(fileParserMock.getBytesParsed() > 0);
+    }
+
+    @Test
+    public void streamStationFileTest() throws IOException, XMLStreamException {
+        fileParserMock.parse(new File("src/test/resources/testStationFile.kml"));
+        assertEquals(654, fileParserMock.getRailStations().size());
+    }
+
+    @Test
+    public void streamInvalidFileTest() throws IOException, XMLStreamException {
+        fileParserMock.parse(new File("src/test/resources/invalidFile.kml"));
+        assertEquals(0, fileParserMock.getRailLines().size());
+        assertEquals(0, fileParserMock.getRailStations().size());
+    }
+
+    @Test
+    public void streamMatchesDomTest() throws IOException, ParserConfigurationException, SAXException, XMLStreamException {
+        //the streaming reader should produce exactly what the DOM parser produces
+        FileParser domParser = new FileParser();
+        domParser.traverse(parseDoc(new File("src/test/resources/testLinesFile.kml")));
+        domParser.traverse(parseDoc(new File("src/test/resources/testStationFile.kml")));
+        fileParserMock.parse(new File("src/test/resources/testLinesFile.kml"));
+        fileParserMock.parse(new File("src/test/resources/testStationFile.kml"));
+
+        assertEquals(domParser.getRailLines().size(), fileParserMock.getRailLines().size());
+        assertEquals(domParser.getRailStations().size(), fileParserMock.getRailStations().size());
+        for (int i = 0; i < domParser.getRailLines().size(); i++) {
+            RailLine expected = domParser.getRailLines().get(i);
+            RailLine actual = fileParserMock.getRailLines().get(i);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getColour(), actual.getColour());
+        }
+        for (int i = 0; i < domParser.getRailStations().size(); i++) {
+            RailStation expected = domParser.getRailStations().get(i);
+            RailStation actual = fileParserMock.getRailStations().get(i);
+            assertEquals(expected.getName(), actual.getName());
+            assertArrayEquals(expected.getCoordinates(), actual.getCoordinates());
+        }
+    }
+
+    @Test
+    public void repeatedStyleTest() throws IOException, ParserConfigurationException, SAXException, XMLStreamException {
+        //a repeated style id keeps its last colour and a style without an id is used by an empty style url in both parsers
+        File file = File.createTempFile("styles", ".kml");
+        try {
+            Files.writeString(file.toPath(), "<kml><Document><name>London Train Lines</name>"
+                    + "<Style id=\"Red\"><LineStyle><color>ff0000ff</color></LineStyle></Style>"
+                    + "<Placemark><name>Red Line</name><styleUrl>#Red</styleUrl><LineString><coordinates>0,0</coordinates></LineString></Placemark>"
+                    + "<Placemark><name>Plain Line</name><styleUrl>#</styleUrl><LineString><coordinates>0,0</coordinates></LineString></Placemark>"
+                    + "<Style id=\"Red\"><LineStyle><color>ff00ff00</color><color>ffff0000</color></LineStyle></Style>"
+                    + "<Style><LineStyle><color>ffff0000</color></LineStyle></Style>"
+                    + "</Document></kml>");
+            FileParser domParser = new FileParser();
+            domParser.traverse(parseDoc(file));
+            fileParserMock.parse(file);
+
+            assertEquals(2, fileParserMock.getRailLines().size());
+            for (int i = 0; i < 2; i++) {
+                assertEquals(domParser.getRailLines().get(i).getColour(), fileParserMock.getRailLines().get(i).getColour());
+            }
+            assertNotEquals(fileParserMock.getRailLines().get(0).getColour(), fileParserMock.getRailLines().get(1).getColour());
+            assertNotNull(fileParserMock.getRailLines().get(1).getColour());
+        } finally {
+            file.delete();
+        }
+    }
+
     private Document parseDoc(File fileKML) throws ParserConfigurationException, IOException, SAXException {
         DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         DocumentBuilder db = dbf.newDocumentBuilder();
@@ -0,0 +1,129 @@
+package util;
+
+import dto.RailLine;
+import dto.RailStation;
+import dto.Route;
+import dto.Station;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import util.graph.GraphObjectGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NetworkSnapshotTest {
+    private File sourceFile;
+    private File snapshotFile;
+    private GraphObjectGenerator network;
+
+    @Before
+    public void setUp() throws IOException {
+        sourceFile = File.createTempFile("lines", ".kml");
+        snapshotFile = File.createTempFile("network", ".snapshot");
+        Files.writeString(sourceFile.toPath(), "<kml/>");
+
+        RailLine line = new RailLine();
+        line.setName("Central - Station 1 to Station 2");
+        line.setColour("#E41F1F");
+
+        ArrayList<RailLine> railLines = new ArrayList<>();
+        railLines.add(line);
+        ArrayList<RailStation> railStations = new ArrayList<>();
+
+        RailStation station1 = new RailStation();
+        station1.setName("Station 1");
+        station1.setCoordinates(new Double[]{51.5074, -0.1278});
+        station1.setRailLines(new ArrayList<>(List.of(line)));
+        railStations.add(station1);
+
+        RailStation station2 = new RailStation();
+        station2.setName("Station 2");
+        station2.setCoordinates(new Double[]{51.5080, -0.1280});
+        station2.setRailLines(new ArrayList<>(List.of(line)));
+        railStations.add(station2);
+
+        network = new GraphObjectGenerator(railLines, railStations);
+        network.controller();
+    }
+
+    @After
+    public void tearDown() {
+        sourceFile.delete();
+        snapshotFile.delete();
+    }
+
+    @Test
+    public void roundTripTest() throws IOException {
+        NetworkSnapshot.write(snapshotFile, network, sourceFile);
+        GraphObjectGenerator loaded = NetworkSnapshot.load(snapshotFile, sourceFile);
+
+        assertNotNull("Snapshot should load when the sources are unchanged", loaded);
+        assertEquals(network.getRailLines().size(), loaded.getRailLines().size());
+        assertEquals("#E41F1F", loaded.getRailLines().get(0).getColour());
+        assertEquals(network.getStations().size(), loaded.getStations().size());
+        assertEquals(network.getStationDistances(), loaded.getStationDistances());
+        assertEquals(2, loaded.getLineToStationsMap().get("Central - Station 1 to Station 2").size());
+
+        Station station = loaded.getStations().get(0);
+        assertEquals("Station 1", station.getRailStation().getName());
+        assertArrayEquals(new Double[]{51.5074, -0.1278}, station.getRailStation().getCoordinates());
+        Route route = station.getRoutes().get(0);
+        assertSame("Routes should point at the loaded station objects", loaded.getRailStations().get(1), route.getDestination());
+        assertSame("Routes should point at the loaded line objects", loaded.getRailLines().get(0), route.getRailLine());
+
+        assertNotNull("Routing graph should be stored with the network", loaded.getRoutingGraph());
+        assertArrayEquals(network.getRoutingGraph().getStationNames(), loaded.getRoutingGraph().getStationNames());
+        assertArrayEquals(network.getRoutingGraph().getOffsets(), loaded.getRoutingGraph().getOffsets());
+        assertArrayEquals(network.getRoutingGraph().getTargets(), loaded.getRoutingGraph().getTargets());
+        assertArrayEquals(network.getRoutingGraph().getWeights(), loaded.getRoutingGraph().getWeights(), 0.0);
+        assertEquals("#E41F1F", loaded.getRoutingGraph().getEdgeColour(0));
+        assertArrayEquals(new String[]{"Central"}, loaded.getRoutingGraph().getLineNames());
+        assertArrayEquals(network.getRoutingGraph().getStationLines(), loaded.getRoutingGraph().getStationLines());
+
+        assertNotNull("Contraction hierarchy should be stored with the network", loaded.getContractionHierarchy());
+        assertArrayEquals(network.getContractionHierarchy().getRanks(), loaded.getContractionHierarchy().getRanks());
+        assertArrayEquals(network.getContractionHierarchy().getTargets(), loaded.getContractionHierarchy().getTargets());
+        assertArrayEquals(network.getContractionHierarchy().getMiddles(), loaded.getContractionHierarchy().getMiddles());
+        assertArrayEquals(new int[]{0, 1}, loaded.getContractionHierarchy().findShortestPath(0, 1));
+
+        assertNotNull("Landmarks should be stored with the network", loaded.getLandmarks());
+        assertEquals(network.getLandmarkCount(), loaded.getLandmarkCount());
+        assertArrayEquals(network.getLandmarks().getLandmarks(), loaded.getLandmarks().getLandmarks());
+        assertArrayEquals(network.getLandmarks().getDistances(), loaded.getLandmarks().getDistances(), 0.0);
+        assertArrayEquals(network.getLandmarks().getStops(), loaded.getLandmarks().getStops());
+    }
+
+    @Test
+    public void changedSourceInvalidatesSnapshotTest() throws IOException {
+        NetworkSnapshot.write(snapshotFile, network, sourceFile);
+        Files.writeString(sourceFile.toPath(), "<kml></kml>");
+
+        assertNull("Snapshot should be rejected when a source file changes", NetworkSnapshot.load(snapshotFile, sourceFile));
+    }
+
+    @Test
+    public void corruptSnapshotTest() throws IOException {
+        NetworkSnapshot.write(snapshotFile, network, sourceFile);
+        try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        assertNull("Snapshot should be rejected when its checksum does not match", NetworkSnapshot.load(snapshotFile, sourceFile));
+    }
+
+    @Test
+    public void missingSnapshotTest() {
+        snapshotFile.delete();
+        assertNull(NetworkSnapshot.load(snapshotFile, sourceFile));
+    }
+}
@@ -0,0 +1,66 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StationIndexTest {
+
+    private StationIndex stationIndex() {
+        return new StationIndex(new String[]{"King's Cross St. Pancras", "Kings Langley", "Kingston", "Paddington", "Peckham Rye", "Shepherd's Bush", "Saint-Denis Université"});
+    }
+
+    @Test
+    public void normalizeTest() {
+        assertEquals("kings cross st pancras", StationIndex.normalize("  King's  Cross -- St. Pancras "));
+        assertEquals("shepherds bush", StationIndex.normalize("SHEPHERD’S BUSH"));
+        assertEquals("saint denis universite", StationIndex.normalize("Saint-Denis Université"));
+        assertEquals("", StationIndex.normalize("..."));
+    }
+
+    @Test
+    public void findTest() {
+        StationIndex stationIndex = stationIndex();
+        assertEquals(7, stationIndex.size());
+        assertEquals(0, stationIndex.find("kings cross st pancras"));
+        assertEquals(0, stationIndex.find("KING'S CROSS ST. PANCRAS"));
+        assertEquals(6, stationIndex.find("saint denis universite"));
+        assertEquals("Paddington", stationIndex.getName(stationIndex.find("paddington")));
+        assertEquals(-1, stationIndex.find("Padington"));
+        assertEquals(-1, stationIndex.find(null));
+        assertThrows(IllegalArgumentException.class, () -> new StationIndex(null));
+    }
+
+    @Test
+    public void completeTest() {
+        StationIndex stationIndex = stationIndex();
+        //completions come back in alphabetical order of the normalised names
+        assertEquals(List.of("King's Cross St. Pancras", "Kings Langley", "Kingston"), stationIndex.complete("king", 10));
+        assertEquals(List.of("King's Cross St. Pancras", "Kings Langley", "Kingston"), stationIndex.complete("King's", 10));
+        assertEquals(List.of("Kings Langley"), stationIndex.complete("KINGS-L", 10));
+        assertEquals(List.of("King's Cross St. Pancras"), stationIndex.complete("king", 1));
+        assertEquals(List.of("Peckham Rye"), stationIndex.complete("pe", 10));
+        assertTrue(stationIndex.complete("victoria", 10).isEmpty());
+    }
+
+    @Test
+    public void suggestTest() {
+        StationIndex stationIndex = stationIndex();
+        assertEquals(List.of("Paddington"), stationIndex.suggest("Padington", 5));
+        assertEquals(List.of("Shepherd's Bush"), stationIndex.suggest("shepards bush", 5));
+        //a prefix is offered its completions before anything merely close to it
+        assertEquals("Kingston", stationIndex.suggest("Kingst", 5).get(0));
+        assertTrue(stationIndex.suggest("Waterloo", 5).isEmpty());
+        assertTrue(new StationIndex(new String[0]).suggest("Paddington", 5).isEmpty());
+    }
+
+    @Test
+    public void levenshteinTest() {
+        assertEquals(3, StationIndex.levenshtein("kitten", "sitting"));
+        assertEquals(0, StationIndex.levenshtein("bank", "bank"));
+        assertEquals(4, StationIndex.levenshtein("", "bank"));
+        assertEquals(1, StationIndex.levenshtein("padington", "paddington"));
+    }
+}
@@ -0,0 +1,134 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConnectionScanTest {
+
+    private Timetable smallTimetable() {
+        //stations A=0, B=1, C=2, D=3, times in minutes after 08:00
+        Timetable.Builder builder = new Timetable.Builder(4);
+        int slow = builder.addTrip("slow");
+        int fast = builder.addTrip("fast");
+        int early = builder.addTrip("early");
+        int late = builder.addTrip("late");
+        builder.addConnection(slow, 0, 1, time(0), time(10));
+        builder.addConnection(slow, 1, 2, time(12), time(20));
+        builder.addConnection(fast, 0, 2, time(5), time(30));
+        builder.addConnection(early, 1, 3, time(11), time(15));
+        builder.addConnection(late, 1, 3, time(13), time(18));
+        return builder.build();
+    }
+
+    private static int time(int minutes) {
+        return 8 * 3600 + minutes * 60;
+    }
+
+    @Test
+    public void earliestArrivalTest() {
+        ConnectionScan connectionScan = new ConnectionScan(smallTimetable());
+
+        //staying on the slow train beats the direct one and is a single leg
+        List<ConnectionScan.Leg> legs = connectionScan.earliestArrival(0, 2, time(-10));
+        assertEquals(List.of(new ConnectionScan.Leg(0, 0, 2, time(0), time(20))), legs);
+
+        //two minutes are not enough to change onto the 08:11, so the 08:13 is taken
+        legs = connectionScan.earliestArrival(0, 3, time(-10));
+        assertEquals(2, legs.size());
+        assertEquals(new ConnectionScan.Leg(0, 0, 1, time(0), time(10)), legs.get(0));
+        assertEquals(new ConnectionScan.Leg(3, 1, 3, time(13), time(18)), legs.get(1));
+        assertEquals(time(15), new ConnectionScan(smallTimetable(), 0).earliestArrival(0, 3, time(-10)).get(1).arrivalTime());
+
+        //after the slow train has gone only the direct one is left
+        assertEquals(List.of(new ConnectionScan.Leg(1, 0, 2, time(5), time(30))), connectionScan.earliestArrival(0, 2, time(1)));
+        assertTrue(connectionScan.earliestArrival(3, 0, time(0)).isEmpty());
+        assertTrue(connectionScan.earliestArrival(0, 2, time(6)).isEmpty());
+    }
+
+    @Test
+    public void profileTest() {
+        ConnectionScan connectionScan = new ConnectionScan(smallTimetable());
+        List<ConnectionScan.ProfileEntry> profile = connectionScan.profile(0, 2, time(-60), time(60));
+        assertEquals(List.of(new ConnectionScan.ProfileEntry(time(0), time(20)), new ConnectionScan.ProfileEntry(time(5), time(30))), profile);
+        assertEquals(List.of(new ConnectionScan.ProfileEntry(time(0), time(20))), connectionScan.profile(0, 2, time(-60), time(2)));
+        assertTrue(connectionScan.profile(2, 0, time(-60), time(60)).isEmpty());
+    }
+
+    @Test
+    public void profileMatchesEarliestArrivalTest() {
+        //on a generated network every profile entry is what an earliest arrival query at that time finds
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        String[] names = {"A", "B", "C", "D", "E", "F", "G"};
+        for (String name : names) {
+            builder.addStation(name, null);
+        }
+        builder.addEdge("A", "B", 1.0);
+        builder.addEdge("B", "C", 3.0);
+        builder.addEdge("C", "D", 1.5);
+        builder.addEdge("E", "B", 2.0);
+        builder.addEdge("B", "F", 4.0);
+        builder.addEdge("F", "D", 1.0);
+        builder.addEdge("C", "G", 2.5);
+        RoutingGraph routingGraph = builder.build();
+        Timetable.Builder timetableBuilder = new Timetable.Builder(routingGraph.getStationCount());
+        //three services at different headways, each running both ways
+        int[][] services = {{0, 1, 2, 3}, {4, 1, 5, 3}, {6, 2, 1, 0}};
+        int[] headways = {600, 420, 900};
+        for (int s = 0; s < services.length; s++) {
+            for (int departure = 6 * 3600 + s * 97; departure <= 9 * 3600; departure += headways[s]) {
+                for (int direction = 0; direction < 2; direction++) {
+                    int trip = timetableBuilder.addTrip("service " + s + " " + direction + " " + departure);
+                    int time = departure;
+                    for (int i = 0; i + 1 < services[s].length; i++) {
+                        int from = services[s][direction == 0 ? i : services[s].length - 1 - i];
+                        int to = services[s][direction == 0 ? i + 1 : services[s].length - 2 - i];
+                        int ride = (int) Math.round(routingGraph.getWeights()[routingGraph.findArc(from, to)] * 100);
+                        timetableBuilder.addConnection(trip, from, to, time, time + ride);
+                        time += ride + 30;
+                    }
+                }
+            }
+        }
+        ConnectionScan connectionScan = new ConnectionScan(timetableBuilder.build());
+
+        int earliest = 6 * 3600 + 1800;
+        int latest = 8 * 3600;
+        for (int source = 0; source < names.length; source++) {
+            for (int destination = 0; destination < names.length; destination++) {
+                if (source == destination) {
+                    continue;
+                }
+                List<ConnectionScan.ProfileEntry> profile = connectionScan.profile(source, destination, earliest, latest);
+                assertFalse(profile.isEmpty());
+                int next = 0;
+                for (int t = earliest; t <= latest; t += 60) {
+                    while (next < profile.size() && profile.get(next).departure() < t) {
+                        next++;
+                    }
+                    List<ConnectionScan.Leg> legs = connectionScan.earliestArrival(source, destination, t);
+                    if (next < profile.size()) {
+                        assertEquals(profile.get(next).arrival(), legs.get(legs.size() - 1).arrivalTime());
+                    }
+                    //the legs join up and never leave before they can be caught
+                    for (int i = 0; i < legs.size(); i++) {
+                        assertTrue(legs.get(i).departureTime() >= (i == 0 ? t : legs.get(i - 1).arrivalTime() + ConnectionScan.DEFAULT_TRANSFER_SECONDS));
+                        assertEquals(i == 0 ? source : legs.get(i - 1).arrivalStation(), legs.get(i).departureStation());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void invalidQueryTest() {
+        ConnectionScan connectionScan = new ConnectionScan(smallTimetable());
+        assertThrows(IllegalArgumentException.class, () -> connectionScan.earliestArrival(0, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> connectionScan.earliestArrival(1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> connectionScan.profile(-1, 1, 0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionScan(null));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionScan(smallTimetable(), -1));
+    }
+}
@@ -0,0 +1,71 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ContractionHierarchyTest {
+
+    @Test
+    public void unpacksShortcutsTest() {
+        //a line of stations, contracting the inner ones needs shortcuts between their neighbours
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        for (int i = 0; i < 6; i++) {
+            builder.addStation("Station" + i, null);
+        }
+        for (int i = 0; i < 5; i++) {
+            builder.addEdge("Station" + i, "Station" + (i + 1), 1.0 + i);
+        }
+        RoutingGraph routingGraph = builder.build();
+        ContractionHierarchy contractionHierarchy = ContractionHierarchy.build(routingGraph);
+
+        assertTrue("A line of stations should need shortcuts", contractionHierarchy.getShortcutCount() > 0);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, contractionHierarchy.findShortestPath(0, 5));
+        assertArrayEquals(new int[]{4, 3, 2, 1}, contractionHierarchy.findShortestPath(4, 1));
+        assertArrayEquals(new int[]{2}, contractionHierarchy.findShortestPath(2, 2));
+    }
+
+    @Test
+    public void matchesDijkstraTest() {
+        Random random = new Random(11);
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        int stationCount = 70;
+        for (int i = 0; i < stationCount; i++) {
+            builder.addStation("Station" + i, null);
+        }
+        //two unconnected halves so that some pairs have no route
+        for (int i = 0; i < 140; i++) {
+            int half = random.nextInt(2) * stationCount / 2;
+            builder.addEdge("Station" + (half + random.nextInt(stationCount / 2)), "Station" + (half + random.nextInt(stationCount / 2)), 0.25 + random.nextInt(20) / 4.0);
+        }
+        RoutingGraph routingGraph = builder.build();
+        ContractionHierarchy contractionHierarchy = ContractionHierarchy.build(routingGraph);
+        RouteGenerator routeGenerator = new RouteGenerator(null, null, null, null, routingGraph);
+
+        for (int source = 0; source < stationCount; source++) {
+            for (int destination = 0; destination < stationCount; destination++) {
+                int[] expected = routeGenerator.findShortestPath(source, destination, false);
+                int[] path = contractionHierarchy.findShortestPath(source, destination);
+                assertEquals("Both searches should find a route or neither should", expected == null, path == null);
+                if (path != null) {
+                    assertEquals(source, path[0]);
+                    assertEquals(destination, path[path.length - 1]);
+                    assertEquals("Unpacked routes should have the same length as Dijkstra's", routingGraph.pathLength(expected), routingGraph.pathLength(path), 1e-9);
+                }
+            }
+        }
+
+        double[] distances = new double[stationCount];
+        SearchWorkspace workspace = new SearchWorkspace(stationCount, 0);
+        for (int source = 0; source < stationCount; source++) {
+            contractionHierarchy.distancesFrom(source, distances, workspace);
+            for (int destination = 0; destination < stationCount; destination++) {
+                int[] expected = routeGenerator.findShortestPath(source, destination, false);
+                double expectedDistance = expected == null ? Double.POSITIVE_INFINITY : routingGraph.pathLength(expected);
+                assertEquals("The sweep should give every station its Dijkstra distance", expectedDistance, distances[destination], 1e-9);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class DisruptionsTest {
+
+    @Test
+    public void closeAndReopenTest() {
+        Disruptions disruptions = new Disruptions(70, 130);
+        assertFalse(disruptions.isActive());
+
+        assertTrue(disruptions.closeStation(65));
+        assertFalse("Closing twice should change nothing", disruptions.closeStation(65));
+        assertTrue(disruptions.closeEdge(129));
+        assertTrue(disruptions.isStationClosed(65));
+        assertFalse(disruptions.isStationClosed(1));
+        assertTrue(disruptions.isEdgeClosed(129));
+        assertFalse(disruptions.isEdgeClosed(65));
+        assertEquals(2, disruptions.getClosedCount());
+        assertEquals(2, disruptions.getVersion());
+
+        assertTrue(disruptions.reopenStation(65));
+        assertFalse(disruptions.reopenStation(65));
+        disruptions.reopenAll();
+        assertFalse(disruptions.isActive());
+        assertEquals(4, disruptions.getVersion());
+
+        assertThrows(IllegalArgumentException.class, () -> disruptions.closeStation(70));
+        assertThrows(IllegalArgumentException.class, () -> disruptions.closeEdge(-1));
+    }
+
+    @Test
+    public void concurrentUpdatesTest() throws Exception {
+        Disruptions disruptions = new Disruptions(10, 256);
+
+        //threads closing edges that share a word of the bitmask must not lose each other's bits
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int first = thread;
+                futures.add(executor.submit(() -> {
+                    for (int edge = first; edge < 256; edge += 4) {
+                        disruptions.closeEdge(edge);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int edge = 0; edge < 256; edge++) {
+            assertTrue(disruptions.isEdgeClosed(edge));
+        }
+        assertEquals(256, disruptions.getClosedCount());
+    }
+}
@@ -0,0 +1,78 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DistanceMatrixTest {
+
+    private RoutingGraph randomGraph(Random random, int stationCount, int edgeCount) {
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        for (int i = 0; i < stationCount; i++) {
+            builder.addStation("Station" + i, null);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            builder.addEdge("Station" + random.nextInt(stationCount), "Station" + random.nextInt(stationCount), 0.5 + random.nextInt(20) / 4.0);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void matchesPairwiseDijkstraTest() {
+        Random random = new Random(3);
+        //sparse enough that some stations are cut off from the rest
+        RoutingGraph routingGraph = randomGraph(random, 60, 70);
+        RouteGenerator routeGenerator = new RouteGenerator(null, null, null, null, routingGraph);
+        DistanceMatrix dijkstra = new DistanceMatrix(routingGraph, null);
+        DistanceMatrix buckets = new DistanceMatrix(routingGraph, ContractionHierarchy.build(routingGraph));
+
+        int[] origins = new int[15];
+        int[] destinations = new int[20];
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = random.nextInt(60);
+        }
+        for (int i = 0; i < destinations.length; i++) {
+            destinations[i] = random.nextInt(60);
+        }
+        //a station asked for twice and a station on both sides
+        destinations[1] = destinations[0];
+        destinations[2] = origins[0];
+
+        for (DistanceMatrix distanceMatrix : new DistanceMatrix[]{dijkstra, buckets}) {
+            double[] matrix = distanceMatrix.compute(origins, destinations);
+            assertEquals(origins.length * destinations.length, matrix.length);
+            for (int i = 0; i < origins.length; i++) {
+                for (int j = 0; j < destinations.length; j++) {
+                    int[] path = routeGenerator.findShortestPath(origins[i], destinations[j], false);
+                    double expected = path == null ? Double.POSITIVE_INFINITY : routingGraph.pathLength(path);
+                    assertEquals(expected, matrix[i * destinations.length + j], 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void symmetricMatrixTest() {
+        Random random = new Random(8);
+        RoutingGraph routingGraph = randomGraph(random, 40, 90);
+        int[] stations = {5, 0, 17, 33, 5, 21};
+
+        double[] dijkstra = new DistanceMatrix(routingGraph, null).compute(stations, stations);
+        double[] buckets = new DistanceMatrix(routingGraph, ContractionHierarchy.build(routingGraph)).compute(stations, stations);
+        for (int i = 0; i < stations.length; i++) {
+            assertEquals(0.0, dijkstra[i * stations.length + i], 0.0);
+            for (int j = 0; j < stations.length; j++) {
+                assertEquals(dijkstra[i * stations.length + j], dijkstra[j * stations.length + i], 1e-9);
+                assertEquals(dijkstra[i * stations.length + j], buckets[i * stations.length + j], 1e-9);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownStationTest() {
+        RoutingGraph routingGraph = randomGraph(new Random(1), 5, 5);
+        new DistanceMatrix(routingGraph, null).compute(new int[]{0}, new int[]{5});
+    }
+}
@@ -4,7 +4,9 @@ import dto.RailLine;
 import dto.RailStation;
 import dto.Route;
 import dto.Station;
+import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
+import org.graphstream.graph.Path;
 import org.junit.Before;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -78,21 +80,25 @@ public class GraphGeneratorTest {
         List<Route> routesForStation3 = new ArrayList<>();
 
         Route route1to2 = mock(Route.class);
+        when(route1to2.getRailLine()).thenReturn(line1);
         when(route1to2.getDestination()).thenReturn(railStation2);
         when(route1to2.getWeight()).thenReturn(1.5);
         routesForStation1.add(route1to2);
 
         Route route2to1 = mock(Route.class);
+        when(route2to1.getRailLine()).thenReturn(line1);
         when(route2to1.getDestination()).thenReturn(railStation1);
         when(route2to1.getWeight()).thenReturn(1.5);
         routesForStation2.add(route2to1);
 
         Route route2to3 = mock(Route.class);
+        when(route2to3.getRailLine()).thenReturn(line2);
         when(route2to3.getDestination()).thenReturn(railStation3);
         when(route2to3.getWeight()).thenReturn(2.0);
         routesForStation2.add(route2to3);
 
         Route route3to2 = mock(Route.class);
+        when(route3to2.getRailLine()).thenReturn(line2);
         when(route3to2.getDestination()).thenReturn(railStation2);
         when(route3to2.getWeight()).thenReturn(2.0);
         routesForStation3.add(route3to2);
@@ -118,6 +124,22 @@ public class GraphGeneratorTest {
         assertNotNull("Generated graph should not be null", result);
     }
 
+    @Test
+    public void displayGraphSinglePassTest() {
+        //colour the Central line only, the Piccadilly edge should fall back to the default colour
+        when(stations.get(0).getRoutes().get(0).getRailLine().getColour()).thenReturn("#E41F1F");
+
+        Graph result = graphGenerator.generateGraph(stations);
+
+        assertEquals(3, result.getNodeCount());
+        assertEquals("Routes in both directions should give one edge per pair of stations", 2, result.getEdgeCount());
+        assertEquals("Station A", result.getNode("Station A").getAttribute("ui.label"));
+        Edge central = result.getNode("Station A").getEdgeBetween("Station B");
+        Edge piccadilly = result.getNode("Station B").getEdgeBetween("Station C");
+        assertEquals("#E41F1F", central.getAttribute("original.color"));
+        assertEquals("#0000FF", piccadilly.getAttribute("original.color"));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void generateGraphNullDataTest() {
         //attempt to generate the graph with null data
@@ -194,6 +216,16 @@ public class GraphGeneratorTest {
         assertTrue("Route planning should succeed for shortest route", result);
     }
 
+    @Test
+    public void stationNameMatchingTest() {
+        graphGenerator.generateGraph(stations);
+
+        //case, spacing and punctuation do not matter when naming a station
+        assertTrue(graphGenerator.planRoute("  STATION-a ", "station   c.", true, false, false));
+        assertFalse(graphGenerator.planRoute("Station A", "station-a", true, false, false));
+        assertEquals(List.of("Station A", "Station B", "Station C"), graphGenerator.getStationIndex().suggest("Statio", 5));
+    }
+
 
     @Test
     public void printValidRouteTest() {
@@ -262,4 +294,177 @@ public class GraphGeneratorTest {
             fail("printEntireMap should not throw exception: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void headlessRoutingTest() {
+        GraphGenerator headlessGenerator = new GraphGenerator(graphObjectGenerator, true);
+
+        //no display graph should exist until a map is shown
+        assertNull("Headless mode should not build the display graph", headlessGenerator.generateGraph(stations));
+        assertTrue("Routing should work without a display graph", headlessGenerator.planRoute("Station A", "Station C", true, false, false));
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", false, true, false));
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", false, false, true));
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", RouteType.SHORTEST, SearchAlgorithm.BIDIRECTIONAL));
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", RouteType.LEAST_STOPS, SearchAlgorithm.BIDIRECTIONAL));
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", RouteType.ALL_TRADE_OFFS, SearchAlgorithm.STANDARD));
+        assertTrue("The hierarchy should be built on demand", headlessGenerator.planRoute("Station A", "Station C", RouteType.SHORTEST, SearchAlgorithm.CONTRACTION_HIERARCHY));
+        assertNotNull(headlessGenerator.getContractionHierarchy());
+        assertNull("Route queries should not build the display graph", headlessGenerator.getGraph());
+
+        headlessGenerator.printEntireMap();
+        assertNotNull("Showing the map should build the display graph", headlessGenerator.getGraph());
+        assertEquals(3, headlessGenerator.getGraph().getNodeCount());
+    }
+
+    @Test
+    public void alternativeRoutesTest() {
+        GraphGenerator headlessGenerator = new GraphGenerator(graphObjectGenerator, true);
+        headlessGenerator.generateGraph(stations);
+
+        //the stations form a single line, so there is only one route however many are asked for
+        List<Path> paths = headlessGenerator.planAlternativeRoutes("Station A", "Station C", 3);
+        assertEquals(1, paths.size());
+        assertEquals("Station A", paths.get(0).getRoot().getId());
+        assertEquals(2, paths.get(0).getEdgeCount());
+        assertEquals(headlessGenerator.getRoutingGraph().pathLength(new int[]{0, 1, 2}), paths.get(0).getPathWeight("length"), 1e-9);
+        assertNotNull("Returning paths should build the display graph", headlessGenerator.getGraph());
+
+        assertTrue("Unknown stations should give no routes", headlessGenerator.planAlternativeRoutes("Station A", "Station X", 3).isEmpty());
+    }
+
+    @Test
+    public void distanceMatrixTest() {
+        GraphGenerator headlessGenerator = new GraphGenerator(graphObjectGenerator, true);
+        headlessGenerator.generateGraph(stations);
+        RoutingGraph routingGraph = headlessGenerator.getRoutingGraph();
+
+        //names are matched ignoring case, as planRoute does
+        double[] matrix = headlessGenerator.distanceMatrix(List.of("Station A", "station c"), List.of("Station B", "Station C"));
+        assertEquals(4, matrix.length);
+        assertEquals(routingGraph.pathLength(new int[]{0, 1}), matrix[0], 1e-9);
+        assertEquals(routingGraph.pathLength(new int[]{0, 1, 2}), matrix[1], 1e-9);
+        assertEquals(routingGraph.pathLength(new int[]{2, 1}), matrix[2], 1e-9);
+        assertEquals(0.0, matrix[3], 0.0);
+        assertNull("The matrix should not build the display graph", headlessGenerator.getGraph());
+
+        try {
+            headlessGenerator.distanceMatrix(List.of("Station A"), List.of("Station X"));
+            fail("An unknown station should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Station X"));
+        }
+    }
+
+    @Test
+    public void reachableStationsTest() {
+        GraphGenerator headlessGenerator = new GraphGenerator(graphObjectGenerator, true);
+        headlessGenerator.generateGraph(stations);
+
+        Isochrone isochrone = headlessGenerator.reachableStations("station a", RouteType.LEAST_STOPS, 1);
+        assertEquals(2, isochrone.getReachedCount());
+        assertSame("Queries should reuse the same workspace", isochrone, headlessGenerator.reachableStations("Station A", RouteType.LEAST_CHANGES, 0));
+        assertEquals(2, isochrone.getReachedCount());
+        assertEquals(3, headlessGenerator.reachableStations("Station A", RouteType.SHORTEST, 100.0).getReachedCount());
+        assertNull(headlessGenerator.reachableStations("Station X", RouteType.SHORTEST, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> headlessGenerator.reachableStations("Station A", RouteType.LEAST_STOPS, -1));
+        assertThrows(IllegalArgumentException.class, () -> headlessGenerator.reachableStations("Station A", RouteType.SHORTEST, Double.NaN));
+    }
+
+    @Test
+    public void routeCacheTest() {
+        GraphGenerator headlessGenerator = new GraphGenerator(graphObjectGenerator, true);
+        headlessGenerator.generateGraph(stations);
+        RouteCache routeCache = headlessGenerator.getRouteCache();
+
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertEquals(1, routeCache.getMisses());
+        assertTrue("A repeated query should be answered from the cache", headlessGenerator.planRoute("station a", "Station C", RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertEquals(1, routeCache.getHits());
+        assertArrayEquals(new int[]{0, 1, 2}, headlessGenerator.getRouteGenerator().getRoute());
+
+        //a rebuilt network gets a new version, so nothing found on the old one is served
+        headlessGenerator.generateGraph(stations);
+        assertEquals(0, routeCache.size());
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertEquals(2, routeCache.getMisses());
+    }
+
+    @Test
+    public void earliestArrivalTest() {
+        GraphGenerator headlessGenerator = new GraphGenerator(graphObjectGenerator, true);
+        headlessGenerator.generateGraph(stations);
+        Timetable.Builder builder = new Timetable.Builder(3);
+        int trip = builder.addTrip("Central 1");
+        builder.addConnection(trip, 0, 1, 8 * 3600, 8 * 3600 + 120);
+        builder.addConnection(trip, 1, 2, 8 * 3600 + 150, 8 * 3600 + 300);
+        headlessGenerator.setTimetable(builder.build());
+
+        List<ConnectionScan.Leg> legs = headlessGenerator.planEarliestArrival("station a", "Station C", 7 * 3600);
+        assertEquals(1, legs.size());
+        assertEquals(8 * 3600 + 300, legs.get(0).arrivalTime());
+        assertTrue(headlessGenerator.planEarliestArrival("Station A", "Station C", 9 * 3600).isEmpty());
+        assertNull(headlessGenerator.planEarliestArrival("Station X", "Station C", 0));
+        assertThrows(IllegalArgumentException.class, () -> headlessGenerator.setTimetable(new Timetable.Builder(5).build()));
+    }
+
+    @Test
+    public void disruptionsTest() {
+        GraphGenerator headlessGenerator = new GraphGenerator(graphObjectGenerator, true);
+        headlessGenerator.generateGraph(stations);
+        RouteCache routeCache = headlessGenerator.getRouteCache();
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", true, false, false));
+        assertTrue(headlessGenerator.planRoute("Station A", "Station B", true, false, false));
+
+        //closing B - C only drops the cached route that used it
+        assertTrue(headlessGenerator.closeSegment("station b", "Station C"));
+        assertFalse(headlessGenerator.closeSegment("Station C", "Station B"));
+        assertEquals(1, routeCache.size());
+        assertFalse(headlessGenerator.planRoute("Station A", "Station C", true, false, false));
+        assertTrue(headlessGenerator.planRoute("Station A", "Station B", true, false, false));
+
+        //reopening can make any route shorter, so the whole cache goes
+        assertTrue(headlessGenerator.reopenSegment("Station B", "Station C"));
+        assertEquals(0, routeCache.size());
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", true, false, false));
+
+        assertTrue(headlessGenerator.closeStation("Station B"));
+        assertFalse(headlessGenerator.planRoute("Station A", "Station C", false, false, true));
+        assertTrue(headlessGenerator.reopenStation("Station B"));
+        assertFalse(headlessGenerator.getRoutingGraph().getDisruptions().isActive());
+
+        assertThrows(IllegalArgumentException.class, () -> headlessGenerator.closeSegment("Station A", "Station C"));
+        assertThrows(IllegalArgumentException.class, () -> headlessGenerator.closeStation("Station X"));
+    }
+
+    @Test
+    public void generalisedCostTest() {
+        GraphGenerator headlessGenerator = new GraphGenerator(graphObjectGenerator, true);
+        headlessGenerator.generateGraph(stations);
+        RouteCache routeCache = headlessGenerator.getRouteCache();
+
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", RouteType.GENERALISED_COST, SearchAlgorithm.STANDARD));
+        assertArrayEquals(new int[]{0, 1, 2}, headlessGenerator.getRouteGenerator().getRoute());
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+
+        //new weights only drop the routes planned with the old ones
+        headlessGenerator.setCostWeights(new CostWeights(1.0, 1.0, 10.0));
+        assertEquals(1, routeCache.size());
+        assertNull(routeCache.get(0, 2, RouteType.GENERALISED_COST, SearchAlgorithm.STANDARD));
+        assertThrows(IllegalArgumentException.class, () -> headlessGenerator.setCostWeights(null));
+    }
+
+    @Test
+    public void routerReusedTest() {
+        GraphGenerator headlessGenerator = new GraphGenerator(graphObjectGenerator, true);
+        headlessGenerator.generateGraph(stations);
+        Router router = headlessGenerator.createRouter();
+
+        //every query on an unchanged network searches with the same router and its workspaces
+        assertTrue(headlessGenerator.planRoute("Station A", "Station C", RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertTrue(headlessGenerator.planRoute("Station C", "Station A", RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD));
+        assertSame(router, headlessGenerator.createRouter());
+
+        headlessGenerator.generateGraph(stations);
+        assertNotSame("A rebuilt network needs a router of its own", router, headlessGenerator.createRouter());
+    }
+}
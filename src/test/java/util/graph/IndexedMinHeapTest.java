@@ -0,0 +1,87 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IndexedMinHeapTest {
+
+    @Test
+    public void pollsInKeyOrderTest() {
+        IndexedMinHeap heap = new IndexedMinHeap(5);
+        heap.push(0, 4.0);
+        heap.push(1, 2.0);
+        heap.push(2, 5.0);
+        heap.push(3, 1.0);
+
+        assertEquals(4, heap.size());
+        assertEquals(1.0, heap.peekKey(), 0.0);
+        assertEquals(3, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(0, heap.poll());
+        assertEquals(2, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void decreaseKeyTest() {
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.push(0, 1.0);
+        heap.push(1, 2.0);
+        heap.push(2, 3.0);
+
+        assertTrue("A lower key should move the id up", heap.push(2, 0.5));
+        assertFalse("A higher key should be ignored", heap.push(0, 10.0));
+        assertEquals("Decreasing a key should not add a second entry", 3, heap.size());
+        assertEquals(2, heap.poll());
+        assertEquals(0, heap.poll());
+        assertFalse(heap.contains(0));
+        assertTrue(heap.contains(1));
+    }
+
+    @Test
+    public void clearTest() {
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.push(0, 1.0);
+        heap.push(2, 2.0);
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(0));
+        assertFalse(heap.contains(2));
+        heap.push(2, 3.0);
+        assertEquals(2, heap.poll());
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        Random random = new Random(7);
+        IndexedMinHeap heap = new IndexedMinHeap(200);
+        double[] best = new double[200];
+        Arrays.fill(best, Double.MAX_VALUE);
+        for (int i = 0; i < 2000; i++) {
+            int id = random.nextInt(200);
+            double key = random.nextDouble();
+            heap.push(id, key);
+            best[id] = Math.min(best[id], key);
+        }
+
+        double previous = -1;
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int id = heap.poll();
+            assertEquals("Each id should keep its lowest key", best[id], key, 0.0);
+            assertTrue("Ids should come out in key order", key >= previous);
+            previous = key;
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void pollEmptyTest() {
+        new IndexedMinHeap(1).poll();
+    }
+}
@@ -0,0 +1,74 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+import static util.graph.TestNetworks.lineAndBranch;
+
+public class IsochroneTest {
+
+    @Test
+    public void distanceBudgetTest() {
+        Isochrone isochrone = new Isochrone(lineAndBranch());
+
+        assertEquals(3, isochrone.reachWithinDistance(0, 4.0));
+        assertEquals(0, isochrone.getReachedStation(0));
+        assertEquals(0.0, isochrone.getReachedCost(0), 0.0);
+        assertEquals(1, isochrone.getReachedStation(1));
+        assertEquals(2.0, isochrone.getReachedCost(1), 1e-9);
+        assertEquals(3, isochrone.getReachedStation(2));
+        assertEquals(3.5, isochrone.getReachedCost(2), 1e-9);
+
+        //a station exactly on the budget is reached, the cut off station never is
+        assertEquals(4, isochrone.reachWithinDistance(0, 5.0));
+        assertEquals(1, isochrone.reachWithinDistance(4, 100.0));
+    }
+
+    @Test
+    public void stopsAndChangesBudgetTest() {
+        Isochrone isochrone = new Isochrone(lineAndBranch());
+
+        assertEquals(2, isochrone.reachWithinStops(0, 1));
+        assertEquals(4, isochrone.reachWithinStops(0, 2));
+        assertEquals(2.0, isochrone.getReachedCost(3), 0.0);
+
+        //the red line reaches B and C without a change, D needs one onto the blue line
+        assertEquals(3, isochrone.reachWithinChanges(0, 0));
+        assertEquals(4, isochrone.reachWithinChanges(0, 1));
+        assertEquals(3, isochrone.getReachedStation(3));
+        assertEquals(1.0, isochrone.getReachedCost(3), 0.0);
+    }
+
+    @Test
+    public void negativeBudgetTest() {
+        Isochrone isochrone = new Isochrone(lineAndBranch());
+
+        //not even the source is within a budget below zero
+        assertEquals(0, isochrone.reachWithinStops(0, -1));
+        assertEquals(0, isochrone.reachWithinDistance(0, -1.0));
+        assertEquals(0, isochrone.reachWithinChanges(0, -1));
+        assertEquals(1, isochrone.reachWithinStops(0, 0));
+    }
+
+    @Test
+    public void exportTest() throws Exception {
+        Isochrone isochrone = new Isochrone(lineAndBranch());
+        isochrone.reachWithinDistance(0, 4.0);
+
+        StringWriter csv = new StringWriter();
+        isochrone.writeCsv(csv);
+        assertEquals("station,latitude,longitude,cost\n"
+                + "A,51.500000,-0.100000,0\n"
+                + "B,51.510000,-0.110000,2\n"
+                + "\"D, East\",,,3.500\n", csv.toString());
+
+        StringWriter geoJson = new StringWriter();
+        isochrone.writeGeoJson(geoJson);
+        String json = geoJson.toString();
+        assertTrue(json.startsWith("{\"type\":\"FeatureCollection\""));
+        assertTrue("Positions should be longitude first", json.contains("\"coordinates\":[-0.110000,51.510000]"));
+        assertTrue(json.contains("\"geometry\":null,\"properties\":{\"name\":\"D, East\",\"cost\":3.500}"));
+    }
+}
@@ -0,0 +1,110 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KShortestPathsTest {
+
+    private RoutingGraph diamond() {
+        //S to T via A (3), via B (4), via A then B (5) and via B then A (6)
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        for (String name : new String[]{"S", "A", "B", "T"}) {
+            builder.addStation(name, null);
+        }
+        builder.addEdge("S", "A", 1.0);
+        builder.addEdge("A", "T", 2.0);
+        builder.addEdge("S", "B", 2.0);
+        builder.addEdge("B", "T", 2.0);
+        builder.addEdge("A", "B", 2.0);
+        return builder.build();
+    }
+
+    @Test
+    public void rankedRoutesTest() {
+        RoutingGraph routingGraph = diamond();
+        List<int[]> paths = new KShortestPaths(routingGraph, null).findShortestPaths(0, 3, 10);
+
+        assertEquals("Only four loopless routes exist", 4, paths.size());
+        assertArrayEquals(new int[]{0, 1, 3}, paths.get(0));
+        assertArrayEquals(new int[]{0, 2, 3}, paths.get(1));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, paths.get(2));
+        assertArrayEquals(new int[]{0, 2, 1, 3}, paths.get(3));
+        assertEquals(6.0, routingGraph.pathLength(paths.get(3)), 1e-9);
+    }
+
+    @Test
+    public void edgeCasesTest() {
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        builder.addStation("A", null);
+        builder.addStation("B", null);
+        builder.addStation("C", null);
+        builder.addEdge("A", "B", 1.0);
+        RoutingGraph routingGraph = builder.build();
+        KShortestPaths kShortestPaths = new KShortestPaths(routingGraph, null);
+
+        assertTrue(kShortestPaths.findShortestPaths(0, 1, 0).isEmpty());
+        assertArrayEquals(new int[]{1}, kShortestPaths.findShortestPaths(1, 1, 3).get(0));
+        assertTrue("An unconnected station should have no routes", kShortestPaths.findShortestPaths(0, 2, 3).isEmpty());
+        assertEquals(1, kShortestPaths.findShortestPaths(0, 1, 3).size());
+    }
+
+    @Test
+    public void matchesEverySimplePathTest() {
+        Random random = new Random(11);
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        int stationCount = 12;
+        for (int i = 0; i < stationCount; i++) {
+            builder.addStation("Station" + i, null);
+        }
+        for (int i = 0; i < 24; i++) {
+            builder.addEdge("Station" + random.nextInt(stationCount), "Station" + random.nextInt(stationCount), 0.5 + random.nextInt(20) / 4.0);
+        }
+        RoutingGraph routingGraph = builder.build();
+        //the same workspace is reused for every query, with and without the hierarchy's distances
+        KShortestPaths plain = new KShortestPaths(routingGraph, null);
+        KShortestPaths contracted = new KShortestPaths(routingGraph, ContractionHierarchy.build(routingGraph));
+
+        for (int query = 0; query < 30; query++) {
+            int source = random.nextInt(stationCount);
+            int destination = random.nextInt(stationCount);
+            if (source == destination) {
+                continue;
+            }
+            List<Double> expected = new ArrayList<>();
+            simplePathLengths(routingGraph, destination, new boolean[stationCount], source, 0.0, expected);
+            expected.sort(null);
+
+            for (KShortestPaths kShortestPaths : new KShortestPaths[]{plain, contracted}) {
+                List<int[]> paths = kShortestPaths.findShortestPaths(source, destination, 8);
+                assertEquals(Math.min(8, expected.size()), paths.size());
+                for (int i = 0; i < paths.size(); i++) {
+                    assertEquals(expected.get(i), routingGraph.pathLength(paths.get(i)), 1e-9);
+                    assertEquals(source, paths.get(i)[0]);
+                    assertEquals(destination, paths.get(i)[paths.get(i).length - 1]);
+                    assertEquals("Routes should never visit a station twice", paths.get(i).length, Arrays.stream(paths.get(i)).distinct().count());
+                }
+            }
+        }
+    }
+
+    private void simplePathLengths(RoutingGraph routingGraph, int destination, boolean[] visited, int current, double length, List<Double> lengths) {
+        if (current == destination) {
+            lengths.add(length);
+            return;
+        }
+        visited[current] = true;
+        for (int arc = routingGraph.getOffsets()[current]; arc < routingGraph.getOffsets()[current + 1]; arc++) {
+            int next = routingGraph.getTargets()[arc];
+            if (!visited[next]) {
+                simplePathLengths(routingGraph, destination, visited, next, length + routingGraph.getWeights()[arc], lengths);
+            }
+        }
+        visited[current] = false;
+    }
+}
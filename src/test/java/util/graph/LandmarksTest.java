@@ -0,0 +1,87 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LandmarksTest {
+
+    @Test
+    public void farthestSelectionTest() {
+        //on a line of stations the first two landmarks should be its two ends
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        for (int i = 0; i < 5; i++) {
+            builder.addStation("Station" + i, null);
+        }
+        for (int i = 0; i < 4; i++) {
+            builder.addEdge("Station" + i, "Station" + (i + 1), 1.0);
+        }
+        Landmarks landmarks = Landmarks.build(builder.build(), 2);
+
+        assertEquals(2, landmarks.getLandmarkCount());
+        assertEquals(4, landmarks.getLandmarks()[0]);
+        assertEquals(0, landmarks.getLandmarks()[1]);
+        assertEquals("The bound along a line should be exact", 3.0, landmarks.distanceLowerBound(1, 4), 0.0);
+        assertEquals(3, landmarks.stopsLowerBound(4, 1));
+    }
+
+    @Test
+    public void boundsAreAdmissibleTest() {
+        Random random = new Random(5);
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        int stationCount = 60;
+        for (int i = 0; i < stationCount; i++) {
+            builder.addStation("Station" + i, null);
+        }
+        //two unconnected halves, so some landmarks cannot reach some stations
+        for (int i = 0; i < 120; i++) {
+            int half = random.nextInt(2) * stationCount / 2;
+            builder.addEdge("Station" + (half + random.nextInt(stationCount / 2)), "Station" + (half + random.nextInt(stationCount / 2)), 0.5 + random.nextInt(10));
+        }
+        RoutingGraph routingGraph = builder.build();
+        Landmarks landmarks = Landmarks.build(routingGraph, 4);
+        RouteGenerator routeGenerator = new RouteGenerator(null, null, null, null, routingGraph);
+
+        for (int source = 0; source < stationCount; source++) {
+            for (int destination = 0; destination < stationCount; destination++) {
+                int[] path = routeGenerator.findShortestPath(source, destination, false);
+                int[] stops = routeGenerator.explore(source, destination);
+                if (path != null) {
+                    assertTrue(landmarks.distanceLowerBound(source, destination) <= routingGraph.pathLength(path) + 1e-9);
+                    assertTrue(landmarks.stopsLowerBound(source, destination) <= stops.length - 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void landmarkAStarMatchesDijkstraTest() {
+        Random random = new Random(9);
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        int stationCount = 50;
+        for (int i = 0; i < stationCount; i++) {
+            builder.addStation("Station" + i, new Double[]{-0.1 + random.nextDouble() / 10, 51.5 + random.nextDouble() / 10});
+        }
+        for (int i = 0; i < 100; i++) {
+            builder.addEdge("Station" + random.nextInt(stationCount), "Station" + random.nextInt(stationCount), 0.5 + random.nextInt(10));
+        }
+        RoutingGraph routingGraph = builder.build();
+        RouteGenerator routeGenerator = new RouteGenerator(null, null, null, null, routingGraph);
+        RouteGenerator landmarkGenerator = new RouteGenerator(null, null, null, null, routingGraph);
+        landmarkGenerator.setLandmarks(Landmarks.build(routingGraph, 4));
+
+        for (int source = 0; source < stationCount; source++) {
+            for (int destination = 0; destination < stationCount; destination++) {
+                int[] expected = routeGenerator.findShortestPath(source, destination, false);
+                int[] path = landmarkGenerator.findShortestPath(source, destination, true);
+                assertEquals(expected == null, path == null);
+                if (path != null) {
+                    assertEquals(routingGraph.pathLength(expected), routingGraph.pathLength(path), 1e-9);
+                    assertEquals(routeGenerator.explore(source, destination).length, landmarkGenerator.findLeastStopsPath(source, destination).length);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package util.graph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static util.graph.TestNetworks.station;
+
+public class LineStateGraphTest {
+
+    @Test
+    public void stationReachedOnWrongLineFirstTest() {
+        //M is one stop closer on the red line, but only the green line carries on to T without a change
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        station(builder, "S", "Red", "Green");
+        station(builder, "A", "Red");
+        station(builder, "B", "Green");
+        station(builder, "C", "Green");
+        station(builder, "M", "Red", "Green");
+        station(builder, "T", "Green");
+        builder.addEdge("S", "A", 1.0);
+        builder.addEdge("A", "M", 1.0);
+        builder.addEdge("S", "B", 1.0);
+        builder.addEdge("B", "C", 1.0);
+        builder.addEdge("C", "M", 1.0);
+        builder.addEdge("M", "T", 1.0);
+        RoutingGraph routingGraph = builder.build();
+
+        int[] path = routingGraph.getLineStateGraph().findLeastChangesPath(routingGraph.getStationId("S"), routingGraph.getStationId("T"));
+
+        assertNotNull(path);
+        String[] names = new String[path.length];
+        for (int i = 0; i < path.length; i++) {
+            names[i] = routingGraph.getStationName(path[i]);
+        }
+        assertArrayEquals("The route staying on the green line should win over the shorter one with a change", new String[]{"S", "B", "C", "M", "T"}, names);
+    }
+
+    @Test
+    public void fewestStopsBreaksTiesTest() {
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        station(builder, "A", "Red");
+        station(builder, "B", "Red");
+        station(builder, "C", "Red");
+        station(builder, "D", "Red");
+        builder.addEdge("A", "B", 1.0);
+        builder.addEdge("B", "C", 1.0);
+        builder.addEdge("C", "D", 1.0);
+        builder.addEdge("A", "D", 5.0);
+        RoutingGraph routingGraph = builder.build();
+
+        assertArrayEquals(new int[]{0, 3}, routingGraph.getLineStateGraph().findLeastChangesPath(0, 3));
+    }
+
+    @Test
+    public void changeBetweenLinesTest() {
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        station(builder, "A", "Red");
+        station(builder, "B", "Red", "Blue");
+        station(builder, "C", "Blue");
+        station(builder, "D");
+        builder.addEdge("A", "B", 1.0);
+        builder.addEdge("B", "C", 1.0);
+        RoutingGraph routingGraph = builder.build();
+        LineStateGraph lineStateGraph = routingGraph.getLineStateGraph();
+
+        assertEquals("Each station should have an entry, an exit and one state per line", 2 * 4 + 4, lineStateGraph.getStateCount());
+        assertArrayEquals(new int[]{0, 1, 2}, lineStateGraph.findLeastChangesPath(0, 2));
+        assertArrayEquals("A route to the same station should be the station alone", new int[]{1}, lineStateGraph.findLeastChangesPath(1, 1));
+        assertNull("An unconnected station should not be reachable", lineStateGraph.findLeastChangesPath(0, 3));
+        //the count comes back with the result, a graph shared between threads keeps nothing from a search
+        assertTrue(lineStateGraph.search(0, 2, new SearchWorkspace(lineStateGraph.getStateCount(), 0)).settledCount() > 0);
+    }
+
+    @Test
+    public void generalisedCostTest() {
+        //S - A - M - T is a kilometre shorter but changes from the red line to the green one at M
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        station(builder, "S", "Red", "Green");
+        station(builder, "A", "Red");
+        station(builder, "B", "Green");
+        station(builder, "C", "Green");
+        station(builder, "M", "Red", "Green");
+        station(builder, "T", "Green");
+        builder.addEdge("S", "A", 1.0);
+        builder.addEdge("A", "M", 1.0);
+        builder.addEdge("S", "B", 1.0);
+        builder.addEdge("B", "C", 1.0);
+        builder.addEdge("C", "M", 1.0);
+        builder.addEdge("M", "T", 1.0);
+        RoutingGraph routingGraph = builder.build();
+        LineStateGraph lineStateGraph = routingGraph.getLineStateGraph();
+
+        //the same graph answers both, only the weights differ
+        assertArrayEquals("A cheap change should be worth the shorter route", new int[]{0, 1, 4, 5}, lineStateGraph.findLowestCostPath(0, 5, new CostWeights(1.0, 0.0, 0.5)));
+        assertArrayEquals("A costly change should keep the rider on the green line", new int[]{0, 2, 3, 4, 5}, lineStateGraph.findLowestCostPath(0, 5, new CostWeights(1.0, 0.0, 5.0)));
+        assertArrayEquals(new int[]{0, 2, 3, 4, 5}, lineStateGraph.findLowestCostPath(0, 5, CostWeights.DEFAULT));
+
+        assertEquals(8.5, new CostWeights(2.0, 0.5, 3.0).cost(2.0, 3, 1), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new CostWeights(-1.0, 0.5, 5.0));
+        assertThrows(IllegalArgumentException.class, () -> new CostWeights(1.0, Double.NaN, 5.0));
+        assertThrows(IllegalArgumentException.class, () -> new CostWeights(0.0, 0.0, 0.0));
+    }
+}
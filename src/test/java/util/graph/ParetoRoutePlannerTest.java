@@ -0,0 +1,111 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static util.graph.TestNetworks.station;
+
+public class ParetoRoutePlannerTest {
+
+    @Test
+    public void threeWayTradeOffTest() {
+        //the green line is shortest, the direct green edge has the fewest stops and the red to blue route sits in between
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        station(builder, "S", "Green", "Red");
+        station(builder, "A", "Green");
+        station(builder, "B", "Green");
+        station(builder, "C", "Red", "Blue");
+        station(builder, "T", "Green", "Blue");
+        builder.addEdge("S", "A", 1.0);
+        builder.addEdge("A", "B", 1.0);
+        builder.addEdge("B", "T", 1.0);
+        builder.addEdge("S", "T", 10.0);
+        builder.addEdge("S", "C", 2.0);
+        builder.addEdge("C", "T", 2.0);
+        RoutingGraph routingGraph = builder.build();
+
+        List<Journey> journeys = new ParetoRoutePlanner(routingGraph, null).findParetoRoutes(routingGraph.getStationId("S"), routingGraph.getStationId("T"));
+
+        assertEquals(3, journeys.size());
+        assertArrayEquals(new int[]{0, 1, 2, 4}, journeys.get(0).getStations());
+        assertEquals(3.0, journeys.get(0).getDistance(), 1e-9);
+        assertEquals(3, journeys.get(0).getStops());
+        assertEquals(0, journeys.get(0).getChanges());
+        assertArrayEquals(new int[]{0, 4}, journeys.get(1).getStations());
+        assertEquals(1, journeys.get(1).getStops());
+        assertEquals(0, journeys.get(1).getChanges());
+        assertArrayEquals(new int[]{0, 3, 4}, journeys.get(2).getStations());
+        assertEquals(4.0, journeys.get(2).getDistance(), 1e-9);
+        assertEquals(2, journeys.get(2).getStops());
+        assertEquals(1, journeys.get(2).getChanges());
+    }
+
+    @Test
+    public void sameAndUnreachableStationTest() {
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        station(builder, "A", "Red");
+        station(builder, "B", "Red");
+        station(builder, "C", "Blue");
+        builder.addEdge("A", "B", 1.0);
+        RoutingGraph routingGraph = builder.build();
+        ParetoRoutePlanner planner = new ParetoRoutePlanner(routingGraph, null);
+
+        List<Journey> journeys = planner.findParetoRoutes(1, 1);
+        assertEquals(1, journeys.size());
+        assertArrayEquals(new int[]{1}, journeys.get(0).getStations());
+        assertTrue("An unconnected station should have no routes", planner.findParetoRoutes(0, 2).isEmpty());
+    }
+
+    @Test
+    public void extremesMatchSingleSearchesTest() {
+        Random random = new Random(5);
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        int stationCount = 40;
+        for (int i = 0; i < stationCount; i++) {
+            station(builder, "Station" + i, "Line" + random.nextInt(5), "Line" + random.nextInt(5));
+        }
+        for (int i = 0; i < 80; i++) {
+            builder.addEdge("Station" + random.nextInt(stationCount), "Station" + random.nextInt(stationCount), 0.5 + random.nextInt(10) / 2.0);
+        }
+        RoutingGraph routingGraph = builder.build();
+        RouteGenerator routeGenerator = new RouteGenerator(null, null, null, null, routingGraph);
+        LineStateGraph lineStateGraph = routingGraph.getLineStateGraph();
+
+        for (ParetoRoutePlanner planner : new ParetoRoutePlanner[]{new ParetoRoutePlanner(routingGraph, null), new ParetoRoutePlanner(routingGraph, ContractionHierarchy.build(routingGraph))}) {
+            for (int source = 0; source < stationCount; source++) {
+                for (int destination = 0; destination < stationCount; destination++) {
+                    List<Journey> journeys = planner.findParetoRoutes(source, destination);
+                    int[] shortest = routeGenerator.findShortestPath(source, destination, false);
+                    assertEquals("Routes should exist exactly when Dijkstra finds one", shortest == null, journeys.isEmpty());
+                    if (shortest == null) {
+                        continue;
+                    }
+
+                    double fewestDistance = Double.POSITIVE_INFINITY;
+                    int fewestStops = Integer.MAX_VALUE;
+                    int fewestChanges = Integer.MAX_VALUE;
+                    for (Journey journey : journeys) {
+                        int[] stations = journey.getStations();
+                        assertEquals(source, stations[0]);
+                        assertEquals(destination, stations[stations.length - 1]);
+                        assertEquals("Each journey should report its own distance", routingGraph.pathLength(stations), journey.getDistance(), 1e-9);
+                        assertEquals(stations.length - 1, journey.getStops());
+                        assertEquals(Journey.countChanges(routingGraph, stations), journey.getChanges());
+                        for (Journey other : journeys) {
+                            assertTrue("No journey should beat another on every criterion", other == journey || !other.dominates(journey));
+                        }
+                        fewestDistance = Math.min(fewestDistance, journey.getDistance());
+                        fewestStops = Math.min(fewestStops, journey.getStops());
+                        fewestChanges = Math.min(fewestChanges, journey.getChanges());
+                    }
+                    assertEquals(routingGraph.pathLength(shortest), fewestDistance, 1e-9);
+                    assertEquals(routeGenerator.explore(source, destination).length - 1, fewestStops);
+                    assertEquals(Journey.countChanges(routingGraph, lineStateGraph.findLeastChangesPath(source, destination)), fewestChanges);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package util.graph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RouteCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsedTest() {
+        RouteCache routeCache = new RouteCache(2);
+        routeCache.put(0, 1, RouteType.SHORTEST, SearchAlgorithm.STANDARD, new int[]{0, 1});
+        routeCache.put(0, 2, RouteType.SHORTEST, SearchAlgorithm.STANDARD, new int[]{0, 1, 2});
+
+        //reading the first route makes the second one the least recently used
+        assertArrayEquals(new int[]{0, 1}, routeCache.get(0, 1, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        routeCache.put(1, 2, RouteType.SHORTEST, SearchAlgorithm.STANDARD, new int[]{1, 2});
+
+        assertEquals(2, routeCache.size());
+        assertEquals(1, routeCache.getEvictions());
+        assertNull(routeCache.get(0, 2, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertNotNull(routeCache.get(0, 1, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertEquals(2, routeCache.getHits());
+        assertEquals(1, routeCache.getMisses());
+    }
+
+    @Test
+    public void keyIncludesTypeAndAlgorithmTest() {
+        RouteCache routeCache = new RouteCache(10);
+        routeCache.put(3, 4, RouteType.SHORTEST, SearchAlgorithm.A_STAR, new int[]{3, 4});
+        routeCache.put(3, 4, RouteType.LEAST_STOPS, SearchAlgorithm.A_STAR, null);
+
+        assertNull(routeCache.get(4, 3, RouteType.SHORTEST, SearchAlgorithm.A_STAR));
+        assertNull(routeCache.get(3, 4, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertArrayEquals(new int[]{3, 4}, routeCache.get(3, 4, RouteType.SHORTEST, SearchAlgorithm.A_STAR));
+        assertSame("A search that found nothing should be cached as no route", RouteCache.NO_ROUTE, routeCache.get(3, 4, RouteType.LEAST_STOPS, SearchAlgorithm.A_STAR));
+        assertNotEquals(RouteCache.key(1, 2, RouteType.SHORTEST, SearchAlgorithm.STANDARD), RouteCache.key(2, 1, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+    }
+
+    @Test
+    public void networkVersionInvalidatesTest() {
+        RouteCache routeCache = new RouteCache(10);
+        routeCache.setNetworkVersion(1);
+        routeCache.put(0, 1, RouteType.SHORTEST, SearchAlgorithm.STANDARD, new int[]{0, 1});
+        routeCache.put(1, 0, RouteType.SHORTEST, SearchAlgorithm.STANDARD, new int[]{1, 0});
+
+        routeCache.setNetworkVersion(1);
+        assertEquals("The same version should keep every route", 2, routeCache.size());
+        routeCache.setNetworkVersion(2);
+        assertEquals(0, routeCache.size());
+        assertEquals(2, routeCache.getInvalidations());
+        assertEquals(2, routeCache.getNetworkVersion());
+    }
+
+    @Test
+    public void invalidateAffectedRoutesTest() {
+        RouteCache routeCache = new RouteCache(10);
+        routeCache.put(0, 2, RouteType.SHORTEST, SearchAlgorithm.STANDARD, new int[]{0, 1, 2});
+        routeCache.put(0, 3, RouteType.SHORTEST, SearchAlgorithm.STANDARD, new int[]{0, 3});
+        routeCache.put(0, 4, RouteType.SHORTEST, SearchAlgorithm.STANDARD, null);
+
+        assertEquals(1, routeCache.invalidate(route -> route.length > 2 && route[1] == 1));
+        assertNull(routeCache.get(0, 2, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertNotNull(routeCache.get(0, 3, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertSame(RouteCache.NO_ROUTE, routeCache.get(0, 4, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertEquals(1, routeCache.getInvalidations());
+    }
+
+    @Test
+    public void invalidateRouteTypeTest() {
+        RouteCache routeCache = new RouteCache(10);
+        routeCache.put(0, 2, RouteType.GENERALISED_COST, SearchAlgorithm.STANDARD, new int[]{0, 1, 2});
+        routeCache.put(0, 2, RouteType.GENERALISED_COST, SearchAlgorithm.A_STAR, new int[]{0, 1, 2});
+        routeCache.put(0, 2, RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD, new int[]{0, 1, 2});
+
+        assertEquals(2, routeCache.invalidate(RouteType.GENERALISED_COST));
+        assertNull(routeCache.get(0, 2, RouteType.GENERALISED_COST, SearchAlgorithm.STANDARD));
+        assertNotNull(routeCache.get(0, 2, RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD));
+    }
+}
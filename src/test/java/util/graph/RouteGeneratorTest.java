@@ -12,7 +12,10 @@ import org.mockito.MockitoAnnotations;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.gen5.api.Assertions.fail;
@@ -121,6 +124,81 @@ public class RouteGeneratorTest {
         assertTrue("Should find shortest route between connected stations", result);
     }
 
+    @Test
+    public void shortestRouteTakesLowestWeightPathTest() {
+        //the direct edge is longer than going through stations 2 and 3
+        routeGenerator.calculateShortestRoute();
+        assertArrayEquals(new String[]{"Station1", "Station2", "Station3", "Station4"}, routeNames(routeGenerator));
+
+        routeGenerator.calculateShortestRouteAStar();
+        assertArrayEquals(new String[]{"Station1", "Station2", "Station3", "Station4"}, routeNames(routeGenerator));
+
+        routeGenerator.calculateShortestRouteBidirectional();
+        assertArrayEquals(new String[]{"Station1", "Station2", "Station3", "Station4"}, routeNames(routeGenerator));
+    }
+
+    @Test
+    public void leastStopsTakesDirectEdgeTest() {
+        routeGenerator.calculateLeastStationStops();
+        assertArrayEquals(new String[]{"Station1", "Station4"}, routeNames(routeGenerator));
+
+        routeGenerator.calculateLeastStationStopsAStar();
+        assertArrayEquals(new String[]{"Station1", "Station4"}, routeNames(routeGenerator));
+
+        routeGenerator.calculateLeastStationStopsBidirectional();
+        assertArrayEquals(new String[]{"Station1", "Station4"}, routeNames(routeGenerator));
+    }
+
+    @Test
+    public void bidirectionalMatchesUnidirectionalTest() {
+        RoutingGraph routingGraph = randomRoutingGraph(60, 120, 3);
+        RouteGenerator generator = new RouteGenerator(stations, startStation, endStation, graph, routingGraph);
+
+        for (int source = 0; source < routingGraph.getStationCount(); source++) {
+            for (int destination = 0; destination < routingGraph.getStationCount(); destination++) {
+                int[] path = generator.findShortestPath(source, destination, false);
+                int[] bidirectionalPath = generator.findShortestPathBidirectional(source, destination);
+                assertEquals("Both searches should find a route or neither should", path == null, bidirectionalPath == null);
+                if (path == null) {
+                    continue;
+                }
+                assertEquals(source, bidirectionalPath[0]);
+                assertEquals(destination, bidirectionalPath[bidirectionalPath.length - 1]);
+                assertEquals("Bidirectional Dijkstra should find a route of the same length", routingGraph.pathLength(path), routingGraph.pathLength(bidirectionalPath), 1e-9);
+
+                int[] stops = generator.explore(source, destination);
+                int[] bidirectionalStops = generator.exploreBidirectional(source, destination);
+                assertEquals("Bidirectional BFS should find a route with the same number of stops", stops.length, bidirectionalStops.length);
+                assertTrue("Every step of the route should follow an edge", routingGraph.pathLength(bidirectionalStops) < Double.POSITIVE_INFINITY);
+            }
+        }
+    }
+
+    private RoutingGraph randomRoutingGraph(int stationCount, int edgeCount, long seed) {
+        //a random graph in two unconnected halves, so some pairs have no route
+        Random random = new Random(seed);
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        for (int i = 0; i < stationCount; i++) {
+            builder.addStation("Station" + i, new Double[]{-0.1 + random.nextDouble() / 10, 51.5 + random.nextDouble() / 10});
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            int half = random.nextInt(2) * stationCount / 2;
+            int from = half + random.nextInt(stationCount / 2);
+            int to = half + random.nextInt(stationCount / 2);
+            builder.addEdge("Station" + from, "Station" + to, 0.5 + random.nextInt(10));
+        }
+        return builder.build();
+    }
+
+    private String[] routeNames(RouteGenerator generator) {
+        int[] route = generator.getRoute();
+        String[] names = new String[route.length];
+        for (int i = 0; i < route.length; i++) {
+            names[i] = generator.getRoutingGraph().getStationName(route[i]);
+        }
+        return names;
+    }
+
     @Test
     public void shortestRouteMissingNodesTest() {
         Graph emptyGraph = new SingleGraph("EmptyGraph");
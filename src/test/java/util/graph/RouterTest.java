@@ -0,0 +1,146 @@
+package util.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class RouterTest {
+
+    private RoutingGraph lineAndBranch() {
+        //the shared line and branch with E on a longer red A - E - C and F cut off from the rest instead
+        RoutingGraph.Builder builder = TestNetworks.lineAndBranchBuilder();
+        builder.addStation("F", null);
+        builder.addStationLine("E", "Red");
+        builder.addEdge("A", "E", 4.0);
+        builder.addEdge("E", "C", 4.0);
+        return builder.build();
+    }
+
+    @Test
+    public void routeTypesTest() {
+        RoutingGraph routingGraph = lineAndBranch();
+        Router router = new Router(new RoutingSnapshot(routingGraph, ContractionHierarchy.build(routingGraph), null));
+
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            RouteResult shortest = router.route(0, 2, RouteType.SHORTEST, algorithm);
+            assertArrayEquals(new int[]{0, 1, 2}, shortest.getStations());
+            assertEquals(5.0, shortest.getDistance(), 1e-9);
+            assertEquals(2, shortest.getStops());
+            assertEquals(0, shortest.getChanges());
+            assertEquals(2, router.route(0, 2, RouteType.LEAST_STOPS, algorithm).getStops());
+        }
+
+        RouteResult changes = router.route(3, 0, RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD);
+        assertArrayEquals(new int[]{3, 1, 0}, changes.getStations());
+        assertEquals(1, changes.getChanges());
+        assertTrue(changes.getSettledCount() > 0);
+
+        RouteResult none = router.route(0, 5, RouteType.SHORTEST, SearchAlgorithm.STANDARD);
+        assertFalse(none.isFound());
+        assertEquals(0, none.getStations().length);
+        assertEquals(Double.POSITIVE_INFINITY, none.getDistance(), 0.0);
+    }
+
+    @Test
+    public void reusedWorkspacesTest() {
+        RoutingGraph routingGraph = lineAndBranch();
+        Router router = new Router(new RoutingSnapshot(routingGraph, ContractionHierarchy.build(routingGraph), null));
+
+        //a search that fails or goes elsewhere leaves nothing behind for the next one on the same thread
+        for (int round = 0; round < 3; round++) {
+            for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+                assertFalse(router.route(0, 5, RouteType.SHORTEST, algorithm).isFound());
+                assertArrayEquals(new int[]{3, 1, 2}, router.route(3, 2, RouteType.SHORTEST, algorithm).getStations());
+                assertArrayEquals(new int[]{4, 2}, router.route(4, 2, RouteType.LEAST_STOPS, algorithm).getStations());
+            }
+            assertFalse(router.route(5, 0, RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD).isFound());
+            assertEquals(1, router.route(4, 3, RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD).getChanges());
+        }
+    }
+
+    @Test
+    public void invalidQueryTest() {
+        Router router = new Router(new RoutingSnapshot(lineAndBranch(), null, null));
+        assertThrows(IllegalArgumentException.class, () -> router.route(0, 6, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertThrows(IllegalArgumentException.class, () -> router.route(-1, 0, RouteType.SHORTEST, SearchAlgorithm.STANDARD));
+        assertThrows(IllegalArgumentException.class, () -> router.route(0, 2, RouteType.ALL_TRADE_OFFS, SearchAlgorithm.STANDARD));
+        //without a hierarchy in the snapshot there is nothing to query
+        assertThrows(IllegalStateException.class, () -> router.route(0, 2, RouteType.SHORTEST, SearchAlgorithm.CONTRACTION_HIERARCHY));
+        assertThrows(IllegalArgumentException.class, () -> new Router(null));
+        assertThrows(IllegalArgumentException.class, () -> new RoutingSnapshot(null, null, null));
+    }
+
+    @Test
+    public void concurrentQueriesTest() throws Exception {
+        RoutingGraph routingGraph = lineAndBranch();
+        Router router = new Router(new RoutingSnapshot(routingGraph, ContractionHierarchy.build(routingGraph), null));
+        int stationCount = routingGraph.getStationCount();
+        RouteType[] routeTypes = {RouteType.SHORTEST, RouteType.LEAST_STOPS, RouteType.LEAST_CHANGES};
+
+        //the same query answered on many threads at once gives the answer it gives on its own
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int task = 0; task < 200; task++) {
+                int source = task % stationCount;
+                int destination = (task / stationCount) % stationCount;
+                RouteType routeType = routeTypes[task % routeTypes.length];
+                SearchAlgorithm algorithm = SearchAlgorithm.values()[task % SearchAlgorithm.values().length];
+                SearchAlgorithm used = routeType == RouteType.SHORTEST ? algorithm : SearchAlgorithm.STANDARD;
+                RouteResult expected = router.route(source, destination, routeType, used);
+                futures.add(executor.submit(() -> {
+                    RouteResult actual = router.route(source, destination, routeType, used);
+                    return expected.getDistance() == actual.getDistance() && expected.getStops() == actual.getStops() && expected.getChanges() == actual.getChanges();
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void disruptionsTest() {
+        RoutingGraph routingGraph = lineAndBranch();
+        Router router = new Router(new RoutingSnapshot(routingGraph, ContractionHierarchy.build(routingGraph), null));
+        Disruptions disruptions = routingGraph.getDisruptions();
+
+        //with B - C closed every search goes round by E, the hierarchy was built with it open so it is not used
+        disruptions.closeEdge(routingGraph.getArcEdges()[routingGraph.findArc(1, 2)]);
+        for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+            assertArrayEquals(new int[]{0, 4, 2}, router.route(0, 2, RouteType.SHORTEST, algorithm).getStations());
+            assertArrayEquals(new int[]{0, 4, 2}, router.route(0, 2, RouteType.LEAST_STOPS, algorithm).getStations());
+        }
+        assertArrayEquals(new int[]{3, 1, 0, 4, 2}, router.route(3, 2, RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD).getStations());
+
+        //a closed station can neither be passed through nor travelled to
+        disruptions.closeStation(4);
+        assertFalse(router.route(0, 2, RouteType.SHORTEST, SearchAlgorithm.BIDIRECTIONAL).isFound());
+        assertFalse(router.route(0, 4, RouteType.LEAST_STOPS, SearchAlgorithm.STANDARD).isFound());
+        assertFalse(router.route(3, 2, RouteType.LEAST_CHANGES, SearchAlgorithm.STANDARD).isFound());
+
+        disruptions.reopenAll();
+        assertArrayEquals(new int[]{0, 1, 2}, router.route(0, 2, RouteType.SHORTEST, SearchAlgorithm.CONTRACTION_HIERARCHY).getStations());
+    }
+
+    @Test
+    public void generalisedCostTest() {
+        Router router = new Router(new RoutingSnapshot(lineAndBranch(), null, null));
+
+        RouteResult balanced = router.route(3, 2, RouteType.GENERALISED_COST, SearchAlgorithm.STANDARD);
+        assertArrayEquals(new int[]{3, 1, 2}, balanced.getStations());
+        assertEquals(1, balanced.getChanges());
+        //when distance is all that counts the answer is the shortest route
+        assertEquals(5.0, router.route(0, 2, new CostWeights(1.0, 0.0, 0.0)).getDistance(), 1e-9);
+        assertFalse(router.route(0, 5, CostWeights.DEFAULT).isFound());
+        assertThrows(IllegalArgumentException.class, () -> router.route(0, 2, null));
+    }
+}
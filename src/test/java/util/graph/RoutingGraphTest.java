@@ -0,0 +1,220 @@
+package util.graph;
+
+import dto.RailLine;
+import dto.RailStation;
+import dto.Route;
+import dto.Station;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RoutingGraphTest {
+
+    @Test
+    public void fromGraphTest() {
+        Graph graph = new SingleGraph("TestGraph");
+        graph.addNode("A");
+        graph.addNode("B");
+        graph.addNode("C");
+        Edge ab = graph.addEdge("AB", "A", "B", false);
+        ab.setAttribute("length", 2.5);
+        graph.addEdge("BC", "B", "C", false);
+
+        RoutingGraph routingGraph = RoutingGraph.fromGraph(graph, null);
+
+        assertEquals(3, routingGraph.getStationCount());
+        assertEquals(2, routingGraph.getEdgeCount());
+        assertEquals("Every edge should be stored in both directions", 4, routingGraph.getArcCount());
+        int a = routingGraph.getStationId("A");
+        int b = routingGraph.getStationId("B");
+        int c = routingGraph.getStationId("C");
+        assertEquals(2.5, routingGraph.getWeights()[routingGraph.findArc(a, b)], 0.0);
+        assertEquals(2.5, routingGraph.getWeights()[routingGraph.findArc(b, a)], 0.0);
+        assertEquals("Edges without a length should default to 1", 1.0, routingGraph.getWeights()[routingGraph.findArc(c, b)], 0.0);
+        assertEquals(-1, routingGraph.findArc(a, c));
+        assertEquals(3.5, routingGraph.pathLength(new int[]{a, b, c}), 1e-9);
+        assertTrue("Missing coordinates should be NaN", Double.isNaN(routingGraph.getLatitudes()[a]));
+    }
+
+    @Test
+    public void fromStationsTest() {
+        RailLine line = new RailLine();
+        line.setName("Central");
+
+        RailStation railStation1 = new RailStation();
+        railStation1.setName("Station 1");
+        railStation1.setCoordinates(new Double[]{-0.1278, 51.5074});
+        RailStation railStation2 = new RailStation();
+        railStation2.setName("Station 2");
+        railStation2.setCoordinates(new Double[]{-0.1280, 51.5080});
+
+        Route route1to2 = new Route(line);
+        route1to2.setDestination(railStation2);
+        Route route2to1 = new Route(line);
+        route2to1.setDestination(railStation1);
+        RailStation unknown = new RailStation();
+        unknown.setName("Unknown");
+        Route routeToUnknown = new Route(line);
+        routeToUnknown.setDestination(unknown);
+
+        List<Station> stations = new ArrayList<>();
+        stations.add(new Station(railStation1, new ArrayList<>(List.of(route1to2, routeToUnknown))));
+        stations.add(new Station(railStation2, new ArrayList<>(List.of(route2to1))));
+        stations.add(null);
+
+        Map<String, Map<String, Double>> distances = new HashMap<>();
+        distances.put("Station 1", Map.of("Station 2", 0.07));
+
+        RoutingGraph routingGraph = RoutingGraph.fromStations(stations, distances);
+
+        assertEquals(2, routingGraph.getStationCount());
+        assertEquals("The reverse route and the route to an unknown station should not add edges", 1, routingGraph.getEdgeCount());
+        assertEquals(0.07, routingGraph.getWeights()[routingGraph.findArc(1, 0)], 0.0);
+        assertEquals(51.5074, routingGraph.getLatitudes()[0], 0.0);
+        assertEquals(-0.1280, routingGraph.getLongitudes()[1], 0.0);
+        assertEquals(-1, routingGraph.getStationId("Unknown"));
+        assertNull("Lines without a colour should leave the edge uncoloured", routingGraph.getEdgeColour(0));
+    }
+
+    @Test
+    public void edgeColoursTest() {
+        RailLine uncoloured = new RailLine();
+        uncoloured.setName("Uncoloured");
+        RailLine central = new RailLine();
+        central.setName("Central");
+        central.setColour("#E41F1F");
+        RailLine victoria = new RailLine();
+        victoria.setName("Victoria");
+        victoria.setColour("#0098D4");
+
+        RailStation railStation1 = new RailStation();
+        railStation1.setName("Station 1");
+        RailStation railStation2 = new RailStation();
+        railStation2.setName("Station 2");
+        RailStation railStation3 = new RailStation();
+        railStation3.setName("Station 3");
+
+        Route uncolouredTo2 = new Route(uncoloured);
+        uncolouredTo2.setDestination(railStation2);
+        Route centralTo2 = new Route(central);
+        centralTo2.setDestination(railStation2);
+        Route victoriaTo3 = new Route(victoria);
+        victoriaTo3.setDestination(railStation3);
+        Route centralTo3 = new Route(central);
+        centralTo3.setDestination(railStation3);
+
+        List<Station> stations = new ArrayList<>();
+        stations.add(new Station(railStation1, new ArrayList<>(List.of(uncolouredTo2, centralTo2))));
+        stations.add(new Station(railStation2, new ArrayList<>(List.of(victoriaTo3, centralTo3))));
+        stations.add(new Station(railStation3, new ArrayList<>()));
+
+        RoutingGraph routingGraph = RoutingGraph.fromStations(stations, null);
+
+        int edge12 = routingGraph.getArcEdges()[routingGraph.findArc(0, 1)];
+        int edge23 = routingGraph.getArcEdges()[routingGraph.findArc(1, 2)];
+        assertEquals("The first coloured route to a destination should colour the edge", "#E41F1F", routingGraph.getEdgeColour(edge12));
+        assertEquals("#0098D4", routingGraph.getEdgeColour(edge23));
+        assertEquals("Each colour should be stored once", 2, routingGraph.getColours().length);
+    }
+
+    @Test
+    public void stationLinesTest() {
+        RailLine centralWest = new RailLine();
+        centralWest.setName("Central - Epping to West Ruislip");
+        RailLine centralEast = new RailLine();
+        centralEast.setName("Central - West Ruislip to Epping");
+        RailLine victoria = new RailLine();
+        victoria.setName("Victoria");
+
+        RailStation railStation1 = new RailStation();
+        railStation1.setName("Station 1");
+        railStation1.setRailLines(new ArrayList<>(List.of(centralWest, centralEast, victoria)));
+        RailStation railStation2 = new RailStation();
+        railStation2.setName("Station 2");
+        railStation2.setRailLines(new ArrayList<>(List.of(centralEast)));
+
+        List<Station> stations = new ArrayList<>();
+        stations.add(new Station(railStation1, new ArrayList<>()));
+        stations.add(new Station(railStation2, new ArrayList<>()));
+
+        RoutingGraph routingGraph = RoutingGraph.fromStations(stations, null);
+
+        assertEquals("Both directions of a line should be interned as one line", 2, routingGraph.getLineCount());
+        assertArrayEquals(new String[]{"Central", "Victoria"}, routingGraph.getLineNames());
+        assertArrayEquals(new int[]{0, 2, 3}, routingGraph.getLineOffsets());
+        assertArrayEquals(new int[]{0, 1, 0}, routingGraph.getStationLines());
+    }
+
+    @Test
+    public void lineChangesTest() {
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        String[][] stationLines = {{"Red"}, {"Red", "Blue"}, {"Blue"}, {"Green"}, {"Green"}};
+        for (int s = 0; s < stationLines.length; s++) {
+            builder.addStation("Station " + s, null);
+            for (String line : stationLines[s]) {
+                builder.addStationLine("Station " + s, line);
+            }
+        }
+        //enough extra lines at one station to need a second word in its bitset
+        for (int line = 0; line < 70; line++) {
+            builder.addStationLine("Station 4", "Line " + line);
+        }
+        RoutingGraph routingGraph = builder.build();
+
+        assertTrue(routingGraph.hasLine(1, 1));
+        assertFalse(routingGraph.hasLine(0, 1));
+        assertTrue("Lines past the first word should be stored", routingGraph.hasLine(4, routingGraph.getLineCount() - 1));
+        assertEquals("Red to blue and blue to green should be two changes", 2, routingGraph.lineChanges(new int[]{0, 1, 2, 3, 4}));
+        assertEquals("A single hop should never count as a change", 0, routingGraph.lineChanges(new int[]{0, 3}));
+
+        long[] lines = routingGraph.lineSet(1);
+        assertFalse("A station without a common line should leave the set untouched", routingGraph.retainLines(lines, 3));
+        assertEquals("[Red, Blue]", routingGraph.describeLines(lines));
+        assertTrue(routingGraph.retainLines(lines, 2));
+        assertEquals("[Blue]", routingGraph.describeLines(lines));
+    }
+
+    @Test
+    public void lowerBoundTest() {
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        int a = builder.addStation("A", new Double[]{-0.12, 51.50});
+        int b = builder.addStation("B", new Double[]{-0.12, 51.51});
+        int c = builder.addStation("C", new Double[]{-0.12, 51.53});
+        //a 0.01 degree step is about 1.11 km, so the rounded-down weight is below the straight line distance
+        builder.addEdge("A", "B", 1.0);
+        builder.addEdge("B", "C", 2.5);
+        RoutingGraph routingGraph = builder.build();
+
+        assertTrue("The scale should shrink below 1 when an edge is shorter than its straight line", routingGraph.getHeuristicScale() < 1.0);
+        for (int from = 0; from < 3; from++) {
+            for (int to = 0; to < 3; to++) {
+                for (int arc = routingGraph.getOffsets()[from]; arc < routingGraph.getOffsets()[from + 1]; arc++) {
+                    int next = routingGraph.getTargets()[arc];
+                    assertTrue("The heuristic should be consistent", routingGraph.lowerBound(from, to) <= routingGraph.getWeights()[arc] + routingGraph.lowerBound(next, to));
+                }
+            }
+        }
+        assertTrue(routingGraph.lowerBound(a, c) <= 3.5);
+        assertTrue(routingGraph.lowerBound(a, c) > routingGraph.lowerBound(b, c));
+        assertEquals(0.0, routingGraph.lowerBound(c, c), 0.0);
+    }
+
+    @Test
+    public void lowerBoundWithoutCoordinatesTest() {
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        builder.addStation("A", new Double[]{-0.12, 51.50});
+        builder.addStation("B", null);
+        builder.addEdge("A", "B", 1.0);
+        RoutingGraph routingGraph = builder.build();
+
+        assertEquals("Without every coordinate the heuristic should fall back to zero", 0.0, routingGraph.lowerBound(0, 1), 0.0);
+    }
+}
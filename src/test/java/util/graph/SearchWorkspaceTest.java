@@ -0,0 +1,43 @@
+package util.graph;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SearchWorkspaceTest {
+
+    @Test
+    public void resetForgetsPreviousSearchTest() {
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        builder.addStation("A", null);
+        builder.addStation("B", null);
+        builder.addEdge("A", "B", 1.0);
+        SearchWorkspace workspace = new SearchWorkspace(builder.build());
+
+        assertEquals(Double.POSITIVE_INFINITY, workspace.getDistance(0), 0.0);
+        workspace.reach(0, 2.5, 1);
+        workspace.settle(0);
+        workspace.banStation(1);
+        workspace.banArc(0);
+        workspace.getOpenSet().push(1, 1.0);
+        assertEquals(2.5, workspace.getDistance(0), 0.0);
+        assertEquals(1, workspace.getPredecessor(0));
+        assertTrue(workspace.isReached(0));
+        assertFalse(workspace.isReached(1));
+        assertEquals(2, workspace.getQueue().length);
+        assertTrue(workspace.isSettled(0));
+        assertTrue(workspace.isStationBanned(1));
+        assertTrue(workspace.isArcBanned(0));
+
+        int generation = workspace.getGeneration();
+        workspace.reset();
+        assertEquals(generation + 1, workspace.getGeneration());
+        assertEquals(Double.POSITIVE_INFINITY, workspace.getDistance(0), 0.0);
+        assertEquals(-1, workspace.getPredecessor(0));
+        assertFalse(workspace.isReached(0));
+        assertFalse(workspace.isSettled(0));
+        assertFalse(workspace.isStationBanned(1));
+        assertFalse(workspace.isArcBanned(0));
+        assertTrue("Reset should empty the open set", workspace.getOpenSet().isEmpty());
+    }
+}
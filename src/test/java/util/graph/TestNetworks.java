@@ -0,0 +1,53 @@
+package util.graph;
+
+//small networks shared by the routing tests
+public class TestNetworks {
+
+    private TestNetworks() {
+    }
+
+    public static RoutingGraph.Builder station(RoutingGraph.Builder builder, String name, String... lines) {
+        builder.addStation(name, null);
+        for (String line : lines) {
+            builder.addStationLine(name, line);
+        }
+        return builder;
+    }
+
+    public static RoutingGraph.Builder lineAndBranchBuilder() {
+        //A - B - C on the red line, B - D on the blue line and E cut off from the rest, coordinates in KML order as FileParser reads them
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        builder.addStation("A", new Double[]{-0.10, 51.50});
+        builder.addStation("B", new Double[]{-0.11, 51.51});
+        builder.addStation("C", new Double[]{-0.12, 51.52});
+        builder.addStation("D, East", null);
+        builder.addStation("E", null);
+        builder.addStationLine("A", "Red");
+        builder.addStationLine("B", "Red");
+        builder.addStationLine("B", "Blue");
+        builder.addStationLine("C", "Red");
+        builder.addStationLine("D, East", "Blue");
+        builder.addEdge("A", "B", 2.0);
+        builder.addEdge("B", "C", 3.0);
+        builder.addEdge("B", "D, East", 1.5);
+        return builder;
+    }
+
+    public static RoutingGraph lineAndBranch() {
+        return lineAndBranchBuilder().build();
+    }
+
+    public static RoutingGraph crossingLines() {
+        //A - B - C - D on the red line and E - B - F on the blue line, every stretch 2 km, lines left to the timetable
+        RoutingGraph.Builder builder = new RoutingGraph.Builder();
+        for (String station : new String[]{"A", "B", "C", "D", "E", "F"}) {
+            builder.addStation(station, null);
+        }
+        builder.addEdge("A", "B", 2.0);
+        builder.addEdge("B", "C", 2.0);
+        builder.addEdge("C", "D", 2.0);
+        builder.addEdge("E", "B", 2.0);
+        builder.addEdge("B", "F", 2.0);
+        return builder.build();
+    }
+}
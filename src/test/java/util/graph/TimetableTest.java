@@ -0,0 +1,136 @@
+package util.graph;
+
+import dto.RailStation;
+import org.junit.Test;
+import util.StationIndex;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static util.graph.TestNetworks.crossingLines;
+
+public class TimetableTest {
+
+    private Map<String, List<RailStation>> lineSegments() {
+        Map<String, List<RailStation>> lineToStationsMap = new HashMap<>();
+        String[][] segments = {{"Red - A to B", "A", "B"}, {"Red - B to C", "B", "C"}, {"Red - C to D", "C", "D"}, {"Blue - E to B", "E", "B"}, {"Blue - B to F", "B", "F"}};
+        for (String[] segment : segments) {
+            List<RailStation> stations = new ArrayList<>();
+            for (int i = 1; i < segment.length; i++) {
+                RailStation station = new RailStation();
+                station.setName(segment[i]);
+                stations.add(station);
+            }
+            lineToStationsMap.put(segment[0], stations);
+        }
+        return lineToStationsMap;
+    }
+
+    @Test
+    public void timeTest() {
+        assertEquals(8 * 3600 + 5 * 60 + 30, Timetable.parseTime("08:05:30"));
+        assertEquals(25 * 3600, Timetable.parseTime(" 25:00:00"));
+        assertEquals("25:00:00", Timetable.formatTime(25 * 3600));
+        assertEquals("07:09:03", Timetable.formatTime(Timetable.parseTime("7:09:03")));
+        assertThrows(IllegalArgumentException.class, () -> Timetable.parseTime("08:05"));
+        assertThrows(IllegalArgumentException.class, () -> Timetable.parseTime("08:61:00"));
+        assertThrows(IllegalArgumentException.class, () -> Timetable.parseTime("eight"));
+    }
+
+    @Test
+    public void builderTest() {
+        Timetable.Builder builder = new Timetable.Builder(3);
+        int first = builder.addTrip("first");
+        int second = builder.addTrip("second");
+        builder.addConnection(second, 2, 1, 600, 700);
+        builder.addConnection(first, 0, 1, 100, 200);
+        builder.addConnection(first, 1, 2, 200, 300);
+        Timetable timetable = builder.build();
+
+        //connections come out in departure order whatever order they went in
+        assertEquals(3, timetable.getConnectionCount());
+        assertEquals(2, timetable.getTripCount());
+        assertArrayEquals(new int[]{100, 200, 600}, timetable.getDepartureTimes());
+        assertArrayEquals(new int[]{first, first, second}, timetable.getTrips());
+        assertEquals(1, timetable.firstDepartingAt(150));
+        assertEquals(1, timetable.firstDepartingAt(200));
+        assertEquals(3, timetable.firstDepartingAt(601));
+
+        assertThrows(IllegalArgumentException.class, () -> builder.addConnection(first, 0, 1, 300, 299));
+        assertThrows(IllegalArgumentException.class, () -> builder.addConnection(first, 0, 3, 300, 400));
+        assertThrows(IllegalArgumentException.class, () -> builder.addConnection(5, 0, 1, 300, 400));
+    }
+
+    @Test
+    public void readWriteTest() throws Exception {
+        RoutingGraph routingGraph = crossingLines();
+        StationIndex stationIndex = new StationIndex(routingGraph.getStationNames());
+        //columns in any order, rows out of sequence, names matched as typed elsewhere and a stop outside the network
+        String stopTimes = "stop_sequence,stop_id,trip_id,departure_time,arrival_time\n"
+                + "2,c,\"Red, early\",08:06:00,08:05:00\n"
+                + "1,B,\"Red, early\",08:02:30,08:02:00\n"
+                + "0,A,\"Red, early\",08:00:00,08:00:00\n"
+                + "3,d,\"Red, early\",08:09:00,08:09:00\n"
+                + "0,E,Blue 1,08:01:00,08:01:00\n"
+                + "1,Nowhere,Blue 1,08:03:00,08:03:00\n"
+                + "2,F,Blue 1,08:05:00,08:05:00\n";
+
+        Timetable timetable = Timetable.read(new BufferedReader(new StringReader(stopTimes)), stationIndex);
+        assertEquals(3, timetable.getConnectionCount());
+        assertArrayEquals(new int[]{0, 1, 2}, timetable.getDepartureStations());
+        assertArrayEquals(new int[]{1, 2, 3}, timetable.getArrivalStations());
+        assertArrayEquals(new int[]{28800, 28950, 29160}, timetable.getDepartureTimes());
+        assertArrayEquals(new int[]{28920, 29100, 29340}, timetable.getArrivalTimes());
+        assertEquals("Red, early", timetable.getTripNames()[timetable.getTrips()[0]]);
+
+        StringWriter output = new StringWriter();
+        timetable.write(output, routingGraph.getStationNames());
+        Timetable reread = Timetable.read(new BufferedReader(new StringReader(output.toString())), stationIndex);
+        assertArrayEquals(timetable.getDepartureStations(), reread.getDepartureStations());
+        assertArrayEquals(timetable.getArrivalStations(), reread.getArrivalStations());
+        assertArrayEquals(timetable.getDepartureTimes(), reread.getDepartureTimes());
+        assertArrayEquals(timetable.getArrivalTimes(), reread.getArrivalTimes());
+
+        assertThrows(IllegalArgumentException.class, () -> Timetable.read(new BufferedReader(new StringReader("trip_id,stop_id\n")), stationIndex));
+        assertThrows(IllegalArgumentException.class, () -> Timetable.read(new BufferedReader(new StringReader("")), stationIndex));
+    }
+
+    @Test
+    public void generateTest() throws Exception {
+        RoutingGraph routingGraph = crossingLines();
+        TimetableGenerator timetableGenerator = new TimetableGenerator();
+        timetableGenerator.setServiceStart(6 * 3600);
+        timetableGenerator.setServiceEnd(7 * 3600);
+        timetableGenerator.setDefaultHeadway(900);
+        timetableGenerator.getHeadways().put("Red", 1800);
+
+        Timetable timetable = timetableGenerator.generate(routingGraph, lineSegments());
+
+        //blue runs E - B - F every 15 minutes and red A - B - C - D every 30, both ways
+        assertEquals(2 * 5 + 2 * 2, timetable.getTripCount());
+        assertEquals(2 * 5 * 2 + 2 * 2 * 3, timetable.getConnectionCount());
+        int[] departureTimes = timetable.getDepartureTimes();
+        for (int c = 0; c < timetable.getConnectionCount(); c++) {
+            assertTrue(c == 0 || departureTimes[c - 1] <= departureTimes[c]);
+            //2 km at 35 km/h
+            assertEquals(206, timetable.getArrivalTimes()[c] - departureTimes[c]);
+            assertNotEquals(-1, routingGraph.findArc(timetable.getDepartureStations()[c], timetable.getArrivalStations()[c]));
+        }
+
+        //a generated timetable written out reads back the same
+        StringWriter output = new StringWriter();
+        timetable.write(output, routingGraph.getStationNames());
+        Timetable reread = Timetable.read(new BufferedReader(new StringReader(output.toString())), new StationIndex(routingGraph.getStationNames()));
+        assertEquals(timetable.getTripCount(), reread.getTripCount());
+        assertArrayEquals(timetable.getArrivalTimes(), reread.getArrivalTimes());
+
+        timetableGenerator.setDefaultHeadway(0);
+        assertThrows(IllegalArgumentException.class, () -> timetableGenerator.generate(routingGraph, lineSegments()));
+    }
+}